@@ -0,0 +1,9 @@
+-- User ids moved from the users_seq sequence (int) to Snowflake ids (bigint).
+-- ddl-auto=update creates new columns but never widens existing ones, run this once on existing databases.
+-- Only the tables from before the change need it: posts, follows, bookmarks, conversation_members and messages
+-- were created with bigint user references. Postgres rewrites both tables, so run it while the API is stopped.
+BEGIN;
+ALTER TABLE user_role_junction ALTER COLUMN user_id TYPE bigint;
+ALTER TABLE users ALTER COLUMN user_id TYPE bigint;
+DROP SEQUENCE IF EXISTS users_seq;
+COMMIT;
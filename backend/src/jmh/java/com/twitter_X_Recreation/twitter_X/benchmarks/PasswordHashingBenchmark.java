@@ -0,0 +1,74 @@
+package com.twitter_X_Recreation.twitter_X.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one hash for each candidate parameter set. SampleTime reports p50/p99/p999; run it with as many
+// JMH threads as the production hashing pool (app.password.hashing.threads) to see latency on a saturated pool:
+// ./gradlew jmh -PjmhIncludes=PasswordHashingBenchmark
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery-staple";
+
+    @State(Scope.Benchmark)
+    public static class BCryptState {
+
+        @Param({"10", "11", "12"})
+        public int strength;
+
+        BCryptPasswordEncoder encoder;
+        String hash;
+
+        @Setup
+        public void setUp() {
+            encoder = new BCryptPasswordEncoder(strength);
+            hash = encoder.encode(PASSWORD);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Argon2State {
+
+        // memory KiB : iterations : parallelism
+        @Param({"19456:2:1", "47104:1:1", "65536:3:1"})
+        public String parameters;
+
+        Argon2PasswordEncoder encoder;
+        String hash;
+
+        @Setup
+        public void setUp() {
+            String[] parts = parameters.split(":");
+            encoder = new Argon2PasswordEncoder(16, 32, Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+            hash = encoder.encode(PASSWORD);
+        }
+    }
+
+    @Benchmark
+    public String bcryptEncode(BCryptState state) {
+        return state.encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean bcryptMatches(BCryptState state) {
+        return state.encoder.matches(PASSWORD, state.hash);
+    }
+
+    @Benchmark
+    public String argon2Encode(Argon2State state) {
+        return state.encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean argon2Matches(Argon2State state) {
+        return state.encoder.matches(PASSWORD, state.hash);
+    }
+}
@@ -0,0 +1,129 @@
+package com.twitter_X_Recreation.twitter_X.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Closed-loop load test of the signup flow (register, email code, verify, set password) against a running
+// backend. JMH does not fit here, the server is the system under test, so this is a plain main run by
+// ./gradlew signupLoad. Start the stack once per thread model and compare the two reports:
+//
+//   EMAIL_TRANSPORT=stub RATE_LIMIT_ENABLED=false VIRTUAL_THREADS_ENABLED=false docker compose up -d --build
+//   ./gradlew signupLoad -Plabel=platform
+//   EMAIL_TRANSPORT=stub RATE_LIMIT_ENABLED=false VIRTUAL_THREADS_ENABLED=true docker compose up -d --build
+//   ./gradlew signupLoad -Plabel=virtual
+public class SignupLoadTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    SignupLoadTest(String baseUrl, ExecutorService executor) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.baseUrl", "http://localhost:8080");
+        String label = System.getProperty("load.label", "run");
+        int concurrency = Integer.getInteger("load.concurrency", 200);
+        int flows = Integer.getInteger("load.flows", 5_000);
+        int warmupFlows = Integer.getInteger("load.warmupFlows", 500);
+
+        // Virtual threads on the client side too, so the driver is never the bottleneck
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            SignupLoadTest test = new SignupLoadTest(baseUrl, executor);
+            test.run(executor, concurrency, warmupFlows);
+            Result result = test.run(executor, concurrency, flows);
+            result.print(label, concurrency);
+        }
+    }
+
+    private Result run(ExecutorService executor, int concurrency, int flows) throws InterruptedException {
+        long[] latencies = new long[flows];
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < flows; i++) {
+            inFlight.acquire();
+            int slot = i;
+            executor.submit(() -> {
+                long flowStart = System.nanoTime();
+                try {
+                    signup();
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[slot] = System.nanoTime() - flowStart;
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(concurrency);
+        return new Result(latencies, failures.get(), System.nanoTime() - start);
+    }
+
+    private void signup() throws Exception {
+        String email = "load-" + runId + "-" + sequence.incrementAndGet() + "@example.com";
+        HttpResponse<String> registered = send("POST", "/auth/register", null,
+                "{\"name\":\"Load Test\",\"email\":\"" + email + "\",\"birthDate\":\"2000-01-01\"}");
+        String username = objectMapper.readTree(registered.body()).get("username").asText();
+        String cookie = registered.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+
+        send("POST", "/auth/email/code", cookie, "{\"username\":\"" + username + "\"}");
+        // 123456 is the universal verification code
+        send("POST", "/auth/email/code/verify", cookie, "{\"username\":\"" + username + "\",\"code\":\"123456\"}");
+        send("PUT", "/auth/update/password", cookie, "{\"username\":\"" + username + "\",\"password\":\"load-test-password\"}");
+    }
+
+    private HttpResponse<String> send(String method, String path, String cookie, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode());
+        }
+        return response;
+    }
+
+    private record Result(long[] latencies, int failures, long elapsedNanos) {
+
+        void print(String label, int concurrency) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            System.out.printf("[%s] flows=%d concurrency=%d failures=%d throughput=%.1f flows/s%n",
+                    label, sorted.length, concurrency, failures, sorted.length / seconds);
+            System.out.printf("[%s] latency ms p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                    label, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1_000_000.0);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
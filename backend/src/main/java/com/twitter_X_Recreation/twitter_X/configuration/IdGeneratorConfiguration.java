@@ -0,0 +1,19 @@
+package com.twitter_X_Recreation.twitter_X.configuration;
+
+import com.twitter_X_Recreation.twitter_X.models.SnowflakeIdentifierGenerator;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfiguration {
+
+    // Starts on worker 0, WorkerIdLeaseService swaps in the leased worker id before the app takes traffic
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${app.ids.max-clock-drift-ms:5000}") long maxDriftMs) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, maxDriftMs);
+        SnowflakeIdentifierGenerator.setIdGenerator(generator);
+        return generator;
+    }
+}
@@ -0,0 +1,23 @@
+package com.twitter_X_Recreation.twitter_X.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+// app.rate-limit.rules[n].path / method / ip.* / user.*, a rule without ip or user limits skips that check
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100000") int localMaxKeys,
+                                  List<Rule> rules) {
+
+    public RateLimitProperties {
+        rules = rules != null ? List.copyOf(rules) : List.of();
+    }
+
+    public record Rule(String path, String method, Limit ip, Limit user) {
+    }
+
+    public record Limit(int capacity, int refillPerMinute) {
+    }
+}
@@ -1,14 +1,22 @@
 package com.twitter_X_Recreation.twitter_X.configuration;
 
+import io.lettuce.core.resource.ClientResources;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
 
 @Configuration
 public class RedisConnectionConfiguration {
@@ -21,17 +29,42 @@ public class RedisConnectionConfiguration {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
 
+    // Lettuce multiplexes every command over one shared connection, so there is no pool to size for
+    // virtual threads. The timeout bounds how long a blocked caller waits when Redis stalls.
+    @Value("${app.redis.command-timeout-ms:2000}")
+    private long commandTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public RedisConnectionFactory redisConnectionFactory(ObjectProvider<ClientResources> clientResources) {
         logger.info("Configuring Redis connection to host: {} port: {}", redisHost, redisPort);
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
         config.setHostName(redisHost);
         config.setPort(redisPort);
-        return new LettuceConnectionFactory(config);
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofMillis(commandTimeoutMs));
+        // Boot's ClientResources carry the Micrometer command latency recorder (lettuce.command.*)
+        clientResources.ifAvailable(clientConfig::clientResources);
+        return new LettuceConnectionFactory(config, clientConfig.build());
     }
 
     @Bean
     public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         return new StringRedisTemplate(connectionFactory);
     }
+
+    // One container per node, every pub/sub channel is multiplexed over its single subscriber connection
+    @Bean
+    @ConditionalOnProperty(name = "app.redis.pubsub.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // Listeners run on a new thread per message, make those virtual along with the web tier
+        SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("redis-listener-");
+        listenerExecutor.setVirtualThreads(virtualThreads);
+        container.setTaskExecutor(listenerExecutor);
+        return container;
+    }
 }
@@ -1,29 +1,73 @@
 package com.twitter_X_Recreation.twitter_X.configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.filters.JwtAuthenticationFilter;
+import com.twitter_X_Recreation.twitter_X.filters.RateLimitFilter;
+import com.twitter_X_Recreation.twitter_X.services.JwtService;
+import com.twitter_X_Recreation.twitter_X.services.RateLimiterService;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfiguration {
 
+    // New hashes are written as {id}hash with the configured algorithm. Older unprefixed hashes are plain
+    // BCrypt and keep matching; upgradeEncoding() flags them (and lower costs) for a rehash on next verify.
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${app.password.bcrypt.strength:10}") int bcryptStrength,
+                                           @Value("${app.password.argon2.salt-length:16}") int argon2SaltLength,
+                                           @Value("${app.password.argon2.hash-length:32}") int argon2HashLength,
+                                           @Value("${app.password.argon2.parallelism:1}") int argon2Parallelism,
+                                           @Value("${app.password.argon2.memory-kib:19456}") int argon2MemoryKib,
+                                           @Value("${app.password.argon2.iterations:2}") int argon2Iterations){
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", new Argon2PasswordEncoder(argon2SaltLength, argon2HashLength, argon2Parallelism,
+                argon2MemoryKib, argon2Iterations));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception{
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtService jwtService, SessionService sessionService, RateLimiterService rateLimiterService,
+                                           RateLimitProperties rateLimitProperties, ObjectMapper objectMapper,
+                                           @Value("${management.server.port:-1}") int managementPort) throws Exception{
 
         //Already using JWT, CSRF tokens on a REST endpoint grant zero additional protection
         http.csrf(AbstractHttpConfigurer::disable);
 
+        // Not @Components on purpose, otherwise Boot would also register them on the servlet container
+        http.addFilterBefore(new JwtAuthenticationFilter(jwtService, sessionService), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(new RateLimitFilter(rateLimiterService, rateLimitProperties, objectMapper), JwtAuthenticationFilter.class);
+
+        // Metrics are internal: only served on the management port, even if the actuator ends up on the public one
         //TODO later change this
         http.authorizeHttpRequests(auth -> auth
+                .requestMatchers(request -> request.getRequestURI().startsWith("/actuator/prometheus")
+                        && request.getLocalPort() != managementPort).denyAll()
                 .anyRequest().permitAll()
         );
 
@@ -0,0 +1,30 @@
+package com.twitter_X_Recreation.twitter_X.configuration;
+
+import com.twitter_X_Recreation.twitter_X.services.MessageDeliveryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    private final MessageDeliveryService messageDeliveryService;
+    private final String frontEndOrigin;
+
+    public WebSocketConfiguration(MessageDeliveryService messageDeliveryService,
+                                  @Value("${spring.web.cors.allowed-origins}") String frontEndOrigin) {
+        this.messageDeliveryService = messageDeliveryService;
+        this.frontEndOrigin = frontEndOrigin;
+    }
+
+    // The handshake is a plain GET through the security filters, so the token cookie authenticates it
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(messageDeliveryService, "/ws/messages")
+                .addInterceptors(messageDeliveryService)
+                .setAllowedOrigins(frontEndOrigin);
+    }
+}
@@ -1,79 +1,61 @@
 package com.twitter_X_Recreation.twitter_X.controllers;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import com.twitter_X_Recreation.twitter_X.services.HealthProbeService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.data.redis.core.StringRedisTemplate;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+// Serves the results cached by HealthProbeService, no request here touches the database or Redis
 @RestController
+@RequestMapping("/actuator/health")
 public class ActuatorController {
 
-    @Autowired
-    private DataSource dataSource;
+    private final HealthProbeService healthProbeService;
 
-    private final StringRedisTemplate redisTemplate;
-
-    public ActuatorController(@Value("${spring.datasource.url}") String dataSourceUrl, StringRedisTemplate redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public ActuatorController(HealthProbeService healthProbeService) {
+        this.healthProbeService = healthProbeService;
     }
 
-
-
-    @GetMapping("/actuator/health")
+    @GetMapping
     public ResponseEntity<Map<String, Object>> health() {
-        Map<String, Object> healthStatus = new HashMap<>();
-        boolean isHealthy = true;
+        Map<String, Object> healthStatus = new LinkedHashMap<>();
+        healthStatus.put("database", status(healthProbeService.isUp(HealthProbeService.DATABASE)));
+        healthStatus.put("redis", status(healthProbeService.isUp(HealthProbeService.REDIS)));
 
-        // Check database connection
-        boolean dbHealthy = checkDatabaseConnection();
-        boolean redisHealthy = checkRedisConnection();
+        boolean isHealthy = healthProbeService.isHealthy();
+        healthStatus.put("status", status(isHealthy));
+        healthStatus.put("details", healthProbeService.getDetails());
 
-        // Build response map
-        healthStatus.put("database", dbHealthy ? "UP" : "DOWN");
-        healthStatus.put("redis", redisHealthy ? "UP" : "DOWN");
-
-        // Determine overall health
-        if (!dbHealthy || !redisHealthy) {
-            isHealthy = false;
-        }
+        return respond(isHealthy, healthStatus);
+    }
 
-        healthStatus.put("status", isHealthy ? "UP" : "DOWN");
+    // Load balancer target: take this node out of rotation
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        boolean ready = healthProbeService.isReady();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status(ready));
+        return respond(ready, body);
+    }
 
-        // Return response
-        if (isHealthy) {
-            return ResponseEntity.ok(healthStatus);
-        } else {
-            return ResponseEntity.status(503).body(healthStatus);
-        }
+    // Container health check: restart this node
+    @GetMapping("/liveness")
+    public ResponseEntity<Map<String, Object>> liveness() {
+        boolean live = healthProbeService.isLive();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status(live));
+        return respond(live, body);
     }
 
-    private boolean checkDatabaseConnection() {
-        try (Connection connection = dataSource.getConnection()) {
-            // Simple connection test - just verify we can get a connection
-            return connection != null && !connection.isClosed();
-        } catch (SQLException e) {
-            return false;
-        }
+    private static String status(boolean up) {
+        return up ? "UP" : "DOWN";
     }
 
-    public boolean checkRedisConnection() {
-        try {
-            assert redisTemplate.getConnectionFactory() != null;
-            String result = redisTemplate.getConnectionFactory()
-                    .getConnection()
-                    .ping();
-            return "PONG".equalsIgnoreCase(result);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    private static ResponseEntity<Map<String, Object>> respond(boolean up, Map<String, Object> body) {
+        return up ? ResponseEntity.ok(body) : ResponseEntity.status(503).body(body);
     }
 }
@@ -0,0 +1,121 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.UserImportSummary;
+import com.twitter_X_Recreation.twitter_X.exceptions.AdminPrivilegesRequiredException;
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.services.UserImportService;
+import com.twitter_X_Recreation.twitter_X.services.UserService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import com.twitter_X_Recreation.twitter_X.utils.UserImportReader;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+
+    public AdminController(UserService userService, UserImportService userImportService, ObjectMapper objectMapper) {
+        this.userService = userService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Streams the upload (NDJSON or CSV, by Content-Type) and answers with NDJSON as it goes:
+    // an "error" line per rejected row, a "progress" line per chunk and a final "summary" line
+    @PostMapping(value = "/users/import", consumes = {NDJSON, "text/csv"})
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        UserImportReader reader;
+        try {
+            requireAdmin(usernameFromToken);
+            reader = new UserImportReader(request.getInputStream(),
+                    UserImportReader.Format.fromContentType(request.getContentType()), objectMapper);
+        } catch (AdminPrivilegesRequiredException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.FORBIDDEN, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+
+        try (reader) {
+            UserImportSummary summary = userImportService.importUsers(reader, new UserImportService.Listener() {
+                @Override
+                public void onRowError(long lineNumber, String email, String error) {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("type", "error");
+                    line.put("line", lineNumber);
+                    line.put("email", email);
+                    line.put("error", error);
+                    write(out, line, false);
+                }
+
+                @Override
+                public void onProgress(UserImportSummary progress) {
+                    write(out, event("progress", progress), true);
+                }
+            });
+            write(out, event("summary", summary), true);
+        } catch (UncheckedIOException e) {
+            // The client went away, nothing left to report to
+            throw e.getCause();
+        } catch (Exception e) {
+            // Rows already committed stay imported, tell the client where the import stopped
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("type", "failed");
+            line.put("error", e.getMessage());
+            write(out, line, true);
+        }
+    }
+
+    private void requireAdmin(String username) {
+        ApplicationUser user = userService.getUserByUsername(username);
+        boolean admin = user.getAuthorities().stream().anyMatch(role -> "ADMIN".equals(role.getAuthority()));
+        if (!admin) {
+            throw new AdminPrivilegesRequiredException();
+        }
+    }
+
+    private static Map<String, Object> event(String type, UserImportSummary summary) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("type", type);
+        line.put("processed", summary.processed());
+        line.put("imported", summary.imported());
+        line.put("failed", summary.failed());
+        line.put("elapsedMs", summary.elapsedMs());
+        return line;
+    }
+
+    private void write(OutputStream out, Map<String, Object> line, boolean flush) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            if (flush) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
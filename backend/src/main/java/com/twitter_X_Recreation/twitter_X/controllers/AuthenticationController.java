@@ -1,14 +1,15 @@
 package com.twitter_X_Recreation.twitter_X.controllers;
 
-import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.MACVerifier;
-import com.nimbusds.jwt.SignedJWT;
 import com.twitter_X_Recreation.twitter_X.dto.UpdatePhoneRequest;
 import com.twitter_X_Recreation.twitter_X.dto.UserResponseDTO;
 import com.twitter_X_Recreation.twitter_X.exceptions.*;
 import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
 import com.twitter_X_Recreation.twitter_X.models.RegistrationObject;
+import com.twitter_X_Recreation.twitter_X.filters.JwtAuthenticationFilter;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
 import com.twitter_X_Recreation.twitter_X.services.UserService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,10 +26,12 @@ import java.util.Map;
 public class AuthenticationController {
 
     private final UserService userService;
+    private final SessionService sessionService;
 
     @Autowired
-    public AuthenticationController(UserService userService){
+    public AuthenticationController(UserService userService, SessionService sessionService){
         this.userService = userService;
+        this.sessionService = sessionService;
     }
 
     @ExceptionHandler({EmailAlreadyTakenException.class})
@@ -52,42 +55,40 @@ public class AuthenticationController {
         }
     }
 
+    @GetMapping("/username/available")
+    public ResponseEntity<?> isUsernameAvailable(@RequestParam(name = "username", required = false) String username) {
+        Map<String, Object> responseBody = new LinkedHashMap<>();
+        if (username == null || username.isBlank()) {
+            responseBody.put("error", "Username parameter is required");
+            return new ResponseEntity<>(responseBody, HttpStatus.BAD_REQUEST);
+        }
+
+        boolean available = userService.isUsernameAvailable(username.trim());
+        responseBody.put("available", available);
+        responseBody.put("message", available ? "Username is available" : "Username is already taken");
+        return ResponseEntity.ok(responseBody);
+    }
+
     @ExceptionHandler({UserDoesNotExistException.class})
     public ResponseEntity<String> handleUserDoesNotExist() {
             return new ResponseEntity<>("The user does not exist", HttpStatus.NOT_FOUND);
         }
     @PutMapping("/update/phone")
     public ResponseEntity<?> updatePhoneNumber(@RequestBody UpdatePhoneRequest phoneUpdateRequest,
-                                               @CookieValue(name = "register_token", required = false) String token,
                                                HttpServletRequest request) {
-        if (token == null || token.isEmpty()) {
-            throw new MissingAuthenticationTokenException();
-            }
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
 
         try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(userService.getJwtSecret().getBytes());
-
-            if (!signedJWT.verify(verifier)) {
-                throw new InvalidJWTException();
-            }
-
-            String usernameFromToken = signedJWT.getJWTClaimsSet().getSubject();
-            ApplicationUser user = userService.getUserByUsername(phoneUpdateRequest.getUsername());
-
-            if (!usernameFromToken.equals(user.getUsername())) {
+            if (!usernameFromToken.equals(phoneUpdateRequest.getUsername())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Username mismatch");
             }
 
-            user.setPhoneNumber(phoneUpdateRequest.getPhoneNumber());
-            userService.updateUser(user);
+            userService.updatePhoneNumber(usernameFromToken, phoneUpdateRequest.getPhoneNumber());
 
             Map<String, String> responseBody = new LinkedHashMap<>();
             responseBody.put("message", "Phone number updated successfully");
             return ResponseEntity.ok(responseBody);
 
-            } catch (MissingAuthenticationTokenException | InvalidJWTException e) {
-                throw ApiExceptionHandler.of(request, HttpStatus.UNAUTHORIZED, e);
             } catch (Exception e) {
                 throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
             }
@@ -98,21 +99,11 @@ public class AuthenticationController {
         }
 
     @PostMapping("/email/code")
-    public ResponseEntity<?> createEmailVerificationCode(@RequestBody LinkedHashMap<String, String> body,HttpServletRequest request,
-                                                             @CookieValue(name = "register_token", required = false) String token) {
-        if (token == null || token.isEmpty()) {
-            throw new MissingAuthenticationTokenException();
-        }
-        try {
-
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(userService.getJwtSecret().getBytes());
+    public ResponseEntity<?> createEmailVerificationCode(@RequestBody LinkedHashMap<String, String> body,
+                                                             HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
 
-            if (!signedJWT.verify(verifier)) {
-                throw new InvalidJWTException();
-            }
-
-            String usernameFromToken = signedJWT.getJWTClaimsSet().getSubject();
+        try {
             String usernameFromBody = body.get("username");
 
             if (!usernameFromToken.equals(usernameFromBody)) {
@@ -141,21 +132,10 @@ public class AuthenticationController {
     }
 
     @PostMapping("/email/code/verify")
-    public ResponseEntity<?> verifyEmailCode(@RequestBody LinkedHashMap<String, String> body, HttpServletRequest request,
-                                             @CookieValue(name = "register_token", required = false) String token) {
-        if (token == null || token.isEmpty()) {
-            throw new MissingAuthenticationTokenException();
-        }
-        try {
-
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(userService.getJwtSecret().getBytes());
-
-            if (!signedJWT.verify(verifier)) {
-                throw new InvalidJWTException();
-            }
+    public ResponseEntity<?> verifyEmailCode(@RequestBody LinkedHashMap<String, String> body, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
 
-            String usernameFromToken = signedJWT.getJWTClaimsSet().getSubject();
+        try {
             String usernameFromBody = body.get("username");
 
             if (!usernameFromToken.equals(usernameFromBody)) {
@@ -175,21 +155,10 @@ public class AuthenticationController {
 
     @PutMapping("/update/password")
     public ResponseEntity<?> updatePassword(@RequestBody LinkedHashMap<String, String> body, HttpServletResponse response,
-                                            @CookieValue(name = "register_token", required = false) String token,
                                             HttpServletRequest request) {
-        if (token == null || token.isEmpty()) {
-            throw new MissingAuthenticationTokenException();
-        }
-        try {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
 
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWSVerifier verifier = new MACVerifier(userService.getJwtSecret().getBytes());
-
-            if (!signedJWT.verify(verifier)) {
-                throw new InvalidJWTException();
-            }
-
-            String usernameFromToken = signedJWT.getJWTClaimsSet().getSubject();
+        try {
             String usernameFromBody = body.get("username");
 
             if (!usernameFromToken.equals(usernameFromBody)) {
@@ -197,7 +166,8 @@ public class AuthenticationController {
             }
 
             String password = body.get("password");
-            userService.setPassword(usernameFromToken, password, response);
+            userService.setPassword(usernameFromToken, password,
+                    (Long) request.getAttribute(JwtAuthenticationFilter.SESSION_ID_ATTRIBUTE), response);
 
             Map<String, String> responseBody = new LinkedHashMap<>();
             responseBody.put("message", "Password updated successfully");
@@ -206,4 +176,73 @@ public class AuthenticationController {
             throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
             }
         }
-}
\ No newline at end of file
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody LinkedHashMap<String, String> body, HttpServletResponse response,
+                                   HttpServletRequest request) {
+        try {
+            SessionService.SessionTokens tokens = userService.login(body.get("identifier"), body.get("password"), response);
+
+            Map<String, String> responseBody = new LinkedHashMap<>();
+            responseBody.put("message", "Logged in successfully");
+            responseBody.put("username", tokens.username());
+            return new ResponseEntity<>(responseBody, HttpStatus.OK);
+        } catch (InvalidCredentialsException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.UNAUTHORIZED, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(HttpServletResponse response, HttpServletRequest request) {
+        try {
+            SessionService.SessionTokens tokens = sessionService.refresh(refreshToken(request));
+            sessionService.writeCookies(response, tokens);
+
+            Map<String, String> responseBody = new LinkedHashMap<>();
+            responseBody.put("message", "Session refreshed");
+            responseBody.put("username", tokens.username());
+            return new ResponseEntity<>(responseBody, HttpStatus.OK);
+        } catch (InvalidRefreshTokenException e) {
+            sessionService.clearCookies(response);
+            throw ApiExceptionHandler.of(request, HttpStatus.UNAUTHORIZED, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Revokes the session of the refresh cookie when its secret matches, otherwise the session of the
+    // verified access token; a cookie with someone else's session id revokes nothing
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(HttpServletResponse response, HttpServletRequest request) {
+        try {
+            String refreshToken = refreshToken(request);
+            if (refreshToken == null || !sessionService.revoke(refreshToken)) {
+                Long sessionId = (Long) request.getAttribute(JwtAuthenticationFilter.SESSION_ID_ATTRIBUTE);
+                if (sessionId != null) {
+                    sessionService.revoke(sessionId);
+                }
+            }
+            sessionService.clearCookies(response);
+
+            Map<String, String> responseBody = new LinkedHashMap<>();
+            responseBody.put("message", "Logged out successfully");
+            return new ResponseEntity<>(responseBody, HttpStatus.OK);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    private static String refreshToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (SessionService.REFRESH_COOKIE.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
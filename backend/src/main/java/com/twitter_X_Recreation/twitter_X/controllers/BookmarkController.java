@@ -0,0 +1,72 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.exceptions.PostDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.services.BookmarkService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/bookmarks")
+public class BookmarkController {
+
+    private final BookmarkService bookmarkService;
+
+    public BookmarkController(BookmarkService bookmarkService) {
+        this.bookmarkService = bookmarkService;
+    }
+
+    // Newest bookmark first, paged with ?before=<nextCursor>
+    @GetMapping
+    public ResponseEntity<?> getBookmarks(@RequestParam(name = "before", required = false) String before,
+                                          @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                          HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            return ResponseEntity.ok(bookmarkService.getBookmarks(usernameFromToken, before, limit));
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @PostMapping("/{postId}")
+    public ResponseEntity<?> addBookmark(@PathVariable("postId") String postId, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            boolean created = bookmarkService.addBookmark(usernameFromToken, Long.parseLong(postId));
+
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("bookmarked", true);
+            responseBody.put("message", created ? "Post bookmarked" : "Post already bookmarked");
+            return new ResponseEntity<>(responseBody, created ? HttpStatus.CREATED : HttpStatus.OK);
+        } catch (PostDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @DeleteMapping("/{postId}")
+    public ResponseEntity<?> removeBookmark(@PathVariable("postId") String postId, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            boolean removed = bookmarkService.removeBookmark(usernameFromToken, Long.parseLong(postId));
+
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("bookmarked", false);
+            responseBody.put("message", removed ? "Bookmark removed" : "Post was not bookmarked");
+            return ResponseEntity.ok(responseBody);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
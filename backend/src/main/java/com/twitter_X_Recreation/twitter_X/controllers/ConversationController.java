@@ -0,0 +1,124 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.exceptions.ConversationDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MessageNotSentException;
+import com.twitter_X_Recreation.twitter_X.exceptions.UserDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.services.MessageService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Direct messages over REST; new messages are pushed to the participants' open sockets (/ws/messages)
+@RestController
+@RequestMapping("/conversations")
+public class ConversationController {
+
+    private final MessageService messageService;
+
+    public ConversationController(MessageService messageService) {
+        this.messageService = messageService;
+    }
+
+    // Latest activity first, paged with ?before=<nextCursor>
+    @GetMapping
+    public ResponseEntity<?> getConversations(@RequestParam(name = "before", required = false) String before,
+                                              @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                              HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            return ResponseEntity.ok(messageService.getConversations(usernameFromToken, before, limit));
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Body: username of the other participant. Returns the existing conversation if there is one
+    @PostMapping
+    public ResponseEntity<?> openConversation(@RequestBody LinkedHashMap<String, String> body, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            return ResponseEntity.ok(messageService.openConversation(usernameFromToken, body.get("username")));
+        } catch (UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @GetMapping("/unread")
+    public ResponseEntity<?> getUnreadCount(HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("unread", messageService.getUnreadCount(usernameFromToken));
+            return ResponseEntity.ok(responseBody);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Newest first, paged with ?before=<nextCursor>
+    @GetMapping("/{conversationId}/messages")
+    public ResponseEntity<?> getMessages(@PathVariable("conversationId") String conversationId,
+                                         @RequestParam(name = "before", required = false) String before,
+                                         @RequestParam(name = "limit", defaultValue = "30") int limit,
+                                         HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            return ResponseEntity.ok(messageService.getMessages(usernameFromToken, Long.parseLong(conversationId), before, limit));
+        } catch (ConversationDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Body: text
+    @PostMapping("/{conversationId}/messages")
+    public ResponseEntity<?> sendMessage(@PathVariable("conversationId") String conversationId,
+                                         @RequestBody LinkedHashMap<String, String> body,
+                                         HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            return new ResponseEntity<>(messageService.sendMessage(usernameFromToken, Long.parseLong(conversationId),
+                    body.get("text")), HttpStatus.CREATED);
+        } catch (ConversationDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (MessageNotSentException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.SERVICE_UNAVAILABLE, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Body: messageId, the newest message the client has shown
+    @PostMapping("/{conversationId}/read")
+    public ResponseEntity<?> markRead(@PathVariable("conversationId") String conversationId,
+                                      @RequestBody LinkedHashMap<String, String> body,
+                                      HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            messageService.markRead(usernameFromToken, Long.parseLong(conversationId), Long.parseLong(body.get("messageId")));
+
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("unread", 0);
+            return ResponseEntity.ok(responseBody);
+        } catch (ConversationDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.exceptions.MissingAuthenticationTokenException;
+import com.twitter_X_Recreation.twitter_X.exceptions.UserDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.services.FollowService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/users/{username}")
+public class FollowController {
+
+    private final FollowService followService;
+
+    public FollowController(FollowService followService) {
+        this.followService = followService;
+    }
+
+    @PostMapping("/follow")
+    public ResponseEntity<?> follow(@PathVariable("username") String username, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            boolean created = followService.follow(usernameFromToken, username);
+
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("following", true);
+            responseBody.put("message", created ? "Followed " + username : "Already following " + username);
+            return new ResponseEntity<>(responseBody, created ? HttpStatus.CREATED : HttpStatus.OK);
+        } catch (UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @DeleteMapping("/follow")
+    public ResponseEntity<?> unfollow(@PathVariable("username") String username, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            boolean removed = followService.unfollow(usernameFromToken, username);
+
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("following", false);
+            responseBody.put("message", removed ? "Unfollowed " + username : "Not following " + username);
+            return ResponseEntity.ok(responseBody);
+        } catch (UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Follower/following counts; with a token also followsYou, youFollow and followed-by hints
+    @GetMapping("/follow-stats")
+    public ResponseEntity<?> getFollowStats(@PathVariable("username") String username, HttpServletRequest request) {
+        String viewer;
+        try {
+            viewer = AuthenticationUtil.getAuthenticatedUsername(request);
+        } catch (MissingAuthenticationTokenException e) {
+            viewer = null;
+        }
+
+        try {
+            return ResponseEntity.ok(followService.getFollowStats(viewer, username));
+        } catch (UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidImageException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MediaBusyException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MediaDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.exceptions.UserDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.services.MediaService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import com.twitter_X_Recreation.twitter_X.utils.ImageProcessor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class MediaController {
+
+    private final MediaService mediaService;
+
+    public MediaController(MediaService mediaService) {
+        this.mediaService = mediaService;
+    }
+
+    // Multipart field "image"; x, y, width and height pick the crop in source pixels, centered when absent
+    @PostMapping("/media/avatar")
+    public ResponseEntity<?> uploadAvatar(@RequestParam(name = "image", required = false) MultipartFile image,
+                                          @RequestParam(name = "x", required = false) Integer x,
+                                          @RequestParam(name = "y", required = false) Integer y,
+                                          @RequestParam(name = "width", required = false) Integer width,
+                                          @RequestParam(name = "height", required = false) Integer height,
+                                          HttpServletRequest request) {
+        return upload(MediaService.Kind.AVATAR, image, crop(x, y, width, height), request);
+    }
+
+    @PostMapping("/media/banner")
+    public ResponseEntity<?> uploadBanner(@RequestParam(name = "image", required = false) MultipartFile image,
+                                          @RequestParam(name = "x", required = false) Integer x,
+                                          @RequestParam(name = "y", required = false) Integer y,
+                                          @RequestParam(name = "width", required = false) Integer width,
+                                          @RequestParam(name = "height", required = false) Integer height,
+                                          HttpServletRequest request) {
+        return upload(MediaService.Kind.BANNER, image, crop(x, y, width, height), request);
+    }
+
+    // Content addressed, so cacheable forever
+    @RequestMapping(value = "/media/{fileName}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getMedia(@PathVariable("fileName") String fileName, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            mediaService.serve(fileName, request, response);
+        } catch (MediaDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    // Redirects to the current image; 404 means the client shows its default
+    @GetMapping("/users/{username}/avatar")
+    public ResponseEntity<?> getAvatar(@PathVariable("username") String username, HttpServletRequest request) {
+        return redirect(MediaService.Kind.AVATAR, username, request);
+    }
+
+    @GetMapping("/users/{username}/banner")
+    public ResponseEntity<?> getBanner(@PathVariable("username") String username, HttpServletRequest request) {
+        return redirect(MediaService.Kind.BANNER, username, request);
+    }
+
+    private ResponseEntity<?> upload(MediaService.Kind kind, MultipartFile image, ImageProcessor.Crop crop,
+                                     HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            String hash = mediaService.upload(usernameFromToken, kind, image, crop);
+
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("hash", hash);
+            responseBody.put("url", MediaService.url(hash));
+            return new ResponseEntity<>(responseBody, HttpStatus.CREATED);
+        } catch (UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (MediaBusyException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.SERVICE_UNAVAILABLE, e);
+        } catch (InvalidImageException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    private ResponseEntity<?> redirect(MediaService.Kind kind, String username, HttpServletRequest request) {
+        try {
+            return mediaService.lookup(kind, username)
+                    .<ResponseEntity<?>>map(hash -> ResponseEntity.status(HttpStatus.FOUND)
+                            .header(HttpHeaders.LOCATION, MediaService.url(hash))
+                            .header(HttpHeaders.CACHE_CONTROL, "public, max-age=60")
+                            .build())
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.SERVICE_UNAVAILABLE, e);
+        }
+    }
+
+    private static ImageProcessor.Crop crop(Integer x, Integer y, Integer width, Integer height) {
+        if (x == null || y == null || width == null || height == null) {
+            return null;
+        }
+        return new ImageProcessor.Crop(x, y, width, height);
+    }
+}
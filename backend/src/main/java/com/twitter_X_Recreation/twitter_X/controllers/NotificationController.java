@@ -0,0 +1,60 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.services.NotificationService;
+import com.twitter_X_Recreation.twitter_X.services.NotificationStreamService;
+import com.twitter_X_Recreation.twitter_X.services.UserService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+
+    private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final UserService userService;
+
+    public NotificationController(NotificationService notificationService,
+                                  NotificationStreamService notificationStreamService,
+                                  UserService userService) {
+        this.notificationService = notificationService;
+        this.notificationStreamService = notificationStreamService;
+        this.userService = userService;
+    }
+
+    // Most recent notifications, newest first
+    @GetMapping
+    public ResponseEntity<?> getNotifications(@RequestParam(name = "limit", defaultValue = "20") int limit,
+                                              HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            long userId = userService.getUserByUsername(usernameFromToken).getUserId();
+            return ResponseEntity.ok(notificationService.getRecent(userId, limit));
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.SERVICE_UNAVAILABLE, e);
+        }
+    }
+
+    // EventSource endpoint (authenticated by the access token cookie). A reconnecting EventSource sends
+    // Last-Event-ID by itself, a page that opens a new one can pass the last id it saw as ?lastEventId=
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(name = "lastEventId", required = false) String lastEventIdParam,
+                             HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            long userId = userService.getUserByUsername(usernameFromToken).getUserId();
+            return notificationStreamService.open(userId, lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
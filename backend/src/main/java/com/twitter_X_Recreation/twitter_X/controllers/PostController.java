@@ -0,0 +1,72 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.dto.PostPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.exceptions.PostDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.exceptions.UserDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.services.PostService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+
+@RestController
+@RequestMapping("/posts")
+public class PostController {
+
+    private final PostService postService;
+
+    public PostController(PostService postService) {
+        this.postService = postService;
+    }
+
+    // Body: text, optional inReplyToId / quoteOfId (ids as strings)
+    @PostMapping
+    public ResponseEntity<?> createPost(@RequestBody LinkedHashMap<String, String> body, HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            PostResponseDTO post = postService.createPost(usernameFromToken, body.get("text"),
+                    parseId(body.get("inReplyToId")), parseId(body.get("quoteOfId")));
+            return new ResponseEntity<>(post, HttpStatus.CREATED);
+        } catch (PostDoesNotExistException | UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @GetMapping("/{postId}")
+    public ResponseEntity<?> getPost(@PathVariable("postId") String postId, HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(postService.getPost(Long.parseLong(postId)));
+        } catch (PostDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    @GetMapping("/user/{username}")
+    public ResponseEntity<?> getPostsByAuthor(@PathVariable("username") String username,
+                                              @RequestParam(name = "before", required = false) String before,
+                                              @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                              HttpServletRequest request) {
+        try {
+            PostPageDTO page = postService.getPostsByAuthor(username, parseId(before), limit);
+            return ResponseEntity.ok(page);
+        } catch (UserDoesNotExistException e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.NOT_FOUND, e);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    private static Long parseId(String value) {
+        return value == null || value.isBlank() ? null : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,50 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.services.SearchService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Typeahead: users whose username, name or a word of their name starts with q, most followed first
+    @GetMapping("/users")
+    public ResponseEntity<?> searchUsers(@RequestParam(name = "q", defaultValue = "") String query,
+                                         @RequestParam(name = "limit", defaultValue = "10") int limit,
+                                         HttpServletRequest request) {
+        try {
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("users", searchService.searchUsers(query, limit));
+            return ResponseEntity.ok(responseBody);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+
+    // Posts containing every word of q, newest first, paged with ?before=<nextCursor>
+    @GetMapping("/posts")
+    public ResponseEntity<?> searchPosts(@RequestParam(name = "q", defaultValue = "") String query,
+                                         @RequestParam(name = "before", required = false) String before,
+                                         @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                         HttpServletRequest request) {
+        try {
+            Long cursor = before == null || before.isBlank() ? null : Long.parseLong(before);
+            return ResponseEntity.ok(searchService.searchPosts(query, cursor, limit));
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.services.TimelineService;
+import com.twitter_X_Recreation.twitter_X.services.UserService;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/timeline")
+public class TimelineController {
+
+    private final TimelineService timelineService;
+    private final UserService userService;
+
+    public TimelineController(TimelineService timelineService, UserService userService) {
+        this.timelineService = timelineService;
+        this.userService = userService;
+    }
+
+    // "Following" tab: own posts and posts of followed accounts, newest first, paged with ?before=<nextCursor>
+    @GetMapping("/home")
+    public ResponseEntity<?> getHomeTimeline(@RequestParam(name = "before", required = false) String before,
+                                             @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                             HttpServletRequest request) {
+        String usernameFromToken = AuthenticationUtil.getAuthenticatedUsername(request);
+
+        try {
+            long userId = userService.getUserByUsername(usernameFromToken).getUserId();
+            Long cursor = before == null || before.isBlank() ? null : Long.parseLong(before);
+            return ResponseEntity.ok(timelineService.getHomeTimeline(userId, cursor, limit));
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
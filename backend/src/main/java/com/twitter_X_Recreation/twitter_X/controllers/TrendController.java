@@ -0,0 +1,35 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.services.TrendService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/trends")
+public class TrendController {
+
+    private final TrendService trendService;
+
+    public TrendController(TrendService trendService) {
+        this.trendService = trendService;
+    }
+
+    // "What's happening": the most posted hashtags and words of the last window, across all nodes
+    @GetMapping
+    public ResponseEntity<?> getTrends(@RequestParam(name = "limit", defaultValue = "10") int limit,
+                                       HttpServletRequest request) {
+        try {
+            Map<String, Object> responseBody = new LinkedHashMap<>();
+            responseBody.put("trends", trendService.getTrends(limit));
+            return ResponseEntity.ok(responseBody);
+        } catch (Exception e) {
+            throw ApiExceptionHandler.of(request, HttpStatus.BAD_REQUEST, e);
+        }
+    }
+}
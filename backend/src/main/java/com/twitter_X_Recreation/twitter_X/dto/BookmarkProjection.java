@@ -0,0 +1,8 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+public interface BookmarkProjection {
+
+    Long getPostId();
+
+    Long getCreatedAt();
+}
@@ -0,0 +1,65 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.models.Role;
+
+import java.sql.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Immutable snapshot of a user kept in the user caches. Callers always get a fresh ApplicationUser
+// from toUser(), so mutating a returned user can never leak into the cache. The password hash is left
+// out, it is only ever read through LoginCredentialsProjection and must not sit in Redis.
+public record CachedUser(Long userId,
+                         String username,
+                         String name,
+                         String email,
+                         String phoneNumber,
+                         Long birthDate,
+                         Boolean enabled,
+                         List<Integer> roleIds,
+                         String avatarHash,
+                         String bannerHash) {
+
+    public static CachedUser of(ApplicationUser user) {
+        return new CachedUser(
+                user.getUserId(),
+                user.getUsername(),
+                user.getName(),
+                user.getEmail(),
+                user.getPhoneNumber(),
+                user.getBirthDate() != null ? user.getBirthDate().getTime() : null,
+                user.getEnabled(),
+                user.getAuthorities().stream().map(Role::getRoleId).toList(),
+                user.getAvatarHash(),
+                user.getBannerHash()
+        );
+    }
+
+    public ApplicationUser toUser(Function<Integer, Role> roleResolver) {
+        ApplicationUser user = new ApplicationUser();
+        user.setUserId(userId);
+        user.setUsername(username);
+        user.setName(name);
+        user.setEmail(email);
+        user.setPhoneNumber(phoneNumber);
+        user.setBirthDate(birthDate != null ? new Date(birthDate) : null);
+        user.setEnabled(enabled);
+        user.setAvatarHash(avatarHash);
+        user.setBannerHash(bannerHash);
+
+        Set<Role> roles = new HashSet<>();
+        if (roleIds != null) {
+            for (Integer roleId : roleIds) {
+                Role role = roleResolver.apply(roleId);
+                if (role != null) {
+                    roles.add(role);
+                }
+            }
+        }
+        user.setAuthorities(roles);
+        return user;
+    }
+}
@@ -0,0 +1,10 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+// The other participant and the id of the latest message (null before the first one)
+public record ConversationDTO(String conversationId,
+                              String userId,
+                              String username,
+                              String name,
+                              String lastMessageId,
+                              long unread) {
+}
@@ -0,0 +1,17 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+public interface ConversationProjection {
+
+    Long getConversationId();
+
+    Long getLastMessageId();
+
+    // coalesce(last message id, conversation id), the sort key of the conversation list
+    Long getActivityId();
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getName();
+}
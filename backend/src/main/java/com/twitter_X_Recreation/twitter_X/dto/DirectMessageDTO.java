@@ -0,0 +1,22 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+
+import java.time.Instant;
+
+public record DirectMessageDTO(String messageId,
+                               String conversationId,
+                               String senderId,
+                               String text,
+                               Instant createdAt) {
+
+    // createdAt comes from the Snowflake message id
+    public static DirectMessageDTO of(long conversationId, long messageId, long senderId, String text) {
+        return new DirectMessageDTO(
+                String.valueOf(messageId),
+                String.valueOf(conversationId),
+                String.valueOf(senderId),
+                text,
+                Instant.ofEpochMilli(SnowflakeIdGenerator.timestampOf(messageId)));
+    }
+}
@@ -0,0 +1,13 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+import java.util.List;
+
+// followsYou / youFollow are null when there is no signed in viewer or the viewer is the user itself.
+// followedBy holds up to a few usernames out of followedByCount accounts the viewer follows that follow the user.
+public record FollowStatsDTO(long followers,
+                             long following,
+                             Boolean followsYou,
+                             Boolean youFollow,
+                             long followedByCount,
+                             List<String> followedBy) {
+}
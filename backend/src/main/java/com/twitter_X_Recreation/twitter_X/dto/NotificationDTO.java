@@ -0,0 +1,20 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+// type is follow, reply or quote; postId is the reply or quote itself. id is the position in the user's
+// notification buffer, it is the SSE event id and what a reconnecting client sends back as Last-Event-ID.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NotificationDTO(String id,
+                              String type,
+                              String actorUsername,
+                              String actorName,
+                              String postId,
+                              Instant createdAt) {
+
+    public NotificationDTO withId(String id) {
+        return new NotificationDTO(id, type, actorUsername, actorName, postId, createdAt);
+    }
+}
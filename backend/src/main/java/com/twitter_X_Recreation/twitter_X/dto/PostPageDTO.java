@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+import java.util.List;
+
+// nextCursor is passed back as ?before= for the next page, null on the last one
+public record PostPageDTO(List<PostResponseDTO> posts, String nextCursor) {
+}
@@ -0,0 +1,14 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+public interface PostProjection {
+
+    Long getPostId();
+
+    Long getAuthorId();
+
+    String getText();
+
+    Long getInReplyToId();
+
+    Long getQuoteOfId();
+}
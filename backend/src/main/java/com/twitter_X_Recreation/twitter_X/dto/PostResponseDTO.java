@@ -0,0 +1,30 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+
+import java.time.Instant;
+
+// Ids are 64 bit and go out as strings, JavaScript numbers lose precision above 2^53
+public record PostResponseDTO(String postId,
+                              String authorId,
+                              String authorUsername,
+                              String authorName,
+                              String text,
+                              String inReplyToId,
+                              String quoteOfId,
+                              Instant createdAt) {
+
+    // createdAt comes from the Snowflake post id
+    public static PostResponseDTO of(long postId, long authorId, String authorUsername, String authorName, String text,
+                                     Long inReplyToId, Long quoteOfId) {
+        return new PostResponseDTO(
+                String.valueOf(postId),
+                String.valueOf(authorId),
+                authorUsername,
+                authorName,
+                text,
+                inReplyToId != null ? String.valueOf(inReplyToId) : null,
+                quoteOfId != null ? String.valueOf(quoteOfId) : null,
+                Instant.ofEpochMilli(SnowflakeIdGenerator.timestampOf(postId)));
+    }
+}
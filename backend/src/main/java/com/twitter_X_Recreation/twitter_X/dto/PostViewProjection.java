@@ -0,0 +1,9 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+// A post with the author columns it is rendered with
+public interface PostViewProjection extends PostProjection {
+
+    String getAuthorUsername();
+
+    String getAuthorName();
+}
@@ -0,0 +1,5 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+// topic is "#tag" for hashtags, a plain word otherwise; posts is the approximate count over the trend window
+public record TrendDTO(String topic, long posts) {
+}
@@ -0,0 +1,10 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+public interface UserIdentityProjection {
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getEmail();
+}
@@ -0,0 +1,4 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+public record UserImportSummary(long processed, long imported, long failed, long elapsedMs) {
+}
@@ -0,0 +1,12 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+public interface UserMediaProjection {
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getAvatarHash();
+
+    String getBannerHash();
+}
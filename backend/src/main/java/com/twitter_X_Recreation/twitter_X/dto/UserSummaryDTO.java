@@ -0,0 +1,5 @@
+package com.twitter_X_Recreation.twitter_X.dto;
+
+// A search hit, ids go out as strings like everywhere else
+public record UserSummaryDTO(String userId, String username, String name) {
+}
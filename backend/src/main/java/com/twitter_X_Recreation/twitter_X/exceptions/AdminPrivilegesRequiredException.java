@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class AdminPrivilegesRequiredException extends RuntimeException {
+    public AdminPrivilegesRequiredException() {
+        super("This operation requires admin privileges");
+    }
+}
@@ -1,6 +1,8 @@
 package com.twitter_X_Recreation.twitter_X.exceptions;
 
 import com.twitter_X_Recreation.twitter_X.dto.ApiErrorResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,10 +10,25 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @ControllerAdvice
 public class ApiExceptionHandler {
 
+    // api.errors{exception, status}: one counter per exception class and status, created on first use
+    // and found again with two map lookups, nothing is built per request
+    private final MeterRegistry meterRegistry;
+    private final Map<HttpStatus, Map<String, Counter>> errorCounters = new EnumMap<>(HttpStatus.class);
+
+    public ApiExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (HttpStatus status : HttpStatus.values()) {
+            errorCounters.put(status, new ConcurrentHashMap<>());
+        }
+    }
+
     public static class ApiErrorException extends RuntimeException {
         private final String exception;
         private final String error;
@@ -52,10 +69,14 @@ public class ApiExceptionHandler {
     }
 
     public static ApiErrorException of(HttpServletRequest request, HttpStatus status, Exception e) {
-        HttpStatus resolvedStatus =
-                (e instanceof MissingAuthenticationTokenException || e instanceof InvalidJWTException)
-                        ? HttpStatus.UNAUTHORIZED
-                        : status;
+        HttpStatus resolvedStatus;
+        if (e instanceof MissingAuthenticationTokenException || e instanceof InvalidJWTException) {
+            resolvedStatus = HttpStatus.UNAUTHORIZED;
+        } else if (e instanceof PasswordHashingUnavailableException) {
+            resolvedStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        } else {
+            resolvedStatus = status;
+        }
         return new ApiErrorException.Builder()
                 .exception(e.getClass().getSimpleName())
                 .error(e.getMessage())
@@ -71,6 +92,7 @@ public class ApiExceptionHandler {
 
         String path = e.getPath() != null ? e.getPath() : request.getRequestURI();
         OffsetDateTime timestamp = e.getTimestamp();
+        countError(e.getException(), e.getStatus());
 
         ApiErrorResponseDTO response = new ApiErrorResponseDTO(
                 e.getError(),
@@ -86,6 +108,7 @@ public class ApiExceptionHandler {
     public ResponseEntity<ApiErrorResponseDTO> handleMissingAuthenticationTokenException(
             MissingAuthenticationTokenException e,
             HttpServletRequest request) {
+        countError(e.getClass().getSimpleName(), HttpStatus.UNAUTHORIZED);
 
         ApiErrorResponseDTO response = new ApiErrorResponseDTO(
                 e.getMessage(),
@@ -101,6 +124,7 @@ public class ApiExceptionHandler {
     public ResponseEntity<ApiErrorResponseDTO> handleInvalidJWTException(
             InvalidJWTException e,
             HttpServletRequest request) {
+        countError(e.getClass().getSimpleName(), HttpStatus.UNAUTHORIZED);
 
         ApiErrorResponseDTO response = new ApiErrorResponseDTO(
                 e.getMessage(),
@@ -111,4 +135,17 @@ public class ApiExceptionHandler {
 
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
+
+    private void countError(String exception, HttpStatus status) {
+        Map<String, Counter> byException = errorCounters.get(status);
+        Counter counter = byException.get(exception);
+        if (counter == null) {
+            counter = byException.computeIfAbsent(exception, name -> Counter.builder("api.errors")
+                    .description("Error responses by exception and status")
+                    .tag("exception", name)
+                    .tag("status", String.valueOf(status.value()))
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
 }
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class ClockMovedBackwardsException extends IllegalStateException {
+    public ClockMovedBackwardsException(long driftMs) {
+        super("Clock moved backwards by " + driftMs + " ms, refusing to generate ids");
+    }
+}
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class ConversationDoesNotExistException extends RuntimeException {
+    public ConversationDoesNotExistException() {
+        super("The conversation does not exist");
+    }
+}
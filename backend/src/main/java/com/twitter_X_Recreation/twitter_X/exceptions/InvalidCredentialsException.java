@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class InvalidCredentialsException extends RuntimeException {
+    public InvalidCredentialsException() {
+        super("Incorrect username, email or password");
+    }
+}
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class InvalidFollowException extends RuntimeException {
+    public InvalidFollowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class InvalidPostException extends RuntimeException {
+    public InvalidPostException(String message) {
+        super(message);
+    }
+}
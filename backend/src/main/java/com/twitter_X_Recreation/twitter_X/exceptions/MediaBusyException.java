@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class MediaBusyException extends RuntimeException {
+    public MediaBusyException() {
+        super("Too many images are being processed, try again");
+    }
+}
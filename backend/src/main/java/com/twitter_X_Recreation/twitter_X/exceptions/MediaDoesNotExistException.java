@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class MediaDoesNotExistException extends RuntimeException {
+    public MediaDoesNotExistException() {
+        super("Media does not exist");
+    }
+}
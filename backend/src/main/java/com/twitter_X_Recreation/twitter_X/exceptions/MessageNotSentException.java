@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class MessageNotSentException extends RuntimeException {
+    public MessageNotSentException() {
+        super("The message could not be sent, try again");
+    }
+}
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class PostDoesNotExistException extends RuntimeException {
+    public PostDoesNotExistException() {
+        super("The post does not exist");
+    }
+}
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class RateLimitExceededException extends RuntimeException {
+    public RateLimitExceededException() {
+        super("Too many requests, please try again later.");
+    }
+}
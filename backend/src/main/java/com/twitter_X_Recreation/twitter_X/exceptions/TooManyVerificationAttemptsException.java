@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class TooManyVerificationAttemptsException extends RuntimeException {
+    public TooManyVerificationAttemptsException() {
+        super("Too many incorrect codes, please ask for a new code.");
+    }
+}
@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class VerificationCodeCooldownException extends IllegalStateException {
+    public VerificationCodeCooldownException() {
+        super("Email verification on cooldown");
+    }
+}
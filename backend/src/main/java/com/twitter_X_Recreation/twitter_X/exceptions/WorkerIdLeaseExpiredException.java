@@ -0,0 +1,7 @@
+package com.twitter_X_Recreation.twitter_X.exceptions;
+
+public class WorkerIdLeaseExpiredException extends IllegalStateException {
+    public WorkerIdLeaseExpiredException(int workerId) {
+        super("No live lease on Snowflake worker id " + workerId + ", refusing to generate ids");
+    }
+}
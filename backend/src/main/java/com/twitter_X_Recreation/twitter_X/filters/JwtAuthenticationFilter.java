@@ -0,0 +1,79 @@
+package com.twitter_X_Recreation.twitter_X.filters;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidJWTException;
+import com.twitter_X_Recreation.twitter_X.services.JwtService;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+
+// Verifies the JWT once per request and exposes its subject through the security context.
+// It never rejects a request itself, controllers decide whether authentication is required
+// (see AuthenticationUtil) so the existing 401 error bodies stay the same. Tokens without a session id or
+// of a revoked session count as invalid; that check is an in-memory lookup in SessionService.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String INVALID_TOKEN_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".INVALID_TOKEN";
+    public static final String SESSION_ID_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".SESSION_ID";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String[] TOKEN_COOKIES = {"register_token", "authenticated_token"};
+
+    private final JwtService jwtService;
+    private final SessionService sessionService;
+
+    public JwtAuthenticationFilter(JwtService jwtService, SessionService sessionService) {
+        this.jwtService = jwtService;
+        this.sessionService = sessionService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = resolveToken(request);
+        if (token != null) {
+            try {
+                JwtService.VerifiedToken verified = jwtService.verify(token);
+                // Every token belongs to a session (signup or login), one without a sid could never be revoked
+                if (verified.sessionId() == null || sessionService.isRevoked(verified.sessionId())) {
+                    throw new InvalidJWTException();
+                }
+                request.setAttribute(SESSION_ID_ATTRIBUTE, verified.sessionId());
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(verified.subject(), null, Collections.emptyList());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (InvalidJWTException e) {
+                request.setAttribute(INVALID_TOKEN_ATTRIBUTE, Boolean.TRUE);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String resolveToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith(BEARER_PREFIX) && header.length() > BEARER_PREFIX.length()) {
+            return header.substring(BEARER_PREFIX.length());
+        }
+
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (String name : TOKEN_COOKIES) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.twitter_X_Recreation.twitter_X.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.configuration.RateLimitProperties;
+import com.twitter_X_Recreation.twitter_X.dto.ApiErrorResponseDTO;
+import com.twitter_X_Recreation.twitter_X.exceptions.RateLimitExceededException;
+import com.twitter_X_Recreation.twitter_X.services.RateLimiterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+
+// Runs after JwtAuthenticationFilter so the per-username limit can use the verified subject.
+// Rejected requests never reach the controllers, JPA or the email outbox.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiterService rateLimiterService;
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimiterService rateLimiterService, RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.rateLimiterService = rateLimiterService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || properties.rules().isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitProperties.Rule rule = matchRule(request);
+        if (rule != null) {
+            if (rule.ip() != null) {
+                RateLimiterService.Decision decision = rateLimiterService.tryConsume(
+                        "ip:" + rule.path() + ":" + request.getRemoteAddr(), rule.ip());
+                if (!decision.allowed()) {
+                    reject(request, response, decision);
+                    return;
+                }
+            }
+
+            String username = authenticatedUsername();
+            if (rule.user() != null && username != null) {
+                RateLimiterService.Decision decision = rateLimiterService.tryConsume(
+                        "user:" + rule.path() + ":" + username, rule.user());
+                if (!decision.allowed()) {
+                    reject(request, response, decision);
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitProperties.Rule matchRule(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (RateLimitProperties.Rule rule : properties.rules()) {
+            if ((rule.method() == null || rule.method().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(rule.path(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static String authenticatedUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof UsernamePasswordAuthenticationToken && authentication.isAuthenticated()) {
+            return authentication.getName();
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RateLimiterService.Decision decision)
+            throws IOException {
+        RateLimitExceededException e = new RateLimitExceededException();
+        ApiErrorResponseDTO body = new ApiErrorResponseDTO(
+                e.getMessage(),
+                e.getClass().getSimpleName(),
+                request.getRequestURI(),
+                OffsetDateTime.now()
+        );
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (decision.retryAfterMs() + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
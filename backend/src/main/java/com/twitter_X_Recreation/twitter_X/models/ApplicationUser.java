@@ -12,10 +12,12 @@ import java.util.Set;
 @Table(name = "users")
 public class ApplicationUser {
 
+    // Time ordered Snowflake id, assigned in memory before the insert. The column was an int fed by users_seq,
+    // ddl-auto does not widen it: existing databases need db/upgrade-user-ids-to-bigint.sql applied once
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @SnowflakeId
     @Column(name = "user_id")
-    private Integer userId;
+    private Long userId;
 
     @Column(name = "username", nullable = false, unique = true, length = 15)
     private String username;
@@ -33,12 +35,14 @@ public class ApplicationUser {
     @Column(name = "birth_date", nullable = false)
     private Date birthDate;
 
-    @Column(name = "password")
+    // Only written by UserRepository.updatePassword: cached copies carry no hash, saving one must not clear it
+    @Column(name = "password", updatable = false)
     @JsonIgnore
     @Size(min = 8, max = 128, message = "The password length should be higher than 8 character and less than 128 char")
     private String password;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Lazy: load it with UserRepository.findWithAuthoritiesByUsername where roles are actually needed
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_role_junction",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -48,17 +52,12 @@ public class ApplicationUser {
 
     private Boolean enabled;
 
-    @Column(nullable = true)
-    @JsonIgnore
-    private Long verification;
-
-    @Column(nullable = true)
-    @JsonIgnore
-    private Long verificationExpiryTime;
+    // SHA-256 of the processed image, served from /media/<hash>.jpg
+    @Column(name = "avatar_hash", length = 64)
+    private String avatarHash;
 
-    @Column(nullable = true)
-    @JsonIgnore
-    private Long LastVerificationSentTime;
+    @Column(name = "banner_hash", length = 64)
+    private String bannerHash;
 
 
     public ApplicationUser() {
@@ -66,11 +65,11 @@ public class ApplicationUser {
         this.enabled = false;
     }
 
-    public Integer getUserId() {
+    public Long getUserId() {
         return userId;
     }
 
-    public void setUserId(Integer userId) {
+    public void setUserId(Long userId) {
         this.userId = userId;
     }
 
@@ -138,28 +137,20 @@ public class ApplicationUser {
         this.enabled = enabled;
     }
 
-    public Long getVerification() {
-        return verification;
-    }
-
-    public void setVerification(Long verification) {
-        this.verification = verification;
-    }
-
-    public Long getVerificationExpiryTime() {
-        return verificationExpiryTime;
+    public String getAvatarHash() {
+        return avatarHash;
     }
 
-    public void setVerificationExpiryTime(Long verificationExpiryTime) {
-        this.verificationExpiryTime = verificationExpiryTime;
+    public void setAvatarHash(String avatarHash) {
+        this.avatarHash = avatarHash;
     }
 
-    public Long getLastVerificationSentTime() {
-        return LastVerificationSentTime;
+    public String getBannerHash() {
+        return bannerHash;
     }
 
-    public void setLastVerificationSentTime(Long lastVerificationSentTime) {
-        LastVerificationSentTime = lastVerificationSentTime;
+    public void setBannerHash(String bannerHash) {
+        this.bannerHash = bannerHash;
     }
 
     @Override
@@ -172,10 +163,7 @@ public class ApplicationUser {
                 ", phoneNumber='" + phoneNumber + '\'' +
                 ", birthDate=" + birthDate +
                 ", password='" + password + '\'' +
-                ", authorities=" + authorities +
                 ", enabled=" + enabled +
-                ", verification=" + verification +
-                ", verificationExpiryTime=" + verificationExpiryTime +
                 '}';
     }
 
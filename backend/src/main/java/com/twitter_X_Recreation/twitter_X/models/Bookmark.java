@@ -0,0 +1,64 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+// One row per bookmarked post. As with Follow the embedded id columns are ordered by name, so the primary
+// key is (post_id, user_id); the index serves a user's bookmarks newest first. Always new when built in
+// code, so saving one is a plain INSERT and a duplicate fails on the primary key.
+@Entity
+@Table(name = "bookmarks", indexes = {
+        @Index(name = "idx_bookmarks_user_created", columnList = "user_id, created_at, post_id")
+})
+public class Bookmark implements Persistable<BookmarkId> {
+
+    @EmbeddedId
+    private BookmarkId id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("userId")
+    @JoinColumn(name = "user_id")
+    private ApplicationUser user;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("postId")
+    @JoinColumn(name = "post_id")
+    private Post post;
+
+    // Epoch millis, also the score of the post id in the user's Redis sorted set
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private long createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public Bookmark() {
+    }
+
+    public Bookmark(ApplicationUser user, Post post, long createdAt) {
+        this.id = new BookmarkId(user.getUserId(), post.getPostId());
+        this.user = user;
+        this.post = post;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public BookmarkId getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.*;
+
+// A direct conversation between two users. direct_key is "<lower user id>:<higher user id>" and unique, so a
+// pair has at most one conversation. The conversation id is a Snowflake id like the message ids, which makes
+// coalesce(last_message_id, conversation_id) the id of its latest activity; DirectMessageWriter moves
+// last_message_id forward with every batch it writes.
+@Entity
+@Table(name = "conversations")
+public class Conversation {
+
+    @Id
+    @SnowflakeId
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "direct_key", nullable = false, unique = true, updatable = false, length = 41)
+    private String directKey;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    public Conversation() {
+    }
+
+    public Conversation(String directKey) {
+        this.directKey = directKey;
+    }
+
+    public static String directKey(long userId, long otherUserId) {
+        return Math.min(userId, otherUserId) + ":" + Math.max(userId, otherUserId);
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public String getDirectKey() {
+        return directKey;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+}
@@ -0,0 +1,62 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+// One row per participant. The primary key (conversation_id, user_id) lists a conversation's members, the
+// index a user's conversations. last_read_message_id is the durable read position; the unread counters
+// themselves live in Redis (MessageDeliveryService).
+@Entity
+@Table(name = "conversation_members", indexes = {
+        @Index(name = "idx_conversation_members_user", columnList = "user_id, conversation_id")
+})
+public class ConversationMember implements Persistable<ConversationMemberId> {
+
+    @EmbeddedId
+    private ConversationMemberId id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("conversationId")
+    @JoinColumn(name = "conversation_id")
+    private Conversation conversation;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("userId")
+    @JoinColumn(name = "user_id")
+    private ApplicationUser user;
+
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
+
+    @Transient
+    private boolean isNew = true;
+
+    public ConversationMember() {
+    }
+
+    public ConversationMember(Conversation conversation, ApplicationUser user) {
+        this.id = new ConversationMemberId(conversation.getConversationId(), user.getUserId());
+        this.conversation = conversation;
+        this.user = user;
+    }
+
+    @Override
+    public ConversationMemberId getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public Long getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+}
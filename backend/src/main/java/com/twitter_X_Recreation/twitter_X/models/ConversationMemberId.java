@@ -0,0 +1,45 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class ConversationMemberId implements Serializable {
+
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    public ConversationMemberId() {
+    }
+
+    public ConversationMemberId(Long conversationId, Long userId) {
+        this.conversationId = conversationId;
+        this.userId = userId;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConversationMemberId other)) return false;
+        return Objects.equals(conversationId, other.conversationId) && Objects.equals(userId, other.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(conversationId, userId);
+    }
+}
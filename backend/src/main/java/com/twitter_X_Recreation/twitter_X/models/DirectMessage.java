@@ -0,0 +1,41 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.*;
+
+// Messages are an append only log per conversation: the primary key (conversation_id, message_id) keeps a
+// conversation's messages together in Snowflake id (time) order, so a page is one range scan of the key.
+// Rows are never updated, and are inserted in batches by DirectMessageWriter through plain JDBC; this
+// mapping is for the schema and the reads.
+@Entity
+@Table(name = "messages")
+public class DirectMessage {
+
+    public static final int MAX_TEXT_LENGTH = 1000;
+
+    @EmbeddedId
+    private DirectMessageId id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("conversationId")
+    @JoinColumn(name = "conversation_id")
+    private Conversation conversation;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "sender_id", nullable = false, updatable = false)
+    private ApplicationUser sender;
+
+    // Sized for MAX_TEXT_LENGTH code points, which can take two chars each
+    @Column(name = "text", nullable = false, updatable = false, length = MAX_TEXT_LENGTH * 2)
+    private String text;
+
+    public DirectMessage() {
+    }
+
+    public DirectMessageId getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,45 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class DirectMessageId implements Serializable {
+
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "message_id")
+    private Long messageId;
+
+    public DirectMessageId() {
+    }
+
+    public DirectMessageId(Long conversationId, Long messageId) {
+        this.conversationId = conversationId;
+        this.messageId = messageId;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DirectMessageId other)) return false;
+        return Objects.equals(conversationId, other.conversationId) && Objects.equals(messageId, other.messageId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(conversationId, messageId);
+    }
+}
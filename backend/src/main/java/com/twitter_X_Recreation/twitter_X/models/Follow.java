@@ -0,0 +1,64 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+// One row per edge. Hibernate orders the embedded id columns by name, so the primary key is
+// (followee_id, follower_id) and already serves "followers of X"; the index covers "followed by X".
+// Always new when built in code (Persistable), so saving one is a plain INSERT and a duplicate edge
+// fails on the primary key instead of being looked up first.
+@Entity
+@Table(name = "follows", indexes = {
+        @Index(name = "idx_follows_follower_followee", columnList = "follower_id, followee_id")
+})
+public class Follow implements Persistable<FollowId> {
+
+    @EmbeddedId
+    private FollowId id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("followerId")
+    @JoinColumn(name = "follower_id")
+    private ApplicationUser follower;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId("followeeId")
+    @JoinColumn(name = "followee_id")
+    private ApplicationUser followee;
+
+    @Transient
+    private boolean isNew = true;
+
+    public Follow() {
+    }
+
+    public Follow(ApplicationUser follower, ApplicationUser followee) {
+        this.id = new FollowId(follower.getUserId(), followee.getUserId());
+        this.follower = follower;
+        this.followee = followee;
+    }
+
+    @Override
+    public FollowId getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public ApplicationUser getFollower() {
+        return follower;
+    }
+
+    public ApplicationUser getFollowee() {
+        return followee;
+    }
+}
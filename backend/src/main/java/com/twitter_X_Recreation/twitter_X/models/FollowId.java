@@ -0,0 +1,45 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class FollowId implements Serializable {
+
+    @Column(name = "followee_id")
+    private Long followeeId;
+
+    @Column(name = "follower_id")
+    private Long followerId;
+
+    public FollowId() {
+    }
+
+    public FollowId(Long followerId, Long followeeId) {
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    public Long getFolloweeId() {
+        return followeeId;
+    }
+
+    public Long getFollowerId() {
+        return followerId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FollowId other)) return false;
+        return Objects.equals(followeeId, other.followeeId) && Objects.equals(followerId, other.followerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(followeeId, followerId);
+    }
+}
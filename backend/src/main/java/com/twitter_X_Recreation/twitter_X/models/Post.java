@@ -0,0 +1,80 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import jakarta.persistence.*;
+
+// Posts are append only: inserted once, never updated. The Snowflake id doubles as the creation time
+// (SnowflakeIdGenerator.timestampOf), so newest first is plain id order and needs no timestamp column.
+// References are set with getReferenceById proxies, which writes the foreign keys without loading the rows.
+@Entity
+@Table(name = "posts", indexes = {
+        // Keyset pages of one author's posts: where author_id = ? and post_id < ? order by post_id desc
+        @Index(name = "idx_posts_author_post", columnList = "author_id, post_id")
+})
+public class Post {
+
+    public static final int MAX_TEXT_LENGTH = 280;
+
+    @Id
+    @SnowflakeId
+    @Column(name = "post_id")
+    private Long postId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "author_id", nullable = false, updatable = false)
+    private ApplicationUser author;
+
+    // Sized for MAX_TEXT_LENGTH code points, which can take two chars each
+    @Column(name = "text", nullable = false, updatable = false, length = MAX_TEXT_LENGTH * 2)
+    private String text;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "in_reply_to_id", updatable = false)
+    private Post inReplyTo;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "quote_of_id", updatable = false)
+    private Post quoteOf;
+
+    public Post() {
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public void setPostId(Long postId) {
+        this.postId = postId;
+    }
+
+    public ApplicationUser getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(ApplicationUser author) {
+        this.author = author;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public Post getInReplyTo() {
+        return inReplyTo;
+    }
+
+    public void setInReplyTo(Post inReplyTo) {
+        this.inReplyTo = inReplyTo;
+    }
+
+    public Post getQuoteOf() {
+        return quoteOf;
+    }
+
+    public void setQuoteOf(Post quoteOf) {
+        this.quoteOf = quoteOf;
+    }
+}
@@ -0,0 +1,35 @@
+package com.twitter_X_Recreation.twitter_X.models;
+
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+// Hibernate creates its generators itself, outside of Spring, so the application's SnowflakeIdGenerator
+// is handed over once at startup (IdGeneratorConfiguration). Ids are known before the insert, which keeps
+// inserts batchable, unlike identity columns.
+public class SnowflakeIdentifierGenerator implements BeforeExecutionGenerator {
+
+    private static volatile SnowflakeIdGenerator idGenerator;
+
+    public static void setIdGenerator(SnowflakeIdGenerator generator) {
+        idGenerator = generator;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        SnowflakeIdGenerator generator = idGenerator;
+        if (generator == null) {
+            throw new IllegalStateException("SnowflakeIdGenerator is not initialized");
+        }
+        return generator.nextId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
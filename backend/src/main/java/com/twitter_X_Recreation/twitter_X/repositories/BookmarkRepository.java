@@ -0,0 +1,32 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.dto.BookmarkProjection;
+import com.twitter_X_Recreation.twitter_X.models.Bookmark;
+import com.twitter_X_Recreation.twitter_X.models.BookmarkId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface BookmarkRepository extends JpaRepository<Bookmark, BookmarkId> {
+
+    // Keyset page newest first on (created_at, post_id), served by idx_bookmarks_user_created
+    @Query("select b.id.postId as postId, b.createdAt as createdAt from Bookmark b where b.id.userId = :userId " +
+            "and (b.createdAt < :beforeCreatedAt or (b.createdAt = :beforeCreatedAt and b.id.postId < :beforePostId)) " +
+            "order by b.createdAt desc, b.id.postId desc")
+    List<BookmarkProjection> findPageBefore(@Param("userId") Long userId,
+                                            @Param("beforeCreatedAt") Long beforeCreatedAt,
+                                            @Param("beforePostId") Long beforePostId,
+                                            Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Bookmark b where b.id.userId = :userId and b.id.postId = :postId")
+    int deleteBookmark(@Param("userId") Long userId, @Param("postId") Long postId);
+}
@@ -0,0 +1,29 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.models.ConversationMember;
+import com.twitter_X_Recreation.twitter_X.models.ConversationMemberId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ConversationMemberRepository extends JpaRepository<ConversationMember, ConversationMemberId> {
+
+    @Query("select m.id.userId from ConversationMember m where m.id.conversationId = :conversationId")
+    List<Long> findUserIds(@Param("conversationId") Long conversationId);
+
+    // Only ever moves the read position forward
+    @Transactional
+    @Modifying
+    @Query("update ConversationMember m set m.lastReadMessageId = :messageId " +
+            "where m.id.conversationId = :conversationId and m.id.userId = :userId " +
+            "and (m.lastReadMessageId is null or m.lastReadMessageId < :messageId)")
+    int markRead(@Param("conversationId") Long conversationId,
+                 @Param("userId") Long userId,
+                 @Param("messageId") Long messageId);
+}
@@ -0,0 +1,30 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.dto.ConversationProjection;
+import com.twitter_X_Recreation.twitter_X.models.Conversation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    Optional<Conversation> findByDirectKey(String directKey);
+
+    // A user's conversations by latest activity, with the other participant, in one query
+    @Query("select c.conversationId as conversationId, c.lastMessageId as lastMessageId, " +
+            "coalesce(c.lastMessageId, c.conversationId) as activityId, " +
+            "u.userId as userId, u.username as username, u.name as name " +
+            "from ConversationMember me join me.conversation c, ConversationMember other join other.user u " +
+            "where me.id.userId = :userId and other.id.conversationId = c.conversationId " +
+            "and other.id.userId <> :userId and coalesce(c.lastMessageId, c.conversationId) < :before " +
+            "order by coalesce(c.lastMessageId, c.conversationId) desc")
+    List<ConversationProjection> findConversations(@Param("userId") Long userId,
+                                                   @Param("before") Long before,
+                                                   Pageable pageable);
+}
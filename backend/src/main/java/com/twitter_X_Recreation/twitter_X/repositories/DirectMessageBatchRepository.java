@@ -0,0 +1,47 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Plain JDBC for DirectMessageWriter: one batched insert for all messages of a batch and one batched
+// update of the conversations they went to. Callers run it inside a transaction.
+@Repository
+public class DirectMessageBatchRepository {
+
+    private static final String INSERT_MESSAGE =
+            "insert into messages (conversation_id, message_id, sender_id, text) values (?, ?, ?, ?)";
+    private static final String UPDATE_LAST_MESSAGE =
+            "update conversations set last_message_id = ? where conversation_id = ? " +
+                    "and (last_message_id is null or last_message_id < ?)";
+
+    public record NewMessage(long conversationId, long messageId, long senderId, String text, long[] memberIds) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DirectMessageBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertMessages(List<NewMessage> messages) {
+        List<Object[]> messageRows = new ArrayList<>(messages.size());
+        // Sorted, so writers on different nodes lock conversation rows in the same order
+        Map<Long, Long> lastMessageIds = new TreeMap<>();
+        for (NewMessage message : messages) {
+            messageRows.add(new Object[]{message.conversationId(), message.messageId(), message.senderId(), message.text()});
+            lastMessageIds.merge(message.conversationId(), message.messageId(), Math::max);
+        }
+
+        List<Object[]> conversationRows = new ArrayList<>(lastMessageIds.size());
+        for (Map.Entry<Long, Long> entry : lastMessageIds.entrySet()) {
+            conversationRows.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE, messageRows);
+        jdbcTemplate.batchUpdate(UPDATE_LAST_MESSAGE, conversationRows);
+    }
+}
@@ -0,0 +1,24 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.dto.DirectMessageProjection;
+import com.twitter_X_Recreation.twitter_X.models.DirectMessage;
+import com.twitter_X_Recreation.twitter_X.models.DirectMessageId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DirectMessageRepository extends JpaRepository<DirectMessage, DirectMessageId> {
+
+    // Keyset page newest first, a range scan of the (conversation_id, message_id) primary key
+    @Query("select m.id.messageId as messageId, m.sender.userId as senderId, m.text as text from DirectMessage m " +
+            "where m.id.conversationId = :conversationId and m.id.messageId < :beforeMessageId " +
+            "order by m.id.messageId desc")
+    List<DirectMessageProjection> findPageBefore(@Param("conversationId") Long conversationId,
+                                                 @Param("beforeMessageId") Long beforeMessageId,
+                                                 Pageable pageable);
+}
@@ -0,0 +1,49 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.models.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2), so several nodes can drain the outbox without blocking each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2")})
+    @Query("select m from EmailOutboxMessage m where m.status = :status and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<EmailOutboxMessage> findDueForDispatch(@Param("status") EmailOutboxMessage.Status status,
+                                                @Param("now") Long now,
+                                                Pageable pageable);
+
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :status, m.sentAt = :sentAt, m.attempts = m.attempts + 1 where m.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("status") EmailOutboxMessage.Status status,
+                 @Param("sentAt") Long sentAt);
+
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :status, m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, " +
+            "m.lastError = :lastError where m.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") EmailOutboxMessage.Status status,
+                   @Param("attempts") Integer attempts,
+                   @Param("nextAttemptAt") Long nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("delete from EmailOutboxMessage m where m.status = :status and m.sentAt < :before")
+    int deleteSentBefore(@Param("status") EmailOutboxMessage.Status status, @Param("before") Long before);
+
+    long countByStatus(EmailOutboxMessage.Status status);
+}
@@ -0,0 +1,54 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.models.Follow;
+import com.twitter_X_Recreation.twitter_X.models.FollowId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FollowRepository extends JpaRepository<Follow, FollowId> {
+
+    // Keyset page of follower ids in id order, for fan-out
+    @Query("select f.id.followerId from Follow f where f.id.followeeId = :followeeId and f.id.followerId > :afterId " +
+            "order by f.id.followerId")
+    List<Long> findFollowerIdsAfter(@Param("followeeId") Long followeeId,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+
+    @Query("select f.id.followeeId from Follow f where f.id.followerId = :followerId and f.id.followeeId in :candidates")
+    List<Long> findFolloweesAmong(@Param("followerId") Long followerId, @Param("candidates") Collection<Long> candidates);
+
+    long countByIdFolloweeId(Long followeeId);
+
+    long countByIdFollowerId(Long followerId);
+
+    // Keyset page over the whole table in primary key order, used to load the follow graph
+    @Query("select f.id from Follow f where f.id.followeeId > :followeeId " +
+            "or (f.id.followeeId = :followeeId and f.id.followerId > :followerId) " +
+            "order by f.id.followeeId, f.id.followerId")
+    List<FollowId> findEdgesAfter(@Param("followeeId") Long followeeId,
+                                  @Param("followerId") Long followerId,
+                                  Pageable pageable);
+
+    // Accounts viewerId follows that also follow targetId, SQL stand-in for the follow graph
+    @Query("select f.id.followeeId from Follow f where f.id.followerId = :viewerId and f.id.followeeId in " +
+            "(select g.id.followerId from Follow g where g.id.followeeId = :targetId) order by f.id.followeeId")
+    List<Long> findFollowedBy(@Param("viewerId") Long viewerId, @Param("targetId") Long targetId, Pageable pageable);
+
+    @Query("select count(f) from Follow f where f.id.followerId = :viewerId and f.id.followeeId in " +
+            "(select g.id.followerId from Follow g where g.id.followeeId = :targetId)")
+    long countFollowedBy(@Param("viewerId") Long viewerId, @Param("targetId") Long targetId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Follow f where f.id.followerId = :followerId and f.id.followeeId = :followeeId")
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followeeId") Long followeeId);
+}
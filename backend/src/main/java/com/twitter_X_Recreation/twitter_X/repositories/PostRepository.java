@@ -0,0 +1,49 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import com.twitter_X_Recreation.twitter_X.dto.PostProjection;
+import com.twitter_X_Recreation.twitter_X.dto.PostViewProjection;
+import com.twitter_X_Recreation.twitter_X.models.Post;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PostRepository extends JpaRepository<Post, Long> {
+
+    // The association ids come from the foreign key columns, none of these join
+    String PROJECTION = "select p.postId as postId, p.author.userId as authorId, p.text as text, " +
+            "p.inReplyTo.postId as inReplyToId, p.quoteOf.postId as quoteOfId from Post p ";
+
+    @Query(PROJECTION + "where p.postId = :postId")
+    Optional<PostProjection> findProjectionById(@Param("postId") Long postId);
+
+    @Query("select p.postId as postId, a.userId as authorId, a.username as authorUsername, a.name as authorName, " +
+            "p.text as text, p.inReplyTo.postId as inReplyToId, p.quoteOf.postId as quoteOfId " +
+            "from Post p join p.author a where p.postId in :postIds")
+    List<PostViewProjection> findViewsByIds(@Param("postIds") Collection<Long> postIds);
+
+    // Home timeline straight from SQL: own posts and the posts of everyone followed, newest first.
+    // Only used to rebuild a Redis timeline or when Redis is down.
+    @Query("select p.postId from Post p where (p.author.userId = :userId or p.author.userId in " +
+            "(select f.id.followeeId from Follow f where f.id.followerId = :userId)) " +
+            "and p.postId < :before order by p.postId desc")
+    List<Long> findFollowingTimelineIds(@Param("userId") Long userId,
+                                        @Param("before") Long before,
+                                        Pageable pageable);
+
+    // Keyset page, newest first, served by idx_posts_author_post
+    @Query(PROJECTION + "where p.author.userId = :authorId and p.postId < :before order by p.postId desc")
+    List<PostProjection> findByAuthorBefore(@Param("authorId") Long authorId,
+                                            @Param("before") Long before,
+                                            Pageable pageable);
+
+    // Keyset page in id order, used to build the search index
+    @Query(PROJECTION + "where p.postId > :afterId order by p.postId")
+    List<PostProjection> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,62 @@
+package com.twitter_X_Recreation.twitter_X.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Plain JDBC for the bulk user import: set based lookups and batched inserts that bypass the
+// persistence context. Callers run it inside a transaction, JdbcTemplate joins the JPA one.
+@Repository
+public class UserBulkInsertRepository {
+
+    private static final String INSERT_USER =
+            "insert into users (user_id, username, name, email, birth_date, enabled) values (?, ?, ?, ?, ?, false)";
+    private static final String INSERT_USER_ROLE =
+            "insert into user_role_junction (user_id, role_id) values (?, ?)";
+
+    public record NewUser(long userId, String username, String name, String email, Date birthDate) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public UserBulkInsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return findExisting("select email from users where email in (:values)", emails);
+    }
+
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        return findExisting("select username from users where username in (:values)", usernames);
+    }
+
+    public void insertUsers(List<NewUser> users, int roleId) {
+        List<Object[]> userRows = new ArrayList<>(users.size());
+        List<Object[]> roleRows = new ArrayList<>(users.size());
+        for (NewUser user : users) {
+            userRows.add(new Object[]{user.userId(), user.username(), user.name(), user.email(), user.birthDate()});
+            roleRows.add(new Object[]{user.userId(), roleId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER, userRows);
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, roleRows);
+    }
+
+    private Set<String> findExisting(String sql, Collection<String> values) {
+        if (values.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(sql, Map.of("values", values), String.class));
+    }
+
+}
@@ -1,15 +1,105 @@
 package com.twitter_X_Recreation.twitter_X.repositories;
 
+import com.twitter_X_Recreation.twitter_X.dto.LoginCredentialsProjection;
+import com.twitter_X_Recreation.twitter_X.dto.UserIdentityProjection;
+import com.twitter_X_Recreation.twitter_X.dto.UserMediaProjection;
+import com.twitter_X_Recreation.twitter_X.dto.UserSummaryProjection;
 import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<ApplicationUser, Integer> {
+public interface UserRepository extends JpaRepository<ApplicationUser, Long> {
 
     Optional<ApplicationUser> findByUsername(String username);
 
     Optional<ApplicationUser> findByEmail(String email);
+
+    @Query("select u from ApplicationUser u left join fetch u.authorities where u.username = :username")
+    Optional<ApplicationUser> findWithAuthoritiesByUsername(@Param("username") String username);
+
+    // Narrow read paths, each selects only the column its caller needs
+    @Query("select u.email from ApplicationUser u where u.username = :username")
+    Optional<String> findEmailByUsername(@Param("username") String username);
+
+    @Query("select u.enabled from ApplicationUser u where u.username = :username")
+    Optional<Boolean> findEnabledByUsername(@Param("username") String username);
+
+    // Login lookups, one unique index each
+    @Query("select u.username as username, u.password as password, u.enabled as enabled from ApplicationUser u " +
+            "where u.email = :email")
+    Optional<LoginCredentialsProjection> findCredentialsByEmail(@Param("email") String email);
+
+    @Query("select u.username as username, u.password as password, u.enabled as enabled from ApplicationUser u " +
+            "where u.username = :username")
+    Optional<LoginCredentialsProjection> findCredentialsByUsername(@Param("username") String username);
+
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    // Single column update, returns 0 when the user is missing or already enabled
+    @Modifying
+    @Query("update ApplicationUser u set u.enabled = true where u.username = :username and u.enabled = false")
+    int enableUser(@Param("username") String username);
+
+    // Its own short transaction: callers hash the password first, without holding a connection
+    @Modifying
+    @Transactional
+    @Query("update ApplicationUser u set u.password = :password where u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    @Modifying
+    @Query("update ApplicationUser u set u.avatarHash = :hash where u.username = :username")
+    int updateAvatarHash(@Param("username") String username, @Param("hash") String hash);
+
+    @Modifying
+    @Query("update ApplicationUser u set u.bannerHash = :hash where u.username = :username")
+    int updateBannerHash(@Param("username") String username, @Param("hash") String hash);
+
+    @Modifying
+    @Query("update ApplicationUser u set u.phoneNumber = :phoneNumber where u.username = :username")
+    int updatePhoneNumber(@Param("username") String username, @Param("phoneNumber") String phoneNumber);
+
+    // Keyset page over the identity columns only, used to warm the availability index
+    @Query("select u.userId as userId, u.username as username, u.email as email from ApplicationUser u " +
+            "where u.userId > :afterId order by u.userId")
+    List<UserIdentityProjection> findIdentitiesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Keyset page of ids only, used to load the follow graph in id order
+    @Query("select u.userId from ApplicationUser u where u.userId > :afterId order by u.userId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select u.userId as userId, u.username as username, u.name as name from ApplicationUser u " +
+            "where u.userId in :userIds")
+    List<UserSummaryProjection> findSummariesByIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("select u.userId as userId, u.username as username, u.name as name from ApplicationUser u " +
+            "where u.username in :usernames")
+    List<UserSummaryProjection> findSummariesByUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Keyset page of summaries, used to build the search index
+    @Query("select u.userId as userId, u.username as username, u.name as name from ApplicationUser u " +
+            "where u.userId > :afterId order by u.userId")
+    List<UserSummaryProjection> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Keyset page of the users with an avatar or banner, used to warm the media lookup
+    @Query("select u.userId as userId, u.username as username, u.avatarHash as avatarHash, u.bannerHash as bannerHash " +
+            "from ApplicationUser u where u.userId > :afterId and (u.avatarHash is not null or u.bannerHash is not null) " +
+            "order by u.userId")
+    List<UserMediaProjection> findMediaAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Typeahead fallback while the search index is loading; pattern is an escaped "prefix%"
+    @Query("select u.userId as userId, u.username as username, u.name as name from ApplicationUser u " +
+            "where lower(u.username) like :pattern escape '!' order by u.username")
+    List<UserSummaryProjection> findSummariesByUsernamePrefix(@Param("pattern") String pattern, Pageable pageable);
 }
@@ -0,0 +1,172 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.UserIdentityProjection;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import com.twitter_X_Recreation.twitter_X.utils.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Answers "is this username/email taken?" from memory. The bloom filter rejects most
+// free names without touching the exact set, the exact set removes bloom false positives.
+// The users table unique constraints stay the final authority on insert.
+@Service
+public class AvailabilityIndexService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndexService.class);
+
+    private static final String CLAIMS_CHANNEL = "availability:claims";
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+    private static final int WARM_UP_PAGE_SIZE = 5_000;
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+
+    private final BloomFilter usernameFilter;
+    private final BloomFilter emailFilter;
+    private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+    private final Set<String> emails = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready = false;
+    private boolean pubSubEnabled = false;
+
+    public AvailabilityIndexService(UserRepository userRepository,
+                                    StringRedisTemplate redisTemplate,
+                                    ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                    @Value("${app.availability.expected-insertions:1000000}") long expectedInsertions,
+                                    @Value("${app.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.usernameFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.emailFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        // Subscribe before warming so claims made by other nodes during the warm-up are not lost
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (container != null) {
+            container.addMessageListener(this, new ChannelTopic(CLAIMS_CHANNEL));
+            pubSubEnabled = true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        Long afterId = Long.MIN_VALUE;
+        List<UserIdentityProjection> page;
+        do {
+            page = userRepository.findIdentitiesAfter(afterId, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+            for (UserIdentityProjection identity : page) {
+                addUsername(identity.getUsername());
+                addEmail(identity.getEmail());
+                afterId = identity.getUserId();
+            }
+            loaded += page.size();
+        } while (page.size() == WARM_UP_PAGE_SIZE);
+
+        ready = true;
+        logger.info("Availability index warmed with {} users in {} ms", loaded, System.currentTimeMillis() - start);
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (!ready) {
+            return !userRepository.existsByUsername(username);
+        }
+        String key = normalize(username);
+        return !usernameFilter.mightContain(key) || !usernames.contains(key);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (!ready) {
+            return !userRepository.existsByEmail(email);
+        }
+        String key = normalize(email);
+        return !emailFilter.mightContain(key) || !emails.contains(key);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Records a saved user locally and tells the other nodes about it, once the caller's transaction has
+    // committed: bits cannot be taken back out of the bloom filter, a rolled back insert must not claim anything
+    public void claim(ApplicationUser user) {
+        claim(user.getUsername(), user.getEmail());
+    }
+
+    public void claim(String username, String email) {
+        AfterCommit.run(() -> {
+            if (username != null) {
+                addUsername(username);
+                publish(USERNAME_PREFIX + normalize(username));
+            }
+            if (email != null) {
+                addEmail(email);
+                publish(EMAIL_PREFIX + normalize(email));
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(USERNAME_PREFIX)) {
+            addUsername(body.substring(USERNAME_PREFIX.length()));
+        } else if (body.startsWith(EMAIL_PREFIX)) {
+            addEmail(body.substring(EMAIL_PREFIX.length()));
+        }
+    }
+
+    private void addUsername(String username) {
+        String key = normalize(username);
+        usernames.add(key);
+        usernameFilter.put(key);
+    }
+
+    private void addEmail(String email) {
+        String key = normalize(email);
+        emails.add(key);
+        emailFilter.put(key);
+    }
+
+    private void publish(String claim) {
+        if (!pubSubEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CLAIMS_CHANNEL, claim);
+        } catch (Exception e) {
+            // Other nodes fall back on the unique constraints until their next warm-up
+            logger.warn("Failed to publish availability claim: {}", e.getMessage());
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
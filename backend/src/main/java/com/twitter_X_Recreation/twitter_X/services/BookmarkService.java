@@ -0,0 +1,303 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.BookmarkProjection;
+import com.twitter_X_Recreation.twitter_X.dto.PostPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.exceptions.PostDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.models.Bookmark;
+import com.twitter_X_Recreation.twitter_X.models.BookmarkId;
+import com.twitter_X_Recreation.twitter_X.repositories.BookmarkRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Bookmarks are rows in Postgres and, per user, a Redis sorted set (bookmarks:<id>) of post ids scored by
+// the time they were bookmarked. A page costs one script call for the ids and one PostCacheService.getAll
+// for the posts with their authors (one MGET, plus one SQL join for whatever is not cached), whatever the
+// page size. A set that expired is rebuilt from SQL on its next read. A removal leaves a short lived
+// tombstone (bookmarks:removed:<id>) so a rebuild that read SQL before the row was deleted does not put the
+// post back.
+@Service
+public class BookmarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookmarkService.class);
+
+    private static final String KEY_PREFIX = "bookmarks:";
+    private static final String BUILT_PREFIX = "bookmarks:built:";
+    private static final String REMOVED_PREFIX = "bookmarks:removed:";
+    // Longer than any rebuild runs
+    private static final long REMOVED_RETENTION_MS = 60_000;
+    private static final int REBUILD_PAGE_SIZE = 5_000;
+
+    // Extra members read past the cursor's score, bookmarks made in the same millisecond are filtered out
+    private static final int TIE_SLACK = 32;
+
+    // KEYS[1] = sorted set, KEYS[2] = built marker; ARGV = max score, count, retention ms
+    // Returns a flat member, score list, or nil when the set has to be rebuilt first
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PAGE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                return false
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            redis.call('PEXPIRE', KEYS[2], ARGV[3])
+            return redis.call('ZREVRANGEBYSCORE', KEYS[1], ARGV[1], '-inf', 'WITHSCORES', 'LIMIT', 0, ARGV[2])
+            """, List.class);
+
+    // KEYS[1] = sorted set, KEYS[2] = tombstones; ARGV = score, member pairs read from SQL
+    // Skips members removed since, their SQL rows may have been read before the delete committed
+    private static final RedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #ARGV, 2 do
+                if redis.call('ZSCORE', KEYS[2], ARGV[i + 1]) == false then
+                    redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+                end
+            end
+            return 1
+            """, Long.class);
+
+    private final BookmarkRepository bookmarkRepository;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final UserService userService;
+    private final PostCacheService postCacheService;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long retentionMs;
+    private final int maxPageSize;
+
+    private final OutcomeTimer readTimer;
+    private final Counter rebuilds;
+    private final Counter sqlFallbacks;
+
+    private record Entry(long postId, long createdAt) {
+    }
+
+    public BookmarkService(BookmarkRepository bookmarkRepository,
+                           UserRepository userRepository,
+                           PostRepository postRepository,
+                           UserService userService,
+                           PostCacheService postCacheService,
+                           StringRedisTemplate redisTemplate,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.bookmarks.retention-ms:604800000}") long retentionMs,
+                           @Value("${app.posts.max-page-size:50}") int maxPageSize) {
+        this.bookmarkRepository = bookmarkRepository;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.userService = userService;
+        this.postCacheService = postCacheService;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionMs = retentionMs;
+        this.maxPageSize = maxPageSize;
+
+        this.readTimer = OutcomeTimer.register(meterRegistry, "bookmarks.read", "Bookmark page reads");
+        this.rebuilds = Counter.builder("bookmarks.rebuilds")
+                .description("Bookmark sets rebuilt from SQL")
+                .register(meterRegistry);
+        this.sqlFallbacks = Counter.builder("bookmarks.sql.fallbacks")
+                .description("Bookmark pages served from SQL because Redis failed")
+                .register(meterRegistry);
+    }
+
+    // Returns false when the post was already bookmarked
+    public boolean addBookmark(String username, long postId) {
+        long userId = userService.getUserByUsername(username).getUserId();
+        long createdAt = System.currentTimeMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status -> bookmarkRepository.saveAndFlush(new Bookmark(
+                    userRepository.getReferenceById(userId), postRepository.getReferenceById(postId), createdAt)));
+        } catch (DataIntegrityViolationException e) {
+            // Either the primary key (already bookmarked) or the post foreign key rejected the row
+            if (bookmarkRepository.existsById(new BookmarkId(userId, postId))) {
+                return false;
+            }
+            throw new PostDoesNotExistException();
+        }
+
+        String key = KEY_PREFIX + userId;
+        String member = String.valueOf(postId);
+        updateSet(userId, connection -> {
+            // Bookmarked again after a removal, a rebuild reading the new row must keep it
+            connection.zRem(REMOVED_PREFIX + userId, member);
+            connection.zAdd(key, createdAt, member);
+            connection.pExpire(key, retentionMs);
+        });
+        return true;
+    }
+
+    // Returns false when the post was not bookmarked
+    public boolean removeBookmark(String username, long postId) {
+        long userId = userService.getUserByUsername(username).getUserId();
+        if (bookmarkRepository.deleteBookmark(userId, postId) == 0) {
+            return false;
+        }
+        String key = KEY_PREFIX + userId;
+        String removedKey = REMOVED_PREFIX + userId;
+        String member = String.valueOf(postId);
+        long now = System.currentTimeMillis();
+        // The tombstone goes in before the ZREM, so a rebuild writing after either one skips the post
+        updateSet(userId, connection -> {
+            connection.zRemRangeByScore(removedKey, Double.NEGATIVE_INFINITY, now - REMOVED_RETENTION_MS);
+            connection.zAdd(removedKey, now, member);
+            connection.pExpire(removedKey, REMOVED_RETENTION_MS);
+            connection.zRem(key, member);
+        });
+        return true;
+    }
+
+    // Newest bookmark first, before is the nextCursor of the previous page
+    public PostPageDTO getBookmarks(String username, String before, int limit) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            long userId = userService.getUserByUsername(username).getUserId();
+            int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+            Entry cursor = parseCursor(before);
+
+            List<Entry> page;
+            try {
+                page = readPage(userId, cursor, pageSize);
+            } catch (Exception e) {
+                sqlFallbacks.increment();
+                logger.debug("Bookmarks of {} served from SQL: {}", userId, e.getMessage());
+                page = readPageFromSql(userId, cursor, pageSize);
+            }
+
+            List<Long> postIds = new ArrayList<>(page.size());
+            for (Entry entry : page) {
+                postIds.add(entry.postId());
+            }
+            List<PostResponseDTO> posts = postCacheService.getAll(postIds);
+            String nextCursor = page.size() == pageSize ? formatCursor(page.get(page.size() - 1)) : null;
+            success = true;
+            return new PostPageDTO(posts, nextCursor);
+        } finally {
+            readTimer.record(start, success);
+        }
+    }
+
+    private List<Entry> readPage(long userId, Entry cursor, int pageSize) {
+        List<String> keys = List.of(KEY_PREFIX + userId, BUILT_PREFIX + userId);
+        String max = cursor != null ? String.valueOf(cursor.createdAt()) : "+inf";
+        String count = String.valueOf(pageSize + TIE_SLACK);
+
+        List<?> result = redisTemplate.execute(PAGE_SCRIPT, keys, max, count, String.valueOf(retentionMs));
+        if (result == null) {
+            rebuild(userId);
+            result = redisTemplate.execute(PAGE_SCRIPT, keys, max, count, String.valueOf(retentionMs));
+            if (result == null) {
+                throw new IllegalStateException("Bookmark set of user " + userId + " was not rebuilt");
+            }
+        }
+
+        List<Entry> page = new ArrayList<>(pageSize);
+        for (int i = 0; i + 1 < result.size() && page.size() < pageSize; i += 2) {
+            Entry entry = new Entry(Long.parseLong(result.get(i).toString()),
+                    (long) Double.parseDouble(result.get(i + 1).toString()));
+            if (cursor == null || isBefore(entry, cursor)) {
+                page.add(entry);
+            }
+        }
+        return page;
+    }
+
+    private List<Entry> readPageFromSql(long userId, Entry cursor, int pageSize) {
+        List<BookmarkProjection> rows = bookmarkRepository.findPageBefore(userId,
+                cursor != null ? cursor.createdAt() : Long.MAX_VALUE,
+                cursor != null ? cursor.postId() : Long.MAX_VALUE,
+                PageRequest.of(0, pageSize));
+        List<Entry> page = new ArrayList<>(rows.size());
+        for (BookmarkProjection row : rows) {
+            page.add(new Entry(row.getPostId(), row.getCreatedAt()));
+        }
+        return page;
+    }
+
+    // Adds every bookmark from SQL without clearing the set first, so one added while this runs is kept,
+    // and skips the tombstoned ones, so one removed while this runs stays removed
+    private void rebuild(long userId) {
+        rebuilds.increment();
+        String key = KEY_PREFIX + userId;
+        List<String> keys = List.of(key, REMOVED_PREFIX + userId);
+        Entry after = new Entry(Long.MAX_VALUE, Long.MAX_VALUE);
+        List<Entry> page;
+        do {
+            page = readPageFromSql(userId, after, REBUILD_PAGE_SIZE);
+            if (!page.isEmpty()) {
+                String[] args = new String[page.size() * 2];
+                for (int i = 0; i < page.size(); i++) {
+                    args[2 * i] = String.valueOf(page.get(i).createdAt());
+                    args[2 * i + 1] = String.valueOf(page.get(i).postId());
+                }
+                redisTemplate.execute(REBUILD_SCRIPT, keys, (Object[]) args);
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.pExpire(key, retentionMs);
+            redis.pSetEx(BUILT_PREFIX + userId, retentionMs, "1");
+            return null;
+        });
+    }
+
+    private void updateSet(long userId, Consumer<StringRedisConnection> update) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                update.accept((StringRedisConnection) connection);
+                return null;
+            });
+        } catch (Exception e) {
+            // The row is committed. Dropping the marker makes the next read rebuild the set from SQL;
+            // if Redis is down altogether reads fall back to SQL anyway.
+            logger.warn("Bookmark set update failed: {}", e.getMessage());
+            try {
+                redisTemplate.delete(BUILT_PREFIX + userId);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static boolean isBefore(Entry entry, Entry cursor) {
+        return entry.createdAt() < cursor.createdAt()
+                || (entry.createdAt() == cursor.createdAt() && entry.postId() < cursor.postId());
+    }
+
+    // Cursor is "<createdAt>:<postId>" of the last bookmark on the previous page
+    private static Entry parseCursor(String before) {
+        if (before == null || before.isBlank()) {
+            return null;
+        }
+        int separator = before.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid bookmark cursor");
+        }
+        return new Entry(Long.parseLong(before.substring(separator + 1)), Long.parseLong(before.substring(0, separator)));
+    }
+
+    private static String formatCursor(Entry entry) {
+        return entry.createdAt() + ":" + entry.postId();
+    }
+}
@@ -0,0 +1,199 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.MessageNotSentException;
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageBatchRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageBatchRepository.NewMessage;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Group commit for direct messages. Senders queue their message and wait on a future; one writer thread
+// takes whatever has queued up (up to batch-size, lingering up to linger-ms for more) and writes it in a
+// single transaction with one JDBC batch, then completes the futures and hands the batch to
+// MessageDeliveryService. Under load a transaction carries many messages instead of one each; an idle
+// system pays at most linger-ms. A batch that fails is retried message by message, so one bad row only
+// fails its own sender. A sender that gives up waiting cancels its future, which only succeeds while the
+// message is still queued: the writer skips it, so a "not sent" answer never hides a message that commits.
+@Service
+public class DirectMessageWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectMessageWriter.class);
+
+    private final DirectMessageBatchRepository batchRepository;
+    private final MessageDeliveryService deliveryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long lingerNanos;
+
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final OutcomeTimer batchTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+
+    private record Pending(NewMessage message, Persisted persisted) {
+    }
+
+    // Queued until the writer claims it for a transaction, cancellable only before that
+    private static final class Persisted extends CompletableFuture<Void> {
+
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return state.compareAndSet(QUEUED, CANCELLED) && super.cancel(mayInterruptIfRunning);
+        }
+
+        private boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+    }
+
+    public DirectMessageWriter(DirectMessageBatchRepository batchRepository,
+                               MessageDeliveryService deliveryService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.messages.batch.size:200}") int batchSize,
+                               @Value("${app.messages.batch.linger-ms:2}") long lingerMs,
+                               @Value("${app.messages.batch.queue-capacity:10000}") int queueCapacity) {
+        this.batchRepository = batchRepository;
+        this.deliveryService = deliveryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.batchTimer = OutcomeTimer.register(meterRegistry, "messages.batch.write", "Direct message batch transactions");
+        this.batchSizes = DistributionSummary.builder("messages.batch.size")
+                .description("Messages written per transaction")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("messages.rejected")
+                .description("Messages refused because the write queue was full")
+                .register(meterRegistry);
+        Gauge.builder("messages.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.writer = new Thread(this::run, "direct-message-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Completes once the message is committed, exceptionally when it was refused or its write failed.
+    // cancel() withdraws the message if the writer has not taken it yet and returns false otherwise.
+    public CompletableFuture<Void> append(NewMessage message) {
+        Persisted persisted = new Persisted();
+        if (!running || !queue.offer(new Pending(message, persisted))) {
+            rejected.increment();
+            persisted.completeExceptionally(new MessageNotSentException());
+        }
+        return persisted;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // Messages already taken off the queue are still written, shutdown() waits for the drain
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (Exception e) {
+                logger.error("Direct message writer failed", e);
+                for (Pending pending : batch) {
+                    pending.persisted().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        // Senders that timed out and withdrew their message have already been told it was not sent
+        batch.removeIf(pending -> !pending.persisted().claim());
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<NewMessage> messages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            messages.add(pending.message());
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> batchRepository.insertMessages(messages));
+            success = true;
+        } catch (Exception e) {
+            logger.warn("Direct message batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+        } finally {
+            batchTimer.record(start, success);
+            batchSizes.record(batch.size());
+        }
+
+        List<NewMessage> persisted = success ? messages : new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (!success) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> batchRepository.insertMessages(List.of(pending.message())));
+                    persisted.add(pending.message());
+                } catch (Exception e) {
+                    pending.persisted().completeExceptionally(e);
+                    continue;
+                }
+            }
+            pending.persisted().complete(null);
+        }
+        deliveryService.publish(persisted);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.persisted().completeExceptionally(new MessageNotSentException());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.EmailOutboxMessage;
+import com.twitter_X_Recreation.twitter_X.repositories.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains the email outbox on virtual threads. Each cycle leases a batch of due messages in a short
+// transaction, sends them concurrently outside of any transaction, then records the results in one
+// more transaction. Failures are retried with exponential backoff and dead-lettered after max attempts.
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final long METRICS_REFRESH_INTERVAL_MS = 5_000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTransport emailTransport;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final long sentRetentionMs;
+
+    private final Semaphore wakeUpSignal = new Semaphore(0);
+    private final AtomicLong pendingDepth = new AtomicLong();
+    private final AtomicLong deadDepth = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+
+    private volatile boolean running = false;
+    private Thread loopThread;
+    private long lastMetricsRefresh = 0;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 EmailTransport emailTransport,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.email.outbox.enabled:true}") boolean enabled,
+                                 @Value("${app.email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${app.email.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                                 @Value("${app.email.outbox.lease-ms:60000}") long leaseMs,
+                                 @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.email.outbox.base-backoff-ms:2000}") long baseBackoffMs,
+                                 @Value("${app.email.outbox.max-backoff-ms:600000}") long maxBackoffMs,
+                                 @Value("${app.email.outbox.sent-retention-ms:86400000}") long sentRetentionMs) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailTransport = emailTransport;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.sentRetentionMs = sentRetentionMs;
+
+        Gauge.builder("email.outbox.pending", pendingDepth, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.dead", deadDepth, AtomicLong::get)
+                .description("Emails that exhausted their delivery attempts")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("email.outbox.sent").register(meterRegistry);
+        this.retriedCounter = Counter.builder("email.outbox.retried").register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("email.outbox.dead_lettered").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        loopThread = Thread.ofVirtual().name("email-outbox-dispatcher").start(this::runLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (loopThread != null) {
+            loopThread.interrupt();
+        }
+    }
+
+    public void wakeUp() {
+        if (wakeUpSignal.availablePermits() == 0) {
+            wakeUpSignal.release();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                int dispatched = dispatchBatch();
+                refreshMetrics();
+                // A full batch means there is probably more work, go again right away
+                if (dispatched < batchSize) {
+                    wakeUpSignal.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeUpSignal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Email outbox dispatch cycle failed", e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    int dispatchBatch() {
+        long now = System.currentTimeMillis();
+        List<EmailOutboxMessage> batch = transactionTemplate.execute(status -> {
+            List<EmailOutboxMessage> due = emailOutboxRepository.findDueForDispatch(
+                    EmailOutboxMessage.Status.PENDING, now, PageRequest.of(0, batchSize));
+            // Lease the rows so a crash mid-send only delays them instead of losing them
+            for (EmailOutboxMessage message : due) {
+                message.setNextAttemptAt(now + leaseMs);
+            }
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        Map<EmailOutboxMessage, Exception> failures = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (EmailOutboxMessage message : batch) {
+                executor.submit(() -> {
+                    try {
+                        emailTransport.sendEmail(message.getRecipient(), message.getSubject(), message.getHtmlBody());
+                    } catch (Exception e) {
+                        failures.put(message, e);
+                    }
+                });
+            }
+        }
+        for (EmailOutboxMessage message : batch) {
+            if (!failures.containsKey(message)) {
+                sentIds.add(message.getId());
+            }
+        }
+
+        long completedAt = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                emailOutboxRepository.markSent(sentIds, EmailOutboxMessage.Status.SENT, completedAt);
+            }
+            failures.forEach((message, error) -> recordFailure(message, error, completedAt));
+        });
+        sentCounter.increment(sentIds.size());
+        return batch.size();
+    }
+
+    private void recordFailure(EmailOutboxMessage message, Exception error, long now) {
+        int attempts = message.getAttempts() + 1;
+        String lastError = truncate(String.valueOf(error.getMessage()));
+        if (attempts >= maxAttempts) {
+            emailOutboxRepository.markFailed(message.getId(), EmailOutboxMessage.Status.DEAD, attempts, now, lastError);
+            deadLetteredCounter.increment();
+            logger.warn("Email {} to {} dead-lettered after {} attempts: {}", message.getId(), message.getRecipient(), attempts, lastError);
+        } else {
+            emailOutboxRepository.markFailed(message.getId(), EmailOutboxMessage.Status.PENDING, attempts, now + backoff(attempts), lastError);
+            retriedCounter.increment();
+        }
+    }
+
+    // Exponential backoff with up to 20% jitter so a provider outage does not end in a retry stampede
+    private long backoff(int attempts) {
+        long delay = baseBackoffMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private void refreshMetrics() {
+        long now = System.currentTimeMillis();
+        if (now - lastMetricsRefresh < METRICS_REFRESH_INTERVAL_MS) {
+            return;
+        }
+        lastMetricsRefresh = now;
+        pendingDepth.set(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.PENDING));
+        deadDepth.set(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.DEAD));
+        transactionTemplate.executeWithoutResult(status ->
+                emailOutboxRepository.deleteSentBefore(EmailOutboxMessage.Status.SENT, now - sentRetentionMs));
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
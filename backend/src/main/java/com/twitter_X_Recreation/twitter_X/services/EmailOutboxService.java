@@ -0,0 +1,30 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.EmailOutboxMessage;
+import com.twitter_X_Recreation.twitter_X.repositories.EmailOutboxRepository;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository, EmailOutboxDispatcher emailOutboxDispatcher) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+    }
+
+    // Must join the caller's transaction: the email exists if and only if the caller's changes commit
+    @Transactional(propagation = Propagation.MANDATORY)
+    public EmailOutboxMessage enqueue(String toAddress, String subject, String htmlBody) {
+        EmailOutboxMessage message = emailOutboxRepository.save(new EmailOutboxMessage(toAddress, subject, htmlBody));
+
+        // Wake the dispatcher as soon as the row is visible instead of waiting for its next poll
+        AfterCommit.run(emailOutboxDispatcher::wakeUp);
+        return message;
+    }
+}
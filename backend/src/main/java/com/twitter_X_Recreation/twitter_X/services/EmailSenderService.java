@@ -1,8 +1,15 @@
 package com.twitter_X_Recreation.twitter_X.services;
 
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
 import com.twitter_X_Recreation.twitter_X.exceptions.EmailFailedToSendException;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import sendinblue.ApiClient;
+import sendinblue.auth.ApiKeyAuth;
 import sibApi.TransactionalEmailsApi;
 import sibModel.CreateSmtpEmail;
 import sibModel.SendSmtpEmail;
@@ -10,28 +17,46 @@ import sibModel.SendSmtpEmailSender;
 import sibModel.SendSmtpEmailTo;
 
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Service
-public class EmailSenderService {
+@ConditionalOnProperty(name = "app.email.transport", havingValue = "brevo", matchIfMissing = true)
+public class EmailSenderService implements EmailTransport {
 
 
     private final String MY_EMAIL_ADDRESS ;
 
+    // One client for the whole app: its connection pool keeps TLS connections to Brevo alive between
+    // sends, and the timeouts stop a slow Brevo from holding dispatcher threads indefinitely
+    private final TransactionalEmailsApi apiInstance;
 
-    private final String BREVO_API_KEY ;
+    private final OutcomeTimer sendTimer;
 
-    public EmailSenderService(@Value("${smtp.my.email}") String myEmailAddress, @Value("${brevo.api.key}") String brevoApiKey) {
+    public EmailSenderService(MeterRegistry meterRegistry,
+                              @Value("${smtp.my.email}") String myEmailAddress,
+                              @Value("${brevo.api.key}") String brevoApiKey,
+                              @Value("${app.email.brevo.connect-timeout-ms:5000}") long connectTimeoutMs,
+                              @Value("${app.email.brevo.read-timeout-ms:10000}") long readTimeoutMs,
+                              @Value("${app.email.brevo.max-idle-connections:50}") int maxIdleConnections) {
         MY_EMAIL_ADDRESS = myEmailAddress;
-        BREVO_API_KEY = brevoApiKey;
+
+        ApiClient apiClient = new ApiClient();
+        ((ApiKeyAuth) apiClient.getAuthentication("api-key")).setApiKey(brevoApiKey);
+        OkHttpClient httpClient = apiClient.getHttpClient();
+        httpClient.setConnectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS);
+        httpClient.setReadTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
+        httpClient.setWriteTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
+        // Sized to the outbox batch, which is how many sends run at once
+        httpClient.setConnectionPool(new ConnectionPool(maxIdleConnections, TimeUnit.MINUTES.toMillis(5)));
+        this.apiInstance = new TransactionalEmailsApi(apiClient);
+        this.sendTimer = OutcomeTimer.register(meterRegistry, "email.brevo.send", "Brevo transactional email API call");
     }
 
+    @Override
     public void sendEmail(String toAddress, String subject, String content) throws EmailFailedToSendException {
-
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            // Configure Brevo API client
-            TransactionalEmailsApi apiInstance = new TransactionalEmailsApi();
-            apiInstance.getApiClient().setApiKey(BREVO_API_KEY);
-
             // Set up the email sender
             SendSmtpEmailSender sender = new SendSmtpEmailSender();
             sender.setEmail(MY_EMAIL_ADDRESS);
@@ -50,8 +75,11 @@ public class EmailSenderService {
 
             // Send the email and log the response
             CreateSmtpEmail response = apiInstance.sendTransacEmail(sendSmtpEmail);
+            success = true;
         } catch (Exception e) {
             throw new EmailFailedToSendException(e);
+        } finally {
+            sendTimer.record(start, success);
         }
     }
-}
\ No newline at end of file
+}
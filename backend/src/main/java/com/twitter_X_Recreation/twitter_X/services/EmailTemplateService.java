@@ -0,0 +1,116 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.utils.CompiledTemplate;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads every classpath:templates/*.html once at startup and keeps it compiled in memory.
+// Files are named <template>.html for the default version and <template>_<locale>.html
+// (e.g. email-verification-code-template_pt_BR.html) for translations.
+@Service
+public class EmailTemplateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateService.class);
+
+    public static final String VERIFICATION_CODE_TEMPLATE = "email-verification-code-template";
+
+    private static final String TEMPLATE_PATTERN = "classpath*:templates/*.html";
+
+    private record LoadedTemplate(CompiledTemplate template, Resource resource, long lastModified) {
+    }
+
+    private final boolean hotReload;
+    private final Map<String, LoadedTemplate> templates = new ConcurrentHashMap<>();
+
+    public EmailTemplateService(@Value("${app.templates.hot-reload:false}") boolean hotReload) {
+        this.hotReload = hotReload;
+    }
+
+    @PostConstruct
+    void loadTemplates() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(TEMPLATE_PATTERN);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null) {
+                continue;
+            }
+            String key = filename.substring(0, filename.length() - ".html".length());
+            templates.put(key, load(key, resource));
+        }
+        logger.info("Compiled {} email templates {}", templates.size(), templates.keySet());
+    }
+
+    public String render(String name, Map<String, String> values) {
+        return render(name, null, values);
+    }
+
+    public String render(String name, Locale locale, Map<String, String> values) {
+        return resolve(name, locale).render(values);
+    }
+
+    public String getVerificationEmail(String verificationCode) {
+        return render(VERIFICATION_CODE_TEMPLATE, Map.of("VERIFICATION_CODE", verificationCode));
+    }
+
+    // Most specific locale first: name_pt_BR, name_pt, then name
+    private CompiledTemplate resolve(String name, Locale locale) {
+        LoadedTemplate loaded = null;
+        if (locale != null) {
+            if (!locale.getCountry().isEmpty()) {
+                loaded = templates.get(name + "_" + locale.getLanguage() + "_" + locale.getCountry());
+            }
+            if (loaded == null && !locale.getLanguage().isEmpty()) {
+                loaded = templates.get(name + "_" + locale.getLanguage());
+            }
+        }
+        if (loaded == null) {
+            loaded = templates.get(name);
+        }
+        if (loaded == null) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+        return hotReload ? reloadIfModified(loaded) : loaded.template();
+    }
+
+    // Dev only: templates read from the build output directory are re-read when their file changes
+    private CompiledTemplate reloadIfModified(LoadedTemplate loaded) {
+        try {
+            if (loaded.resource().lastModified() != loaded.lastModified()) {
+                LoadedTemplate reloaded = load(loaded.template().getName(), loaded.resource());
+                templates.put(reloaded.template().getName(), reloaded);
+                logger.info("Reloaded email template {}", reloaded.template().getName());
+                return reloaded.template();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not reload email template {}: {}", loaded.template().getName(), e.getMessage());
+        }
+        return loaded.template();
+    }
+
+    private static LoadedTemplate load(String key, Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            String source = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            return new LoadedTemplate(CompiledTemplate.compile(key, source), resource, lastModified(resource));
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+}
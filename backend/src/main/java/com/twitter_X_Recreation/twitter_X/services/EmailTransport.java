@@ -0,0 +1,9 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.EmailFailedToSendException;
+
+// Delivers one already rendered email, selected with app.email.transport (brevo | stub)
+public interface EmailTransport {
+
+    void sendEmail(String toAddress, String subject, String content) throws EmailFailedToSendException;
+}
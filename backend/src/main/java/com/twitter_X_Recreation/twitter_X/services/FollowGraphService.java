@@ -0,0 +1,215 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.FollowId;
+import com.twitter_X_Recreation.twitter_X.repositories.FollowRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.ChangeStream;
+import com.twitter_X_Recreation.twitter_X.utils.FollowGraph;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+// Serves follower/following counts, "follows you" and "followed by people you follow" from an in-memory
+// FollowGraph. Postgres keeps the durable edges and is read once at startup; after that every node
+// applies follows and unfollows from the follows:changes ChangeStream, which the node that committed the
+// change appends to, and reloads from Postgres when the entries it missed were trimmed.
+// Until the first load completes the same questions are answered by SQL.
+@Service
+public class FollowGraphService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraphService.class);
+
+    private static final String CHANGES_KEY = "follows:changes";
+    private static final String FOLLOW = "follow";
+    private static final String UNFOLLOW = "unfollow";
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final ChangeStream changeStream;
+    private final boolean streamEnabled;
+
+    private final OutcomeTimer loadTimer;
+    private final Counter localChanges;
+    private final Counter streamChanges;
+    private final Counter reloads;
+
+    private volatile FollowGraph graph = new FollowGraph();
+    private volatile boolean ready = false;
+
+    public FollowGraphService(FollowRepository followRepository,
+                              UserRepository userRepository,
+                              StringRedisTemplate redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.follows.graph.stream-enabled:true}") boolean streamEnabled,
+                              @Value("${app.follows.graph.stream-max-length:1000000}") long streamMaxLength,
+                              @Value("${app.follows.graph.read-batch-size:500}") int readBatchSize,
+                              @Value("${app.follows.graph.read-block-ms:1000}") long readBlockMs) {
+        this.followRepository = followRepository;
+        this.userRepository = userRepository;
+        this.changeStream = new ChangeStream(CHANGES_KEY, redisTemplate, streamMaxLength, readBatchSize, readBlockMs);
+        this.streamEnabled = streamEnabled;
+
+        this.loadTimer = OutcomeTimer.register(meterRegistry, "follows.graph.load", "Follow graph loads from Postgres");
+        this.localChanges = Counter.builder("follows.graph.changes").tag("source", "local").register(meterRegistry);
+        this.streamChanges = Counter.builder("follows.graph.changes").tag("source", "stream").register(meterRegistry);
+        this.reloads = Counter.builder("follows.graph.reloads")
+                .description("Full reloads after the change stream was trimmed past this node")
+                .register(meterRegistry);
+        Gauge.builder("follows.graph.edges", this, service -> service.graph.edgeCount()).register(meterRegistry);
+        Gauge.builder("follows.graph.users", this, service -> service.graph.userCount()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        String startId = load();
+        if (streamEnabled) {
+            changeStream.consume("follow-graph-changes", startId, this::apply, this::reload);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Called after the edge is committed: applied here right away, everywhere else through the stream
+    public void recordFollow(long followerId, long followeeId) {
+        graph.addEdge(followerId, followeeId);
+        localChanges.increment();
+        publish(FOLLOW, followerId, followeeId);
+    }
+
+    public void recordUnfollow(long followerId, long followeeId) {
+        graph.removeEdge(followerId, followeeId);
+        localChanges.increment();
+        publish(UNFOLLOW, followerId, followeeId);
+    }
+
+    public long followerCount(long userId) {
+        return ready ? graph.followerCount(userId) : followRepository.countByIdFolloweeId(userId);
+    }
+
+    public long followingCount(long userId) {
+        return ready ? graph.followingCount(userId) : followRepository.countByIdFollowerId(userId);
+    }
+
+    public boolean follows(long followerId, long followeeId) {
+        return ready ? graph.follows(followerId, followeeId) : followRepository.existsById(new FollowId(followerId, followeeId));
+    }
+
+    // Accounts viewerId follows that also follow targetId
+    public long followedByCount(long viewerId, long targetId) {
+        return ready ? graph.followedByCount(viewerId, targetId) : followRepository.countFollowedBy(viewerId, targetId);
+    }
+
+    public List<Long> followedBy(long viewerId, long targetId, int limit) {
+        return ready
+                ? graph.followedBy(viewerId, targetId, limit)
+                : followRepository.findFollowedBy(viewerId, targetId, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    // Null until the graph is loaded, callers page through SQL instead
+    public long[] followerIds(long userId) {
+        return ready ? graph.followerIds(userId) : null;
+    }
+
+    // Returns the stream position taken before reading Postgres, so changes committed during the load are
+    // replayed on top of it; applying an edge twice is harmless
+    private String load() {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            String startId = streamEnabled ? changeStream.latestId() : ChangeStream.START_ID;
+            FollowGraph loaded = new FollowGraph();
+
+            Long afterUserId = Long.MIN_VALUE;
+            List<Long> userIds;
+            do {
+                userIds = userRepository.findIdsAfter(afterUserId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                for (Long userId : userIds) {
+                    loaded.register(userId);
+                }
+                if (!userIds.isEmpty()) {
+                    afterUserId = userIds.get(userIds.size() - 1);
+                }
+            } while (userIds.size() == LOAD_PAGE_SIZE);
+
+            FollowId after = new FollowId(Long.MIN_VALUE, Long.MIN_VALUE);
+            List<FollowId> edges;
+            do {
+                edges = followRepository.findEdgesAfter(after.getFolloweeId(), after.getFollowerId(),
+                        PageRequest.of(0, LOAD_PAGE_SIZE));
+                for (FollowId edge : edges) {
+                    loaded.addEdge(edge.getFollowerId(), edge.getFolloweeId());
+                }
+                if (!edges.isEmpty()) {
+                    after = edges.get(edges.size() - 1);
+                }
+            } while (edges.size() == LOAD_PAGE_SIZE);
+
+            graph = loaded;
+            ready = true;
+            success = true;
+            logger.info("Follow graph loaded with {} users and {} edges in {} ms, about {} KiB",
+                    loaded.userCount(), loaded.edgeCount(), (System.nanoTime() - start) / 1_000_000,
+                    loaded.sizeInBytes() / 1024);
+            return startId;
+        } finally {
+            loadTimer.record(start, success);
+        }
+    }
+
+    // The change stream was trimmed past lastChangeId, nothing short of a full load is known to be current
+    private String reload(String lastChangeId) {
+        reloads.increment();
+        return load();
+    }
+
+    private void apply(Map<Object, Object> change) {
+        try {
+            long followerId = Long.parseLong(String.valueOf(change.get("follower")));
+            long followeeId = Long.parseLong(String.valueOf(change.get("followee")));
+            if (FOLLOW.equals(change.get("op"))) {
+                graph.addEdge(followerId, followeeId);
+            } else if (UNFOLLOW.equals(change.get("op"))) {
+                graph.removeEdge(followerId, followeeId);
+            }
+            streamChanges.increment();
+        } catch (NumberFormatException e) {
+            logger.warn("Skipping malformed follow change {}", change);
+        }
+    }
+
+    private void publish(String op, long followerId, long followeeId) {
+        if (!streamEnabled) {
+            return;
+        }
+        try {
+            changeStream.publish(List.of(Map.of(
+                    "op", op,
+                    "follower", String.valueOf(followerId),
+                    "followee", String.valueOf(followeeId))));
+        } catch (Exception e) {
+            // Other nodes pick the edge up at their next load
+            logger.warn("Failed to publish follow change: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        changeStream.stop();
+    }
+}
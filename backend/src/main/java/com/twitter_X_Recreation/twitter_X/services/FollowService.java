@@ -0,0 +1,121 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.FollowStatsDTO;
+import com.twitter_X_Recreation.twitter_X.dto.UserSummaryProjection;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidFollowException;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.models.Follow;
+import com.twitter_X_Recreation.twitter_X.repositories.FollowRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Both users come from the user near cache, so following is one INSERT and unfollowing one DELETE.
+// Counts and relationship checks are answered by the in-memory follow graph (FollowGraphService).
+@Service
+public class FollowService {
+
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TimelineService timelineService;
+    private final FollowGraphService followGraphService;
+    private final NotificationService notificationService;
+    private final UserLoaderService userLoaderService;
+    private final TransactionTemplate transactionTemplate;
+    private final int followedByLimit;
+
+    public FollowService(FollowRepository followRepository,
+                         UserRepository userRepository,
+                         UserService userService,
+                         TimelineService timelineService,
+                         FollowGraphService followGraphService,
+                         NotificationService notificationService,
+                         UserLoaderService userLoaderService,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.follows.followed-by-limit:3}") int followedByLimit) {
+        this.followRepository = followRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.timelineService = timelineService;
+        this.followGraphService = followGraphService;
+        this.notificationService = notificationService;
+        this.userLoaderService = userLoaderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.followedByLimit = followedByLimit;
+    }
+
+    // Returns false when the edge already existed
+    public boolean follow(String username, String targetUsername) {
+        ApplicationUser follower = userService.getUserByUsername(username);
+        ApplicationUser followee = userService.getUserByUsername(targetUsername);
+        if (follower.getUserId().equals(followee.getUserId())) {
+            throw new InvalidFollowException("You cannot follow yourself");
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> followRepository.saveAndFlush(new Follow(
+                    userRepository.getReferenceById(follower.getUserId()),
+                    userRepository.getReferenceById(followee.getUserId()))));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        followGraphService.recordFollow(follower.getUserId(), followee.getUserId());
+        timelineService.onFollow(follower.getUserId(), followee.getUserId());
+        notificationService.onFollow(follower, followee.getUserId());
+        return true;
+    }
+
+    // Returns false when there was nothing to remove
+    public boolean unfollow(String username, String targetUsername) {
+        ApplicationUser follower = userService.getUserByUsername(username);
+        ApplicationUser followee = userService.getUserByUsername(targetUsername);
+
+        if (followRepository.deleteFollow(follower.getUserId(), followee.getUserId()) == 0) {
+            return false;
+        }
+        followGraphService.recordUnfollow(follower.getUserId(), followee.getUserId());
+        timelineService.onUnfollow(follower.getUserId(), followee.getUserId());
+        return true;
+    }
+
+    // Profile header: counts for everyone, and for a signed in viewer (viewerUsername may be null) whether
+    // the two follow each other plus a few accounts the viewer follows that follow the target
+    public FollowStatsDTO getFollowStats(String viewerUsername, String targetUsername) {
+        ApplicationUser target = userService.getUserByUsername(targetUsername);
+        long targetId = target.getUserId();
+        long followers = followGraphService.followerCount(targetId);
+        long following = followGraphService.followingCount(targetId);
+
+        if (viewerUsername == null) {
+            return new FollowStatsDTO(followers, following, null, null, 0, List.of());
+        }
+        long viewerId = userService.getUserByUsername(viewerUsername).getUserId();
+        if (viewerId == targetId) {
+            return new FollowStatsDTO(followers, following, null, null, 0, List.of());
+        }
+
+        long followedByCount = followGraphService.followedByCount(viewerId, targetId);
+        List<String> followedBy = followedByCount == 0
+                ? List.of()
+                : usernames(followGraphService.followedBy(viewerId, targetId, followedByLimit));
+        return new FollowStatsDTO(followers, following,
+                followGraphService.follows(targetId, viewerId),
+                followGraphService.follows(viewerId, targetId),
+                followedByCount, followedBy);
+    }
+
+    private List<String> usernames(List<Long> userIds) {
+        List<String> usernames = new ArrayList<>(userIds.size());
+        for (UserSummaryProjection user : userLoaderService.byId().loadAll(userIds).values()) {
+            usernames.add(user.getUsername());
+        }
+        return usernames;
+    }
+}
@@ -0,0 +1,298 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+// Probes the database and Redis on a background schedule and keeps the last result in memory, so
+// health requests from load balancers never touch a dependency themselves. Each probe runs on its own
+// virtual thread with a timeout, and a dependency only flips to DOWN after several failures in a row.
+// A database whose pool is saturated is not down: every connection is checked out doing work, so the
+// probe reports SATURATED and the node stays ready. Draining busy nodes would only pile their traffic
+// onto the others until every node fails its probe at once.
+@Service
+public class HealthProbeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthProbeService.class);
+
+    public static final String DATABASE = "database";
+    public static final String REDIS = "redis";
+
+    private enum Status {
+        UP, SATURATED, DOWN
+    }
+
+    public record ProbeResult(String status, long latencyMs, long checkedAt, String error) {
+    }
+
+    private static final class Dependency {
+        private final String name;
+        private final Callable<Status> probe;
+        // Whether a probe that timed out was only waiting for capacity, null when that cannot happen
+        private final BooleanSupplier saturated;
+        private final Timer latency;
+        private volatile ProbeResult lastResult;
+        private volatile boolean up = false;
+        private int consecutiveFailures = 0;
+
+        private Dependency(String name, Callable<Status> probe, BooleanSupplier saturated, Timer latency) {
+            this.name = name;
+            this.probe = probe;
+            this.saturated = saturated;
+            this.latency = latency;
+        }
+    }
+
+    private final DataSource dataSource;
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, Dependency> dependencies = new LinkedHashMap<>();
+    private final boolean redisRequiredForReadiness;
+    private final long intervalMs;
+    private final long timeoutMs;
+    private final int failureThreshold;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("health-probe").daemon().factory());
+    private final ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile long lastRunAt = 0;
+
+    public HealthProbeService(DataSource dataSource,
+                              StringRedisTemplate redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.health.interval-ms:5000}") long intervalMs,
+                              @Value("${app.health.timeout-ms:1000}") long timeoutMs,
+                              @Value("${app.health.failure-threshold:3}") int failureThreshold,
+                              @Value("${app.health.redis-required-for-readiness:false}") boolean redisRequiredForReadiness) {
+        this.dataSource = dataSource;
+        this.redisTemplate = redisTemplate;
+        this.intervalMs = intervalMs;
+        this.timeoutMs = timeoutMs;
+        this.failureThreshold = failureThreshold;
+        this.redisRequiredForReadiness = redisRequiredForReadiness;
+
+        register(meterRegistry, DATABASE, this::probeDatabase, this::isPoolSaturated);
+        register(meterRegistry, REDIS, this::probeRedis, null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::probeAll, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    public boolean isUp(String dependency) {
+        return dependencies.get(dependency).up;
+    }
+
+    // Every dependency is UP
+    public boolean isHealthy() {
+        return dependencies.values().stream().allMatch(dependency -> dependency.up);
+    }
+
+    // Should the load balancer send traffic here. Redis is left out by default: the rate limiter, caches
+    // and availability index all degrade without it, and a Redis blip would otherwise drain every node at once.
+    public boolean isReady() {
+        return lastRunAt > 0 && isUp(DATABASE) && (!redisRequiredForReadiness || isUp(REDIS));
+    }
+
+    // Only fails when the probe loop itself has stalled, dependencies never restart the process
+    public boolean isLive() {
+        return lastRunAt == 0 || System.currentTimeMillis() - lastRunAt < 3 * (intervalMs + timeoutMs);
+    }
+
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (Dependency dependency : dependencies.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            ProbeResult result = dependency.lastResult;
+            entry.put("status", (!dependency.up ? Status.DOWN
+                    : result != null && Status.SATURATED.name().equals(result.status()) ? Status.SATURATED : Status.UP).name());
+            if (result != null) {
+                entry.put("latencyMs", result.latencyMs());
+                entry.put("checkedAt", result.checkedAt());
+                if (result.error() != null) {
+                    entry.put("error", result.error());
+                }
+            }
+            // Rolling percentiles of the probe latency, the timer decays old samples
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (ValueAtPercentile percentile : dependency.latency.takeSnapshot().percentileValues()) {
+                percentiles.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+            }
+            entry.put("latencyPercentilesMs", percentiles);
+            details.put(dependency.name, entry);
+        }
+        Map<String, Object> pool = getPoolStats();
+        if (pool != null) {
+            details.put("connectionPool", pool);
+        }
+        return details;
+    }
+
+    private void register(MeterRegistry meterRegistry, String name, Callable<Status> probe, BooleanSupplier saturated) {
+        Timer latency = Timer.builder("health.probe.latency")
+                .tag("dependency", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        dependencies.put(name, new Dependency(name, probe, saturated, latency));
+    }
+
+    // Package private so tests can run a round without the scheduler
+    void probeAll() {
+        for (Dependency dependency : dependencies.values()) {
+            try {
+                record(dependency, runProbe(dependency));
+            } catch (Exception e) {
+                logger.error("Health probe for {} failed unexpectedly", dependency.name, e);
+            }
+        }
+        lastRunAt = System.currentTimeMillis();
+    }
+
+    private ProbeResult runProbe(Dependency dependency) {
+        long start = System.nanoTime();
+        Future<Status> future = probeExecutor.submit(dependency.probe);
+        String error = null;
+        Status status = Status.DOWN;
+        try {
+            status = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (status == Status.DOWN) {
+                error = "Probe returned an unexpected response";
+            }
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            // Still queued for a pooled connection behind real traffic, not a dead dependency
+            if (dependency.saturated != null && dependency.saturated.getAsBoolean()) {
+                status = Status.SATURATED;
+            } else {
+                error = "Timed out after " + timeoutMs + " ms";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        dependency.latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        return new ProbeResult(status.name(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), System.currentTimeMillis(), error);
+    }
+
+    // One success brings a dependency back, it takes failureThreshold failures in a row to take it down.
+    // Saturated counts as a success: the connections it is waiting for are all in use.
+    private void record(Dependency dependency, ProbeResult result) {
+        dependency.lastResult = result;
+        boolean wasUp = dependency.up;
+        if (!Status.DOWN.name().equals(result.status())) {
+            dependency.consecutiveFailures = 0;
+            dependency.up = true;
+        } else if (++dependency.consecutiveFailures >= failureThreshold) {
+            dependency.up = false;
+        }
+        if (wasUp != dependency.up) {
+            if (dependency.up) {
+                logger.info("{} is UP ({} ms)", dependency.name, result.latencyMs());
+            } else {
+                logger.warn("{} is DOWN after {} failed probes: {}", dependency.name, dependency.consecutiveFailures, result.error());
+            }
+        }
+    }
+
+    // Only a failed connect or a failed validation counts against the database. Hikari gives up waiting for a
+    // free connection with a SQLTransientConnectionException, whose cause is the last connect failure when
+    // the pool cannot open connections and null when they are all merely busy.
+    private Status probeDatabase() throws Exception {
+        if (isPoolSaturated()) {
+            return Status.SATURATED;
+        }
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLTransientConnectionException e) {
+            if (e.getCause() == null || isPoolSaturated()) {
+                return Status.SATURATED;
+            }
+            throw e;
+        }
+        try (connection) {
+            return connection.isValid((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs))) ? Status.UP : Status.DOWN;
+        }
+    }
+
+    // execute() hands the connection back when done, unlike getConnectionFactory().getConnection()
+    private Status probeRedis() {
+        String reply = redisTemplate.execute(RedisConnection::ping, true);
+        return "PONG".equalsIgnoreCase(reply) ? Status.UP : Status.DOWN;
+    }
+
+    // Every connection the pool may open is open and checked out
+    private boolean isPoolSaturated() {
+        HikariDataSource hikari = hikari();
+        HikariPoolMXBean pool = hikari == null ? null : hikari.getHikariPoolMXBean();
+        return pool != null && pool.getActiveConnections() >= hikari.getMaximumPoolSize();
+    }
+
+    private HikariDataSource hikari() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> getPoolStats() {
+        try {
+            HikariDataSource hikari = hikari();
+            if (hikari == null) {
+                return null;
+            }
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                return null;
+            }
+            int max = hikari.getMaximumPoolSize();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", pool.getActiveConnections());
+            stats.put("idle", pool.getIdleConnections());
+            stats.put("total", pool.getTotalConnections());
+            stats.put("max", max);
+            stats.put("awaitingConnection", pool.getThreadsAwaitingConnection());
+            stats.put("saturation", max == 0 ? 0.0 : (double) pool.getActiveConnections() / max);
+            return stats;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
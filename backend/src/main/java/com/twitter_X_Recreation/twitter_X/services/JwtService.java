@@ -0,0 +1,172 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidJWTException;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class JwtService {
+
+    private static final JWSHeader HEADER = new JWSHeader(JWSAlgorithm.HS256);
+    private static final String SESSION_CLAIM = "sid";
+
+    // Signer and verifier hold no per-call state, one instance of each serves every request
+    private final JWSSigner signer;
+    private final JWSVerifier verifier;
+
+    // Tokens that already passed signature verification, keyed by the first 128 bits of their SHA-256
+    private final ConcurrentHashMap<TokenKey, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final int maxCachedTokens;
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    private final OutcomeTimer signTimer;
+    private final OutcomeTimer verifyTimer;
+    private final Counter cacheHits;
+
+    public JwtService(MeterRegistry meterRegistry,
+                      @Value("${jwt.secret}") String jwtSecret,
+                      @Value("${jwt.cache.max-size:10000}") int maxCachedTokens) {
+        try {
+            byte[] secret = jwtSecret.getBytes();
+            this.signer = new MACSigner(secret);
+            this.verifier = new MACVerifier(secret);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Invalid JWT secret", e);
+        }
+        this.maxCachedTokens = maxCachedTokens;
+
+        this.signTimer = OutcomeTimer.register(meterRegistry, "jwt.sign", "JWT signing");
+        // Only the cache misses, where the HMAC is actually checked
+        this.verifyTimer = OutcomeTimer.register(meterRegistry, "jwt.verify", "JWT signature verification");
+        this.cacheHits = Counter.builder("jwt.verify.cache.hits")
+                .description("Tokens accepted from the verified token cache")
+                .register(meterRegistry);
+    }
+
+    // sessionId is null for tokens minted before every token carried one, JwtAuthenticationFilter rejects those
+    public record VerifiedToken(String subject, Long sessionId, long expiresAt) {
+    }
+
+    private record TokenKey(long high, long low) {
+    }
+
+    // Access tokens are only issued for a session (SessionService), the filter rejects tokens without one
+    public String generateToken(String subject, long sessionId, long expirationMillis) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            long now = System.currentTimeMillis();
+            JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                    .subject(subject)
+                    .issueTime(new Date(now))
+                    .expirationTime(new Date(now + expirationMillis));
+            claims.claim(SESSION_CLAIM, String.valueOf(sessionId));
+
+            SignedJWT signedJWT = new SignedJWT(HEADER, claims.build());
+            signedJWT.sign(signer);
+            String token = signedJWT.serialize();
+            success = true;
+            return token;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate JWT", e);
+        } finally {
+            signTimer.record(start, success);
+        }
+    }
+
+    public VerifiedToken verify(String token) throws InvalidJWTException {
+        TokenKey key = keyOf(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                cacheHits.increment();
+                return cached;
+            }
+            verifiedTokens.remove(key, cached);
+            throw new InvalidJWTException();
+        }
+
+        VerifiedToken verified = verifySignature(token, now);
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            evict(now);
+        }
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    private VerifiedToken verifySignature(String token, long now) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            if (!signedJWT.verify(verifier)) {
+                throw new InvalidJWTException();
+            }
+            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+            Date expirationTime = claims.getExpirationTime();
+            if (claims.getSubject() == null || expirationTime == null || expirationTime.getTime() <= now) {
+                throw new InvalidJWTException();
+            }
+            String sessionId = claims.getStringClaim(SESSION_CLAIM);
+            success = true;
+            return new VerifiedToken(claims.getSubject(), sessionId != null ? Long.valueOf(sessionId) : null,
+                    expirationTime.getTime());
+        } catch (ParseException | JOSEException | NumberFormatException e) {
+            throw new InvalidJWTException();
+        } finally {
+            verifyTimer.record(start, success);
+        }
+    }
+
+    // Drops expired tokens first, then arbitrary ones until the cache is back under 90% of its bound
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            verifiedTokens.values().removeIf(token -> token.expiresAt() <= now);
+            int target = maxCachedTokens - maxCachedTokens / 10;
+            Iterator<TokenKey> iterator = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static TokenKey keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new TokenKey(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
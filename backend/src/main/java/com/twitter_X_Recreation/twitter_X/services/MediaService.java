@@ -0,0 +1,445 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_X_Recreation.twitter_X.dto.UserMediaProjection;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidImageException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MediaBusyException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MediaDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.exceptions.UserDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.ImageProcessor;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// Profile pictures and banners. Multipart uploads are spooled to disk by the servlet container and moved,
+// never read into the heap; a bounded pool crops and scales them (ImageProcessor) and stores the JPEG under
+// the SHA-256 of its bytes, so a file never changes once written and identical images are stored once.
+// Files are served with an ETag of their hash, immutable caching and byte ranges, the bytes going from the
+// file to the socket with sendfile (FileChannel.transferTo) where the connector supports it.
+// /users/{username}/avatar resolves the current hash from a lookup (Redis hash media:<kind>, or an in-memory
+// map without Redis) filled at startup and on every upload, so serving an avatar never queries Postgres.
+@Service
+public class MediaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaService.class);
+
+    public enum Kind {
+        AVATAR("avatar", 400, 400),
+        BANNER("banner", 1500, 500);
+
+        private final String key;
+        private final int width;
+        private final int height;
+
+        Kind(String key, int width, int height) {
+            this.key = key;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public static final String EXTENSION = ".jpg";
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final String LOOKUP_PREFIX = "media:";
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int WARM_UP_PAGE_SIZE = 5_000;
+
+    // Tomcat sends a file set in these attributes itself once the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path root;
+    private final Path incoming;
+    private final boolean redisEnabled;
+    private final long processTimeoutMs;
+    private final long maxPixels;
+    private final float jpegQuality;
+
+    private final ThreadPoolExecutor executor;
+    // kind:username -> hash, "" when the user has none; only used in front of Redis
+    private final Cache<String, String> lookupCache;
+    // The lookup itself when Redis is off
+    private final Map<String, String> localLookup = new ConcurrentHashMap<>();
+
+    private final OutcomeTimer avatarTimer;
+    private final OutcomeTimer bannerTimer;
+    private final Counter rejected;
+
+    public MediaService(UserRepository userRepository,
+                        UserCacheService userCacheService,
+                        StringRedisTemplate redisTemplate,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.media.root:data/media}") String root,
+                        @Value("${app.media.redis-enabled:true}") boolean redisEnabled,
+                        @Value("${app.media.threads:2}") int threads,
+                        @Value("${app.media.queue-capacity:16}") int queueCapacity,
+                        @Value("${app.media.process-timeout-ms:10000}") long processTimeoutMs,
+                        @Value("${app.media.max-pixels:40000000}") long maxPixels,
+                        @Value("${app.media.jpeg-quality:0.85}") float jpegQuality,
+                        @Value("${app.media.lookup-cache-ttl-ms:60000}") long lookupCacheTtlMs) throws IOException {
+        this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.root = Path.of(root).toAbsolutePath();
+        this.incoming = this.root.resolve("incoming");
+        this.redisEnabled = redisEnabled;
+        this.processTimeoutMs = processTimeoutMs;
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+        Files.createDirectories(incoming);
+
+        this.rejected = Counter.builder("media.rejected")
+                .description("Uploads refused because the image pool was saturated")
+                .register(meterRegistry);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-processor-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("media.queue.depth", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        this.lookupCache = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(lookupCacheTtlMs))
+                .build();
+
+        this.avatarTimer = OutcomeTimer.register(meterRegistry, "media.process", "Image crop, scale and store", "kind", "avatar");
+        this.bannerTimer = OutcomeTimer.register(meterRegistry, "media.process", "Image crop, scale and store", "kind", "banner");
+    }
+
+    // Fills the lookup from Postgres when it is missing (first start, Redis flushed). HSETNX, so an upload
+    // that lands during the warm-up is never overwritten by the older hash read here.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (redisEnabled && Boolean.TRUE.equals(redisTemplate.hasKey(LOOKUP_PREFIX + Kind.AVATAR.key))) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int loaded = 0;
+            Long afterId = Long.MIN_VALUE;
+            List<UserMediaProjection> page;
+            do {
+                page = userRepository.findMediaAfter(afterId, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+                List<UserMediaProjection> users = page;
+                if (redisEnabled) {
+                    redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                        StringRedisConnection redis = (StringRedisConnection) connection;
+                        for (UserMediaProjection user : users) {
+                            if (user.getAvatarHash() != null) {
+                                redis.hSetNX(LOOKUP_PREFIX + Kind.AVATAR.key, user.getUsername(), user.getAvatarHash());
+                            }
+                            if (user.getBannerHash() != null) {
+                                redis.hSetNX(LOOKUP_PREFIX + Kind.BANNER.key, user.getUsername(), user.getBannerHash());
+                            }
+                        }
+                        return null;
+                    });
+                } else {
+                    for (UserMediaProjection user : users) {
+                        if (user.getAvatarHash() != null) {
+                            localLookup.putIfAbsent(lookupKey(Kind.AVATAR, user.getUsername()), user.getAvatarHash());
+                        }
+                        if (user.getBannerHash() != null) {
+                            localLookup.putIfAbsent(lookupKey(Kind.BANNER, user.getUsername()), user.getBannerHash());
+                        }
+                    }
+                }
+                loaded += page.size();
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getUserId();
+                }
+            } while (page.size() == WARM_UP_PAGE_SIZE);
+            logger.info("Media lookup warmed with {} users in {} ms", loaded, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("Media lookup warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    // Returns the hash of the stored image
+    public String upload(String username, Kind kind, MultipartFile file, ImageProcessor.Crop crop) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidImageException("No image was uploaded");
+        }
+        Path upload = Files.createTempFile(incoming, "upload", ".tmp");
+        try {
+            // The container already spooled the part to disk, for a File this is a rename
+            file.transferTo(upload.toFile());
+
+            Future<String> stored;
+            try {
+                stored = executor.submit(() -> process(upload, kind, crop));
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                throw new MediaBusyException();
+            }
+            String hash = await(stored);
+
+            int updated = transactionTemplate.execute(status -> kind == Kind.AVATAR
+                    ? userRepository.updateAvatarHash(username, hash)
+                    : userRepository.updateBannerHash(username, hash));
+            if (updated == 0) {
+                throw new UserDoesNotExistException();
+            }
+            userCacheService.invalidate(username);
+            publishLookup(kind, username, hash);
+            return hash;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    // Current hash of a user's avatar or banner, without touching Postgres
+    public Optional<String> lookup(Kind kind, String username) {
+        String key = lookupKey(kind, username);
+        if (!redisEnabled) {
+            return Optional.ofNullable(localLookup.get(key));
+        }
+        String cached = lookupCache.getIfPresent(key);
+        if (cached == null) {
+            Object hash = redisTemplate.opsForHash().get(LOOKUP_PREFIX + kind.key, username);
+            cached = hash != null ? hash.toString() : "";
+            lookupCache.put(key, cached);
+        }
+        return cached.isEmpty() ? Optional.empty() : Optional.of(cached);
+    }
+
+    public static String url(String hash) {
+        return "/media/" + hash + EXTENSION;
+    }
+
+    // GET and HEAD of /media/<hash>.jpg
+    public void serve(String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String hash = fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+        if (!HASH.matcher(hash).matches()) {
+            throw new MediaDoesNotExistException();
+        }
+        Path path = path(hash);
+        if (!Files.isRegularFile(path)) {
+            throw new MediaDoesNotExistException();
+        }
+
+        String etag = "\"" + hash + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        response.setHeader("Accept-Ranges", "bytes");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = Files.size(path);
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        // A range of a different version would be garbage, If-Range asks for the whole file instead
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            var matcher = RANGE.matcher(range.trim());
+            // Multiple ranges are answered with the whole file, which the spec allows. So is an invalid
+            // range such as bytes=5-3: RFC 9110 says to ignore the header rather than answer 416.
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())
+                    && (matcher.group(1).isEmpty() || matcher.group(2).isEmpty()
+                    || parseLength(matcher.group(1)) <= parseLength(matcher.group(2)))) {
+                boolean satisfiable;
+                if (matcher.group(1).isEmpty()) {
+                    long suffix = parseLength(matcher.group(2));
+                    start = Math.max(0, length - suffix);
+                    satisfiable = suffix > 0 && length > 0;
+                } else {
+                    start = parseLength(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, parseLength(matcher.group(2)));
+                    }
+                    satisfiable = start < length;
+                }
+                if (!satisfiable) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType("image/jpeg");
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        // No sendfile (TLS, another container): transferTo into the response, which copies through its buffer
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                count -= sent;
+            }
+        }
+    }
+
+    private String process(Path upload, Kind kind, ImageProcessor.Crop crop) throws IOException {
+        OutcomeTimer timer = kind == Kind.AVATAR ? avatarTimer : bannerTimer;
+        long start = System.nanoTime();
+        boolean success = false;
+        Path processed = Files.createTempFile(incoming, "processed", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(processed), 1 << 16), digest)) {
+                ImageProcessor.process(upload, out, kind.width, kind.height, crop, maxPixels, jpegQuality);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = path(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                // Same name means same bytes, so a concurrent store of the same image is harmless
+                Files.move(processed, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            success = true;
+            return hash;
+        } finally {
+            Files.deleteIfExists(processed);
+            timer.record(start, success);
+        }
+    }
+
+    private String await(Future<String> stored) throws IOException {
+        try {
+            return stored.get(processTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            stored.cancel(true);
+            throw new MediaBusyException();
+        } catch (InterruptedException e) {
+            stored.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new MediaBusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void publishLookup(Kind kind, String username, String hash) {
+        String key = lookupKey(kind, username);
+        if (!redisEnabled) {
+            localLookup.put(key, hash);
+            return;
+        }
+        lookupCache.put(key, hash);
+        try {
+            redisTemplate.opsForHash().put(LOOKUP_PREFIX + kind.key, username, hash);
+        } catch (Exception e) {
+            // Other nodes keep redirecting to the previous image until the next warm-up
+            logger.warn("Failed to publish the new {} of {}: {}", kind.key, username, e.getMessage());
+        }
+    }
+
+    // One directory per leading hash byte keeps directories small
+    private Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + EXTENSION);
+    }
+
+    private static String lookupKey(Kind kind, String username) {
+        return kind.key + ":" + username;
+    }
+
+    private static long parseLength(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,219 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.DirectMessageDTO;
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageBatchRepository.NewMessage;
+import com.twitter_X_Recreation.twitter_X.utils.AuthenticationUtil;
+import com.twitter_X_Recreation.twitter_X.utils.LiveChannels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Live direct messages over WebSocket (/ws/messages, authenticated by the token cookie on the handshake).
+// Once DirectMessageWriter has committed a batch, one pipeline bumps the recipients' unread counters
+// (the dm:unread:<user id> hashes, field = conversation id) and publishes every message on the channel of
+// each participant (dm:live:<user id>), the sender included for their other devices. Sockets are
+// LiveChannels connections like NotificationStreamService's streams: a user's channel is subscribed only
+// while they have a socket open on this node, and a client that lets its queue fill up is disconnected
+// and reloads the conversation on reconnect.
+@Service
+public class MessageDeliveryService extends TextWebSocketHandler implements MessageListener, HandshakeInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageDeliveryService.class);
+
+    public static final String UNREAD_PREFIX = "dm:unread:";
+    private static final String CHANNEL_PREFIX = "dm:live:";
+    private static final String USER_ID_ATTRIBUTE = "userId";
+    private static final String CONNECTION_ATTRIBUTE = "connection";
+
+    private final UserService userService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+
+    private final LiveChannels<String> channels;
+    private final Counter delivered;
+    private final Counter publishFailures;
+
+    private record Frame(String type, DirectMessageDTO message) {
+    }
+
+    private final class Socket implements LiveChannels.Sink<String> {
+        private final WebSocketSession session;
+
+        private Socket(WebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void send(String frame) throws IOException {
+            session.sendMessage(new TextMessage(frame));
+            delivered.increment();
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            session.sendMessage(new PingMessage());
+        }
+
+        @Override
+        public void close(LiveChannels.CloseReason reason) {
+            try {
+                session.close(switch (reason) {
+                    case SLOW_CLIENT -> CloseStatus.SESSION_NOT_RELIABLE;
+                    case SHUTDOWN -> CloseStatus.GOING_AWAY;
+                    case ENDED -> CloseStatus.NORMAL;
+                });
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public MessageDeliveryService(UserService userService,
+                                  StringRedisTemplate redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.messages.socket.heartbeat-ms:25000}") long heartbeatMs,
+                                  @Value("${app.messages.socket.queue-capacity:256}") int queueCapacity) {
+        this.userService = userService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.listenerContainer = listenerContainer;
+
+        this.channels = new LiveChannels<>("messages.socket", CHANNEL_PREFIX, this,
+                listenerContainer, meterRegistry, heartbeatMs, queueCapacity);
+        this.delivered = Counter.builder("messages.socket.delivered").register(meterRegistry);
+        this.publishFailures = Counter.builder("messages.publish.failures")
+                .description("Committed batches whose unread counters or live delivery failed in Redis")
+                .register(meterRegistry);
+    }
+
+    // Called by DirectMessageWriter after commit. Best effort: the messages are stored either way
+    public void publish(List<NewMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<String> frames = new ArrayList<>(messages.size());
+        for (NewMessage message : messages) {
+            try {
+                frames.add(objectMapper.writeValueAsString(new Frame("message", DirectMessageDTO.of(
+                        message.conversationId(), message.messageId(), message.senderId(), message.text()))));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // Without a listener container (pub/sub disabled) nothing would come back, so deliver here instead
+        boolean pubSub = listenerContainer.getIfAvailable() != null;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (int i = 0; i < messages.size(); i++) {
+                    NewMessage message = messages.get(i);
+                    String conversationId = String.valueOf(message.conversationId());
+                    for (long memberId : message.memberIds()) {
+                        if (memberId != message.senderId()) {
+                            redis.hIncrBy(UNREAD_PREFIX + memberId, conversationId, 1);
+                        }
+                        if (pubSub) {
+                            redis.publish(CHANNEL_PREFIX + memberId, frames.get(i));
+                        }
+                    }
+                }
+                return null;
+            });
+            if (pubSub) {
+                return;
+            }
+        } catch (Exception e) {
+            publishFailures.increment();
+            logger.warn("Publishing {} direct messages failed: {}", messages.size(), e.getMessage());
+        }
+        // Reaches at least the participants connected to this node
+        for (int i = 0; i < messages.size(); i++) {
+            for (long memberId : messages.get(i).memberIds()) {
+                channels.deliver(memberId, frames.get(i));
+            }
+        }
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return false;
+        }
+        try {
+            String username = AuthenticationUtil.getAuthenticatedUsername(servletRequest.getServletRequest());
+            attributes.put(USER_ID_ATTRIBUTE, userService.getUserByUsername(username).getUserId());
+            return true;
+        } catch (Exception e) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        long userId = (Long) session.getAttributes().get(USER_ID_ATTRIBUTE);
+        session.getAttributes().put(CONNECTION_ATTRIBUTE, channels.open(userId, new Socket(session)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        var connection = (LiveChannels.Connection<String>) session.getAttributes().get(CONNECTION_ATTRIBUTE);
+        if (connection != null) {
+            channels.close(connection);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Long userId = channels.userId(channel);
+        if (userId != null) {
+            channels.deliver(userId, new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.shutdown();
+    }
+}
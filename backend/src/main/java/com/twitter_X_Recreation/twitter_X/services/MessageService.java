@@ -0,0 +1,275 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_X_Recreation.twitter_X.dto.ConversationDTO;
+import com.twitter_X_Recreation.twitter_X.dto.ConversationPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.ConversationProjection;
+import com.twitter_X_Recreation.twitter_X.dto.DirectMessageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.DirectMessageProjection;
+import com.twitter_X_Recreation.twitter_X.dto.MessagePageDTO;
+import com.twitter_X_Recreation.twitter_X.exceptions.ConversationDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidMessageException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MessageNotSentException;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.models.Conversation;
+import com.twitter_X_Recreation.twitter_X.models.ConversationMember;
+import com.twitter_X_Recreation.twitter_X.models.DirectMessage;
+import com.twitter_X_Recreation.twitter_X.repositories.ConversationMemberRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.ConversationRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageBatchRepository.NewMessage;
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Direct messages between two users. Sending takes a Snowflake id and waits for DirectMessageWriter to commit
+// the message with its batch; the members of a conversation never change, so after the first message they
+// come from a local cache and a send runs no query of its own. Unread counts are read from the Redis hashes
+// MessageDeliveryService maintains, so the conversation list is one SQL query plus one HGETALL.
+@Service
+public class MessageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
+
+    private final ConversationRepository conversationRepository;
+    private final ConversationMemberRepository memberRepository;
+    private final DirectMessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final DirectMessageWriter messageWriter;
+    private final SnowflakeIdGenerator idGenerator;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long sendTimeoutMs;
+    private final int maxPageSize;
+
+    private final Cache<Long, long[]> members;
+    private final OutcomeTimer sendTimer;
+
+    public MessageService(ConversationRepository conversationRepository,
+                          ConversationMemberRepository memberRepository,
+                          DirectMessageRepository messageRepository,
+                          UserRepository userRepository,
+                          UserService userService,
+                          DirectMessageWriter messageWriter,
+                          SnowflakeIdGenerator idGenerator,
+                          StringRedisTemplate redisTemplate,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.messages.send-timeout-ms:5000}") long sendTimeoutMs,
+                          @Value("${app.messages.members-cache-size:100000}") long membersCacheSize,
+                          @Value("${app.posts.max-page-size:50}") int maxPageSize) {
+        this.conversationRepository = conversationRepository;
+        this.memberRepository = memberRepository;
+        this.messageRepository = messageRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.messageWriter = messageWriter;
+        this.idGenerator = idGenerator;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxPageSize = maxPageSize;
+
+        this.members = Caffeine.newBuilder().maximumSize(membersCacheSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, members, "conversations.members");
+        this.sendTimer = OutcomeTimer.register(meterRegistry, "messages.send", "Direct messages sent");
+    }
+
+    // The conversation of the two users, created on first use
+    public ConversationDTO openConversation(String username, String otherUsername) {
+        ApplicationUser user = userService.getUserByUsername(username);
+        ApplicationUser other = userService.getUserByUsername(otherUsername);
+        if (user.getUserId().equals(other.getUserId())) {
+            throw new InvalidMessageException("You cannot message yourself");
+        }
+
+        String directKey = Conversation.directKey(user.getUserId(), other.getUserId());
+        Conversation conversation = conversationRepository.findByDirectKey(directKey).orElse(null);
+        if (conversation == null) {
+            try {
+                conversation = transactionTemplate.execute(status -> {
+                    Conversation created = conversationRepository.saveAndFlush(new Conversation(directKey));
+                    memberRepository.save(new ConversationMember(created, userRepository.getReferenceById(user.getUserId())));
+                    memberRepository.saveAndFlush(new ConversationMember(created, userRepository.getReferenceById(other.getUserId())));
+                    return created;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Both opened it at the same time, the unique direct key kept one
+                conversation = conversationRepository.findByDirectKey(directKey)
+                        .orElseThrow(ConversationDoesNotExistException::new);
+            }
+        }
+
+        long conversationId = conversation.getConversationId();
+        Long lastMessageId = conversation.getLastMessageId();
+        return new ConversationDTO(String.valueOf(conversationId), String.valueOf(other.getUserId()),
+                other.getUsername(), other.getName(), lastMessageId != null ? String.valueOf(lastMessageId) : null,
+                readUnread(user.getUserId(), conversationId));
+    }
+
+    public DirectMessageDTO sendMessage(String username, long conversationId, String text) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            validateText(text);
+            long senderId = userService.getUserByUsername(username).getUserId();
+            long[] memberIds = requireMember(conversationId, senderId);
+
+            long messageId = idGenerator.nextId();
+            CompletableFuture<Void> persisted =
+                    messageWriter.append(new NewMessage(conversationId, messageId, senderId, text, memberIds));
+            try {
+                try {
+                    persisted.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Still queued, withdraw it so a retry cannot duplicate it. Otherwise it is in a transaction
+                    // already, and the client has to hear how that ends.
+                    if (persisted.cancel(false)) {
+                        throw new MessageNotSentException();
+                    }
+                    persisted.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                persisted.cancel(false);
+                throw new MessageNotSentException();
+            } catch (ExecutionException e) {
+                throw new MessageNotSentException();
+            }
+            success = true;
+            return DirectMessageDTO.of(conversationId, messageId, senderId, text);
+        } finally {
+            sendTimer.record(start, success);
+        }
+    }
+
+    // Newest first, before is the nextCursor of the previous page
+    public MessagePageDTO getMessages(String username, long conversationId, String before, int limit) {
+        long userId = userService.getUserByUsername(username).getUserId();
+        requireMember(conversationId, userId);
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        List<DirectMessageProjection> rows = messageRepository.findPageBefore(conversationId,
+                before != null && !before.isBlank() ? Long.parseLong(before) : Long.MAX_VALUE,
+                PageRequest.of(0, pageSize));
+        List<DirectMessageDTO> messages = new ArrayList<>(rows.size());
+        for (DirectMessageProjection row : rows) {
+            messages.add(DirectMessageDTO.of(conversationId, row.getMessageId(), row.getSenderId(), row.getText()));
+        }
+        String nextCursor = rows.size() == pageSize ? messages.get(messages.size() - 1).messageId() : null;
+        return new MessagePageDTO(messages, nextCursor);
+    }
+
+    // Latest activity first, before is the nextCursor of the previous page
+    public ConversationPageDTO getConversations(String username, String before, int limit) {
+        long userId = userService.getUserByUsername(username).getUserId();
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        List<ConversationProjection> rows = conversationRepository.findConversations(userId,
+                before != null && !before.isBlank() ? Long.parseLong(before) : Long.MAX_VALUE,
+                PageRequest.of(0, pageSize));
+        Map<Object, Object> unread = readUnread(userId);
+        List<ConversationDTO> conversations = new ArrayList<>(rows.size());
+        for (ConversationProjection row : rows) {
+            String conversationId = String.valueOf(row.getConversationId());
+            Object count = unread.get(conversationId);
+            conversations.add(new ConversationDTO(conversationId, String.valueOf(row.getUserId()), row.getUsername(),
+                    row.getName(), row.getLastMessageId() != null ? String.valueOf(row.getLastMessageId()) : null,
+                    count != null ? Long.parseLong(count.toString()) : 0));
+        }
+        String nextCursor = rows.size() == pageSize ? String.valueOf(rows.get(rows.size() - 1).getActivityId()) : null;
+        return new ConversationPageDTO(conversations, nextCursor);
+    }
+
+    // Total over all conversations, for the unread badge
+    public long getUnreadCount(String username) {
+        long userId = userService.getUserByUsername(username).getUserId();
+        long total = 0;
+        for (Object count : readUnread(userId).values()) {
+            total += Long.parseLong(count.toString());
+        }
+        return total;
+    }
+
+    // Stores the read position and clears the conversation's unread counter. A message that lands between
+    // the client's read and this call is counted as read too, the client already shows it.
+    public void markRead(String username, long conversationId, long messageId) {
+        long userId = userService.getUserByUsername(username).getUserId();
+        requireMember(conversationId, userId);
+        memberRepository.markRead(conversationId, userId, messageId);
+        try {
+            redisTemplate.opsForHash().delete(MessageDeliveryService.UNREAD_PREFIX + userId, String.valueOf(conversationId));
+        } catch (Exception e) {
+            logger.warn("Could not clear unread messages of {} in {}: {}", userId, conversationId, e.getMessage());
+        }
+    }
+
+    // Not a member and no such conversation look the same from outside
+    private long[] requireMember(long conversationId, long userId) {
+        long[] memberIds = members.get(conversationId, this::loadMembers);
+        if (memberIds != null) {
+            for (long memberId : memberIds) {
+                if (memberId == userId) {
+                    return memberIds;
+                }
+            }
+        }
+        throw new ConversationDoesNotExistException();
+    }
+
+    // null is not cached, so a conversation created later is found
+    private long[] loadMembers(long conversationId) {
+        List<Long> userIds = memberRepository.findUserIds(conversationId);
+        return userIds.isEmpty() ? null : userIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private Map<Object, Object> readUnread(long userId) {
+        try {
+            return redisTemplate.opsForHash().entries(MessageDeliveryService.UNREAD_PREFIX + userId);
+        } catch (Exception e) {
+            logger.warn("Unread messages of {} unavailable: {}", userId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private long readUnread(long userId, long conversationId) {
+        try {
+            Object count = redisTemplate.opsForHash().get(MessageDeliveryService.UNREAD_PREFIX + userId,
+                    String.valueOf(conversationId));
+            return count != null ? Long.parseLong(count.toString()) : 0;
+        } catch (Exception e) {
+            logger.warn("Unread messages of {} unavailable: {}", userId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static void validateText(String text) {
+        if (text == null || text.isBlank()) {
+            throw new InvalidMessageException("Message text is required");
+        }
+        if (text.codePointCount(0, text.length()) > DirectMessage.MAX_TEXT_LENGTH) {
+            throw new InvalidMessageException("Messages are limited to " + DirectMessage.MAX_TEXT_LENGTH + " characters");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.NotificationDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// Every user has a capped Redis stream of notifications (notifications:<id>): the replay buffer for SSE
+// clients that reconnect and the source of GET /notifications. Appending to it also publishes the entry on
+// the user's channel (notifications:live:<id>) for whichever nodes hold that user's open streams
+// (NotificationStreamService), both in one script call. Notifications are best effort: produced after
+// commit on a small pool, dropped when the pool is saturated or Redis is down.
+@Service
+public class NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    public static final String CHANNEL_PREFIX = "notifications:live:";
+    private static final String BUFFER_PREFIX = "notifications:";
+    private static final Pattern STREAM_ID = Pattern.compile("\\d+-\\d+");
+
+    // KEYS[1] = buffer stream; ARGV = max length, ttl ms, notification json, channel
+    // Publishes "<entry id> <json>" and returns the entry id
+    private static final RedisScript<String> NOTIFY_SCRIPT = new DefaultRedisScript<>("""
+            local id = redis.call('XADD', KEYS[1], 'MAXLEN', ARGV[1], '*', 'n', ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PUBLISH', ARGV[4], id .. ' ' .. ARGV[3])
+            return id
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final PostCacheService postCacheService;
+    private final int bufferSize;
+    private final long bufferTtlMs;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter published;
+    private final Counter dropped;
+
+    public NotificationService(StringRedisTemplate redisTemplate,
+                               ObjectMapper objectMapper,
+                               PostCacheService postCacheService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.notifications.buffer-size:100}") int bufferSize,
+                               @Value("${app.notifications.buffer-ttl-ms:2592000000}") long bufferTtlMs,
+                               @Value("${app.notifications.threads:2}") int threads,
+                               @Value("${app.notifications.queue-capacity:10000}") int queueCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.postCacheService = postCacheService;
+        this.bufferSize = bufferSize;
+        this.bufferTtlMs = bufferTtlMs;
+
+        this.published = Counter.builder("notifications.published").register(meterRegistry);
+        this.dropped = Counter.builder("notifications.dropped")
+                .description("Notifications not produced because the pool was saturated or Redis failed")
+                .register(meterRegistry);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-publisher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> dropped.increment());
+    }
+
+    public void onFollow(ApplicationUser follower, long followeeId) {
+        NotificationDTO notification = new NotificationDTO(null, "follow", follower.getUsername(), follower.getName(),
+                null, Instant.now());
+        AfterCommit.run(() -> submit(() -> publish(followeeId, notification)));
+    }
+
+    // Tells the authors of the replied to and quoted posts, not the poster themselves
+    public void onPostCreated(PostResponseDTO post) {
+        if (post.inReplyToId() == null && post.quoteOfId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> submit(() -> {
+            if (post.inReplyToId() != null) {
+                notifyAuthorOf(Long.parseLong(post.inReplyToId()), "reply", post);
+            }
+            if (post.quoteOfId() != null) {
+                notifyAuthorOf(Long.parseLong(post.quoteOfId()), "quote", post);
+            }
+        }));
+    }
+
+    // Newest first, at most the buffer size
+    public List<NotificationDTO> getRecent(long userId, int limit) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().reverseRange(
+                BUFFER_PREFIX + userId, Range.unbounded(), Limit.limit().count(Math.max(1, Math.min(limit, bufferSize))));
+        return toNotifications(records);
+    }
+
+    // Oldest first: everything buffered after lastEventId, or all of the buffer when that entry was trimmed
+    public List<NotificationDTO> getSince(long userId, String lastEventId) {
+        if (lastEventId == null || !STREAM_ID.matcher(lastEventId).matches()) {
+            return List.of();
+        }
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(BUFFER_PREFIX + userId,
+                Range.rightUnbounded(Range.Bound.inclusive(lastEventId)), Limit.limit().count(bufferSize + 1));
+        List<NotificationDTO> notifications = toNotifications(records);
+        notifications.removeIf(notification -> notification.id().equals(lastEventId));
+        return notifications;
+    }
+
+    // The entry id prefixed by the script, then the notification as stored
+    public NotificationDTO parseLive(String message) throws JsonProcessingException {
+        int separator = message.indexOf(' ');
+        return objectMapper.readValue(message.substring(separator + 1), NotificationDTO.class)
+                .withId(message.substring(0, separator));
+    }
+
+    private void notifyAuthorOf(long postId, String type, PostResponseDTO post) throws JsonProcessingException {
+        // Redis first: if it is down the notification could not be delivered anyway
+        PostResponseDTO target = postCacheService.getIfCached(postId);
+        if (target == null) {
+            List<PostResponseDTO> loaded = postCacheService.getAll(List.of(postId));
+            if (loaded.isEmpty()) {
+                return;
+            }
+            target = loaded.get(0);
+        }
+        if (target.authorId().equals(post.authorId())) {
+            return;
+        }
+        publish(Long.parseLong(target.authorId()), new NotificationDTO(null, type, post.authorUsername(),
+                post.authorName(), post.postId(), post.createdAt()));
+    }
+
+    private void publish(long userId, NotificationDTO notification) throws JsonProcessingException {
+        redisTemplate.execute(NOTIFY_SCRIPT, List.of(BUFFER_PREFIX + userId), String.valueOf(bufferSize),
+                String.valueOf(bufferTtlMs), objectMapper.writeValueAsString(notification), CHANNEL_PREFIX + userId);
+        published.increment();
+    }
+
+    private List<NotificationDTO> toNotifications(List<MapRecord<String, Object, Object>> records) {
+        List<NotificationDTO> notifications = new ArrayList<>(records != null ? records.size() : 0);
+        if (records == null) {
+            return notifications;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            try {
+                notifications.add(objectMapper.readValue(String.valueOf(record.getValue().get("n")), NotificationDTO.class)
+                        .withId(record.getId().getValue()));
+            } catch (JsonProcessingException e) {
+                logger.warn("Skipping unreadable notification {}", record.getId());
+            }
+        }
+        return notifications;
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private void submit(Task task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                dropped.increment();
+                logger.debug("Notification not published: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
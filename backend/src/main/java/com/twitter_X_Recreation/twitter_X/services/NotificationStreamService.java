@@ -0,0 +1,163 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.NotificationDTO;
+import com.twitter_X_Recreation.twitter_X.utils.LiveChannels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Live notifications over SSE. An open stream is an async request, so it holds no Tomcat thread while idle;
+// the per-user subscription, bounded queue and sender thread are LiveChannels', which writes a keep-alive
+// comment whenever the queue stays empty for heartbeat-ms. A client too slow to keep its queue from filling
+// up is disconnected instead of buffered without bound; it reconnects with Last-Event-ID and catches up
+// from the notification buffer.
+@Service
+public class NotificationStreamService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+
+    private final LiveChannels<Event> channels;
+    private final Counter delivered;
+
+    private record Event(String id, String data) {
+    }
+
+    // One open stream, replays what the client missed before going live
+    private final class Stream implements LiveChannels.Sink<Event> {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final String lastEventId;
+        private String lastSentId;
+
+        private Stream(long userId, SseEmitter emitter, String lastEventId) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.lastEventId = lastEventId;
+        }
+
+        @Override
+        public void open() throws IOException {
+            // Lets the client know it is connected even when there is nothing to replay
+            emitter.send(SseEmitter.event().comment("connected"));
+            if (lastEventId != null) {
+                for (NotificationDTO notification : replay(userId, lastEventId)) {
+                    write(new Event(notification.id(), objectMapper.writeValueAsString(notification)));
+                }
+            }
+        }
+
+        @Override
+        public void send(Event event) throws IOException {
+            // Skips what the replay already sent
+            if (lastSentId == null || isAfter(event.id(), lastSentId)) {
+                write(event);
+            }
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        }
+
+        @Override
+        public void close(LiveChannels.CloseReason reason) {
+            emitter.complete();
+        }
+
+        private void write(Event event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(event.id())
+                    .name("notification")
+                    .data(event.data(), MediaType.APPLICATION_JSON));
+            lastSentId = event.id();
+            delivered.increment();
+        }
+    }
+
+    public NotificationStreamService(NotificationService notificationService,
+                                     ObjectMapper objectMapper,
+                                     ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.notifications.stream.timeout-ms:1800000}") long timeoutMs,
+                                     @Value("${app.notifications.stream.heartbeat-ms:25000}") long heartbeatMs,
+                                     @Value("${app.notifications.stream.queue-capacity:64}") int queueCapacity) {
+        this.notificationService = notificationService;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+
+        this.channels = new LiveChannels<>("notifications.stream", NotificationService.CHANNEL_PREFIX, this,
+                listenerContainer, meterRegistry, heartbeatMs, queueCapacity);
+        this.delivered = Counter.builder("notifications.stream.delivered").register(meterRegistry);
+    }
+
+    // lastEventId comes from the Last-Event-ID header of a reconnecting EventSource, null on a fresh one
+    public SseEmitter open(long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        LiveChannels.Connection<Event> connection = channels.open(userId, new Stream(userId, emitter, lastEventId));
+        emitter.onCompletion(() -> channels.close(connection));
+        emitter.onTimeout(() -> channels.close(connection));
+        emitter.onError(e -> channels.close(connection));
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Long userId = channels.userId(channel);
+        if (userId == null || !channels.hasConnections(userId)) {
+            return;
+        }
+
+        Event event;
+        try {
+            NotificationDTO notification = notificationService.parseLive(new String(message.getBody(), StandardCharsets.UTF_8));
+            event = new Event(notification.id(), objectMapper.writeValueAsString(notification));
+        } catch (Exception e) {
+            logger.warn("Skipping unreadable notification on {}", channel);
+            return;
+        }
+        channels.deliver(userId, event);
+    }
+
+    private List<NotificationDTO> replay(long userId, String lastEventId) {
+        try {
+            return notificationService.getSince(userId, lastEventId);
+        } catch (Exception e) {
+            // Live delivery still works, the client can page GET /notifications for what it missed
+            logger.warn("Notification replay for {} failed: {}", userId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static boolean isAfter(String id, String otherId) {
+        RecordId record = RecordId.of(id);
+        RecordId other = RecordId.of(otherId);
+        return record.getTimestamp() > other.getTimestamp()
+                || (record.getTimestamp().equals(other.getTimestamp()) && record.getSequence() > other.getSequence());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.shutdown();
+    }
+}
@@ -0,0 +1,141 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.PasswordHashingUnavailableException;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Password hashing is deliberately CPU heavy. It runs on its own fixed pool with a bounded queue so a
+// burst of signups cannot take every core away from the rest of the API; when the queue is full or the
+// wait is too long the caller gets PasswordHashingUnavailableException (503) right away.
+@Service
+public class PasswordHashingService {
+
+    public record VerificationResult(boolean matches, String upgradedHash) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    // CPU time of the encoder itself, and the whole call including the wait for a worker
+    private final OutcomeTimer hashTimer;
+    private final OutcomeTimer verifyTimer;
+    private final OutcomeTimer hashCallTimer;
+    private final OutcomeTimer verifyCallTimer;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.password.hashing.threads:0}") int threads,
+                                  @Value("${app.password.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.password.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = OutcomeTimer.register(meterRegistry, "password.hashing", "Password encoder time", "operation", "hash");
+        this.verifyTimer = OutcomeTimer.register(meterRegistry, "password.hashing", "Password encoder time", "operation", "verify");
+        this.hashCallTimer = OutcomeTimer.register(meterRegistry, "password.hashing.call", "Password hashing including queueing", "operation", "hash");
+        this.verifyCallTimer = OutcomeTimer.register(meterRegistry, "password.hashing.call", "Password hashing including queueing", "operation", "verify");
+        Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public String hash(String rawPassword) {
+        return submit(hashCallTimer, () -> {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                String encoded = passwordEncoder.encode(rawPassword);
+                success = true;
+                return encoded;
+            } finally {
+                hashTimer.record(start, success);
+            }
+        });
+    }
+
+    // Checks a password and, when the stored hash uses an older algorithm or cost, returns a fresh hash to persist
+    public VerificationResult verify(String rawPassword, String encodedPassword) {
+        return submit(verifyCallTimer, () -> {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                if (encodedPassword == null || !passwordEncoder.matches(rawPassword, encodedPassword)) {
+                    success = true;
+                    return new VerificationResult(false, null);
+                }
+                String upgradedHash = passwordEncoder.upgradeEncoding(encodedPassword) ? passwordEncoder.encode(rawPassword) : null;
+                success = true;
+                return new VerificationResult(true, upgradedHash);
+            } finally {
+                verifyTimer.record(start, success);
+            }
+        });
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private <T> T submit(OutcomeTimer callTimer, Callable<T> task) {
+        long start = System.nanoTime();
+        boolean success = false;
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            callTimer.record(start, false);
+            throw new PasswordHashingUnavailableException();
+        }
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            success = true;
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            callTimer.record(start, success);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
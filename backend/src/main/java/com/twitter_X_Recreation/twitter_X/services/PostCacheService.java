@@ -0,0 +1,147 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostViewProjection;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rendered posts as JSON strings in Redis (post:<id>). Pages of post ids are hydrated with one MGET,
+// whatever is missing comes from one SQL query and is written back in one pipeline.
+@Service
+public class PostCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCacheService.class);
+
+    private static final String KEY_PREFIX = "post:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final PostRepository postRepository;
+    private final long ttlSeconds;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PostCacheService(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            PostRepository postRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.cache.posts.ttl-ms:604800000}") long ttlMs) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.postRepository = postRepository;
+        this.ttlSeconds = Math.max(1, ttlMs / 1000);
+
+        this.hits = Counter.builder("cache.posts").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.posts").tag("result", "miss").register(meterRegistry);
+    }
+
+    public void put(PostResponseDTO post) {
+        write(List.of(post));
+    }
+
+    // Redis only: null on a miss, throws when Redis is unavailable
+    public PostResponseDTO getIfCached(long postId) {
+        return parse(redisTemplate.opsForValue().get(KEY_PREFIX + postId));
+    }
+
+    // Posts in the order of postIds, ids that no longer exist are left out
+    public List<PostResponseDTO> getAll(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PostResponseDTO> found = new HashMap<>(postIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+
+        List<String> cached = read(postIds);
+        for (int i = 0; i < postIds.size(); i++) {
+            PostResponseDTO post = cached != null ? parse(cached.get(i)) : null;
+            if (post != null) {
+                found.put(postIds.get(i), post);
+            } else {
+                missing.add(postIds.get(i));
+            }
+        }
+        hits.increment(found.size());
+        misses.increment(missing.size());
+
+        if (!missing.isEmpty()) {
+            List<PostResponseDTO> loaded = new ArrayList<>(missing.size());
+            for (PostViewProjection view : postRepository.findViewsByIds(missing)) {
+                PostResponseDTO post = PostResponseDTO.of(view.getPostId(), view.getAuthorId(), view.getAuthorUsername(),
+                        view.getAuthorName(), view.getText(), view.getInReplyToId(), view.getQuoteOfId());
+                found.put(view.getPostId(), post);
+                loaded.add(post);
+            }
+            write(loaded);
+        }
+
+        List<PostResponseDTO> posts = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            PostResponseDTO post = found.get(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    private List<String> read(List<Long> postIds) {
+        List<String> keys = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            keys.add(KEY_PREFIX + postId);
+        }
+        try {
+            return redisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            logger.debug("Post cache read failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(List<PostResponseDTO> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        try {
+            List<String[]> entries = new ArrayList<>(posts.size());
+            for (PostResponseDTO post : posts) {
+                entries.add(new String[]{KEY_PREFIX + post.postId(), objectMapper.writeValueAsString(post)});
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String[] entry : entries) {
+                    stringConnection.setEx(entry[0], ttlSeconds, entry[1]);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.debug("Post cache write failed: {}", e.getMessage());
+        }
+    }
+
+    private PostResponseDTO parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, PostResponseDTO.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.PostPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostProjection;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidPostException;
+import com.twitter_X_Recreation.twitter_X.exceptions.PostDoesNotExistException;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.models.Post;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Write path of a post is a single insert: the author comes from the user near cache and the reply/quote
+// targets are only referenced, the foreign keys reject ids that do not exist. Timeline fan-out runs in
+// the background after commit (TimelineService), as do reply and quote notifications (NotificationService).
+@Service
+public class PostService {
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TimelineService timelineService;
+    private final NotificationService notificationService;
+    private final SearchService searchService;
+    private final TrendService trendService;
+    private final int maxPageSize;
+
+    private final OutcomeTimer createTimer;
+    private final OutcomeTimer authorPageTimer;
+
+    public PostService(PostRepository postRepository,
+                       UserRepository userRepository,
+                       UserService userService,
+                       TimelineService timelineService,
+                       NotificationService notificationService,
+                       SearchService searchService,
+                       TrendService trendService,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.posts.max-page-size:50}") int maxPageSize) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.timelineService = timelineService;
+        this.notificationService = notificationService;
+        this.searchService = searchService;
+        this.trendService = trendService;
+        this.maxPageSize = maxPageSize;
+
+        this.createTimer = OutcomeTimer.register(meterRegistry, "posts.create", "Post creation");
+        this.authorPageTimer = OutcomeTimer.register(meterRegistry, "posts.read", "Post reads", "query", "author_page");
+    }
+
+    @Transactional
+    public PostResponseDTO createPost(String username, String text, Long inReplyToId, Long quoteOfId) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            validateText(text);
+            ApplicationUser author = userService.getUserByUsername(username);
+
+            Post post = new Post();
+            post.setAuthor(userRepository.getReferenceById(author.getUserId()));
+            post.setText(text);
+            if (inReplyToId != null) {
+                post.setInReplyTo(postRepository.getReferenceById(inReplyToId));
+            }
+            if (quoteOfId != null) {
+                post.setQuoteOf(postRepository.getReferenceById(quoteOfId));
+            }
+
+            try {
+                // Flushed here so a dangling reference fails as a 404 instead of at commit
+                postRepository.saveAndFlush(post);
+            } catch (DataIntegrityViolationException e) {
+                throw new PostDoesNotExistException();
+            }
+
+            PostResponseDTO created = toResponse(post.getPostId(), author, text, inReplyToId, quoteOfId);
+            timelineService.onPostCreated(created);
+            notificationService.onPostCreated(created);
+            searchService.onPostCreated(created);
+            trendService.onPostCreated(created);
+            success = true;
+            return created;
+        } finally {
+            createTimer.record(start, success);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public PostResponseDTO getPost(Long postId) {
+        PostProjection post = postRepository.findProjectionById(postId).orElseThrow(PostDoesNotExistException::new);
+        ApplicationUser author = userRepository.findById(post.getAuthorId()).orElseThrow(PostDoesNotExistException::new);
+        return toResponse(post, author);
+    }
+
+    // before is the nextCursor of the previous page, null for the newest posts
+    @Transactional(readOnly = true)
+    public PostPageDTO getPostsByAuthor(String username, Long before, int limit) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ApplicationUser author = userService.getUserByUsername(username);
+            int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+            List<PostProjection> page = postRepository.findByAuthorBefore(author.getUserId(),
+                    before != null ? before : Long.MAX_VALUE, PageRequest.of(0, pageSize));
+
+            List<PostResponseDTO> posts = new ArrayList<>(page.size());
+            for (PostProjection post : page) {
+                posts.add(toResponse(post, author));
+            }
+            String nextCursor = page.size() == pageSize ? String.valueOf(page.get(page.size() - 1).getPostId()) : null;
+            success = true;
+            return new PostPageDTO(posts, nextCursor);
+        } finally {
+            authorPageTimer.record(start, success);
+        }
+    }
+
+    private static void validateText(String text) {
+        if (text == null || text.isBlank()) {
+            throw new InvalidPostException("A post cannot be empty");
+        }
+        if (text.codePointCount(0, text.length()) > Post.MAX_TEXT_LENGTH) {
+            throw new InvalidPostException("A post cannot be longer than " + Post.MAX_TEXT_LENGTH + " characters");
+        }
+    }
+
+    private static PostResponseDTO toResponse(PostProjection post, ApplicationUser author) {
+        return toResponse(post.getPostId(), author, post.getText(), post.getInReplyToId(), post.getQuoteOfId());
+    }
+
+    private static PostResponseDTO toResponse(Long postId, ApplicationUser author, String text, Long inReplyToId,
+                                              Long quoteOfId) {
+        return PostResponseDTO.of(postId, author.getUserId(), author.getUsername(), author.getName(), text,
+                inReplyToId, quoteOfId);
+    }
+}
@@ -0,0 +1,147 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.configuration.RateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Token buckets shared by every node through Redis, with a local copy of each bucket in front.
+// The local bucket has the same capacity and refill rate, so it only says no when this node alone
+// has already spent the whole budget; those requests are rejected without a Redis round trip.
+@Service
+public class RateLimiterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiterService.class);
+
+    private static final String KEY_PREFIX = "ratelimit:";
+    private static final int STRIPES = 64;
+
+    // KEYS[1] = bucket; ARGV = capacity, refill tokens per ms. Uses the Redis clock so nodes never disagree.
+    // Returns {allowed (1/0), retry after ms}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local refill_per_ms = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1])
+            local ts = tonumber(bucket[2])
+            if tokens == nil then
+                tokens = capacity
+                ts = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * refill_per_ms)
+            local allowed = 0
+            local retry_after = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+                allowed = 1
+            else
+                retry_after = math.ceil((1 - tokens) / refill_per_ms)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refill_per_ms))
+            return {allowed, retry_after}
+            """, List.class);
+
+    public record Decision(boolean allowed, long retryAfterMs) {
+    }
+
+    private static final class LocalBucket {
+        private double tokens;
+        private long lastRefillMs;
+
+        private LocalBucket(double tokens, long lastRefillMs) {
+            this.tokens = tokens;
+            this.lastRefillMs = lastRefillMs;
+        }
+    }
+
+    // Lock striping: each stripe owns a small access-ordered map, bounded so a flood of spoofed keys cannot grow the heap
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, LocalBucket> buckets;
+
+        private Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LocalBucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile long redisFailureLoggedAt = 0;
+
+    public RateLimiterService(StringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        this.redisTemplate = redisTemplate;
+        int keysPerStripe = Math.max(1, properties.localMaxKeys() / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(keysPerStripe);
+        }
+    }
+
+    public Decision tryConsume(String key, RateLimitProperties.Limit limit) {
+        double refillPerMs = Math.max(1, limit.refillPerMinute()) / 60_000d;
+
+        Decision local = consumeLocal(key, limit.capacity(), refillPerMs);
+        if (!local.allowed()) {
+            return local;
+        }
+        return consumeShared(key, limit.capacity(), refillPerMs);
+    }
+
+    private Decision consumeLocal(String key, int capacity, double refillPerMs) {
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        long now = System.currentTimeMillis();
+        stripe.lock.lock();
+        try {
+            LocalBucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new LocalBucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            }
+            bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.lastRefillMs) * refillPerMs);
+            bucket.lastRefillMs = now;
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return new Decision(true, 0);
+            }
+            return new Decision(false, (long) Math.ceil((1 - bucket.tokens) / refillPerMs));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Decision consumeShared(String key, int capacity, double refillPerMs) {
+        try {
+            List<?> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(KEY_PREFIX + key),
+                    String.valueOf(capacity), String.valueOf(refillPerMs));
+            if (result == null || result.size() < 2) {
+                return new Decision(true, 0);
+            }
+            boolean allowed = ((Number) result.get(0)).longValue() == 1L;
+            return new Decision(allowed, ((Number) result.get(1)).longValue());
+        } catch (Exception e) {
+            // Fail open on the shared bucket, the local bucket still caps this node
+            long now = System.currentTimeMillis();
+            if (now - redisFailureLoggedAt > 60_000) {
+                redisFailureLoggedAt = now;
+                logger.warn("Rate limiter falling back to local buckets, Redis unavailable: {}", e.getMessage());
+            }
+            return new Decision(true, 0);
+        }
+    }
+}
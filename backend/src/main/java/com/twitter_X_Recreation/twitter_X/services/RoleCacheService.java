@@ -0,0 +1,56 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.Role;
+import com.twitter_X_Recreation.twitter_X.repositories.RoleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The roles table holds a handful of rows that never change at runtime, so every role stays resident.
+// Loaded after the startup runner has created USER and ADMIN.
+@Service
+public class RoleCacheService {
+
+    private final RoleRepository roleRepository;
+    private final Map<String, Role> rolesByAuthority = new ConcurrentHashMap<>();
+    private final Map<Integer, Role> rolesById = new ConcurrentHashMap<>();
+
+    public RoleCacheService(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRoles() {
+        roleRepository.findAll().forEach(this::put);
+    }
+
+    public Optional<Role> findRoleByAuthority(String authority) {
+        Role role = rolesByAuthority.get(authority);
+        if (role == null) {
+            Optional<Role> loaded = roleRepository.findRoleByAuthority(authority);
+            loaded.ifPresent(this::put);
+            return loaded;
+        }
+        return Optional.of(role);
+    }
+
+    public Role findRoleById(Integer roleId) {
+        Role role = rolesById.get(roleId);
+        if (role == null) {
+            role = roleRepository.findById(roleId).orElse(null);
+            if (role != null) {
+                put(role);
+            }
+        }
+        return role;
+    }
+
+    private void put(Role role) {
+        rolesByAuthority.put(role.getAuthority(), role);
+        rolesById.put(role.getRoleId(), role);
+    }
+}
@@ -0,0 +1,385 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.PostPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostProjection;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.dto.UserSummaryDTO;
+import com.twitter_X_Recreation.twitter_X.dto.UserSummaryProjection;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserBulkInsertRepository.NewUser;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import com.twitter_X_Recreation.twitter_X.utils.ChangeStream;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import com.twitter_X_Recreation.twitter_X.utils.SearchIndex;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// People and post search from an in-memory SearchIndex, so typeahead never runs a LIKE over the users table.
+// Every node keeps its own index: built at startup from the last snapshot on local disk plus a SQL catch-up
+// over the rows created since, then kept current from the search:changes ChangeStream, which the node that
+// committed a user or post appends to. Only the stream consumer writes to the index (it applies changes
+// directly only when the stream is off or Redis refused the entry), so requests never wait on the index
+// lock. A maintenance thread re-scores users by follower count in chunks and rewrites the snapshot from a
+// copy of the index, so typeahead reads never queue behind either job.
+@Service
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    private static final String CHANGES_KEY = "search:changes";
+    private static final String USER = "user";
+    private static final String POST = "post";
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    // Catch-up re-reads rows created this long before the newest indexed one, which covers ids handed out
+    // by nodes whose clocks lag behind; indexing a row twice is harmless
+    private static final long CATCH_UP_MARGIN_MS = 300_000;
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final PostCacheService postCacheService;
+    private final FollowGraphService followGraphService;
+    private final ChangeStream changeStream;
+    private final boolean streamEnabled;
+    private final String snapshotPath;
+    private final long refreshIntervalMs;
+    private final int maxResults;
+
+    private final OutcomeTimer loadTimer;
+    private final OutcomeTimer userQueryTimer;
+    private final OutcomeTimer postQueryTimer;
+    private final OutcomeTimer snapshotTimer;
+
+    private volatile SearchIndex index = new SearchIndex();
+    private volatile boolean ready = false;
+    private volatile boolean running = false;
+    private final AtomicLong changes = new AtomicLong();
+    private Thread maintenanceThread;
+
+    public SearchService(UserRepository userRepository,
+                         PostRepository postRepository,
+                         PostCacheService postCacheService,
+                         FollowGraphService followGraphService,
+                         StringRedisTemplate redisTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.search.stream-enabled:true}") boolean streamEnabled,
+                         @Value("${app.search.stream-max-length:100000}") long streamMaxLength,
+                         @Value("${app.search.read-batch-size:500}") int readBatchSize,
+                         @Value("${app.search.read-block-ms:1000}") long readBlockMs,
+                         @Value("${app.search.snapshot-path:}") String snapshotPath,
+                         @Value("${app.search.refresh-interval-ms:300000}") long refreshIntervalMs,
+                         @Value("${app.search.max-results:20}") int maxResults) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.postCacheService = postCacheService;
+        this.followGraphService = followGraphService;
+        this.changeStream = new ChangeStream(CHANGES_KEY, redisTemplate, streamMaxLength, readBatchSize, readBlockMs);
+        this.streamEnabled = streamEnabled;
+        this.snapshotPath = snapshotPath;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.maxResults = maxResults;
+
+        this.loadTimer = OutcomeTimer.register(meterRegistry, "search.index.load", "Search index loads");
+        this.userQueryTimer = OutcomeTimer.register(meterRegistry, "search.query", "Search queries", "type", "users");
+        this.postQueryTimer = OutcomeTimer.register(meterRegistry, "search.query", "Search queries", "type", "posts");
+        this.snapshotTimer = OutcomeTimer.register(meterRegistry, "search.index.snapshot", "Search index snapshots");
+        Gauge.builder("search.index.users", this, service -> service.index.userCount()).register(meterRegistry);
+        Gauge.builder("search.index.posts", this, service -> service.index.postCount()).register(meterRegistry);
+        Gauge.builder("search.index.terms", this, service -> service.index.termCount()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        String startId = load();
+        running = true;
+        if (streamEnabled) {
+            changeStream.consume("search-changes", startId, this::apply, this::catchUpAfterGap);
+        }
+        maintenanceThread = Thread.ofVirtual().name("search-maintenance").start(this::maintain);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void onUserCreated(ApplicationUser user) {
+        long userId = user.getUserId();
+        String username = user.getUsername();
+        String name = user.getName();
+        AfterCommit.run(() -> publish(List.of(userChange(userId, username, name))));
+    }
+
+    // Imported chunks are already committed
+    public void onUsersImported(List<NewUser> users) {
+        List<Map<String, String>> userChanges = new ArrayList<>(users.size());
+        for (NewUser user : users) {
+            userChanges.add(userChange(user.userId(), user.username(), user.name()));
+        }
+        publish(userChanges);
+    }
+
+    public void onPostCreated(PostResponseDTO post) {
+        Map<String, String> change = Map.of("op", POST, "id", post.postId(), "text", post.text());
+        AfterCommit.run(() -> publish(List.of(change)));
+    }
+
+    // Username, name or a word of the name starting with the query, most followed first
+    public List<UserSummaryDTO> searchUsers(String query, int limit) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            int pageSize = Math.max(1, Math.min(limit, maxResults));
+            List<UserSummaryDTO> users = new ArrayList<>(pageSize);
+            if (ready) {
+                for (SearchIndex.UserHit hit : index.searchUsers(query, pageSize)) {
+                    users.add(new UserSummaryDTO(String.valueOf(hit.userId()), hit.username(), hit.name()));
+                }
+            } else if (query != null && !query.strip().replaceFirst("^@", "").isEmpty()) {
+                // Only until the index is loaded at startup
+                String prefix = query.strip().replaceFirst("^@", "").toLowerCase(Locale.ROOT)
+                        .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+                for (UserSummaryProjection user : userRepository.findSummariesByUsernamePrefix(prefix + "%",
+                        PageRequest.of(0, pageSize))) {
+                    users.add(new UserSummaryDTO(String.valueOf(user.getUserId()), user.getUsername(), user.getName()));
+                }
+            }
+            success = true;
+            return users;
+        } finally {
+            userQueryTimer.record(start, success);
+        }
+    }
+
+    // Posts containing every word of the query, newest first, before is the nextCursor of the previous page
+    public PostPageDTO searchPosts(String query, Long before, int limit) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            int pageSize = Math.max(1, Math.min(limit, maxResults));
+            if (!ready) {
+                success = true;
+                return new PostPageDTO(List.of(), null);
+            }
+            List<Long> postIds = index.searchPosts(query, before != null ? before : Long.MAX_VALUE, pageSize);
+            List<PostResponseDTO> posts = postCacheService.getAll(postIds);
+            String nextCursor = postIds.size() == pageSize ? String.valueOf(postIds.get(postIds.size() - 1)) : null;
+            success = true;
+            return new PostPageDTO(posts, nextCursor);
+        } finally {
+            postQueryTimer.record(start, success);
+        }
+    }
+
+    // Snapshot first, then every user and post created since it (everything when there is none). Returns the
+    // stream position taken before reading Postgres, so changes committed during the load are replayed on top.
+    private String load() {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            String startId = streamEnabled ? changeStream.latestId() : ChangeStream.START_ID;
+            SearchIndex loaded = readSnapshot();
+            boolean fromSnapshot = loaded != null;
+            if (loaded == null) {
+                loaded = new SearchIndex();
+            }
+            catchUp(loaded, catchUpBound(loaded.maxUserId()), catchUpBound(loaded.maxPostId()));
+
+            index = loaded;
+            ready = true;
+            success = true;
+            logger.info("Search index loaded ({}) with {} users, {} posts and {} terms in {} ms, about {} KiB",
+                    fromSnapshot ? "snapshot and catch-up" : "full build", loaded.userCount(), loaded.postCount(),
+                    loaded.termCount(), (System.nanoTime() - start) / 1_000_000, loaded.sizeInBytes() / 1024);
+            return startId;
+        } finally {
+            loadTimer.record(start, success);
+        }
+    }
+
+    private void catchUp(SearchIndex target, long afterUserId, long afterPostId) {
+        List<UserSummaryProjection> users;
+        do {
+            users = userRepository.findSummariesAfter(afterUserId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (UserSummaryProjection user : users) {
+                target.addUser(user.getUserId(), user.getUsername(), user.getName(), score(user.getUserId()));
+            }
+            if (!users.isEmpty()) {
+                afterUserId = users.get(users.size() - 1).getUserId();
+            }
+        } while (users.size() == LOAD_PAGE_SIZE);
+
+        List<PostProjection> posts;
+        do {
+            posts = postRepository.findAfter(afterPostId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (PostProjection post : posts) {
+                target.addPost(post.getPostId(), post.getText());
+            }
+            if (!posts.isEmpty()) {
+                afterPostId = posts.get(posts.size() - 1).getPostId();
+            }
+        } while (posts.size() == LOAD_PAGE_SIZE);
+    }
+
+    private static long catchUpBound(long maxId) {
+        if (maxId == Long.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        return Math.min(maxId, SnowflakeIdGenerator.minIdAt(SnowflakeIdGenerator.timestampOf(maxId) - CATCH_UP_MARGIN_MS) - 1);
+    }
+
+    // The change stream was trimmed past lastChangeId: re-reads what was created since, the index keeps the rest
+    private String catchUpAfterGap(String lastChangeId) {
+        // Stream ids are Redis milliseconds, Snowflake ids carry theirs
+        long since = SnowflakeIdGenerator.minIdAt(RecordId.of(lastChangeId).getTimestamp() - CATCH_UP_MARGIN_MS) - 1;
+        String startId = changeStream.latestId();
+        catchUp(index, since, since);
+        return startId;
+    }
+
+    private void apply(Map<?, ?> change) {
+        try {
+            long id = Long.parseLong(String.valueOf(change.get("id")));
+            boolean added;
+            if (USER.equals(change.get("op"))) {
+                added = index.addUser(id, String.valueOf(change.get("username")), String.valueOf(change.get("name")), score(id));
+            } else if (POST.equals(change.get("op"))) {
+                added = index.addPost(id, String.valueOf(change.get("text")));
+            } else {
+                return;
+            }
+            if (added) {
+                changes.incrementAndGet();
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Skipping malformed search change {}", change);
+        }
+    }
+
+    private void publish(List<Map<String, String>> batch) {
+        if (streamEnabled) {
+            try {
+                changeStream.publish(batch);
+                return;
+            } catch (Exception e) {
+                // Other nodes pick these up at their next load
+                logger.warn("Failed to publish {} search changes: {}", batch.size(), e.getMessage());
+            }
+        }
+        for (Map<String, String> change : batch) {
+            apply(change);
+        }
+    }
+
+    // Re-scores users from the follow graph and rewrites the snapshot when anything changed since the last
+    private void maintain() {
+        long snapshotChanges = -1;
+        while (running) {
+            try {
+                if (followGraphService.isReady()) {
+                    index.refreshScores(this::score);
+                }
+                long current = changes.get();
+                if (!snapshotPath.isBlank() && current != snapshotChanges) {
+                    writeSnapshot();
+                    snapshotChanges = current;
+                }
+                Thread.sleep(refreshIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Search index maintenance failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(refreshIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Written next to the target and moved over it, so a crash never leaves a torn snapshot
+    private void writeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Path target = Path.of(snapshotPath);
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporary = Files.createTempFile(parent, "search-index", ".tmp");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16)) {
+                    DataOutputStream data = new DataOutputStream(out);
+                    index.writeTo(data);
+                    data.flush();
+                }
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            success = true;
+        } finally {
+            snapshotTimer.record(start, success);
+        }
+    }
+
+    private SearchIndex readSnapshot() {
+        if (snapshotPath.isBlank() || !Files.isRegularFile(Path.of(snapshotPath))) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(snapshotPath)), 1 << 16)) {
+            return SearchIndex.readFrom(new DataInputStream(in));
+        } catch (Exception e) {
+            // A full build gives the same index, only slower
+            logger.warn("Ignoring unreadable search index snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private long score(long userId) {
+        return followGraphService.isReady() ? followGraphService.followerCount(userId) : 0;
+    }
+
+    private static Map<String, String> userChange(long userId, String username, String name) {
+        return Map.of("op", USER, "id", String.valueOf(userId), "username", username, "name", name != null ? name : "");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        changeStream.stop();
+        if (maintenanceThread != null) {
+            maintenanceThread.interrupt();
+        }
+    }
+}
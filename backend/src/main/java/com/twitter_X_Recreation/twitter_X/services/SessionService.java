@@ -0,0 +1,405 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidRefreshTokenException;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Login sessions. Each session is one Redis hash (session:<id>) holding the user and the generation of its
+// current refresh token, so creating, rotating and revoking one touches a single key no matter how many
+// users there are. A refresh token is <session id>.<generation>.<HMAC of both>: the server can verify any
+// token it ever issued without storing it, so a token from any earlier generation is caught as reuse, and
+// Redis holds nothing a stolen copy could log in with. Access tokens are short lived JWTs carrying the session id; a revoked session id is
+// kept in memory on every node until the last access token issued for it has expired, so the request
+// path checks revocation without a Redis round trip.
+@Service
+public class SessionService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionService.class);
+
+    public static final String ACCESS_COOKIE = "authenticated_token";
+    public static final String REFRESH_COOKIE = "refresh_token";
+    private static final String REFRESH_COOKIE_PATH = "/auth";
+
+    private static final String KEY_PREFIX = "session:";
+    // Revoked session ids scored by the time their last access token expires, replayed by starting nodes
+    private static final String REVOKED_KEY = "session:revoked";
+    private static final String REVOCATION_CHANNEL = "session:revocations";
+    private static final String HMAC = "HmacSHA256";
+
+    public record SessionTokens(long sessionId, String username, String accessToken, String refreshToken) {
+    }
+
+    // KEYS[1] = session hash; ARGV = username, ttl ms, now
+    private static final RedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], 'user', ARGV[1], 'generation', 0, 'created', ARGV[3], 'rotated', ARGV[3])
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = session hash; ARGV = presented generation, ttl ms, now, grace ms
+    // Returns {status, user, generation to issue}: ok (rotated), grace (the generation just rotated away came
+    // back within the grace window, the current one is issued again), reuse (any older generation) or missing
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local session = redis.call('HMGET', KEYS[1], 'user', 'generation', 'rotated')
+            if session[1] == false then
+                return {'missing', '', ''}
+            end
+            local current = tonumber(session[2])
+            local presented = tonumber(ARGV[1])
+            if presented == current then
+                redis.call('HSET', KEYS[1], 'generation', current + 1, 'rotated', ARGV[3])
+                redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                return {'ok', session[1], tostring(current + 1)}
+            end
+            if presented == current - 1 and tonumber(ARGV[3]) - tonumber(session[3]) <= tonumber(ARGV[4]) then
+                return {'grace', session[1], tostring(current)}
+            end
+            if presented < current then
+                return {'reuse', session[1], ''}
+            end
+            return {'invalid', session[1], ''}
+            """, List.class);
+
+    // KEYS[1] = session hash, KEYS[2] = revoked set; ARGV = session id, revoked until, now
+    private static final RedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[3])
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = session hash, KEYS[2] = revoked set; ARGV = presented generation, session id, revoked until, now
+    // Revokes only when the presented token is the session's current one, returns 1 when it did
+    private static final RedisScript<Long> REVOKE_OWNED_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'generation') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4])
+            redis.call('ZADD', KEYS[2], ARGV[3], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final JwtService jwtService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final SecretKeySpec refreshKey;
+    private final long accessTtlMs;
+    private final long refreshTtlMs;
+    private final long refreshGraceMs;
+    private final boolean cookieSecure;
+
+    // session id -> epoch millis after which no access token for it is valid anyway
+    private final ConcurrentHashMap<Long, Long> revoked = new ConcurrentHashMap<>();
+    private volatile long nextPurgeAt = 0;
+
+    private final OutcomeTimer createTimer;
+    private final OutcomeTimer refreshTimer;
+    private final OutcomeTimer revokeTimer;
+    private final Counter graceRefreshes;
+    private final Counter reuseDetected;
+
+    private boolean pubSubEnabled = false;
+
+    public SessionService(StringRedisTemplate redisTemplate,
+                          JwtService jwtService,
+                          SnowflakeIdGenerator idGenerator,
+                          ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.sessions.access-ttl-ms:900000}") long accessTtlMs,
+                          @Value("${app.sessions.refresh-ttl-ms:1209600000}") long refreshTtlMs,
+                          @Value("${app.sessions.refresh-grace-ms:10000}") long refreshGraceMs,
+                          @Value("${app.sessions.refresh-secret:${jwt.secret}}") String refreshSecret,
+                          @Value("${app.cookie.secure}") boolean cookieSecure) {
+        this.redisTemplate = redisTemplate;
+        this.jwtService = jwtService;
+        this.idGenerator = idGenerator;
+        this.listenerContainer = listenerContainer;
+        this.refreshKey = new SecretKeySpec(("refresh:" + refreshSecret).getBytes(StandardCharsets.UTF_8), HMAC);
+        this.accessTtlMs = accessTtlMs;
+        this.refreshTtlMs = refreshTtlMs;
+        this.refreshGraceMs = refreshGraceMs;
+        this.cookieSecure = cookieSecure;
+
+        String description = "Session store operations";
+        this.createTimer = OutcomeTimer.register(meterRegistry, "auth.session", description, "operation", "create");
+        this.refreshTimer = OutcomeTimer.register(meterRegistry, "auth.session", description, "operation", "refresh");
+        this.revokeTimer = OutcomeTimer.register(meterRegistry, "auth.session", description, "operation", "revoke");
+        this.graceRefreshes = Counter.builder("auth.session.refresh.grace")
+                .description("Refresh tokens presented again right after rotating, usually two tabs racing")
+                .register(meterRegistry);
+        this.reuseDetected = Counter.builder("auth.session.refresh.reuse")
+                .description("Rotated refresh tokens presented again, the session is revoked")
+                .register(meterRegistry);
+        Gauge.builder("auth.session.revoked.local", revoked, ConcurrentHashMap::size)
+                .description("Revoked session ids held in memory")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (container != null) {
+            container.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+            pubSubEnabled = true;
+        }
+    }
+
+    // Without pub/sub this node only knows its own revocations, there is nothing to replay either
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        if (!pubSubEnabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Set<ZSetOperations.TypedTuple<String>> entries =
+                    redisTemplate.opsForZSet().rangeByScoreWithScores(REVOKED_KEY, now, Double.POSITIVE_INFINITY);
+            if (entries != null) {
+                for (ZSetOperations.TypedTuple<String> entry : entries) {
+                    if (entry.getValue() != null && entry.getScore() != null) {
+                        revoked.put(Long.valueOf(entry.getValue()), entry.getScore().longValue());
+                    }
+                }
+            }
+            logger.info("Loaded {} revoked sessions", revoked.size());
+        } catch (Exception e) {
+            logger.warn("Could not load revoked sessions: {}", e.getMessage());
+        }
+    }
+
+    public SessionTokens create(String username) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            long sessionId = idGenerator.nextId();
+            redisTemplate.execute(CREATE_SCRIPT, List.of(KEY_PREFIX + sessionId),
+                    username, String.valueOf(refreshTtlMs), String.valueOf(System.currentTimeMillis()));
+            SessionTokens tokens = issue(sessionId, username, 0);
+            success = true;
+            return tokens;
+        } finally {
+            createTimer.record(start, success);
+        }
+    }
+
+    // Swaps the refresh token for the next generation. Presenting a token of any earlier generation means it
+    // leaked (or was replayed), so the whole session is revoked. The one exception is the generation rotated
+    // away within the last refreshGraceMs: two tabs refreshing at once both present it, and the slower one is
+    // handed the token the faster one already got instead of logging the user out.
+    public SessionTokens refresh(String refreshToken) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Long sessionId = sessionIdOf(refreshToken);
+            Long generation = generationOf(refreshToken);
+            if (generation == null || isRevoked(sessionId)) {
+                throw new InvalidRefreshTokenException();
+            }
+
+            List<?> result = redisTemplate.execute(ROTATE_SCRIPT, List.of(KEY_PREFIX + sessionId),
+                    String.valueOf(generation), String.valueOf(refreshTtlMs),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(refreshGraceMs));
+            String status = result == null || result.size() < 3 ? "missing" : String.valueOf(result.get(0));
+            if ("reuse".equals(status)) {
+                reuseDetected.increment();
+                logger.warn("Refresh token reuse on session {} of {}, revoking it", sessionId, result.get(1));
+                revoke(sessionId);
+            } else if ("grace".equals(status)) {
+                graceRefreshes.increment();
+            }
+            if (!"ok".equals(status) && !"grace".equals(status)) {
+                throw new InvalidRefreshTokenException();
+            }
+            SessionTokens tokens = issue(sessionId, String.valueOf(result.get(1)), Long.parseLong(String.valueOf(result.get(2))));
+            success = true;
+            return tokens;
+        } finally {
+            refreshTimer.record(start, success);
+        }
+    }
+
+    public void revoke(long sessionId) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            long now = System.currentTimeMillis();
+            long revokedUntil = now + accessTtlMs;
+            markRevoked(sessionId, revokedUntil);
+            redisTemplate.execute(REVOKE_SCRIPT, List.of(KEY_PREFIX + sessionId, REVOKED_KEY),
+                    String.valueOf(sessionId), String.valueOf(revokedUntil), String.valueOf(now));
+            publishRevocation(sessionId, revokedUntil);
+            success = true;
+        } finally {
+            revokeTimer.record(start, success);
+        }
+    }
+
+    // Logout by refresh token: the session id in it is guessable, so the token must verify and be the current
+    // generation, checked in the same script that deletes the session. Returns false, revoking nothing, otherwise.
+    public boolean revoke(String refreshToken) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Long sessionId = sessionIdOf(refreshToken);
+            Long generation = generationOf(refreshToken);
+            if (generation == null) {
+                success = true;
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            long revokedUntil = now + accessTtlMs;
+            Long revokedCount = redisTemplate.execute(REVOKE_OWNED_SCRIPT, List.of(KEY_PREFIX + sessionId, REVOKED_KEY),
+                    String.valueOf(generation), String.valueOf(sessionId),
+                    String.valueOf(revokedUntil), String.valueOf(now));
+            boolean revokedSession = revokedCount != null && revokedCount == 1L;
+            if (revokedSession) {
+                markRevoked(sessionId, revokedUntil);
+                publishRevocation(sessionId, revokedUntil);
+            }
+            success = true;
+            return revokedSession;
+        } finally {
+            revokeTimer.record(start, success);
+        }
+    }
+
+    // Session id part of a refresh token (<session id>.<generation>.<mac>), not verified
+    public static Long sessionIdOf(String refreshToken) {
+        int separator = refreshToken == null ? -1 : refreshToken.indexOf('.');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return Long.parseLong(refreshToken.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Generation of a refresh token issued by this service, null when it does not verify
+    private Long generationOf(String refreshToken) {
+        Long sessionId = sessionIdOf(refreshToken);
+        if (sessionId == null) {
+            return null;
+        }
+        String[] parts = refreshToken.split("\\.", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        long generation;
+        try {
+            generation = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        byte[] expected = mac(sessionId, generation).getBytes(StandardCharsets.US_ASCII);
+        return generation >= 0 && MessageDigest.isEqual(expected, parts[2].getBytes(StandardCharsets.US_ASCII))
+                ? generation : null;
+    }
+
+    // Called for every authenticated request, memory only
+    public boolean isRevoked(long sessionId) {
+        Long until = revoked.get(sessionId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            markRevoked(Long.parseLong(body.substring(0, separator)), Long.parseLong(body.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed session revocation: {}", body);
+        }
+    }
+
+    public void writeCookies(HttpServletResponse response, SessionTokens tokens) {
+        addCookie(response, ACCESS_COOKIE, tokens.accessToken(), "/", Duration.ofMillis(accessTtlMs));
+        addCookie(response, REFRESH_COOKIE, tokens.refreshToken(), REFRESH_COOKIE_PATH,
+                Duration.ofMillis(refreshTtlMs));
+    }
+
+    public void clearCookies(HttpServletResponse response) {
+        addCookie(response, ACCESS_COOKIE, "", "/", Duration.ZERO);
+        addCookie(response, REFRESH_COOKIE, "", REFRESH_COOKIE_PATH, Duration.ZERO);
+    }
+
+    private void publishRevocation(long sessionId, long revokedUntil) {
+        if (pubSubEnabled) {
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, sessionId + ":" + revokedUntil);
+        }
+    }
+
+    private SessionTokens issue(long sessionId, String username, long generation) {
+        String accessToken = jwtService.generateToken(username, sessionId, accessTtlMs);
+        return new SessionTokens(sessionId, username, accessToken,
+                sessionId + "." + generation + "." + mac(sessionId, generation));
+    }
+
+    private void markRevoked(long sessionId, long revokedUntil) {
+        revoked.merge(sessionId, revokedUntil, Math::max);
+        long now = System.currentTimeMillis();
+        if (now >= nextPurgeAt) {
+            nextPurgeAt = now + 60_000;
+            revoked.values().removeIf(until -> until <= now);
+        }
+    }
+
+    private void addCookie(HttpServletResponse response, String name, String value, String path, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .httpOnly(true)
+                .secure(cookieSecure)
+                .path(path)
+                .maxAge(maxAge)
+                .sameSite(cookieSecure ? "None" : "Lax")
+                .build();
+        response.addHeader("Set-Cookie", cookie.toString());
+    }
+
+    private String mac(long sessionId, long generation) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(refreshKey);
+            byte[] hash = mac.doFinal((sessionId + "." + generation).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " not available", e);
+        }
+    }
+}
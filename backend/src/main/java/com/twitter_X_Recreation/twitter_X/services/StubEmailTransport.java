@@ -0,0 +1,52 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.EmailFailedToSendException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local transport for development and tests, keeps the last sent emails in memory instead of calling Brevo
+@Service
+@ConditionalOnProperty(name = "app.email.transport", havingValue = "stub")
+public class StubEmailTransport implements EmailTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubEmailTransport.class);
+    private static final int MAX_KEPT_EMAILS = 1_000;
+
+    public record SentEmail(String toAddress, String subject, String content) {
+    }
+
+    private final ConcurrentLinkedDeque<SentEmail> sentEmails = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger failuresToSimulate = new AtomicInteger(0);
+
+    @Override
+    public void sendEmail(String toAddress, String subject, String content) throws EmailFailedToSendException {
+        if (failuresToSimulate.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new EmailFailedToSendException(new IllegalStateException("Simulated transport failure"));
+        }
+        sentEmails.addLast(new SentEmail(toAddress, subject, content));
+        while (sentEmails.size() > MAX_KEPT_EMAILS) {
+            sentEmails.pollFirst();
+        }
+        logger.info("Stub email to {}: {}", toAddress, subject);
+    }
+
+    public List<SentEmail> getSentEmails() {
+        return new ArrayList<>(sentEmails);
+    }
+
+    public void simulateFailures(int count) {
+        failuresToSimulate.set(count);
+    }
+
+    public void clear() {
+        sentEmails.clear();
+        failuresToSimulate.set(0);
+    }
+}
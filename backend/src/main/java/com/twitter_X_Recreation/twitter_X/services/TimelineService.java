@@ -0,0 +1,427 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.PostPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostProjection;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.repositories.FollowRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Following timelines with hybrid fan-out. Every post id lands in its author's sorted set
+// (timeline:author:<id>); posts of normal accounts are also pushed into each follower's capped home set
+// (timeline:home:<id>) by a background pool, one Redis pipeline per batch of followers. Accounts with
+// more than celebrity-threshold followers are not fanned out: their followers keep them in
+// timeline:pull:<id> and their author sets are merged in when the timeline is read.
+// Scores are the post id without its 10 low sequence bits, which fits a double exactly and keeps
+// Redis order (score, then member) equal to post id order.
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private static final String HOME_PREFIX = "timeline:home:";
+    private static final String BUILT_PREFIX = "timeline:built:";
+    private static final String PULL_PREFIX = "timeline:pull:";
+    private static final String AUTHOR_PREFIX = "timeline:author:";
+    private static final String CELEBRITIES_KEY = "timeline:celebrities";
+
+    // Extra members read past the cursor's score, posts that share it with the cursor are filtered out
+    private static final int TIE_SLACK = 32;
+
+    private final StringRedisTemplate redisTemplate;
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final PostCacheService postCacheService;
+    private final FollowGraphService followGraphService;
+    private final int homeSize;
+    private final int authorSize;
+    private final long celebrityThreshold;
+    private final int fanOutBatchSize;
+    private final long retentionMs;
+    private final int maxPageSize;
+    private final ThreadPoolExecutor executor;
+
+    private final OutcomeTimer fanOutTimer;
+    private final OutcomeTimer readTimer;
+    private final DistributionSummary fanOutRecipients;
+    private final Counter rebuilds;
+    private final Counter sqlFallbacks;
+
+    public TimelineService(StringRedisTemplate redisTemplate,
+                           FollowRepository followRepository,
+                           PostRepository postRepository,
+                           PostCacheService postCacheService,
+                           FollowGraphService followGraphService,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.timeline.home-size:800}") int homeSize,
+                           @Value("${app.timeline.author-size:200}") int authorSize,
+                           @Value("${app.timeline.celebrity-threshold:10000}") long celebrityThreshold,
+                           @Value("${app.timeline.fanout.threads:4}") int fanOutThreads,
+                           @Value("${app.timeline.fanout.queue-capacity:10000}") int queueCapacity,
+                           @Value("${app.timeline.fanout.batch-size:500}") int fanOutBatchSize,
+                           @Value("${app.timeline.retention-ms:604800000}") long retentionMs,
+                           @Value("${app.posts.max-page-size:50}") int maxPageSize) {
+        this.redisTemplate = redisTemplate;
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.postCacheService = postCacheService;
+        this.followGraphService = followGraphService;
+        this.homeSize = homeSize;
+        this.authorSize = authorSize;
+        this.celebrityThreshold = celebrityThreshold;
+        this.fanOutBatchSize = fanOutBatchSize;
+        this.retentionMs = retentionMs;
+        this.maxPageSize = maxPageSize;
+
+        // A full queue makes the posting thread run its own fan-out, which slows writers down instead of
+        // dropping timeline updates
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(fanOutThreads, fanOutThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "timeline-fanout-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.fanOutTimer = OutcomeTimer.register(meterRegistry, "timeline.fanout", "Fan-out of one post");
+        this.readTimer = OutcomeTimer.register(meterRegistry, "timeline.read", "Home timeline page reads");
+        this.fanOutRecipients = DistributionSummary.builder("timeline.fanout.recipients")
+                .description("Home timelines one post was pushed into")
+                .register(meterRegistry);
+        this.rebuilds = Counter.builder("timeline.rebuilds")
+                .description("Home timelines rebuilt from SQL")
+                .register(meterRegistry);
+        this.sqlFallbacks = Counter.builder("timeline.sql.fallbacks")
+                .description("Home timeline pages served from SQL because Redis failed")
+                .register(meterRegistry);
+        Gauge.builder("timeline.fanout.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+    }
+
+    // Fans the post out once its transaction has committed
+    public void onPostCreated(PostResponseDTO post) {
+        AfterCommit.run(() -> submit(() -> fanOut(post)));
+    }
+
+    public void onFollow(long followerId, long followeeId) {
+        AfterCommit.run(() -> submit(() -> applyFollow(followerId, followeeId)));
+    }
+
+    public void onUnfollow(long followerId, long followeeId) {
+        AfterCommit.run(() -> submit(() -> applyUnfollow(followerId, followeeId)));
+    }
+
+    // before is the nextCursor of the previous page. Served from Redis, SQL only rebuilds a missing timeline
+    // or stands in while Redis is down.
+    public PostPageDTO getHomeTimeline(long userId, Long before, int limit) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+            List<Long> postIds;
+            try {
+                postIds = readPostIds(userId, before, pageSize);
+            } catch (Exception e) {
+                sqlFallbacks.increment();
+                logger.debug("Home timeline of {} served from SQL: {}", userId, e.getMessage());
+                postIds = postRepository.findFollowingTimelineIds(userId, before != null ? before : Long.MAX_VALUE,
+                        PageRequest.of(0, pageSize));
+            }
+
+            List<PostResponseDTO> posts = postCacheService.getAll(postIds);
+            String nextCursor = postIds.size() == pageSize ? String.valueOf(postIds.get(postIds.size() - 1)) : null;
+            success = true;
+            return new PostPageDTO(posts, nextCursor);
+        } finally {
+            readTimer.record(start, success);
+        }
+    }
+
+    private List<Long> readPostIds(long userId, Long before, int pageSize) {
+        ensureBuilt(userId);
+
+        double max = before != null ? score(before) : Double.POSITIVE_INFINITY;
+        long count = pageSize + TIE_SLACK;
+        String home = HOME_PREFIX + userId;
+        String pull = PULL_PREFIX + userId;
+        String built = BUILT_PREFIX + userId;
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.zRevRangeByScore(home, Double.NEGATIVE_INFINITY, max, 0, count);
+            redis.sMembers(pull);
+            // Reading keeps the timeline alive, inactive users' timelines expire
+            redis.pExpire(home, retentionMs);
+            redis.pExpire(pull, retentionMs);
+            redis.pExpire(built, retentionMs);
+            return null;
+        });
+
+        TreeSet<Long> candidates = new TreeSet<>(Comparator.reverseOrder());
+        addPostIds(candidates, results.get(0), before);
+
+        Collection<?> celebrities = (Collection<?>) results.get(1);
+        if (celebrities != null && !celebrities.isEmpty()) {
+            List<Object> authorResults = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (Object celebrity : celebrities) {
+                    redis.zRevRangeByScore(AUTHOR_PREFIX + celebrity, Double.NEGATIVE_INFINITY, max, 0, count);
+                }
+                return null;
+            });
+            for (Object authorResult : authorResults) {
+                addPostIds(candidates, authorResult, before);
+            }
+        }
+
+        List<Long> postIds = new ArrayList<>(pageSize);
+        for (Long postId : candidates) {
+            if (postIds.size() == pageSize) {
+                break;
+            }
+            postIds.add(postId);
+        }
+        return postIds;
+    }
+
+    // A timeline that expired (or never existed) is rebuilt from SQL once, then kept up by fan-out. The rows
+    // are added to whatever the sets hold instead of replacing them: a post fanned out (or a celebrity
+    // promoted) after the SQL read is already in Redis and must survive the rebuild, as in BookmarkService.
+    private void ensureBuilt(long userId) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(BUILT_PREFIX + userId))) {
+            return;
+        }
+        rebuilds.increment();
+        List<Long> postIds = postRepository.findFollowingTimelineIds(userId, Long.MAX_VALUE, PageRequest.of(0, homeSize));
+        Set<String> celebrities = redisTemplate.opsForSet().members(CELEBRITIES_KEY);
+        List<Long> followedCelebrities = celebrities == null || celebrities.isEmpty()
+                ? List.of()
+                : followRepository.findFolloweesAmong(userId, toLongs(celebrities));
+
+        String home = HOME_PREFIX + userId;
+        String pull = PULL_PREFIX + userId;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Long postId : postIds) {
+                redis.zAdd(home, score(postId), String.valueOf(postId));
+            }
+            redis.zRemRangeByRank(home, 0, -(homeSize + 1));
+            for (Long celebrity : followedCelebrities) {
+                redis.sAdd(pull, String.valueOf(celebrity));
+            }
+            redis.pExpire(home, retentionMs);
+            redis.pExpire(pull, retentionMs);
+            redis.pSetEx(BUILT_PREFIX + userId, retentionMs, "1");
+            return null;
+        });
+    }
+
+    private void fanOut(PostResponseDTO post) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            long postId = Long.parseLong(post.postId());
+            long authorId = Long.parseLong(post.authorId());
+            String member = post.postId();
+            double score = score(postId);
+
+            postCacheService.put(post);
+            String authorKey = AUTHOR_PREFIX + authorId;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.zAdd(authorKey, score, member);
+                redis.zRemRangeByRank(authorKey, 0, -(authorSize + 1));
+                redis.pExpire(authorKey, retentionMs);
+                return null;
+            });
+
+            int recipients = pushToHomes(List.of(authorId), member, score);
+            long[] followerIds = isCelebrity(authorId) ? new long[0] : followGraphService.followerIds(authorId);
+            if (followerIds != null) {
+                for (int from = 0; from < followerIds.length; from += fanOutBatchSize) {
+                    int to = Math.min(followerIds.length, from + fanOutBatchSize);
+                    List<Long> batch = new ArrayList<>(to - from);
+                    for (int i = from; i < to; i++) {
+                        batch.add(followerIds[i]);
+                    }
+                    recipients += pushToHomes(batch, member, score);
+                }
+            } else {
+                // Follow graph still loading
+                long afterId = Long.MIN_VALUE;
+                List<Long> followers;
+                do {
+                    followers = followRepository.findFollowerIdsAfter(authorId, afterId, PageRequest.of(0, fanOutBatchSize));
+                    if (!followers.isEmpty()) {
+                        recipients += pushToHomes(followers, member, score);
+                        afterId = followers.get(followers.size() - 1);
+                    }
+                } while (followers.size() == fanOutBatchSize);
+            }
+            fanOutRecipients.record(recipients);
+            success = true;
+        } finally {
+            fanOutTimer.record(start, success);
+        }
+    }
+
+    private int pushToHomes(List<Long> userIds, String member, double score) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Long userId : userIds) {
+                String home = HOME_PREFIX + userId;
+                redis.zAdd(home, score, member);
+                redis.zRemRangeByRank(home, 0, -(homeSize + 1));
+                redis.pExpire(home, retentionMs);
+            }
+            return null;
+        });
+        return userIds.size();
+    }
+
+    // Copies the followee's recent posts into a built timeline, or subscribes it to a celebrity
+    private void applyFollow(long followerId, long followeeId) {
+        if (isCelebrity(followeeId)) {
+            String pull = PULL_PREFIX + followerId;
+            redisTemplate.opsForSet().add(pull, String.valueOf(followeeId));
+            redisTemplate.expire(pull, retentionMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(BUILT_PREFIX + followerId))) {
+            List<Long> postIds = recentPostIds(followeeId);
+            String home = HOME_PREFIX + followerId;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (Long postId : postIds) {
+                    redis.zAdd(home, score(postId), String.valueOf(postId));
+                }
+                redis.zRemRangeByRank(home, 0, -(homeSize + 1));
+                return null;
+            });
+        }
+
+        if (followGraphService.followerCount(followeeId) >= celebrityThreshold) {
+            promote(followeeId);
+        }
+    }
+
+    private void applyUnfollow(long followerId, long followeeId) {
+        redisTemplate.opsForSet().remove(PULL_PREFIX + followerId, String.valueOf(followeeId));
+        List<Long> postIds = recentPostIds(followeeId);
+        if (!postIds.isEmpty()) {
+            Object[] members = postIds.stream().map(String::valueOf).toArray();
+            redisTemplate.opsForZSet().remove(HOME_PREFIX + followerId, members);
+        }
+    }
+
+    // From now on the account's posts are merged at read time. Its current followers get it in their
+    // pull sets once; whoever follows it later gets it in applyFollow.
+    private void promote(long userId) {
+        Long added = redisTemplate.opsForSet().add(CELEBRITIES_KEY, String.valueOf(userId));
+        if (added == null || added == 0) {
+            return;
+        }
+        String celebrity = String.valueOf(userId);
+        long afterId = Long.MIN_VALUE;
+        List<Long> followers;
+        do {
+            followers = followRepository.findFollowerIdsAfter(userId, afterId, PageRequest.of(0, fanOutBatchSize));
+            List<Long> batch = followers;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (Long followerId : batch) {
+                    String pull = PULL_PREFIX + followerId;
+                    redis.sAdd(pull, celebrity);
+                    redis.pExpire(pull, retentionMs);
+                }
+                return null;
+            });
+            if (!followers.isEmpty()) {
+                afterId = followers.get(followers.size() - 1);
+            }
+        } while (followers.size() == fanOutBatchSize);
+        logger.info("User {} crossed {} followers, their posts are now merged at read time", userId, celebrityThreshold);
+    }
+
+    private boolean isCelebrity(long userId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(CELEBRITIES_KEY, String.valueOf(userId)));
+    }
+
+    private List<Long> recentPostIds(long authorId) {
+        Set<String> members = redisTemplate.opsForZSet().reverseRange(AUTHOR_PREFIX + authorId, 0, authorSize - 1);
+        if (members != null && !members.isEmpty()) {
+            return toLongs(members);
+        }
+        List<Long> postIds = new ArrayList<>();
+        for (PostProjection post : postRepository.findByAuthorBefore(authorId, Long.MAX_VALUE, PageRequest.of(0, authorSize))) {
+            postIds.add(post.getPostId());
+        }
+        return postIds;
+    }
+
+    private static void addPostIds(TreeSet<Long> candidates, Object members, Long before) {
+        if (!(members instanceof Collection<?> collection)) {
+            return;
+        }
+        for (Object member : collection) {
+            long postId = Long.parseLong(member.toString());
+            if (before == null || postId < before) {
+                candidates.add(postId);
+            }
+        }
+    }
+
+    private static List<Long> toLongs(Collection<String> values) {
+        List<Long> longs = new ArrayList<>(values.size());
+        for (String value : values) {
+            longs.add(Long.valueOf(value));
+        }
+        return longs;
+    }
+
+    private static double score(long postId) {
+        return (double) (postId >>> 10);
+    }
+
+    private void submit(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.warn("Timeline update failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
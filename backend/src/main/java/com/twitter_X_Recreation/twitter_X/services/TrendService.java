@@ -0,0 +1,228 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.dto.TrendDTO;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import com.twitter_X_Recreation.twitter_X.utils.HeavyHitters;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import com.twitter_X_Recreation.twitter_X.utils.SearchTokenizer;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// "What's happening" without ever grouping over the posts table. Committed posts are queued to one stage
+// thread that splits them into topics (hashtags and words, see SearchTokenizer.topics) and counts them in
+// a HeavyHitters: count-min sketches over a sliding window plus a top-k heap, fixed memory however many
+// topics there are. Every publish interval the thread writes its top-k to a per-node Redis hash, reads the
+// hashes of every live node and sums them into the trends it serves until the next round. A node only
+// counts the posts created on it, the merge is what makes the trends global.
+@Service
+public class TrendService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendService.class);
+
+    private static final String NODES_KEY = "trends:nodes";
+    private static final String NODE_PREFIX = "trends:node:";
+    private static final int DRAIN_SIZE = 256;
+
+    private final StringRedisTemplate redisTemplate;
+    private final SnowflakeIdGenerator idGenerator;
+    private final boolean mergeEnabled;
+    private final long publishIntervalMs;
+    private final int nodeTopK;
+    private final int maxResults;
+
+    private final HeavyHitters heavyHitters;
+    private final BlockingQueue<String> queue;
+    private final Thread stage;
+    private volatile boolean running = true;
+    private volatile List<TrendDTO> trends = List.of();
+
+    private final OutcomeTimer mergeTimer;
+    private final Counter dropped;
+
+    public TrendService(StringRedisTemplate redisTemplate,
+                        SnowflakeIdGenerator idGenerator,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.trends.merge-enabled:true}") boolean mergeEnabled,
+                        @Value("${app.trends.publish-interval-ms:30000}") long publishIntervalMs,
+                        @Value("${app.trends.window-ms:3600000}") long windowMs,
+                        @Value("${app.trends.buckets:12}") int buckets,
+                        @Value("${app.trends.sketch-depth:4}") int sketchDepth,
+                        @Value("${app.trends.sketch-width:4096}") int sketchWidth,
+                        @Value("${app.trends.node-top-k:100}") int nodeTopK,
+                        @Value("${app.trends.max-results:30}") int maxResults,
+                        @Value("${app.trends.queue-capacity:10000}") int queueCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.idGenerator = idGenerator;
+        this.mergeEnabled = mergeEnabled;
+        this.publishIntervalMs = publishIntervalMs;
+        this.nodeTopK = nodeTopK;
+        this.maxResults = maxResults;
+        this.heavyHitters = new HeavyHitters(nodeTopK, buckets, Math.max(1, windowMs / buckets), sketchDepth, sketchWidth);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.mergeTimer = OutcomeTimer.register(meterRegistry, "trends.merge", "Trend summary publish and merge rounds");
+        this.dropped = Counter.builder("trends.posts.dropped")
+                .description("Posts not counted because the trend queue was full")
+                .register(meterRegistry);
+        Gauge.builder("trends.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.stage = new Thread(this::run, "trend-counter");
+        this.stage.setDaemon(true);
+        this.stage.start();
+    }
+
+    public void onPostCreated(PostResponseDTO post) {
+        String text = post.text();
+        AfterCommit.run(() -> {
+            // Trends are approximate anyway, a burst beyond the queue is dropped rather than slowing posting
+            if (!queue.offer(text)) {
+                dropped.increment();
+            }
+        });
+    }
+
+    public List<TrendDTO> getTrends(int limit) {
+        List<TrendDTO> current = trends;
+        int size = Math.max(0, Math.min(Math.min(limit, maxResults), current.size()));
+        return current.subList(0, size);
+    }
+
+    private void run() {
+        List<String> batch = new ArrayList<>(DRAIN_SIZE);
+        long nextPublish = System.currentTimeMillis() + publishIntervalMs;
+        while (running) {
+            try {
+                long wait = nextPublish - System.currentTimeMillis();
+                String first = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, DRAIN_SIZE - 1);
+                    long now = System.currentTimeMillis();
+                    for (String text : batch) {
+                        for (String topic : SearchTokenizer.topics(text)) {
+                            heavyHitters.add(topic, now);
+                        }
+                    }
+                    batch.clear();
+                }
+                if (System.currentTimeMillis() >= nextPublish) {
+                    publishAndMerge();
+                    nextPublish = System.currentTimeMillis() + publishIntervalMs;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.error("Trend counter failed", e);
+                batch.clear();
+            }
+        }
+    }
+
+    // Without Redis (or with merging off) this node's own top-k are the trends
+    private void publishAndMerge() {
+        long start = System.nanoTime();
+        boolean success = false;
+        List<HeavyHitters.Entry> local = heavyHitters.top(nodeTopK, System.currentTimeMillis());
+        try {
+            trends = mergeEnabled ? merge(local) : toTrends(local);
+            success = true;
+        } catch (Exception e) {
+            logger.warn("Could not merge trend summaries, serving this node's: {}", e.getMessage());
+            trends = toTrends(local);
+        } finally {
+            mergeTimer.record(start, success);
+        }
+    }
+
+    private List<TrendDTO> merge(List<HeavyHitters.Entry> local) {
+        long now = System.currentTimeMillis();
+        // A node that stopped publishing drops out after missing two rounds
+        long ttlMs = publishIntervalMs * 3;
+        String node = String.valueOf(idGenerator.getWorkerId());
+        Map<String, String> summary = new HashMap<>(local.size() * 2);
+        for (HeavyHitters.Entry entry : local) {
+            summary.put(entry.key(), String.valueOf(entry.count()));
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.del(NODE_PREFIX + node);
+            if (!summary.isEmpty()) {
+                redis.hMSet(NODE_PREFIX + node, summary);
+                redis.pExpire(NODE_PREFIX + node, ttlMs);
+            }
+            redis.zAdd(NODES_KEY, now, node);
+            redis.zRemRangeByScore(NODES_KEY, Double.NEGATIVE_INFINITY, now - ttlMs);
+            return null;
+        });
+
+        Set<String> nodes = redisTemplate.opsForZSet().rangeByScore(NODES_KEY, now - ttlMs, Double.POSITIVE_INFINITY);
+        if (nodes == null || nodes.isEmpty()) {
+            return toTrends(local);
+        }
+        List<String> nodeKeys = nodes.stream().map(member -> NODE_PREFIX + member).toList();
+        List<Object> summaries = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (String key : nodeKeys) {
+                redis.hGetAll(key);
+            }
+            return null;
+        });
+
+        // A topic just outside one node's top-k counts zero there, so merged counts can only undercount
+        Map<String, Long> totals = new HashMap<>();
+        for (Object nodeSummary : summaries) {
+            if (nodeSummary instanceof Map<?, ?> counts) {
+                for (Map.Entry<?, ?> entry : counts.entrySet()) {
+                    try {
+                        totals.merge(String.valueOf(entry.getKey()), Long.parseLong(String.valueOf(entry.getValue())), Long::sum);
+                    } catch (NumberFormatException e) {
+                        // Skip a corrupt entry, the next round overwrites it
+                    }
+                }
+            }
+        }
+        List<HeavyHitters.Entry> merged = new ArrayList<>(totals.size());
+        totals.forEach((topic, count) -> merged.add(new HeavyHitters.Entry(topic, count)));
+        merged.sort(Comparator.comparingLong(HeavyHitters.Entry::count).reversed().thenComparing(HeavyHitters.Entry::key));
+        return toTrends(merged);
+    }
+
+    private List<TrendDTO> toTrends(List<HeavyHitters.Entry> entries) {
+        List<TrendDTO> result = new ArrayList<>(Math.min(entries.size(), maxResults));
+        for (HeavyHitters.Entry entry : entries) {
+            if (result.size() == maxResults) {
+                break;
+            }
+            result.add(new TrendDTO(entry.key(), entry.count()));
+        }
+        return List.copyOf(result);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        stage.interrupt();
+    }
+}
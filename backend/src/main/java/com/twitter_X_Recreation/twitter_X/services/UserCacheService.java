@@ -0,0 +1,212 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_X_Recreation.twitter_X.dto.CachedUser;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Two tier user cache: a bounded in-heap W-TinyLFU cache per node in front of a shared Redis copy.
+// Writers call invalidate(), which after commit drops the Redis entry, bumps the user's version and tells
+// every node over pub/sub to drop its local entry. A load remembers the version it started under and only
+// writes back (to either tier) if it is unchanged, so a row read before the update never outlives it in the
+// cache. Both tiers also expire on their own to bound staleness if a message is lost.
+@Service
+public class UserCacheService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheService.class);
+
+    private static final String KEY_PREFIX = "cache:user:";
+    private static final String VERSION_PREFIX = "cache:user:version:";
+    private static final String INVALIDATION_CHANNEL = "cache:user:invalidate";
+
+    // KEYS[1] = entry, KEYS[2] = version; ARGV = version read before the load ('' when none), json, ttl ms
+    // Returns 0 without writing when an invalidate ran since the load started
+    private static final RedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = entry, KEYS[2] = version; ARGV = ttl ms. The version outlives any entry written under it.
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // The Redis tier's view before a load: the entry if cached, else the version to fill under.
+    // A null version means Redis could not be asked, the load is then cached locally only.
+    private record RedisRead(CachedUser user, String version) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RoleCacheService roleCacheService;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final Cache<String, CachedUser> localCache;
+    private final Duration redisTtl;
+    private final boolean redisTierEnabled;
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter invalidations;
+    private final Counter staleFills;
+
+    private boolean pubSubEnabled = false;
+
+    public UserCacheService(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            RoleCacheService roleCacheService,
+                            ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.cache.users.local-max-size:50000}") long localMaxSize,
+                            @Value("${app.cache.users.local-ttl-ms:60000}") long localTtlMs,
+                            @Value("${app.cache.users.redis-ttl-ms:600000}") long redisTtlMs,
+                            @Value("${app.cache.users.redis-enabled:true}") boolean redisTierEnabled) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.roleCacheService = roleCacheService;
+        this.listenerContainer = listenerContainer;
+        this.redisTtl = Duration.ofMillis(redisTtlMs);
+        this.redisTierEnabled = redisTierEnabled;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofMillis(localTtlMs))
+                .recordStats()
+                .build();
+
+        // hits, misses and evictions of the local tier (cache.gets / cache.evictions tagged cache=users.local)
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "users.local");
+        this.redisHits = Counter.builder("cache.users.redis").tag("result", "hit").register(meterRegistry);
+        this.redisMisses = Counter.builder("cache.users.redis").tag("result", "miss").register(meterRegistry);
+        this.invalidations = Counter.builder("cache.users.invalidations").register(meterRegistry);
+        this.staleFills = Counter.builder("cache.users.stale.fills")
+                .description("Loads not cached because the user was invalidated while they ran")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (container != null) {
+            container.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+            pubSubEnabled = true;
+        }
+    }
+
+    // Returns a private copy of the user, loading it from the database on a miss in both tiers
+    public Optional<ApplicationUser> getByUsername(String username, Supplier<Optional<ApplicationUser>> loader) {
+        CachedUser cached = localCache.getIfPresent(username);
+        if (cached == null) {
+            RedisRead read = readRedis(username);
+            cached = read.user();
+            if (cached == null) {
+                Optional<ApplicationUser> loaded = loader.get();
+                if (loaded.isEmpty()) {
+                    return Optional.empty();
+                }
+                cached = CachedUser.of(loaded.get());
+                if (!writeRedis(cached, read.version())) {
+                    // Loaded before an update committed, may be the old row: serve it, cache nothing
+                    staleFills.increment();
+                    return Optional.of(cached.toUser(roleCacheService::findRoleById));
+                }
+            }
+            localCache.put(username, cached);
+        }
+        return Optional.of(cached.toUser(roleCacheService::findRoleById));
+    }
+
+    // Runs once the surrounding transaction commits (right away without one); until then the database still
+    // returns the old row, so evicting earlier would only let it be cached again
+    public void invalidate(String username) {
+        AfterCommit.run(() -> evict(username));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evict(String username) {
+        invalidations.increment();
+        localCache.invalidate(username);
+        try {
+            if (redisTierEnabled) {
+                redisTemplate.execute(INVALIDATE_SCRIPT, List.of(KEY_PREFIX + username, VERSION_PREFIX + username),
+                        String.valueOf(redisTtl.toMillis()));
+            }
+            if (pubSubEnabled) {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, username);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to invalidate cached user {} in Redis: {}", username, e.getMessage());
+        }
+    }
+
+    private RedisRead readRedis(String username) {
+        if (!redisTierEnabled) {
+            return new RedisRead(null, null);
+        }
+        try {
+            // Entry and version in one round trip, the version only matters on a miss
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(KEY_PREFIX + username, VERSION_PREFIX + username));
+            if (values == null) {
+                return new RedisRead(null, null);
+            }
+            String json = values.get(0);
+            if (json == null) {
+                redisMisses.increment();
+                return new RedisRead(null, values.get(1) != null ? values.get(1) : "");
+            }
+            redisHits.increment();
+            return new RedisRead(objectMapper.readValue(json, CachedUser.class), null);
+        } catch (Exception e) {
+            logger.debug("Redis user cache read failed for {}: {}", username, e.getMessage());
+            return new RedisRead(null, null);
+        }
+    }
+
+    // Returns false when the user was invalidated since version was read, the load must not be cached then
+    private boolean writeRedis(CachedUser user, String version) {
+        if (version == null) {
+            return true;
+        }
+        try {
+            Long written = redisTemplate.execute(FILL_SCRIPT,
+                    List.of(KEY_PREFIX + user.username(), VERSION_PREFIX + user.username()),
+                    version, objectMapper.writeValueAsString(user), String.valueOf(redisTtl.toMillis()));
+            return written == null || written == 1L;
+        } catch (Exception e) {
+            logger.debug("Redis user cache write failed for {}: {}", user.username(), e.getMessage());
+            return true;
+        }
+    }
+}
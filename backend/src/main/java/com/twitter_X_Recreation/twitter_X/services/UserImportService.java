@@ -0,0 +1,257 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.UserImportSummary;
+import com.twitter_X_Recreation.twitter_X.repositories.UserBulkInsertRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserBulkInsertRepository.NewUser;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import com.twitter_X_Recreation.twitter_X.utils.UserImportReader;
+import com.twitter_X_Recreation.twitter_X.utils.UsernameGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Imports users from a legacy export in chunks. Per chunk: validate, drop emails already present (one IN
+// query), pick usernames for the whole chunk (one IN query per round), then insert users and their USER
+// role as two JDBC batches in one transaction. Imported users start disabled without a password, the
+// same state /auth/register leaves them in, and finish signup through the normal email and password flow.
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final int MAX_EMAIL_LENGTH = 255;
+    private static final int MAX_USERNAME_ROUNDS = 5;
+
+    public interface Listener {
+        void onRowError(long lineNumber, String email, String error);
+
+        void onProgress(UserImportSummary progress);
+    }
+
+    private static final class PendingUser {
+        private final long lineNumber;
+        private final String name;
+        private final String email;
+        private final Date birthDate;
+        private final String cleanBase;
+        private String username;
+        private long userId;
+
+        private PendingUser(long lineNumber, String name, String email, Date birthDate) {
+            this.lineNumber = lineNumber;
+            this.name = name;
+            this.email = email;
+            this.birthDate = birthDate;
+            this.cleanBase = UsernameGenerator.cleanBase(name.toLowerCase());
+        }
+    }
+
+    private final UserBulkInsertRepository bulkInsertRepository;
+    private final AvailabilityIndexService availabilityIndex;
+    private final RoleCacheService roleCacheService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final SearchService searchService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final Counter importedCounter;
+    private final Counter failedCounter;
+
+    public UserImportService(UserBulkInsertRepository bulkInsertRepository,
+                             AvailabilityIndexService availabilityIndex,
+                             RoleCacheService roleCacheService,
+                             SnowflakeIdGenerator idGenerator,
+                             SearchService searchService,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.import.chunk-size:500}") int chunkSize) {
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.roleCacheService = roleCacheService;
+        this.idGenerator = idGenerator;
+        this.searchService = searchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.importedCounter = Counter.builder("users.import.rows").tag("result", "imported").register(meterRegistry);
+        this.failedCounter = Counter.builder("users.import.rows").tag("result", "failed").register(meterRegistry);
+    }
+
+    public UserImportSummary importUsers(UserImportReader reader, Listener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        int roleId = roleCacheService.findRoleByAuthority("USER")
+                .orElseThrow(() -> new IllegalStateException("USER role is missing"))
+                .getRoleId();
+
+        long processed = 0;
+        long imported = 0;
+        List<UserImportReader.Row> chunk = new ArrayList<>(chunkSize);
+        UserImportReader.Row row;
+        do {
+            row = reader.next();
+            if (row != null) {
+                chunk.add(row);
+            }
+            if (chunk.size() == chunkSize || (row == null && !chunk.isEmpty())) {
+                int chunkImported = importChunk(chunk, roleId, listener);
+                processed += chunk.size();
+                imported += chunkImported;
+                importedCounter.increment(chunkImported);
+                failedCounter.increment(chunk.size() - chunkImported);
+                chunk.clear();
+                listener.onProgress(new UserImportSummary(processed, imported, processed - imported,
+                        System.currentTimeMillis() - start));
+            }
+        } while (row != null);
+
+        UserImportSummary summary = new UserImportSummary(processed, imported, processed - imported,
+                System.currentTimeMillis() - start);
+        logger.info("User import finished: {}", summary);
+        return summary;
+    }
+
+    // Returns how many rows of the chunk were inserted, every other row is reported to the listener
+    private int importChunk(List<UserImportReader.Row> rows, int roleId, Listener listener) {
+        List<PendingUser> pending = validate(rows, listener);
+
+        Set<String> existingEmails = bulkInsertRepository.findExistingEmails(pending.stream().map(user -> user.email).toList());
+        if (!existingEmails.isEmpty()) {
+            List<PendingUser> fresh = new ArrayList<>(pending.size());
+            for (PendingUser user : pending) {
+                if (existingEmails.contains(user.email)) {
+                    listener.onRowError(user.lineNumber, user.email, "Email already in use");
+                } else {
+                    fresh.add(user);
+                }
+            }
+            pending = fresh;
+        }
+
+        for (PendingUser user : assignUsernames(pending)) {
+            listener.onRowError(user.lineNumber, user.email, "Could not generate a unique username");
+        }
+        pending = pending.stream().filter(user -> user.username != null).toList();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<PendingUser> inserted;
+        try {
+            List<PendingUser> batch = pending;
+            transactionTemplate.executeWithoutResult(status -> insert(batch, roleId));
+            inserted = pending;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent signup took one of the emails or usernames, redo this chunk row by row
+            inserted = insertOneByOne(pending, roleId, listener);
+        }
+
+        List<NewUser> searchable = new ArrayList<>(inserted.size());
+        for (PendingUser user : inserted) {
+            availabilityIndex.claim(user.username, user.email);
+            searchable.add(new NewUser(user.userId, user.username, user.name, user.email, user.birthDate));
+        }
+        searchService.onUsersImported(searchable);
+        return inserted.size();
+    }
+
+    private List<PendingUser> validate(List<UserImportReader.Row> rows, Listener listener) {
+        List<PendingUser> pending = new ArrayList<>(rows.size());
+        Set<String> emailsInChunk = new HashSet<>();
+        for (UserImportReader.Row row : rows) {
+            if (row.error() != null) {
+                listener.onRowError(row.lineNumber(), null, row.error());
+                continue;
+            }
+            String name = row.name() == null ? "" : row.name().trim();
+            String email = row.email() == null ? "" : row.email().trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+                listener.onRowError(row.lineNumber(), email, "Name must be 1 to " + MAX_NAME_LENGTH + " characters");
+                continue;
+            }
+            if (email.length() > MAX_EMAIL_LENGTH || email.indexOf('@') < 1 || email.endsWith("@")) {
+                listener.onRowError(row.lineNumber(), email, "Invalid email");
+                continue;
+            }
+            Date birthDate;
+            try {
+                birthDate = Date.valueOf(row.birthDate() == null ? "" : row.birthDate().trim());
+            } catch (IllegalArgumentException e) {
+                listener.onRowError(row.lineNumber(), email, "birthDate must be yyyy-mm-dd");
+                continue;
+            }
+            if (!emailsInChunk.add(email) || !availabilityIndex.isEmailAvailable(email)) {
+                listener.onRowError(row.lineNumber(), email, "Email already in use");
+                continue;
+            }
+            pending.add(new PendingUser(row.lineNumber(), name, email, birthDate));
+        }
+        return pending;
+    }
+
+    // Generates a candidate for every user, keeps the ones free in the availability index, in this chunk
+    // and in the database, and retries the rest. Returns the users left without a username.
+    private List<PendingUser> assignUsernames(List<PendingUser> users) {
+        Set<String> assigned = new HashSet<>();
+        List<PendingUser> unassigned = users;
+        for (int round = 0; round < MAX_USERNAME_ROUNDS && !unassigned.isEmpty(); round++) {
+            Map<String, PendingUser> candidates = new HashMap<>();
+            for (PendingUser user : unassigned) {
+                String candidate = round == 0
+                        ? UsernameGenerator.candidate(user.cleanBase, idGenerator.nextId())
+                        : UsernameGenerator.randomCandidate(user.cleanBase);
+                if (!assigned.contains(candidate) && !candidates.containsKey(candidate)
+                        && availabilityIndex.isUsernameAvailable(candidate)) {
+                    candidates.put(candidate, user);
+                }
+            }
+
+            Set<String> existing = bulkInsertRepository.findExistingUsernames(candidates.keySet());
+            for (Map.Entry<String, PendingUser> candidate : candidates.entrySet()) {
+                if (!existing.contains(candidate.getKey())) {
+                    candidate.getValue().username = candidate.getKey();
+                    assigned.add(candidate.getKey());
+                }
+            }
+            unassigned = unassigned.stream().filter(user -> user.username == null).toList();
+        }
+        return unassigned;
+    }
+
+    private void insert(List<PendingUser> users, int roleId) {
+        List<NewUser> rows = new ArrayList<>(users.size());
+        for (PendingUser user : users) {
+            user.userId = idGenerator.nextId();
+            rows.add(new NewUser(user.userId, user.username, user.name, user.email, user.birthDate));
+        }
+        bulkInsertRepository.insertUsers(rows, roleId);
+    }
+
+    private List<PendingUser> insertOneByOne(List<PendingUser> users, int roleId, Listener listener) {
+        List<PendingUser> inserted = new ArrayList<>(users.size());
+        for (PendingUser user : users) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(user), roleId));
+                inserted.add(user);
+            } catch (DataIntegrityViolationException e) {
+                listener.onRowError(user.lineNumber, user.email, "Email or username already in use");
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,104 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.dto.UserSummaryProjection;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.BatchLoader;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Batched user hydration for anything that renders rows with users in them. Services queue the ids or
+// usernames they need with byId().load(...) / byUsername().load(...) and read the handles afterwards: all
+// keys queued before the first read go out as one IN query, and everything loaded stays in the request's
+// attributes, so a user asked for again later in the same request costs nothing. A user found through one
+// loader is primed into the other. Outside a request (listeners, background threads) each call gets fresh
+// loaders that batch within that call only.
+@Service
+public class UserLoaderService {
+
+    private static final String ATTRIBUTE = UserLoaderService.class.getName() + ".loaders";
+
+    private final UserRepository userRepository;
+    private final int maxBatchSize;
+
+    private final OutcomeTimer byIdTimer;
+    private final OutcomeTimer byUsernameTimer;
+
+    private record Loaders(BatchLoader<Long, UserSummaryProjection> byId,
+                           BatchLoader<String, UserSummaryProjection> byUsername) {
+    }
+
+    public UserLoaderService(UserRepository userRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.users.loader.max-batch-size:500}") int maxBatchSize) {
+        this.userRepository = userRepository;
+        this.maxBatchSize = maxBatchSize;
+
+        this.byIdTimer = OutcomeTimer.register(meterRegistry, "users.read", "User reads", "query", "batch_by_id");
+        this.byUsernameTimer = OutcomeTimer.register(meterRegistry, "users.read", "User reads", "query", "batch_by_username");
+    }
+
+    public BatchLoader<Long, UserSummaryProjection> byId() {
+        return loaders().byId();
+    }
+
+    public BatchLoader<String, UserSummaryProjection> byUsername() {
+        return loaders().byUsername();
+    }
+
+    private Loaders loaders() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return newLoaders();
+        }
+        Loaders loaders = (Loaders) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (loaders == null) {
+            loaders = newLoaders();
+            attributes.setAttribute(ATTRIBUTE, loaders, RequestAttributes.SCOPE_REQUEST);
+        }
+        return loaders;
+    }
+
+    private Loaders newLoaders() {
+        // Each batch function primes the other loader, hence the holder
+        Loaders[] holder = new Loaders[1];
+        BatchLoader<Long, UserSummaryProjection> byId = new BatchLoader<>(userIds -> {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Map<Long, UserSummaryProjection> found = new HashMap<>(userIds.size() * 2);
+                for (UserSummaryProjection user : userRepository.findSummariesByIds(userIds)) {
+                    found.put(user.getUserId(), user);
+                    holder[0].byUsername().prime(user.getUsername(), user);
+                }
+                success = true;
+                return found;
+            } finally {
+                byIdTimer.record(start, success);
+            }
+        }, maxBatchSize);
+        BatchLoader<String, UserSummaryProjection> byUsername = new BatchLoader<>(usernames -> {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Map<String, UserSummaryProjection> found = new HashMap<>(usernames.size() * 2);
+                for (UserSummaryProjection user : userRepository.findSummariesByUsernames(usernames)) {
+                    found.put(user.getUsername(), user);
+                    holder[0].byId().prime(user.getUserId(), user);
+                }
+                success = true;
+                return found;
+            } finally {
+                byUsernameTimer.record(start, success);
+            }
+        }, maxBatchSize);
+        holder[0] = new Loaders(byId, byUsername);
+        return holder[0];
+    }
+}
@@ -1,293 +1,343 @@
 package com.twitter_X_Recreation.twitter_X.services;
 
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.MACSigner;
+import com.twitter_X_Recreation.twitter_X.dto.LoginCredentialsProjection;
 import com.twitter_X_Recreation.twitter_X.exceptions.*;
 import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
 import com.twitter_X_Recreation.twitter_X.models.RegistrationObject;
 import com.twitter_X_Recreation.twitter_X.models.Role;
-import com.twitter_X_Recreation.twitter_X.repositories.RoleRepository;
 import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
-import com.twitter_X_Recreation.twitter_X.utils.EmailTemplateUtil;
+import com.twitter_X_Recreation.twitter_X.utils.AfterCommit;
+import com.twitter_X_Recreation.twitter_X.utils.OutcomeTimer;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import com.twitter_X_Recreation.twitter_X.utils.UsernameGenerator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleCacheService roleCacheService;
 
-    private final EmailSenderService emailSenderService;
+    private final UserCacheService userCacheService;
 
-    private final PasswordEncoder passwordEncoder;
+    private final EmailOutboxService emailOutboxService;
 
-    private final String jwtSecret;
+    private final EmailTemplateService emailTemplateService;
+
+    private final AvailabilityIndexService availabilityIndex;
+
+    private final VerificationCodeStore verificationCodeStore;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final SessionService sessionService;
+
+    private final SnowflakeIdGenerator idGenerator;
+
+    private final SearchService searchService;
 
     private final boolean cookieSecure;
 
-    private static final Random RANDOM = new Random();
-    private static final AtomicLong COUNTER = new AtomicLong(0);
+    // Signup funnel, one timer pair per step (signup.stage{stage, outcome})
+    private final OutcomeTimer registerTimer;
+    private final OutcomeTimer emailCodeTimer;
+    private final OutcomeTimer verifyEmailTimer;
+    private final OutcomeTimer setPasswordTimer;
+    private final DistributionSummary usernameAttemptsSummary;
+    private final OutcomeTimer loginTimer;
+
+    // Unknown accounts are checked against this hash so they take as long as a wrong password
+    private volatile String unknownUserHash;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, EmailSenderService emailSenderService, PasswordEncoder passwordEncoder, @Value("${jwt.secret}") String jwtSecret, @Value("${app.cookie.secure}") boolean cookieSecure) {
+    public UserService(UserRepository userRepository, RoleCacheService roleCacheService, UserCacheService userCacheService, EmailOutboxService emailOutboxService, EmailTemplateService emailTemplateService, AvailabilityIndexService availabilityIndex, VerificationCodeStore verificationCodeStore, PasswordHashingService passwordHashingService, SessionService sessionService, SnowflakeIdGenerator idGenerator, SearchService searchService, MeterRegistry meterRegistry, @Value("${app.cookie.secure}") boolean cookieSecure) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
-        this.emailSenderService = emailSenderService;
-        this.passwordEncoder = passwordEncoder;
-        this.jwtSecret = jwtSecret;
+        this.roleCacheService = roleCacheService;
+        this.userCacheService = userCacheService;
+        this.emailOutboxService = emailOutboxService;
+        this.emailTemplateService = emailTemplateService;
+        this.availabilityIndex = availabilityIndex;
+        this.verificationCodeStore = verificationCodeStore;
+        this.passwordHashingService = passwordHashingService;
+        this.sessionService = sessionService;
+        this.idGenerator = idGenerator;
+        this.searchService = searchService;
         this.cookieSecure = cookieSecure;
+
+        String stageDescription = "Duration of one signup funnel step";
+        this.registerTimer = OutcomeTimer.register(meterRegistry, "signup.stage", stageDescription, "stage", "register");
+        this.emailCodeTimer = OutcomeTimer.register(meterRegistry, "signup.stage", stageDescription, "stage", "email_code");
+        this.verifyEmailTimer = OutcomeTimer.register(meterRegistry, "signup.stage", stageDescription, "stage", "verify_email");
+        this.setPasswordTimer = OutcomeTimer.register(meterRegistry, "signup.stage", stageDescription, "stage", "set_password");
+        this.usernameAttemptsSummary = DistributionSummary.builder("signup.username.attempts")
+                .description("Usernames generated before finding a free one")
+                .register(meterRegistry);
+        this.loginTimer = OutcomeTimer.register(meterRegistry, "auth.login", "Credential check and session creation");
     }
 
+    // Served from the near cache, the returned user is a private copy and safe to modify
     public ApplicationUser getUserByUsername(String username){
-        return  userRepository.findByUsername(username).orElseThrow(UserDoesNotExistException::new);
+        return userCacheService.getByUsername(username, () -> userRepository.findWithAuthoritiesByUsername(username))
+                .orElseThrow(UserDoesNotExistException::new);
     }
 
-
-    public void updateUser(ApplicationUser applicationUser){
-        try{
-            userRepository.save(applicationUser);
-        } catch (Exception e) {
-            throw new EmailAlreadyTakenException();
+    @Transactional
+    public void updatePhoneNumber(String username, String phoneNumber) {
+        if (userRepository.updatePhoneNumber(username, phoneNumber) == 0) {
+            throw new UserDoesNotExistException();
         }
+        userCacheService.invalidate(username);
     }
 
     @Transactional
     public ApplicationUser registerUser(RegistrationObject registrationObject, HttpServletResponse response) {
-        Optional<ApplicationUser> existingUser = userRepository.findByEmail(registrationObject.getEmail().toLowerCase());
-        if (existingUser.isPresent()) {
-            throw new EmailAlreadyTakenException();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            if (!availabilityIndex.isEmailAvailable(registrationObject.getEmail().toLowerCase())) {
+                throw new EmailAlreadyTakenException();
+            }
+
+            ApplicationUser applicationUser = new ApplicationUser();
+            applicationUser.setName(registrationObject.getName());
+            applicationUser.setEmail(registrationObject.getEmail().toLowerCase());
+            applicationUser.setBirthDate(registrationObject.getBirthDate());
+
+            String username;
+            int usernameAttempts = 0;
+            do {
+                username = generateUsername(applicationUser.getName().toLowerCase());
+                usernameAttempts++;
+            } while (!isUnique(username));
+            usernameAttemptsSummary.record(usernameAttempts);
+            applicationUser.setUsername(username);
+
+            Set<Role> roles = new HashSet<>();
+            roleCacheService.findRoleByAuthority("USER").ifPresent(roles::add);
+            applicationUser.setAuthorities(roles);
+
+            ApplicationUser savedUser = userRepository.save(applicationUser);
+            availabilityIndex.claim(savedUser);
+            searchService.onUserCreated(savedUser);
+
+            // Signup session: its access token validates the user for email confirmation and password. The
+            // refresh token is never handed out, setPassword swaps the session for a full login session.
+            String token = sessionService.create(savedUser.getUsername()).accessToken();
+            Cookie jwtCookie = new Cookie("register_token", token);
+            jwtCookie.setHttpOnly(true);
+            jwtCookie.setSecure(cookieSecure);
+            jwtCookie.setPath("/");
+            jwtCookie.setMaxAge(9000); // 2 hours 30 minutes
+
+            String cookieHeader = String.format("%s=%s; %s=%s; %s=%s; %s; %s; %s=%s",
+                    jwtCookie.getName(),
+                    jwtCookie.getValue(),
+                    "Path",
+                    jwtCookie.getPath(),
+                    "Max-Age",
+                    jwtCookie.getMaxAge(),
+                    "HttpOnly",
+                    "Secure",
+                    "SameSite",
+                    "None");
+
+            response.addHeader("Set-Cookie", cookieHeader);
+
+            success = true;
+            return savedUser;
+        } finally {
+            registerTimer.record(start, success);
         }
-
-        ApplicationUser applicationUser = new ApplicationUser();
-        applicationUser.setName(registrationObject.getName());
-        applicationUser.setEmail(registrationObject.getEmail().toLowerCase());
-        applicationUser.setBirthDate(registrationObject.getBirthDate());
-
-        String username;
-        do {
-            username = generateUsername(applicationUser.getName().toLowerCase());
-        } while (userRepository.findByUsername(username).isPresent());
-        applicationUser.setUsername(username);
-
-        Set<Role> roles = new HashSet<>();
-        roleRepository.findRoleByAuthority("USER").ifPresent(roles::add);
-        applicationUser.setAuthorities(roles);
-
-        ApplicationUser savedUser = userRepository.save(applicationUser);
-        String token = generateJwtToken(savedUser, 900000);
-
-        System.out.println(jwtSecret);
-
-        // This token will validate the user for email confirmation and password
-        Cookie jwtCookie = new Cookie("register_token", token);
-        jwtCookie.setHttpOnly(true);
-        jwtCookie.setSecure(cookieSecure);
-        jwtCookie.setPath("/");
-        jwtCookie.setMaxAge(9000); // 2 hours 30 minutes
-
-        String cookieHeader = String.format("%s=%s; %s=%s; %s=%s; %s; %s; %s=%s",
-                jwtCookie.getName(),
-                jwtCookie.getValue(),
-                "Path",
-                jwtCookie.getPath(),
-                "Max-Age",
-                jwtCookie.getMaxAge(),
-                "HttpOnly",
-                "Secure",
-                "SameSite",
-                "None");
-
-        response.addHeader("Set-Cookie", cookieHeader);
-
-        return savedUser;
     }
 
+    @Transactional
     public void verifyEmail(String username, Long code) {
-        ApplicationUser applicationUser = getUserByUsername(username);
-
-        if (applicationUser.getEnabled()){
-            throw new UserAlreadyVerifiedException();
-        }
-        System.out.println(code);
-        //  Universal override  if code is 123456, verify either way
-        if (code.equals(123456L)) {
-            applicationUser.setEnabled(true);
-            applicationUser.setVerification(null);
-            applicationUser.setVerificationExpiryTime(null);
-            userRepository.save(applicationUser);
-            return; // skip all other checks
-        }
-
-        if (applicationUser.getVerificationExpiryTime() == null || System.currentTimeMillis() > applicationUser.getVerificationExpiryTime()) {
-            throw new VerificationCodeExpiredException();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Boolean enabled = userRepository.findEnabledByUsername(username).orElseThrow(UserDoesNotExistException::new);
+
+            if (Boolean.TRUE.equals(enabled)){
+                throw new UserAlreadyVerifiedException();
+            }
+            //  Universal override  if code is 123456, verify either way
+            if (code.equals(123456L)) {
+                verificationCodeStore.clear(username);
+            } else {
+                // Throws on a missing, expired, wrong or exhausted code
+                verificationCodeStore.verify(username, code);
+            }
+
+            // The only users row write of the verification flow
+            if (userRepository.enableUser(username) == 0) {
+                throw new UserAlreadyVerifiedException();
+            }
+            userCacheService.invalidate(username);
+            success = true;
+        } finally {
+            verifyEmailTimer.record(start, success);
         }
+    }
 
-        if (code.equals(applicationUser.getVerification())) {
-            applicationUser.setEnabled(true);
-            applicationUser.setVerification(null);
-            applicationUser.setVerificationExpiryTime(null);
-            userRepository.save(applicationUser);
-        } else {
-            throw new IncorrectVerificationCodeException();
+    // Not transactional: the hash is computed before any connection is taken from the pool.
+    // signupSessionId is the session of the register_token, revoked once the login session exists
+    public void setPassword(String username, String password, Long signupSessionId, HttpServletResponse response) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            // Runs on the bounded hashing pool, throws PasswordHashingUnavailableException (503) when saturated
+            String encodedPassword = passwordHashingService.hash(password);
+
+            // Single column update in its own transaction instead of loading and merging the whole row
+            if (userRepository.updatePassword(username, encodedPassword) == 0) {
+                throw new UserDoesNotExistException();
+            }
+
+            // Same session and cookies as a login, so the token can be refreshed and revoked
+            SessionService.SessionTokens tokens = sessionService.create(username);
+            sessionService.writeCookies(response, tokens);
+            if (signupSessionId != null) {
+                sessionService.revoke(signupSessionId);
+            }
+
+            // Clean register_token cookie by setting max age to 0
+            Cookie registerCookie = new Cookie("register_token", "");
+            registerCookie.setHttpOnly(true);
+            registerCookie.setSecure(cookieSecure);
+            registerCookie.setPath("/");
+            registerCookie.setMaxAge(0);
+
+            String registerCookieHeader = String.format("%s=%s; %s=%s; %s=%s; %s; %s; %s=%s",
+                    registerCookie.getName(),
+                    registerCookie.getValue(),
+                    "Path",
+                    registerCookie.getPath(),
+                    "Max-Age",
+                    registerCookie.getMaxAge(),
+                    "HttpOnly",
+                    "Secure",
+                    "SameSite",
+                    "None");
+
+            response.addHeader("Set-Cookie", registerCookieHeader);
+
+            userCacheService.invalidate(username);
+            success = true;
+        } finally {
+            setPasswordTimer.record(start, success);
         }
     }
 
-    public void setPassword(String username, String password, HttpServletResponse response) {
-        ApplicationUser applicationUser = getUserByUsername(username);
-
-
-        String encodedPassword = passwordEncoder.encode(password);
-        applicationUser.setPassword(encodedPassword);
-
-        String token = generateJwtToken(applicationUser, 900000);
-
-        Cookie jwtCookie = new Cookie("authenticated_token", token);
-        jwtCookie.setHttpOnly(true);
-        jwtCookie.setSecure(cookieSecure);
-        jwtCookie.setPath("/");
-        jwtCookie.setMaxAge(7 * 24 * 60 * 60); // 7 days
-
-        String cookieHeader = String.format("%s=%s; %s=%s; %s=%s; %s; %s; %s=%s",
-                jwtCookie.getName(),
-                jwtCookie.getValue(),
-                "Path",
-                jwtCookie.getPath(),
-                "Max-Age",
-                jwtCookie.getMaxAge(),
-                "HttpOnly",
-                "Secure",
-                "SameSite",
-                "None");
-
-        response.addHeader("Set-Cookie", cookieHeader);
-
-        // Clean register_token cookie by setting max age to 0
-        Cookie registerCookie = new Cookie("register_token", "");
-        registerCookie.setHttpOnly(true);
-        registerCookie.setSecure(cookieSecure);
-        registerCookie.setPath("/");
-        registerCookie.setMaxAge(0);
-
-        String registerCookieHeader = String.format("%s=%s; %s=%s; %s=%s; %s; %s; %s=%s",
-                registerCookie.getName(),
-                registerCookie.getValue(),
-                "Path",
-                registerCookie.getPath(),
-                "Max-Age",
-                registerCookie.getMaxAge(),
-                "HttpOnly",
-                "Secure",
-                "SameSite",
-                "None");
-
-        response.addHeader("Set-Cookie", registerCookieHeader);
-
-        userRepository.save(applicationUser);
+    // identifier is an email or a username, each resolved through its own unique index in one query.
+    // Not transactional: the lookup and the optional rehash each hold a connection only for their own
+    // statement, never while the password is being verified
+    public SessionService.SessionTokens login(String identifier, String password, HttpServletResponse response) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            if (identifier == null || identifier.isBlank() || password == null || password.isEmpty()) {
+                throw new InvalidCredentialsException();
+            }
+            String normalized = identifier.trim().toLowerCase();
+            Optional<LoginCredentialsProjection> credentials = normalized.contains("@")
+                    ? userRepository.findCredentialsByEmail(normalized)
+                    : userRepository.findCredentialsByUsername(normalized);
+
+            // Accounts that never finished signup have no password yet and cannot log in
+            if (credentials.isEmpty() || credentials.get().getPassword() == null
+                    || !Boolean.TRUE.equals(credentials.get().getEnabled())) {
+                passwordHashingService.verify(password, unknownUserHash());
+                throw new InvalidCredentialsException();
+            }
+
+            String username = credentials.get().getUsername();
+            PasswordHashingService.VerificationResult result =
+                    passwordHashingService.verify(password, credentials.get().getPassword());
+            if (!result.matches()) {
+                throw new InvalidCredentialsException();
+            }
+            if (result.upgradedHash() != null) {
+                userRepository.updatePassword(username, result.upgradedHash());
+                userCacheService.invalidate(username);
+            }
+
+            SessionService.SessionTokens tokens = sessionService.create(username);
+            sessionService.writeCookies(response, tokens);
+            success = true;
+            return tokens;
+        } finally {
+            loginTimer.record(start, success);
+        }
     }
 
+    @Transactional
     public void generateEmailVerificationCode(String username) {
-        ApplicationUser applicationUser = getUserByUsername(username);
-
-        long cooldownTime = 60 * 1000; //  cooldown 1 m
-        long currentTime = System.currentTimeMillis();
-        if (applicationUser.getLastVerificationSentTime() != null &&
-                (currentTime - applicationUser.getLastVerificationSentTime()) < cooldownTime) {
-            throw new IllegalStateException("Email verification on cooldown");
-        }
-
-        applicationUser.setVerification(generateVerificationNumber());
-        applicationUser.setVerificationExpiryTime(currentTime + (2 * 60 * 60 * 1000)); // 2 hours expiration
-        applicationUser.setLastVerificationSentTime(currentTime);
-
-        // Send email
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            String htmlBody = EmailTemplateUtil.getVerificationEmail(String.valueOf(applicationUser.getVerification()));
-            emailSenderService.sendEmail(applicationUser.getEmail(),
-                    applicationUser.getVerification() + " is your X verification code", htmlBody);
-            userRepository.save(applicationUser);
-        } catch (Exception e) {
-            throw new EmailFailedToSendException(e);
+            String email = userRepository.findEmailByUsername(username).orElseThrow(UserDoesNotExistException::new);
+
+            // Queue the email, the outbox dispatcher delivers it once this transaction commits
+            Long verificationCode = generateVerificationNumber();
+            String htmlBody = emailTemplateService.getVerificationEmail(String.valueOf(verificationCode));
+            emailOutboxService.enqueue(email,
+                    verificationCode + " is your X verification code", htmlBody);
+
+            // Atomic cooldown check and code write in Redis (1 m cooldown, 2 hours expiration), last so a
+            // cooldown rolls the outbox row back; if the transaction fails after it, the code and cooldown go too
+            verificationCodeStore.issue(username, verificationCode);
+            AfterCommit.onRollback(() -> verificationCodeStore.clear(username));
+            success = true;
+        } finally {
+            emailCodeTimer.record(start, success);
         }
     }
-    public String getJwtSecret() {
-        return jwtSecret;
+
+    public boolean isUsernameAvailable(String username) {
+        return availabilityIndex.isUsernameAvailable(username);
     }
 
     public String generateUsername(String baseName) {
         // ---- Step 1: Clean the base name ---------------------------------
-        String cleanBase = baseName.replaceAll("\\d{5}$", "");   // drop old 5-digit suffix
-        final int MAX_BASE_LEN = 9;                              // 15 - 6 = 9
-        if (cleanBase.length() > MAX_BASE_LEN) {
-            cleanBase = cleanBase.substring(0, MAX_BASE_LEN);
-        }
+        String cleanBase = UsernameGenerator.cleanBase(baseName);
 
         // ---- Step 2: Build the username in ONE shot ----------------------
-        long uniquePart = generateUniqueSixDigits();             // <-- UNIQUE ON FIRST CALL
-        String suffix = String.format("%06d", uniquePart);
-        String username = cleanBase + suffix;
+        String username = UsernameGenerator.candidate(cleanBase, idGenerator.nextId());
 
-        // ---- Step 3: Verify (will always pass with the nano+jitter) -----
+        // ---- Step 3: Verify against the in-memory availability index ----
         if (!isUnique(username)) {
             // This branch is *theoretically* unreachable in production.
             // Kept only for absolute safety.
-            long fallback = Math.abs(RANDOM.nextLong() % 1_000_000L);
-            username = cleanBase + String.format("%06d", fallback);
+            username = UsernameGenerator.randomCandidate(cleanBase);
             System.out.println("Fallback username (extreme collision): " + username);
         }
 
         System.out.println("Final username: " + username + " (generated in 1 attempt)");
         return username;
     }
-    private long generateUniqueSixDigits() {
-        // Combine: currentTimeMillis (mod 1e6) + counter + random
-        long timePart = System.currentTimeMillis() % 1_000_000;
-        long counterPart = COUNTER.getAndIncrement() % 1_000;
-        long randomPart = RANDOM.nextInt(1_000);
-
-        // Mix them to reduce collision probability
-        return ((timePart + counterPart + randomPart) * 31 + RANDOM.nextInt(97)) % 1_000_000;
-    }
 
     private boolean isUnique(String username) {
-        System.out.println("Checking database for username uniqueness: " + username);
+        return availabilityIndex.isUsernameAvailable(username);
+    }
 
-        boolean isUnique = !userRepository.findByUsername(username).isPresent();
-        System.out.println("Username '" + username + "' is EEE" + (isUnique ? "UNIQUE" : "ALREADY EXISTS"));
-        return !isUnique;
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordHashingService.hash(UUID.randomUUID().toString());
+            unknownUserHash = hash;
+        }
+        return hash;
     }
 
-    
     private Long generateVerificationNumber(){
         return (long) Math.floor(Math.random() * 1_000_000);
     }
-
-    private String generateJwtToken(ApplicationUser savedUser, int jwtExpiration) {
-        try {
-            JWTClaimsSet claims = new JWTClaimsSet.Builder()
-                    .subject(savedUser.getUsername())
-                    .issueTime(new Date())
-                    .expirationTime(new Date(System.currentTimeMillis() + jwtExpiration))
-                    .build();
-
-            SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
-            JWSSigner signer = new MACSigner(jwtSecret.getBytes());
-            signedJWT.sign(signer);
-
-            return signedJWT.serialize();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate JWT", e);
-        }
-    }
 }
\ No newline at end of file
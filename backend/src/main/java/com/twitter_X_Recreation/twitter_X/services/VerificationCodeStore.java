@@ -0,0 +1,97 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.IncorrectVerificationCodeException;
+import com.twitter_X_Recreation.twitter_X.exceptions.TooManyVerificationAttemptsException;
+import com.twitter_X_Recreation.twitter_X.exceptions.VerificationCodeCooldownException;
+import com.twitter_X_Recreation.twitter_X.exceptions.VerificationCodeExpiredException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Short lived verification state lives in Redis with native TTLs instead of columns on the users row.
+// Both operations are single Lua scripts, so the cooldown check and the attempt counter cannot race.
+@Service
+public class VerificationCodeStore {
+
+    private static final String CODE_KEY_PREFIX = "verification:code:";
+    private static final String COOLDOWN_KEY_PREFIX = "verification:cooldown:";
+
+    // KEYS[1] = code hash, KEYS[2] = cooldown flag; ARGV = code, code ttl ms, cooldown ttl ms
+    private static final RedisScript<Long> ISSUE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SET', KEYS[2], '1', 'PX', ARGV[3], 'NX') == false then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = code hash; ARGV = submitted code, max attempts
+    // Returns 1 match, 0 mismatch, -1 no live code, -2 attempts exhausted
+    private static final RedisScript<Long> VERIFY_SCRIPT = new DefaultRedisScript<>("""
+            local stored = redis.call('HGET', KEYS[1], 'code')
+            if stored == false then
+                return -1
+            end
+            local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+            if attempts > tonumber(ARGV[2]) then
+                redis.call('DEL', KEYS[1])
+                return -2
+            end
+            if stored == ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long codeTtlMs;
+    private final long cooldownMs;
+    private final int maxAttempts;
+
+    public VerificationCodeStore(StringRedisTemplate redisTemplate,
+                                 @Value("${app.verification.code-ttl-ms:7200000}") long codeTtlMs,
+                                 @Value("${app.verification.cooldown-ms:60000}") long cooldownMs,
+                                 @Value("${app.verification.max-attempts:5}") int maxAttempts) {
+        this.redisTemplate = redisTemplate;
+        this.codeTtlMs = codeTtlMs;
+        this.cooldownMs = cooldownMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Stores a fresh code, replacing any previous one, unless a code was issued within the cooldown
+    public void issue(String username, Long code) {
+        Long issued = redisTemplate.execute(ISSUE_SCRIPT,
+                List.of(CODE_KEY_PREFIX + username, COOLDOWN_KEY_PREFIX + username),
+                String.valueOf(code), String.valueOf(codeTtlMs), String.valueOf(cooldownMs));
+        if (issued == null || issued == 0L) {
+            throw new VerificationCodeCooldownException();
+        }
+    }
+
+    // Consumes the code on success, every call counts as an attempt
+    public void verify(String username, Long code) {
+        Long result = redisTemplate.execute(VERIFY_SCRIPT,
+                List.of(CODE_KEY_PREFIX + username),
+                String.valueOf(code), String.valueOf(maxAttempts));
+        if (result == null || result == -1L) {
+            throw new VerificationCodeExpiredException();
+        }
+        if (result == -2L) {
+            throw new TooManyVerificationAttemptsException();
+        }
+        if (result == 0L) {
+            throw new IncorrectVerificationCodeException();
+        }
+    }
+
+    public void clear(String username) {
+        redisTemplate.delete(List.of(CODE_KEY_PREFIX + username, COOLDOWN_KEY_PREFIX + username));
+    }
+}
@@ -0,0 +1,162 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Gives every node its own Snowflake worker id. Ids are leased as Redis keys (SET NX PX) holding a
+// per-process token and renewed well before they expire; a node that finds its lease gone takes a new id.
+// The generator is told how long each lease is good for, measured from before the Redis call and less a
+// safety margin, and refuses to generate ids past that: while Redis is unreachable the lease can expire
+// and be taken by another node. The margin has to cover both the generator's drift (ids stamped up to
+// max-clock-drift-ms ahead of this node's clock) and the skew between this node's clock and the next
+// holder's, otherwise the last ids here and the first ids there can share a millisecond; it must be
+// larger than the two together. app.ids.worker-id pins a fixed id instead (single node setups, tests).
+@Service
+public class WorkerIdLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerIdLeaseService.class);
+
+    private static final String KEY_PREFIX = "ids:worker:";
+
+    // KEYS[1] = lease key; ARGV = token, ttl ms. Extends the lease only while this process still owns it.
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS[1] = lease key; ARGV = token
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SnowflakeIdGenerator idGenerator;
+    private final int fixedWorkerId;
+    private final long leaseMs;
+    private final long safetyMarginMs;
+    private final String token = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("worker-id-lease").factory());
+
+    private volatile boolean leased = false;
+
+    public WorkerIdLeaseService(StringRedisTemplate redisTemplate,
+                                SnowflakeIdGenerator idGenerator,
+                                @Value("${app.ids.worker-id:-1}") int fixedWorkerId,
+                                @Value("${app.ids.worker-lease-ms:30000}") long leaseMs,
+                                @Value("${app.ids.lease-safety-margin-ms:10000}") long safetyMarginMs,
+                                @Value("${app.ids.max-clock-skew-ms:2000}") long maxSkewMs) {
+        if (safetyMarginMs <= idGenerator.getMaxDriftMs() + maxSkewMs || safetyMarginMs >= leaseMs) {
+            throw new IllegalStateException("app.ids.lease-safety-margin-ms (" + safetyMarginMs
+                    + ") must be larger than max-clock-drift-ms + max-clock-skew-ms ("
+                    + (idGenerator.getMaxDriftMs() + maxSkewMs) + ") and smaller than worker-lease-ms (" + leaseMs + ")");
+        }
+        this.redisTemplate = redisTemplate;
+        this.idGenerator = idGenerator;
+        this.fixedWorkerId = fixedWorkerId;
+        this.leaseMs = leaseMs;
+        this.safetyMarginMs = safetyMarginMs;
+    }
+
+    @PostConstruct
+    void start() {
+        if (fixedWorkerId >= 0) {
+            idGenerator.setWorkerId(fixedWorkerId);
+            logger.info("Using fixed Snowflake worker id {}", fixedWorkerId);
+            return;
+        }
+        if (!acquire()) {
+            // Without Redis nothing can be coordinated, an unleased id could collide with another node's
+            idGenerator.expireLease();
+            logger.error("Could not lease a Snowflake worker id, no ids are generated until Redis is reachable");
+        }
+        renewer.scheduleWithFixedDelay(this::renew, leaseMs / 3, leaseMs / 3, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        renewer.shutdownNow();
+        if (leased) {
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key(idGenerator.getWorkerId())), token);
+            } catch (Exception e) {
+                logger.debug("Could not release worker id lease: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void renew() {
+        try {
+            if (!leased) {
+                acquire();
+                return;
+            }
+            long requestedAt = System.currentTimeMillis();
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key(idGenerator.getWorkerId())),
+                    token, String.valueOf(leaseMs));
+            if (renewed == null || renewed == 0L) {
+                logger.warn("Lost the lease on Snowflake worker id {}, taking a new one", idGenerator.getWorkerId());
+                idGenerator.expireLease();
+                leased = false;
+                acquire();
+            } else {
+                idGenerator.extendLease(validUntil(requestedAt));
+            }
+        } catch (Exception e) {
+            // The generator stops on its own once the last renewal is too old
+            logger.warn("Worker id lease renewal failed: {}", e.getMessage());
+        }
+    }
+
+    // Probes ids from a random start so nodes booting together rarely contend for the same key
+    private boolean acquire() {
+        try {
+            int start = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+            for (int i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+                int workerId = (start + i) % (SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+                long requestedAt = System.currentTimeMillis();
+                Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key(workerId), token, Duration.ofMillis(leaseMs));
+                if (Boolean.TRUE.equals(acquired)) {
+                    idGenerator.setLease(workerId, validUntil(requestedAt));
+                    leased = true;
+                    logger.info("Leased Snowflake worker id {}", workerId);
+                    return true;
+                }
+            }
+            logger.error("All {} Snowflake worker ids are leased", SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+        } catch (Exception e) {
+            logger.warn("Worker id lease failed: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private long validUntil(long requestedAt) {
+        return requestedAt + leaseMs - safetyMarginMs;
+    }
+
+    private static String key(int workerId) {
+        return KEY_PREFIX + workerId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidJWTException;
+import com.twitter_X_Recreation.twitter_X.exceptions.MissingAuthenticationTokenException;
+import com.twitter_X_Recreation.twitter_X.filters.JwtAuthenticationFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class AuthenticationUtil {
+
+    // Username the JwtAuthenticationFilter put in the security context for this request
+    public static String getAuthenticatedUsername(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof UsernamePasswordAuthenticationToken && authentication.isAuthenticated()) {
+            return authentication.getName();
+        }
+        if (request.getAttribute(JwtAuthenticationFilter.INVALID_TOKEN_ATTRIBUTE) != null) {
+            throw new InvalidJWTException();
+        }
+        throw new MissingAuthenticationTokenException();
+    }
+}
@@ -0,0 +1,102 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// DataLoader style batching. load() only queues the key and returns a handle; the first handle that is read
+// loads every queued key with one call of the batch function (split into chunks of maxBatchSize), so code
+// that walks a page of rows and asks for each row's user costs one query instead of one per row. Results,
+// including keys that were not found, are kept for the life of the loader. Not thread safe: one loader
+// belongs to one request.
+public final class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final int maxBatchSize;
+
+    // A null value means the key was looked up and does not exist
+    private final Map<K, V> loaded = new HashMap<>();
+    private final Set<K> pending = new LinkedHashSet<>();
+    private int batches;
+
+    // batchFunction gets distinct keys that are not loaded yet and leaves missing keys out of its result
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction, int maxBatchSize) {
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public Supplier<V> load(K key) {
+        if (!loaded.containsKey(key)) {
+            pending.add(key);
+        }
+        return () -> {
+            if (!loaded.containsKey(key)) {
+                dispatch();
+            }
+            return loaded.get(key);
+        };
+    }
+
+    // Null when the key does not exist
+    public V get(K key) {
+        return load(key).get();
+    }
+
+    // Found values in the order of keys, duplicates and missing keys left out
+    public Map<K, V> loadAll(Collection<K> keys) {
+        for (K key : keys) {
+            if (!loaded.containsKey(key)) {
+                pending.add(key);
+            }
+        }
+        dispatch();
+        Map<K, V> found = new LinkedHashMap<>(keys.size() * 2);
+        for (K key : keys) {
+            V value = loaded.get(key);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    // Adds a value loaded some other way, e.g. a user found by username to the loader by id
+    public void prime(K key, V value) {
+        if (value != null && loaded.get(key) == null) {
+            loaded.put(key, value);
+            pending.remove(key);
+        }
+    }
+
+    public void dispatch() {
+        while (!pending.isEmpty()) {
+            List<K> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            for (K key : pending) {
+                batch.add(key);
+                if (batch.size() == maxBatchSize) {
+                    break;
+                }
+            }
+            batches++;
+
+            // Keys stay pending when the batch function throws, the next read retries them
+            Map<K, V> result = batchFunction.apply(batch);
+            for (K key : batch) {
+                loaded.put(key, result.get(key));
+                pending.remove(key);
+            }
+        }
+    }
+
+    // Calls of the batch function so far
+    public int batches() {
+        return batches;
+    }
+}
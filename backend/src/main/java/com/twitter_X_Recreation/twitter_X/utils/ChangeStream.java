@@ -0,0 +1,148 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// A capped Redis stream that keeps an in-memory copy current on every node (the follow graph, the search
+// index). The node that committed a change appends it; every node, itself included, applies entries in
+// order from one consumer thread. Unlike pub/sub the stream survives a dropped connection: the consumer
+// resumes from the last entry it applied, and only when the entries it missed were trimmed does it ask the
+// owner to resync from Postgres.
+public class ChangeStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStream.class);
+
+    public static final String START_ID = "0-0";
+    private static final long RETRY_DELAY_MS = 1_000;
+
+    private final String key;
+    private final StringRedisTemplate redisTemplate;
+    private final long maxLength;
+    private final int readBatchSize;
+    private final long readBlockMs;
+
+    private volatile boolean running = false;
+    // Only touched by the consumer thread once it runs
+    private String lastChangeId = START_ID;
+    private Thread consumerThread;
+
+    public ChangeStream(String key, StringRedisTemplate redisTemplate, long maxLength, int readBatchSize, long readBlockMs) {
+        this.key = key;
+        this.redisTemplate = redisTemplate;
+        this.maxLength = maxLength;
+        this.readBatchSize = readBatchSize;
+        this.readBlockMs = readBlockMs;
+    }
+
+    // One pipeline for the whole batch and the trim. Throws when Redis refused it, callers decide what that means.
+    public void publish(List<Map<String, String>> changes) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Map<String, String> change : changes) {
+                redis.xAdd(StreamRecords.newRecord().in(key).ofStrings(change));
+            }
+            redis.xTrim(key, maxLength, true);
+            return null;
+        });
+    }
+
+    // Taken before reading Postgres, so changes committed during a load are replayed on top of it
+    public String latestId() {
+        try {
+            List<MapRecord<String, Object, Object>> latest = redisTemplate.opsForStream()
+                    .reverseRange(key, Range.unbounded(), Limit.limit().count(1));
+            return latest == null || latest.isEmpty() ? START_ID : latest.get(0).getId().getValue();
+        } catch (Exception e) {
+            // Replaying the whole retained stream over the loaded state ends the same way, only slower
+            logger.warn("Could not read the position of {}: {}", key, e.getMessage());
+            return START_ID;
+        }
+    }
+
+    // Applies every entry after fromId. resync gets the last applied id once entries after it were trimmed
+    // unread, brings the state back in line from Postgres and returns the id to resume from (its latestId()).
+    public void consume(String threadName, String fromId,
+                        Consumer<Map<Object, Object>> apply, UnaryOperator<String> resync) {
+        lastChangeId = fromId;
+        running = true;
+        consumerThread = Thread.ofVirtual().name(threadName).start(() -> run(apply, resync));
+    }
+
+    public void stop() {
+        running = false;
+        if (consumerThread != null) {
+            consumerThread.interrupt();
+        }
+    }
+
+    private void run(Consumer<Map<Object, Object>> apply, UnaryOperator<String> resync) {
+        boolean checkForGap = false;
+        while (running) {
+            try {
+                if (checkForGap && missedChanges()) {
+                    logger.warn("{} was trimmed past {}, resyncing", key, lastChangeId);
+                    lastChangeId = resync.apply(lastChangeId);
+                }
+                checkForGap = false;
+
+                List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                        StreamReadOptions.empty().count(readBatchSize).block(Duration.ofMillis(readBlockMs)),
+                        StreamOffset.create(key, ReadOffset.from(lastChangeId)));
+                if (records == null) {
+                    continue;
+                }
+                for (MapRecord<String, Object, Object> record : records) {
+                    apply.accept(record.getValue());
+                    lastChangeId = record.getId().getValue();
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                checkForGap = true;
+                logger.warn("Reading {} failed: {}", key, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // The oldest entry still in the stream is newer than the last one applied, so some were trimmed unread
+    private boolean missedChanges() {
+        if (START_ID.equals(lastChangeId)) {
+            return false;
+        }
+        List<MapRecord<String, Object, Object>> oldest = redisTemplate.opsForStream()
+                .range(key, Range.unbounded(), Limit.limit().count(1));
+        if (oldest == null || oldest.isEmpty()) {
+            return false;
+        }
+        return isAfter(oldest.get(0).getId(), RecordId.of(lastChangeId));
+    }
+
+    private static boolean isAfter(RecordId id, RecordId other) {
+        return id.getTimestamp() > other.getTimestamp()
+                || (id.getTimestamp().equals(other.getTimestamp()) && id.getSequence() > other.getSequence());
+    }
+}
@@ -0,0 +1,117 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// A template parsed once into literal and placeholder segments. Placeholders are {UPPER_SNAKE_CASE}
+// so CSS blocks such as "body { margin: 0 }" are left alone. Rendering is a single pass over the
+// segments with no regex and no intermediate copies of the template.
+public class CompiledTemplate {
+
+    private final String name;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private CompiledTemplate(String name, String[] literals, String[] placeholders, int literalLength) {
+        this.name = name;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.literalLength = literalLength;
+    }
+
+    // literals[i] is always followed by placeholders[i], the last literal has no placeholder after it
+    public static CompiledTemplate compile(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int literalLength = 0;
+        int literalStart = 0;
+        int index = 0;
+        while (index < source.length()) {
+            int open = source.indexOf('{', index);
+            if (open < 0) {
+                break;
+            }
+            int close = placeholderEnd(source, open);
+            if (close < 0) {
+                index = open + 1;
+                continue;
+            }
+            String literal = source.substring(literalStart, open);
+            literals.add(literal);
+            literalLength += literal.length();
+            placeholders.add(source.substring(open + 1, close));
+            literalStart = close + 1;
+            index = literalStart;
+        }
+        String tail = source.substring(literalStart);
+        literals.add(tail);
+        literalLength += tail.length();
+
+        return new CompiledTemplate(name, literals.toArray(new String[0]), placeholders.toArray(new String[0]), literalLength);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getPlaceholders() {
+        return List.of(placeholders);
+    }
+
+    public String render(Map<String, String> values) {
+        int capacity = literalLength;
+        for (String placeholder : placeholders) {
+            String value = values.get(placeholder);
+            capacity += value != null ? value.length() + 16 : placeholder.length() + 2;
+        }
+        StringBuilder buffer = new StringBuilder(capacity);
+        renderTo(buffer, values);
+        return buffer.toString();
+    }
+
+    // Appends into a caller owned buffer so hot callers can reuse it between renders
+    public void renderTo(StringBuilder buffer, Map<String, String> values) {
+        for (int i = 0; i < placeholders.length; i++) {
+            buffer.append(literals[i]);
+            String value = values.get(placeholders[i]);
+            if (value == null) {
+                // Unknown placeholders are kept verbatim, like String.replace used to do
+                buffer.append('{').append(placeholders[i]).append('}');
+            } else {
+                appendEscaped(buffer, value);
+            }
+        }
+        buffer.append(literals[literals.length - 1]);
+    }
+
+    private static int placeholderEnd(String source, int open) {
+        int i = open + 1;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '}') {
+                return i > open + 1 ? i : -1;
+            }
+            if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')) {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                case '&' -> buffer.append("&amp;");
+                case '"' -> buffer.append("&quot;");
+                case '\'' -> buffer.append("&#39;");
+                default -> buffer.append(c);
+            }
+        }
+    }
+}
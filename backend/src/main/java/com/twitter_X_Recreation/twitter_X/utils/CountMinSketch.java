@@ -0,0 +1,79 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.Arrays;
+
+// Approximate counts in fixed memory: depth rows of width counters, a key adds to one counter per row and
+// its estimate is the smallest of them. Estimates never undercount; with conservative update (only the
+// counters at the current minimum are raised) they overcount by at most about e / width of the total with
+// high probability, whatever the number of distinct keys. Not thread safe.
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final int[] counts;
+
+    // width is rounded up to a power of two
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("depth and width must be positive");
+        }
+        int rowWidth = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.counts = new int[depth * rowWidth];
+    }
+
+    public void add(long hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[index(hash, row)]);
+        }
+        if (estimate == Integer.MAX_VALUE) {
+            return;
+        }
+        for (int row = 0; row < depth; row++) {
+            int index = index(hash, row);
+            if (counts[index] == estimate) {
+                counts[index] = estimate + 1;
+            }
+        }
+    }
+
+    public int estimate(long hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    public long sizeInBytes() {
+        return 16L + (long) counts.length * Integer.BYTES;
+    }
+
+    // 64 bit FNV-1a over the chars, finished with the murmur3 mixer so both halves are well spread
+    public static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // Row i probes h1 + i * h2 (Kirsch-Mitzenmacher), h2 odd so rows never collapse onto each other
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+}
@@ -0,0 +1,231 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory follow graph keyed by user id. Every user keeps two compressed bitmaps of dense int positions,
+// its followers and its followees, so counts are O(1), "follows you" is one lookup and "followed by
+// people you follow" is a bitmap intersection.
+// Positions: Snowflake ids grow with time, so ids registered in ascending order (the warm-up walks users
+// by id, new users register later) go into an append-only array that stays sorted and is binary searched.
+// An id that arrives out of order takes a position from the upper half of the int range and lives in a
+// side map. Positions never move once assigned.
+// Edge writes are serialized, reads lock only the bitmap they look at.
+public class FollowGraph {
+
+    private static final int NOT_FOUND = -1;
+    private static final int OUT_OF_ORDER_BASE = Integer.MIN_VALUE;
+
+    private final Object writeLock = new Object();
+    private volatile long[] ids = new long[1024];
+    private volatile int size;
+    private final Map<Long, Integer> outOfOrderPositions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> outOfOrderIds = new ConcurrentHashMap<>();
+    private final Map<Long, Adjacency> adjacency = new ConcurrentHashMap<>();
+    private final AtomicLong edges = new AtomicLong();
+
+    private static final class Adjacency {
+        private final CompressedBitmap followers = new CompressedBitmap();
+        private final CompressedBitmap following = new CompressedBitmap();
+    }
+
+    public void register(long userId) {
+        synchronized (writeLock) {
+            positionFor(userId);
+        }
+    }
+
+    // Returns false when the edge was already there
+    public boolean addEdge(long followerId, long followeeId) {
+        synchronized (writeLock) {
+            int followerPosition = positionFor(followerId);
+            int followeePosition = positionFor(followeeId);
+            Adjacency follower = adjacency.computeIfAbsent(followerId, id -> new Adjacency());
+            Adjacency followee = adjacency.computeIfAbsent(followeeId, id -> new Adjacency());
+            boolean added;
+            synchronized (follower) {
+                added = follower.following.add(followeePosition);
+            }
+            synchronized (followee) {
+                followee.followers.add(followerPosition);
+            }
+            if (added) {
+                edges.incrementAndGet();
+            }
+            return added;
+        }
+    }
+
+    // Returns false when there was no such edge
+    public boolean removeEdge(long followerId, long followeeId) {
+        synchronized (writeLock) {
+            int followerPosition = positionOf(followerId);
+            int followeePosition = positionOf(followeeId);
+            Adjacency follower = adjacency.get(followerId);
+            Adjacency followee = adjacency.get(followeeId);
+            if (followerPosition == NOT_FOUND || followeePosition == NOT_FOUND || follower == null || followee == null) {
+                return false;
+            }
+            boolean removed;
+            synchronized (follower) {
+                removed = follower.following.remove(followeePosition);
+            }
+            synchronized (followee) {
+                followee.followers.remove(followerPosition);
+            }
+            if (removed) {
+                edges.decrementAndGet();
+            }
+            return removed;
+        }
+    }
+
+    public long followerCount(long userId) {
+        Adjacency node = adjacency.get(userId);
+        if (node == null) {
+            return 0;
+        }
+        synchronized (node) {
+            return node.followers.cardinality();
+        }
+    }
+
+    public long followingCount(long userId) {
+        Adjacency node = adjacency.get(userId);
+        if (node == null) {
+            return 0;
+        }
+        synchronized (node) {
+            return node.following.cardinality();
+        }
+    }
+
+    public boolean follows(long followerId, long followeeId) {
+        Adjacency node = adjacency.get(followerId);
+        int position = positionOf(followeeId);
+        if (node == null || position == NOT_FOUND) {
+            return false;
+        }
+        synchronized (node) {
+            return node.following.contains(position);
+        }
+    }
+
+    // How many of the accounts viewerId follows also follow targetId
+    public long followedByCount(long viewerId, long targetId) {
+        CompressedBitmap following = followingSnapshot(viewerId);
+        Adjacency target = adjacency.get(targetId);
+        if (following == null || target == null) {
+            return 0;
+        }
+        synchronized (target) {
+            return following.andCardinality(target.followers);
+        }
+    }
+
+    // Up to limit of those accounts, in position order (roughly oldest account first)
+    public List<Long> followedBy(long viewerId, long targetId, int limit) {
+        CompressedBitmap following = followingSnapshot(viewerId);
+        Adjacency target = adjacency.get(targetId);
+        if (following == null || target == null || limit <= 0) {
+            return List.of();
+        }
+        CompressedBitmap common;
+        synchronized (target) {
+            common = following.and(target.followers);
+        }
+        List<Long> userIds = new ArrayList<>(Math.min(limit, (int) common.cardinality()));
+        common.forEach(position -> {
+            userIds.add(idAt(position));
+            return userIds.size() < limit;
+        });
+        return userIds;
+    }
+
+    public long[] followerIds(long userId) {
+        Adjacency node = adjacency.get(userId);
+        if (node == null) {
+            return new long[0];
+        }
+        int[] positions;
+        synchronized (node) {
+            positions = node.followers.toArray();
+        }
+        long[] userIds = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            userIds[i] = idAt(positions[i]);
+        }
+        return userIds;
+    }
+
+    public long edgeCount() {
+        return edges.get();
+    }
+
+    public int userCount() {
+        return size + outOfOrderIds.size();
+    }
+
+    // Walks every bitmap, meant for logs and occasional gauges rather than hot paths
+    public long sizeInBytes() {
+        long bytes = 8L * ids.length + 64L * outOfOrderIds.size();
+        for (Adjacency node : adjacency.values()) {
+            synchronized (node) {
+                bytes += 64 + node.followers.sizeInBytes() + node.following.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private CompressedBitmap followingSnapshot(long userId) {
+        Adjacency node = adjacency.get(userId);
+        if (node == null) {
+            return null;
+        }
+        synchronized (node) {
+            return node.following.copy();
+        }
+    }
+
+    // Caller holds writeLock. The slot is written before size is published, so readers never see a
+    // position whose id is not there yet.
+    private int positionFor(long userId) {
+        int position = positionOf(userId);
+        if (position != NOT_FOUND) {
+            return position;
+        }
+        int n = size;
+        long[] current = ids;
+        if (n == 0 || userId > current[n - 1]) {
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n * 2);
+            }
+            current[n] = userId;
+            ids = current;
+            size = n + 1;
+            return n;
+        }
+        position = OUT_OF_ORDER_BASE + outOfOrderIds.size();
+        outOfOrderIds.put(position, userId);
+        outOfOrderPositions.put(userId, position);
+        return position;
+    }
+
+    private int positionOf(long userId) {
+        int n = size;
+        int i = Arrays.binarySearch(ids, 0, n, userId);
+        if (i >= 0) {
+            return i;
+        }
+        Integer position = outOfOrderPositions.get(userId);
+        return position != null ? position : NOT_FOUND;
+    }
+
+    private long idAt(int position) {
+        return position >= 0 ? ids[position] : outOfOrderIds.get(position);
+    }
+}
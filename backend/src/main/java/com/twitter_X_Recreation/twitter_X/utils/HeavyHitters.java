@@ -0,0 +1,201 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The most frequent keys of a sliding time window in bounded memory. The window is a ring of buckets
+// (bucketMs each), one CountMinSketch per bucket; a bucket is cleared when the ring comes back around to
+// it, so old counts fall out one bucket at a time. A key's window count is the sum of its bucket estimates.
+// The candidates are an indexed min-heap of the capacity best keys: a key whose estimate beats the
+// smallest one in the heap takes its place, and every bucket rotation re-estimates the heap, so keys
+// whose counts aged out sink and get replaced. Not thread safe, TrendService owns it from one thread.
+public final class HeavyHitters {
+
+    public record Entry(String key, long count) {
+    }
+
+    private final int capacity;
+    private final long bucketMs;
+    private final CountMinSketch[] sketches;
+    private final long[] bucketEpochs;
+    private long currentEpoch = Long.MIN_VALUE;
+
+    // Min-heap on counts, positions lets a key already in the heap be found and moved
+    private final String[] keys;
+    private final long[] hashes;
+    private final long[] counts;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    public HeavyHitters(int capacity, int buckets, long bucketMs, int depth, int width) {
+        if (capacity < 1 || buckets < 1 || bucketMs < 1) {
+            throw new IllegalArgumentException("capacity, buckets and bucketMs must be positive");
+        }
+        this.capacity = capacity;
+        this.bucketMs = bucketMs;
+        this.sketches = new CountMinSketch[buckets];
+        this.bucketEpochs = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            sketches[i] = new CountMinSketch(depth, width);
+            bucketEpochs[i] = Long.MIN_VALUE;
+        }
+        this.keys = new String[capacity];
+        this.hashes = new long[capacity];
+        this.counts = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, long nowMs) {
+        advance(nowMs);
+        int slot = slot(currentEpoch);
+        if (bucketEpochs[slot] != currentEpoch) {
+            sketches[slot].clear();
+            bucketEpochs[slot] = currentEpoch;
+        }
+        long hash = CountMinSketch.hash(key);
+        sketches[slot].add(hash);
+        offer(key, hash, windowEstimate(hash));
+    }
+
+    public long estimate(String key, long nowMs) {
+        advance(nowMs);
+        return windowEstimate(CountMinSketch.hash(key));
+    }
+
+    // Highest window counts first
+    public List<Entry> top(int limit, long nowMs) {
+        advance(nowMs);
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::key));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    public long sizeInBytes() {
+        long bytes = (long) capacity * (Long.BYTES * 2 + 80);
+        for (CountMinSketch sketch : sketches) {
+            bytes += sketch.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // Moves the window to nowMs; the clock going backwards leaves it where it is
+    private void advance(long nowMs) {
+        long epoch = Math.floorDiv(nowMs, bucketMs);
+        if (epoch <= currentEpoch) {
+            return;
+        }
+        currentEpoch = epoch;
+        for (int i = 0; i < sketches.length; i++) {
+            if (bucketEpochs[i] != Long.MIN_VALUE && bucketEpochs[i] <= epoch - sketches.length) {
+                sketches[i].clear();
+                bucketEpochs[i] = Long.MIN_VALUE;
+            }
+        }
+        rescore();
+    }
+
+    private long windowEstimate(long hash) {
+        long estimate = 0;
+        for (int i = 0; i < sketches.length; i++) {
+            if (bucketEpochs[i] != Long.MIN_VALUE) {
+                estimate += sketches[i].estimate(hash);
+            }
+        }
+        return estimate;
+    }
+
+    private void offer(String key, long hash, long count) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            // Counts only grow between rotations
+            counts[position] = count;
+            siftDown(position);
+        } else if (size < capacity) {
+            set(size, key, hash, count);
+            siftUp(size++);
+        } else if (count > counts[0]) {
+            positions.remove(keys[0]);
+            set(0, key, hash, count);
+            siftDown(0);
+        }
+    }
+
+    private void rescore() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            long count = windowEstimate(hashes[i]);
+            if (count > 0) {
+                keys[kept] = keys[i];
+                hashes[kept] = hashes[i];
+                counts[kept] = count;
+                kept++;
+            } else {
+                positions.remove(keys[i]);
+            }
+        }
+        Arrays.fill(keys, kept, size, null);
+        size = kept;
+        for (int i = 0; i < size; i++) {
+            positions.put(keys[i], i);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (counts[parent] <= counts[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void set(int index, String key, long hash, long count) {
+        keys[index] = key;
+        hashes[index] = hash;
+        counts[index] = count;
+        positions.put(key, index);
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        long hash = hashes[a];
+        long count = counts[a];
+        set(a, keys[b], hashes[b], counts[b]);
+        set(b, key, hash, count);
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) sketches.length);
+    }
+}
@@ -0,0 +1,127 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidImageException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+// Crops and scales an uploaded image to a fixed size and encodes it as JPEG. The header is read first, so
+// an image over maxPixels is refused before any pixel is decoded, and only the crop region is decoded,
+// subsampled down to at most twice the target size: memory per image is bounded by the output size, not
+// the upload. The last halving steps are done one at a time for a sharper result than a single scale.
+public final class ImageProcessor {
+
+    public record Crop(int x, int y, int width, int height) {
+    }
+
+    static {
+        // Encode straight into the output stream instead of through a temporary cache file
+        ImageIO.setUseCache(false);
+    }
+
+    private ImageProcessor() {
+    }
+
+    // crop is in source pixels; null takes the largest centered region with the target's aspect ratio
+    public static void process(Path source, OutputStream out, int width, int height, Crop crop, long maxPixels,
+                               float quality) throws IOException {
+        BufferedImage decoded;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new InvalidImageException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > maxPixels) {
+                    throw new InvalidImageException("Image is too large");
+                }
+
+                Rectangle region = region(sourceWidth, sourceHeight, width, height, crop);
+                int subsampling = Math.max(1, Math.min(region.width / (2 * width), region.height / (2 * height)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                decoded = reader.read(0, param);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new InvalidImageException("Image could not be read");
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        write(scale(decoded, width, height), out, quality);
+    }
+
+    private static Rectangle region(int sourceWidth, int sourceHeight, int width, int height, Crop crop) {
+        if (crop == null) {
+            // Widest region of the target aspect ratio that fits, centered
+            int regionWidth = (int) Math.min(sourceWidth, (long) sourceHeight * width / height);
+            int regionHeight = (int) Math.min(sourceHeight, (long) sourceWidth * height / width);
+            return new Rectangle((sourceWidth - regionWidth) / 2, (sourceHeight - regionHeight) / 2,
+                    Math.max(1, regionWidth), Math.max(1, regionHeight));
+        }
+        // The part of the crop inside the image
+        Rectangle region = new Rectangle(crop.x(), crop.y(), crop.width(), crop.height())
+                .intersection(new Rectangle(0, 0, sourceWidth, sourceHeight));
+        if (region.isEmpty()) {
+            throw new InvalidImageException("Crop is outside the image");
+        }
+        return region;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        return draw(current, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    // Onto an opaque RGB canvas: JPEG has no alpha, transparent areas become white
+    private static BufferedImage draw(BufferedImage image, int width, int height, Object interpolation) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static void write(BufferedImage image, OutputStream out, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-user live connections fed from Redis pub/sub, shared by the SSE notification stream and the direct
+// message socket. A user's channel (prefix + user id) is subscribed on the node's one listener container
+// only while that user has a connection open on this node. Every connection has a bounded queue drained by
+// its own virtual thread, which sends a heartbeat whenever the queue stays empty for heartbeatMs; a client
+// that lets its queue fill up is disconnected instead of buffered without bound. The transport (SseEmitter,
+// WebSocketSession) is behind a Sink, all of whose methods run on the sender thread.
+// Subscribing talks to Redis, so it never runs inside the connection map's compute: the map only adds and
+// removes connections, and each user's subscribed flag is brought in line with them afterwards under that
+// user's own lock.
+public final class LiveChannels<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveChannels.class);
+
+    public enum CloseReason {
+        ENDED, SLOW_CLIENT, SHUTDOWN
+    }
+
+    public interface Sink<T> {
+        // Before anything queued is sent, e.g. a replay of what the client missed
+        default void open() throws Exception {
+        }
+
+        void send(T item) throws Exception;
+
+        void heartbeat() throws Exception;
+
+        // Once, after the sender loop has ended, with the reason the connection was closed for
+        void close(CloseReason reason);
+    }
+
+    public static final class Connection<T> {
+        private final long userId;
+        private final Sink<T> sink;
+        private final BlockingQueue<T> queue;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile CloseReason closeReason = CloseReason.ENDED;
+        private volatile Thread sender;
+
+        private Connection(long userId, Sink<T> sink, int queueCapacity) {
+            this.userId = userId;
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    // A user's connections on this node and whether their channel is subscribed. Stays in the map until its
+    // unsubscribe has finished, so a reconnect never subscribes before an older unsubscribe went through.
+    private static final class UserChannel<T> {
+        private final Set<Connection<T>> connections = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean subscribed; // guarded by lock
+    }
+
+    private final String name;
+    private final String channelPrefix;
+    private final MessageListener listener;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final long heartbeatMs;
+    private final int queueCapacity;
+
+    private final Map<Long, UserChannel<T>> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final Counter slowClients;
+
+    // name prefixes the sender threads and the metrics (<name>.open, <name>.slow.disconnects)
+    public LiveChannels(String name,
+                        String channelPrefix,
+                        MessageListener listener,
+                        ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                        MeterRegistry meterRegistry,
+                        long heartbeatMs,
+                        int queueCapacity) {
+        this.name = name;
+        this.channelPrefix = channelPrefix;
+        this.listener = listener;
+        this.listenerContainer = listenerContainer;
+        this.heartbeatMs = heartbeatMs;
+        this.queueCapacity = queueCapacity;
+
+        this.slowClients = Counter.builder(name + ".slow.disconnects")
+                .description("Connections closed because the client did not keep up")
+                .register(meterRegistry);
+        Gauge.builder(name + ".open", openConnections, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Subscribes the user's channel before the sender starts, so nothing published during Sink.open is missed
+    public Connection<T> open(long userId, Sink<T> sink) {
+        Connection<T> connection = new Connection<>(userId, sink, queueCapacity);
+        register(connection);
+        Thread sender = Thread.ofVirtual().name(name + "-" + userId).start(() -> run(connection));
+        connection.sender = sender;
+        if (connection.closed.get()) {
+            sender.interrupt();
+        }
+        return connection;
+    }
+
+    // The user id of one of our channels, null for anything else
+    public Long userId(String channel) {
+        if (!channel.startsWith(channelPrefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(channel.substring(channelPrefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean hasConnections(long userId) {
+        UserChannel<T> channel = channels.get(userId);
+        return channel != null && !channel.connections.isEmpty();
+    }
+
+    public void deliver(long userId, T item) {
+        UserChannel<T> channel = channels.get(userId);
+        if (channel == null) {
+            return;
+        }
+        for (Connection<T> connection : channel.connections) {
+            if (!connection.queue.offer(item)) {
+                slowClients.increment();
+                close(connection, CloseReason.SLOW_CLIENT);
+            }
+        }
+    }
+
+    // For the transport's own callbacks (client disconnect, timeout)
+    public void close(Connection<T> connection) {
+        close(connection, CloseReason.ENDED);
+    }
+
+    public void shutdown() {
+        for (UserChannel<T> channel : channels.values()) {
+            for (Connection<T> connection : channel.connections) {
+                close(connection, CloseReason.SHUTDOWN);
+            }
+        }
+    }
+
+    private void run(Connection<T> connection) {
+        try {
+            connection.sink.open();
+            while (!connection.closed.get()) {
+                T item = connection.queue.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    connection.sink.heartbeat();
+                } else {
+                    connection.sink.send(item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Client went away or the write failed
+            logger.debug("{} connection of {} ended: {}", name, connection.userId, e.getMessage());
+        } finally {
+            close(connection, CloseReason.ENDED);
+            try {
+                connection.sink.close(connection.closeReason);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void register(Connection<T> connection) {
+        UserChannel<T> channel = channels.compute(connection.userId, (userId, existing) -> {
+            UserChannel<T> userChannel = existing != null ? existing : new UserChannel<>();
+            userChannel.connections.add(connection);
+            return userChannel;
+        });
+        openConnections.incrementAndGet();
+        syncSubscription(connection.userId, channel);
+    }
+
+    // Idempotent, called from the transport callbacks, the sender thread and the pub/sub listener
+    private void close(Connection<T> connection, CloseReason reason) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connection.closeReason = reason;
+        Thread sender = connection.sender;
+        if (sender != null && sender != Thread.currentThread()) {
+            sender.interrupt();
+        }
+        UserChannel<T> channel = channels.get(connection.userId);
+        openConnections.decrementAndGet();
+        if (channel != null) {
+            channel.connections.remove(connection);
+            syncSubscription(connection.userId, channel);
+        }
+    }
+
+    // Subscribes a channel that has connections and is not subscribed yet, or unsubscribes one left without
+    // connections and drops it from the map. The per-user lock orders a user's subscribe and unsubscribe
+    // calls; connections added or removed meanwhile run their own sync right after.
+    private void syncSubscription(long userId, UserChannel<T> channel) {
+        channel.lock.lock();
+        try {
+            if (!channel.connections.isEmpty()) {
+                if (!channel.subscribed) {
+                    channel.subscribed = subscribe(userId);
+                }
+                return;
+            }
+            if (channel.subscribed) {
+                unsubscribe(userId);
+                channel.subscribed = false;
+            }
+            // Only if still empty, a connection that raced in keeps the channel (and subscribes it in its sync)
+            channels.computeIfPresent(userId, (id, current) ->
+                    current == channel && channel.connections.isEmpty() ? null : current);
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    // False when there is no container or Redis refused, the next connection of the user tries again
+    private boolean subscribe(long userId) {
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (container == null) {
+            return false;
+        }
+        try {
+            container.addMessageListener(listener, new ChannelTopic(channelPrefix + userId));
+            return true;
+        } catch (Exception e) {
+            // The connection stays open with heartbeats only
+            logger.warn("Could not subscribe {} of {}: {}", channelPrefix, userId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void unsubscribe(long userId) {
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (container == null) {
+            return;
+        }
+        try {
+            container.removeMessageListener(listener, new ChannelTopic(channelPrefix + userId));
+        } catch (Exception e) {
+            logger.warn("Could not unsubscribe {} of {}: {}", channelPrefix, userId, e.getMessage());
+        }
+    }
+}
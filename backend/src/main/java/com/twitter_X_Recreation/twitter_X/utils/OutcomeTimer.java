@@ -0,0 +1,42 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// A success and a failure timer for one operation, both registered up front. Callers take
+// System.nanoTime() before the work and call record() after it, so the hot path allocates nothing:
+// no Timer.Sample, no tags built per call. Both timers publish a histogram for Prometheus quantiles,
+// bounded to 1 ms..30 s to keep the bucket count small.
+public final class OutcomeTimer {
+
+    private final Timer success;
+    private final Timer failure;
+
+    private OutcomeTimer(Timer success, Timer failure) {
+        this.success = success;
+        this.failure = failure;
+    }
+
+    public static OutcomeTimer register(MeterRegistry meterRegistry, String name, String description, String... tags) {
+        return new OutcomeTimer(build(meterRegistry, name, description, "success", tags),
+                build(meterRegistry, name, description, "failure", tags));
+    }
+
+    public void record(long startNanos, boolean succeeded) {
+        (succeeded ? success : failure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer build(MeterRegistry meterRegistry, String name, String description, String outcome, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,260 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Sorted set of positive long ids (post ids) for one term of the search index. Ids are kept in blocks of
+// BLOCK_SIZE: full blocks are sealed as varint deltas from their first id, which for Snowflake ids close in
+// time takes 3-5 bytes instead of 8, and the newest ids sit in an uncompressed tail until it fills up.
+// Appending a newer id is O(1); an older one (a post from a node whose clock is behind, or one replayed
+// twice) is found or inserted by binary searching the block ranges and rewriting a single block, which
+// makes adding idempotent. Not thread safe, SearchIndex guards it.
+public final class PostingList {
+
+    public static final long END = -1;
+
+    static final int BLOCK_SIZE = 128;
+
+    private byte[][] blockData = new byte[0][];
+    private long[] blockFirst = new long[0];
+    private long[] blockLast = new long[0];
+    private int[] blockCount = new int[0];
+    private int blocks;
+
+    private long[] tail = new long[BLOCK_SIZE];
+    private int tailSize;
+    private int size;
+
+    // Returns false when the id was already in the list
+    public boolean add(long id) {
+        if (tailSize > 0 ? id > tail[tailSize - 1] : blocks == 0 || id > blockLast[blocks - 1]) {
+            tail[tailSize++] = id;
+        } else if (tailSize > 0 && (id >= tail[0] || blocks == 0 || id > blockLast[blocks - 1])) {
+            int index = Arrays.binarySearch(tail, 0, tailSize, id);
+            if (index >= 0) {
+                return false;
+            }
+            int insertAt = -index - 1;
+            System.arraycopy(tail, insertAt, tail, insertAt + 1, tailSize - insertAt);
+            tail[insertAt] = id;
+            tailSize++;
+        } else if (!addToBlock(id)) {
+            return false;
+        }
+        size++;
+        if (tailSize == BLOCK_SIZE) {
+            seal(tail, tailSize);
+            tail = new long[BLOCK_SIZE];
+            tailSize = 0;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long sizeInBytes() {
+        long bytes = 64L + (long) tail.length * Long.BYTES + (long) blockFirst.length * (2 * Long.BYTES + Integer.BYTES + 16);
+        for (int i = 0; i < blocks; i++) {
+            bytes += blockData[i].length;
+        }
+        return bytes;
+    }
+
+    // Newest (largest) id first
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // Walks the ids from largest to smallest. seek(target) moves to the largest id <= target and returns it
+    // without consuming it, END once nothing that small is left; the position only ever moves down, so
+    // intersecting lists is a leapfrog of seeks that skips whole blocks by their first id.
+    public final class Cursor {
+
+        private int block;
+        private long[] values;
+        private int pos;
+
+        private Cursor() {
+            if (tailSize > 0) {
+                load(blocks);
+            } else if (blocks > 0) {
+                load(blocks - 1);
+            }
+        }
+
+        public long seek(long target) {
+            while (values != null) {
+                if (values[0] <= target) {
+                    if (values[pos] > target) {
+                        int index = Arrays.binarySearch(values, 0, pos + 1, target);
+                        pos = index >= 0 ? index : -index - 2;
+                    }
+                    return values[pos];
+                }
+                // Everything left in this block is above target: jump to the last earlier block starting at or below it
+                int low = 0;
+                int high = block - 1;
+                int found = -1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    if (blockFirst[mid] <= target) {
+                        found = mid;
+                        low = mid + 1;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                if (found < 0) {
+                    values = null;
+                } else {
+                    load(found);
+                }
+            }
+            return END;
+        }
+
+        private void load(int index) {
+            block = index;
+            if (index == blocks) {
+                values = tail;
+                pos = tailSize - 1;
+            } else {
+                values = decode(index);
+                pos = values.length - 1;
+            }
+        }
+    }
+
+    private boolean addToBlock(long id) {
+        // First block whose last id is >= id; one exists, id is not above the newest sealed id here
+        int low = 0;
+        int high = blocks - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockLast[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long[] values = decode(low);
+        int index = Arrays.binarySearch(values, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        long[] grown = new long[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, insertAt);
+        grown[insertAt] = id;
+        System.arraycopy(values, insertAt, grown, insertAt + 1, values.length - insertAt);
+        encode(low, grown, grown.length);
+        return true;
+    }
+
+    private void seal(long[] values, int count) {
+        if (blocks == blockFirst.length) {
+            int capacity = Math.max(4, blocks * 2);
+            blockData = Arrays.copyOf(blockData, capacity);
+            blockFirst = Arrays.copyOf(blockFirst, capacity);
+            blockLast = Arrays.copyOf(blockLast, capacity);
+            blockCount = Arrays.copyOf(blockCount, capacity);
+        }
+        encode(blocks++, values, count);
+    }
+
+    private void encode(int index, long[] values, int count) {
+        byte[] buffer = new byte[count * 10];
+        int length = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = values[i] - values[i - 1];
+            while ((delta & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            buffer[length++] = (byte) delta;
+        }
+        blockData[index] = Arrays.copyOf(buffer, length);
+        blockFirst[index] = values[0];
+        blockLast[index] = values[count - 1];
+        blockCount[index] = count;
+    }
+
+    private long[] decode(int index) {
+        long[] values = new long[blockCount[index]];
+        byte[] data = blockData[index];
+        long value = blockFirst[index];
+        values[0] = value;
+        int offset = 0;
+        for (int i = 1; i < values.length; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            values[i] = value;
+        }
+        return values;
+    }
+
+    // A copy later adds do not reach. Sealed block bytes are only ever replaced, never written in place, so
+    // the copy shares them and costs O(blocks) rather than O(ids).
+    PostingList copy() {
+        PostingList copy = new PostingList();
+        copy.blockData = Arrays.copyOf(blockData, blocks);
+        copy.blockFirst = Arrays.copyOf(blockFirst, blocks);
+        copy.blockLast = Arrays.copyOf(blockLast, blocks);
+        copy.blockCount = Arrays.copyOf(blockCount, blocks);
+        copy.blocks = blocks;
+        copy.tail = Arrays.copyOf(tail, BLOCK_SIZE);
+        copy.tailSize = tailSize;
+        copy.size = size;
+        return copy;
+    }
+
+    // Sealed blocks are written as they are, so loading a snapshot does not re-encode anything
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(blocks);
+        for (int i = 0; i < blocks; i++) {
+            out.writeLong(blockFirst[i]);
+            out.writeLong(blockLast[i]);
+            out.writeInt(blockCount[i]);
+            out.writeInt(blockData[i].length);
+            out.write(blockData[i]);
+        }
+        out.writeInt(tailSize);
+        for (int i = 0; i < tailSize; i++) {
+            out.writeLong(tail[i]);
+        }
+    }
+
+    public static PostingList readFrom(DataInput in) throws IOException {
+        PostingList list = new PostingList();
+        list.size = in.readInt();
+        list.blocks = in.readInt();
+        list.blockData = new byte[list.blocks][];
+        list.blockFirst = new long[list.blocks];
+        list.blockLast = new long[list.blocks];
+        list.blockCount = new int[list.blocks];
+        for (int i = 0; i < list.blocks; i++) {
+            list.blockFirst[i] = in.readLong();
+            list.blockLast[i] = in.readLong();
+            list.blockCount[i] = in.readInt();
+            list.blockData[i] = new byte[in.readInt()];
+            in.readFully(list.blockData[i]);
+        }
+        list.tailSize = in.readInt();
+        for (int i = 0; i < list.tailSize; i++) {
+            list.tail[i] = in.readLong();
+        }
+        return list;
+    }
+}
@@ -0,0 +1,276 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+
+// Compressed (radix) trie from normalized keys to ids with a score, for typeahead: edges carry whole runs
+// of characters, so a million usernames take a few million nodes instead of one per character. Every node
+// keeps an upper bound of the scores below it, which lets top() walk the subtree under a prefix best first
+// and stop as soon as it has the k best ids, however many keys share the prefix. put() only ever raises
+// bounds; refreshScores() recomputes scores and exact bounds. Not thread safe, SearchIndex guards it.
+public final class PrefixTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_VALUES = new long[0];
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingLong(Candidate::priority).reversed()
+            // At equal scores an id beats a subtree that can at best tie it, and shorter keys come first
+            .thenComparing(candidate -> candidate.index() < 0)
+            .thenComparingInt(Candidate::depth);
+
+    private static final class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        // Ids whose key ends here, highest score first
+        private long[] ids = NO_VALUES;
+        private long[] scores = NO_VALUES;
+        private long bound = Long.MIN_VALUE;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+    }
+
+    // A node still to expand (index < 0) or the index-th id of a node
+    private record Candidate(Node node, int index, long priority, int depth) {
+    }
+
+    private final Node root = new Node(new char[0]);
+    private int nodes = 1;
+    private int entries;
+    private long labelChars;
+
+    // Returns false when the id was already stored under this key
+    public boolean put(String key, long id, long score) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        char[] chars = key.toCharArray();
+        Node node = root;
+        node.bound = Math.max(node.bound, score);
+        int i = 0;
+        while (i < chars.length) {
+            int childIndex = childIndex(node, chars[i]);
+            if (childIndex < 0) {
+                Node leaf = new Node(Arrays.copyOfRange(chars, i, chars.length));
+                leaf.bound = score;
+                insertChild(node, -childIndex - 1, leaf);
+                nodes++;
+                labelChars += leaf.label.length;
+                node = leaf;
+                break;
+            }
+            Node child = node.children[childIndex];
+            int common = 0;
+            while (common < child.label.length && i + common < chars.length && child.label[common] == chars[i + common]) {
+                common++;
+            }
+            if (common < child.label.length) {
+                // The key leaves or ends inside this edge: split it
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[]{child};
+                middle.bound = child.bound;
+                node.children[childIndex] = middle;
+                nodes++;
+                child = middle;
+            }
+            child.bound = Math.max(child.bound, score);
+            node = child;
+            i += common;
+        }
+        return addEntry(node, id, score);
+    }
+
+    // Distinct ids under keys starting with prefix, highest score first
+    public List<Long> top(String prefix, int limit) {
+        Node start = locate(prefix.toCharArray());
+        if (start == null || limit <= 0) {
+            return List.of();
+        }
+
+        Set<Long> results = new LinkedHashSet<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+        queue.add(new Candidate(start, -1, start.bound, 0));
+        while (!queue.isEmpty() && results.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node();
+            if (candidate.index() < 0) {
+                if (node.ids.length > 0) {
+                    queue.add(new Candidate(node, 0, node.scores[0], candidate.depth()));
+                }
+                for (Node child : node.children) {
+                    queue.add(new Candidate(child, -1, child.bound, candidate.depth() + child.label.length));
+                }
+            } else {
+                results.add(node.ids[candidate.index()]);
+                int next = candidate.index() + 1;
+                if (next < node.ids.length) {
+                    queue.add(new Candidate(node, next, node.scores[next], candidate.depth()));
+                }
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    // Re-scores every id and recomputes exact bounds, O(number of entries)
+    public void refreshScores(LongUnaryOperator scores) {
+        refresh(root, scores);
+    }
+
+    // First chars of the top level branches, each one a chunk for refreshBranch
+    public char[] branches() {
+        char[] firsts = new char[root.children.length];
+        for (int i = 0; i < firsts.length; i++) {
+            firsts[i] = root.children[i].label[0];
+        }
+        return firsts;
+    }
+
+    // Re-scores the keys starting with first. The root bound is only raised here, so it stays an upper
+    // bound while the other branches wait for their turn; tightenBound() makes it exact again.
+    public void refreshBranch(char first, LongUnaryOperator scores) {
+        int childIndex = childIndex(root, first);
+        if (childIndex >= 0) {
+            root.bound = Math.max(root.bound, refresh(root.children[childIndex], scores));
+        }
+    }
+
+    public void tightenBound() {
+        long bound = Long.MIN_VALUE;
+        for (Node child : root.children) {
+            bound = Math.max(bound, child.bound);
+        }
+        root.bound = bound;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    public long sizeInBytes() {
+        return nodes * 64L + labelChars * Character.BYTES + entries * 2L * Long.BYTES;
+    }
+
+    // The node whose subtree holds exactly the keys starting with prefix
+    private Node locate(char[] prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length) {
+            int childIndex = childIndex(node, prefix[i]);
+            if (childIndex < 0) {
+                return null;
+            }
+            Node child = node.children[childIndex];
+            int matched = 0;
+            while (matched < child.label.length && i < prefix.length) {
+                if (child.label[matched] != prefix[i]) {
+                    return null;
+                }
+                matched++;
+                i++;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private long refresh(Node node, LongUnaryOperator scores) {
+        long bound = Long.MIN_VALUE;
+        if (node.ids.length > 0) {
+            for (int i = 0; i < node.ids.length; i++) {
+                node.scores[i] = scores.applyAsLong(node.ids[i]);
+            }
+            sortEntries(node);
+            bound = node.scores[0];
+        }
+        for (Node child : node.children) {
+            bound = Math.max(bound, refresh(child, scores));
+        }
+        node.bound = bound;
+        return bound;
+    }
+
+    private boolean addEntry(Node node, long id, long score) {
+        int insertAt = node.ids.length;
+        for (int i = 0; i < node.ids.length; i++) {
+            if (node.ids[i] == id) {
+                return false;
+            }
+            if (insertAt == node.ids.length && (node.scores[i] < score || (node.scores[i] == score && node.ids[i] > id))) {
+                insertAt = i;
+            }
+        }
+        node.ids = insert(node.ids, insertAt, id);
+        node.scores = insert(node.scores, insertAt, score);
+        entries++;
+        return true;
+    }
+
+    private static void sortEntries(Node node) {
+        int count = node.ids.length;
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++) {
+            sorted = node.scores[i - 1] > node.scores[i]
+                    || (node.scores[i - 1] == node.scores[i] && node.ids[i - 1] < node.ids[i]);
+        }
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        long[] ids = node.ids;
+        long[] scores = node.scores;
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -scores[i]).thenComparingLong(i -> ids[i]));
+        long[] sortedIds = new long[count];
+        long[] sortedScores = new long[count];
+        for (int i = 0; i < count; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedScores[i] = scores[order[i]];
+        }
+        node.ids = sortedIds;
+        node.scores = sortedScores;
+    }
+
+    // Children are sorted by the first char of their label; returns -(insertion point) - 1 when absent
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midFirst = node.children[mid].label[0];
+            if (midFirst < first) {
+                low = mid + 1;
+            } else if (midFirst > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static void insertChild(Node node, int index, Node child) {
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        children[index] = child;
+        System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        node.children = children;
+    }
+
+    private static long[] insert(long[] values, int index, long value) {
+        long[] grown = new long[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(values, index, grown, index + 1, values.length - index);
+        return grown;
+    }
+}
@@ -0,0 +1,334 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongUnaryOperator;
+
+// In-memory search over users and posts. Users: a PrefixTrie keyed by the normalized username, the full
+// name and every word of the name, scored by follower count, plus the username and name of every user so
+// a typeahead answers without touching the database. Posts: an inverted index of term -> PostingList of
+// post ids. Adds are idempotent, so replaying a change or catching up over rows already indexed is
+// harmless. One read-write lock: queries share it, adds take it exclusively. The lock is not fair, so a
+// queued writer holds up every query behind it; the slow jobs (re-scoring, snapshots) therefore only ever
+// hold it for short chunks or a copy.
+public final class SearchIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x53524348; // "SRCH"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    public record UserHit(long userId, String username, String name) {
+    }
+
+    private record UserEntry(String username, String name, long score) {
+    }
+
+    // Users re-scored per write lock acquisition
+    private static final int REFRESH_CHUNK = 10_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PrefixTrie users = new PrefixTrie();
+    private final Map<Long, UserEntry> userEntries = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private long postCount;
+    private long maxUserId = Long.MIN_VALUE;
+    private long maxPostId = Long.MIN_VALUE;
+
+    // Returns false when the user was already indexed
+    public boolean addUser(long userId, String username, String name, long score) {
+        lock.writeLock().lock();
+        try {
+            if (userEntries.putIfAbsent(userId, new UserEntry(username, name, score)) != null) {
+                return false;
+            }
+            maxUserId = Math.max(maxUserId, userId);
+            for (String key : userKeys(username, name)) {
+                users.put(key, userId, score);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns false when the post was already indexed (or has no terms)
+    public boolean addPost(long postId, String text) {
+        List<String> terms = SearchTokenizer.tokenize(text);
+        lock.writeLock().lock();
+        try {
+            maxPostId = Math.max(maxPostId, postId);
+            boolean added = false;
+            for (String term : terms) {
+                added |= postings.computeIfAbsent(term, t -> new PostingList()).add(postId);
+            }
+            if (added) {
+                postCount++;
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Users whose username, name or a word of their name starts with the query, most followed first
+    public List<UserHit> searchUsers(String query, int limit) {
+        String prefix = SearchTokenizer.normalize(query);
+        if (prefix.startsWith("@")) {
+            prefix = prefix.substring(1);
+        }
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Long> ids = users.top(prefix, limit);
+            List<UserHit> hits = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                UserEntry entry = userEntries.get(id);
+                hits.add(new UserHit(id, entry.username(), entry.name()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of posts containing every term of the query, newest first, all below before
+    public List<Long> searchPosts(String query, long before, int limit) {
+        List<String> terms = SearchTokenizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            // The rarest term drives, the others are only probed with seeks
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            List<PostingList.Cursor> cursors = new ArrayList<>(lists.size());
+            for (PostingList list : lists) {
+                cursors.add(list.cursor());
+            }
+
+            List<Long> results = new ArrayList<>(limit);
+            long candidate = cursors.get(0).seek(before - 1);
+            while (candidate != PostingList.END && results.size() < limit) {
+                long agreed = candidate;
+                for (int i = 1; i < cursors.size() && agreed == candidate; i++) {
+                    agreed = cursors.get(i).seek(candidate);
+                }
+                if (agreed == PostingList.END) {
+                    break;
+                }
+                if (agreed == candidate) {
+                    results.add(candidate);
+                    candidate = cursors.get(0).seek(candidate - 1);
+                } else {
+                    candidate = cursors.get(0).seek(agreed);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Re-scores every user (scores come from the follow graph) and tightens the trie bounds. Runs one trie
+    // branch or REFRESH_CHUNK users per write lock, so queries get in between; a query meanwhile may rank
+    // with a mix of old and new scores, never with a bound below a score.
+    public void refreshScores(LongUnaryOperator scores) {
+        char[] branches;
+        List<Long> userIds;
+        lock.readLock().lock();
+        try {
+            branches = users.branches();
+            userIds = new ArrayList<>(userEntries.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (char branch : branches) {
+            lock.writeLock().lock();
+            try {
+                users.refreshBranch(branch, scores);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            users.tightenBound();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (int from = 0; from < userIds.size(); from += REFRESH_CHUNK) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + REFRESH_CHUNK, userIds.size()));
+            lock.writeLock().lock();
+            try {
+                for (Long userId : chunk) {
+                    UserEntry entry = userEntries.get(userId);
+                    long score = scores.applyAsLong(userId);
+                    if (entry != null && entry.score() != score) {
+                        userEntries.put(userId, new UserEntry(entry.username(), entry.name(), score));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public long maxUserId() {
+        lock.readLock().lock();
+        try {
+            return maxUserId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long maxPostId() {
+        lock.readLock().lock();
+        try {
+            return maxPostId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int userCount() {
+        lock.readLock().lock();
+        try {
+            return userEntries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long postCount() {
+        lock.readLock().lock();
+        try {
+            return postCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = users.sizeInBytes() + userEntries.size() * 120L;
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                bytes += 64L + entry.getKey().length() * 2L + entry.getValue().sizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Users are written as rows and their trie rebuilt on load; posting lists are written block for block.
+    // Only the copy is taken under the read lock (posting lists share their sealed blocks), the slow write
+    // to out happens after it is released.
+    public void writeTo(DataOutput out) throws IOException {
+        long snapshotMaxUserId;
+        long snapshotMaxPostId;
+        long snapshotPostCount;
+        Map<Long, UserEntry> snapshotUsers;
+        Map<String, PostingList> snapshotPostings;
+        lock.readLock().lock();
+        try {
+            snapshotMaxUserId = maxUserId;
+            snapshotMaxPostId = maxPostId;
+            snapshotPostCount = postCount;
+            snapshotUsers = new HashMap<>(userEntries);
+            snapshotPostings = new HashMap<>(postings.size() * 2);
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                snapshotPostings.put(entry.getKey(), entry.getValue().copy());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(snapshotMaxUserId);
+        out.writeLong(snapshotMaxPostId);
+        out.writeLong(snapshotPostCount);
+        out.writeInt(snapshotUsers.size());
+        for (Map.Entry<Long, UserEntry> entry : snapshotUsers.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeUTF(entry.getValue().username());
+            out.writeUTF(entry.getValue().name() != null ? entry.getValue().name() : "");
+            out.writeLong(entry.getValue().score());
+        }
+        out.writeInt(snapshotPostings.size());
+        for (Map.Entry<String, PostingList> entry : snapshotPostings.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    public static SearchIndex readFrom(DataInput in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a search index snapshot of this version");
+        }
+        SearchIndex index = new SearchIndex();
+        index.maxUserId = in.readLong();
+        index.maxPostId = in.readLong();
+        index.postCount = in.readLong();
+        int userCount = in.readInt();
+        for (int i = 0; i < userCount; i++) {
+            long userId = in.readLong();
+            String username = in.readUTF();
+            String name = in.readUTF();
+            long score = in.readLong();
+            index.userEntries.put(userId, new UserEntry(username, name, score));
+            for (String key : userKeys(username, name)) {
+                index.users.put(key, userId, score);
+            }
+        }
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            index.postings.put(in.readUTF(), PostingList.readFrom(in));
+        }
+        return index;
+    }
+
+    private static Set<String> userKeys(String username, String name) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(SearchTokenizer.normalize(username));
+        String normalizedName = SearchTokenizer.normalize(name);
+        if (!normalizedName.isEmpty()) {
+            keys.add(normalizedName);
+            keys.addAll(SearchTokenizer.tokenize(normalizedName));
+        }
+        keys.remove("");
+        return keys;
+    }
+}
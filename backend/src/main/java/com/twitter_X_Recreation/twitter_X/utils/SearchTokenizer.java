@@ -0,0 +1,101 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Shared by indexing and querying, so both sides agree on what a term is: accents stripped, lowercased,
+// runs of letters, digits and underscores. "#Java" and "@java" index and match as "java".
+public final class SearchTokenizer {
+
+    public static final int MAX_TOKEN_LENGTH = 40;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Too common to ever be a topic
+    private static final Set<String> STOPWORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "your", "all", "any", "can", "had", "her", "was",
+            "one", "our", "out", "has", "have", "him", "his", "how", "its", "may", "new", "now", "see", "who",
+            "did", "get", "got", "let", "say", "she", "too", "use", "that", "this", "with", "from", "they",
+            "them", "then", "than", "what", "when", "will", "just", "like", "more", "some", "been", "were",
+            "there", "their", "about", "would", "could", "should", "which", "into", "only", "also", "very",
+            "here", "know", "want", "today", "going", "really", "because", "people", "time", "good", "post");
+
+    private SearchTokenizer() {
+    }
+
+    // Accents stripped and lowercased, everything else kept, for trie keys such as a full name
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    // Distinct terms in order of first appearance, overlong ones cut to MAX_TOKEN_LENGTH
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint) || codePoint == '_') {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.appendCodePoint(codePoint);
+                }
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    // Distinct trend topics: hashtags as "#tag", other words of at least 3 chars that are neither numbers,
+    // stopwords nor @mentions as plain terms
+    public static List<String> topics(String text) {
+        String normalized = normalize(text);
+        Set<String> topics = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        int marker = 0;
+        for (int i = 0; i <= normalized.length(); ) {
+            int codePoint = i < normalized.length() ? normalized.codePointAt(i) : ' ';
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint) || codePoint == '_') {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.appendCodePoint(codePoint);
+                }
+                continue;
+            }
+            if (!token.isEmpty()) {
+                String term = token.toString();
+                if (marker == '#') {
+                    topics.add("#" + term);
+                } else if (marker != '@' && term.length() >= 3 && !STOPWORDS.contains(term) && !isNumber(term)) {
+                    topics.add(term);
+                }
+                token.setLength(0);
+            }
+            marker = codePoint;
+        }
+        return new ArrayList<>(topics);
+    }
+
+    private static boolean isNumber(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isDigit(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
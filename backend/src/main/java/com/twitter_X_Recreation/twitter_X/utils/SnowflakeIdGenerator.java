@@ -0,0 +1,115 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ClockMovedBackwardsException;
+import com.twitter_X_Recreation.twitter_X.exceptions.WorkerIdLeaseExpiredException;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Time ordered 64 bit ids: 41 bits of milliseconds since 2025-01-01, 10 bits of worker id and a 12 bit
+// per-millisecond sequence (4096 ids per ms per worker, ~69 years of range). The last timestamp and the
+// sequence share one AtomicLong, so nextId() is a single CAS with no lock.
+// When the clock steps back, or a millisecond runs out of sequence numbers, ids keep counting on the last
+// timestamp (the sequence carries into it), which keeps them unique and increasing. Once that logical
+// clock is more than maxDriftMs ahead of the wall clock, generation stops instead of drifting further.
+// A leased worker id (setLease) is only used until its lease runs out: past that another node may hold
+// the same id, so generation stops until the lease is extended or a new one is taken.
+public class SnowflakeIdGenerator {
+
+    public static final long EPOCH_MS = 1735689600000L; // 2025-01-01T00:00:00Z
+
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    // (milliseconds since EPOCH_MS << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+    private final LongSupplier clock;
+    private final long maxDriftMs;
+    private volatile long workerBits;
+    // Wall clock millis from which the worker id may no longer be used, MAX_VALUE for a fixed id
+    private volatile long leaseValidUntil = Long.MAX_VALUE;
+
+    public SnowflakeIdGenerator(int workerId, long maxDriftMs) {
+        this(workerId, maxDriftMs, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int workerId, long maxDriftMs, LongSupplier clock) {
+        this.clock = clock;
+        this.maxDriftMs = maxDriftMs;
+        setWorkerId(workerId);
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long wallClock = clock.getAsLong();
+            if (wallClock >= leaseValidUntil) {
+                throw new WorkerIdLeaseExpiredException(getWorkerId());
+            }
+            long now = wallClock - EPOCH_MS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > maxDriftMs) {
+                    throw new ClockMovedBackwardsException(lastTimestamp - now);
+                }
+                next = current + 1;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | workerBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public void setWorkerId(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerBits = (long) workerId << SEQUENCE_BITS;
+    }
+
+    // Worker id held under a lease, usable until validUntil (epoch millis)
+    public void setLease(int workerId, long validUntil) {
+        setWorkerId(workerId);
+        this.leaseValidUntil = validUntil;
+    }
+
+    public void extendLease(long validUntil) {
+        this.leaseValidUntil = validUntil;
+    }
+
+    // Stops generation until the next setLease
+    public void expireLease() {
+        this.leaseValidUntil = Long.MIN_VALUE;
+    }
+
+    public int getWorkerId() {
+        return (int) (workerBits >>> SEQUENCE_BITS);
+    }
+
+    public long getMaxDriftMs() {
+        return maxDriftMs;
+    }
+
+    // Wall clock time an id was generated at (epoch millis)
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MS;
+    }
+
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_WORKER_ID);
+    }
+
+    // Smallest id any worker can generate at the given epoch millis, a keyset bound for time ranges
+    public static long minIdAt(long epochMillis) {
+        return Math.max(0, epochMillis - EPOCH_MS) << TIMESTAMP_SHIFT;
+    }
+}
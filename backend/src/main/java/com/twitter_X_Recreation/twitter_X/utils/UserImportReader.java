@@ -0,0 +1,158 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Reads a user import one line at a time, so memory stays flat whatever the file size.
+// NDJSON: one {"name", "email", "birthDate"} object per line.
+// CSV: a header row naming the name, email and birthDate (or birth_date) columns, quoted fields allowed
+// but not spanning lines. Unreadable lines come back as rows with an error instead of stopping the import.
+public class UserImportReader implements Closeable {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromContentType(String contentType) {
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+    }
+
+    public record Row(long lineNumber, String name, String email, String birthDate, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private long lineNumber = 0;
+
+    private int nameColumn = -1;
+    private int emailColumn = -1;
+    private int birthDateColumn = -1;
+
+    public UserImportReader(InputStream inputStream, Format format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == Format.CSV) {
+            readHeader();
+        }
+    }
+
+    // Next non blank row, null at the end of the input
+    public Row next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                return format == Format.CSV ? parseCsv(line) : parseJson(line);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row parseJson(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (!node.isObject()) {
+                return error("Expected a JSON object");
+            }
+            return new Row(lineNumber, text(node, "name"), text(node, "email"), text(node, "birthDate"), null);
+        } catch (IOException e) {
+            return error("Malformed JSON");
+        }
+    }
+
+    private Row parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return error("Unterminated quoted field");
+        }
+        return new Row(lineNumber, field(fields, nameColumn), field(fields, emailColumn), field(fields, birthDateColumn), null);
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        lineNumber++;
+        List<String> columns = header == null ? null : splitCsv(header.replace("\uFEFF", ""));
+        if (columns == null) {
+            throw new IllegalArgumentException("CSV import needs a header row");
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> nameColumn = i;
+                case "email" -> emailColumn = i;
+                case "birthdate", "birth_date" -> birthDateColumn = i;
+                default -> {
+                }
+            }
+        }
+        if (nameColumn < 0 || emailColumn < 0 || birthDateColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain name, email and birthDate columns");
+        }
+    }
+
+    // RFC 4180 fields within one line, null when a quote is left open
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Row error(String message) {
+        return new Row(lineNumber, null, null, null, message);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : null;
+    }
+}
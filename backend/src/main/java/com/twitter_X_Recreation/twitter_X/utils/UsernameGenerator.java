@@ -0,0 +1,38 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Usernames are the first 9 characters of the name plus a 6 digit suffix (15 characters max).
+// Shared by single signups and the bulk import, callers check the candidates for collisions.
+public class UsernameGenerator {
+
+    private static final int MAX_BASE_LEN = 9;  // 15 - 6 = 9
+
+    public static String cleanBase(String baseName) {
+        String cleanBase = baseName.replaceAll("\\d{5}$", "");   // drop old 5-digit suffix
+        if (cleanBase.length() > MAX_BASE_LEN) {
+            cleanBase = cleanBase.substring(0, MAX_BASE_LEN);
+        }
+        return cleanBase;
+    }
+
+    // entropy is a fresh Snowflake id: never repeated across nodes, and mixed so that ids generated in the
+    // same millisecond still land on unrelated suffixes
+    public static String candidate(String cleanBase, long entropy) {
+        return cleanBase + String.format("%06d", Long.remainderUnsigned(mix(entropy), 1_000_000L));
+    }
+
+    public static String randomCandidate(String cleanBase) {
+        return cleanBase + String.format("%06d", ThreadLocalRandom.current().nextInt(1_000_000));
+    }
+
+    // MurmurHash3 fmix64 finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
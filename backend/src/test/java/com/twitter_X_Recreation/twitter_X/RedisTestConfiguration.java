@@ -0,0 +1,33 @@
+package com.twitter_X_Recreation.twitter_X;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistrar;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+// A throwaway Redis for tests that exercise the Redis paths (Lua scripts, pub/sub, zsets) instead of their
+// fallbacks. Import it together with @Testcontainers(disabledWithoutDocker = true) so the test is skipped
+// rather than failed where Docker is not available. Each cached test context gets its own container.
+@TestConfiguration(proxyBeanMethods = false)
+public class RedisTestConfiguration {
+
+    private static final int REDIS_PORT = 6379;
+
+    @Bean(destroyMethod = "stop")
+    public GenericContainer<?> redisContainer() {
+        GenericContainer<?> container = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+                .withExposedPorts(REDIS_PORT);
+        container.start();
+        return container;
+    }
+
+    // RedisConnectionConfiguration builds its own connection factory from these
+    @Bean
+    public DynamicPropertyRegistrar redisProperties(GenericContainer<?> redisContainer) {
+        return registry -> {
+            registry.add("spring.redis.host", redisContainer::getHost);
+            registry.add("spring.redis.port", () -> redisContainer.getMappedPort(REDIS_PORT));
+        };
+    }
+}
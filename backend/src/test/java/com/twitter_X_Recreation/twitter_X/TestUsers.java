@@ -0,0 +1,44 @@
+package com.twitter_X_Recreation.twitter_X;
+
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+
+import java.sql.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Enabled users for integration tests, each with a username no other test in the run uses and an access
+// token from a real login session, so requests pass the same session checks as in production. Creating the
+// session needs Redis, import RedisTestConfiguration alongside.
+public class TestUsers {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public record TestUser(ApplicationUser user, String authorization) {
+
+        public String username() {
+            return user.getUsername();
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final SessionService sessionService;
+
+    public TestUsers(UserRepository userRepository, SessionService sessionService) {
+        this.userRepository = userRepository;
+        this.sessionService = sessionService;
+    }
+
+    // prefix stays under 9 characters, usernames are at most 15
+    public TestUser create(String prefix) {
+        String username = prefix + SEQUENCE.incrementAndGet();
+        ApplicationUser user = new ApplicationUser();
+        user.setUsername(username);
+        user.setName(prefix);
+        user.setEmail(username + "@example.com");
+        user.setBirthDate(Date.valueOf("2000-01-01"));
+        user.setEnabled(true);
+        ApplicationUser saved = userRepository.save(user);
+        return new TestUser(saved, "Bearer " + sessionService.create(username).accessToken());
+    }
+}
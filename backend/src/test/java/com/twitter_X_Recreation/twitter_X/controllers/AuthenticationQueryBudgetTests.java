@@ -0,0 +1,124 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.twitter_X_Recreation.twitter_X.services.JwtService;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import com.twitter_X_Recreation.twitter_X.services.VerificationCodeStore;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Fails the build when an endpoint issues more SQL statements than its budget. Counts come from
+// Hibernate statistics, the outbox dispatcher is off so its polling does not add to them.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querybudget",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.email.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthenticationQueryBudgetTests {
+
+    private static final int REGISTER_BUDGET = 2;          // users insert + user_role_junction insert
+    private static final int EMAIL_CODE_BUDGET = 3;        // email projection + sequence + outbox insert
+    private static final int VERIFY_EMAIL_BUDGET = 2;      // enabled projection + enabled update
+    private static final int UPDATE_PHONE_BUDGET = 1;      // phone update
+    private static final int UPDATE_PASSWORD_BUDGET = 1;   // password update
+    private static final int LOGIN_BUDGET = 1;             // credentials projection by email
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JwtService jwtService;
+
+    // Redis is not available in tests
+    @MockitoBean
+    private VerificationCodeStore verificationCodeStore;
+
+    @MockitoBean
+    private SessionService sessionService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        when(sessionService.create(anyString())).thenAnswer(invocation -> new SessionService.SessionTokens(
+                1L, invocation.getArgument(0), jwtService.generateToken(invocation.getArgument(0), 1L, 60_000),
+                "1.refresh"));
+    }
+
+    @Test
+    void signupFlowStaysWithinQueryBudgets() throws Exception {
+        MvcResult registered = assertBudget("POST /auth/register", REGISTER_BUDGET,
+                post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Budget\",\"email\":\"budget@example.com\",\"birthDate\":\"2000-01-01\"}"));
+
+        String username = JsonPath.read(registered.getResponse().getContentAsString(), "$.username");
+        Cookie registerToken = registerToken(registered);
+
+        assertBudget("POST /auth/email/code", EMAIL_CODE_BUDGET,
+                post("/auth/email/code").cookie(registerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\"}"));
+
+        assertBudget("POST /auth/email/code/verify", VERIFY_EMAIL_BUDGET,
+                post("/auth/email/code/verify").cookie(registerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"code\":\"654321\"}"));
+
+        assertBudget("PUT /auth/update/phone", UPDATE_PHONE_BUDGET,
+                put("/auth/update/phone").cookie(registerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"phoneNumber\":\"+351900000000\"}"));
+
+        assertBudget("PUT /auth/update/password", UPDATE_PASSWORD_BUDGET,
+                put("/auth/update/password").cookie(registerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"correct-horse-battery\"}"));
+
+        assertBudget("POST /auth/login", LOGIN_BUDGET,
+                post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"identifier\":\"budget@example.com\",\"password\":\"correct-horse-battery\"}"));
+    }
+
+    private MvcResult assertBudget(String endpoint, int budget, MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= budget,
+                endpoint + " ran " + statements + " SQL statements, its budget is " + budget);
+        return result;
+    }
+
+    private static Cookie registerToken(MvcResult registered) {
+        String header = registered.getResponse().getHeader("Set-Cookie");
+        String value = header.substring("register_token=".length(), header.indexOf(';'));
+        return new Cookie("register_token", value);
+    }
+}
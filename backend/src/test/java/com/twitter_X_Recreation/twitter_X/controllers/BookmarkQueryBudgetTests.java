@@ -0,0 +1,246 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.models.Bookmark;
+import com.twitter_X_Recreation.twitter_X.repositories.BookmarkRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.BookmarkService;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pages come from the Redis sorted sets, the first read of a user rebuilds theirs from SQL
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bookmarkbudget",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.email.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class BookmarkQueryBudgetTests {
+
+    private static final int ADD_BOOKMARK_BUDGET = 1;    // bookmarks insert, the user comes from the user cache
+    private static final int PAGE_BUDGET = 2;            // set rebuild + one join for every post and author
+    private static final int REBUILD_PAGE_SIZE = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @MockitoSpyBean
+    private BookmarkRepository bookmarkRepository;
+
+    @Autowired
+    private BookmarkService bookmarkService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private TestUsers testUsers;
+    private TestUsers.TestUser reader;
+    private String authorization;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        testUsers = new TestUsers(userRepository, sessionService);
+        reader = testUsers.create("reader");
+        authorization = reader.authorization();
+    }
+
+    @Test
+    void bookmarkPagesCostTheSameWhateverTheirSize() throws Exception {
+        List<String> postIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            postIds.add(createPost("{\"text\":\"post " + i + "\"}"));
+        }
+        // Warms the user cache
+        bookmark(postIds.get(0)).andExpect(status().isCreated());
+
+        statistics.clear();
+        bookmark(postIds.get(1)).andExpect(status().isCreated());
+        assertTrue(statistics.getPrepareStatementCount() <= ADD_BOOKMARK_BUDGET,
+                "POST /bookmarks ran " + statistics.getPrepareStatementCount() + " SQL statements");
+        for (int i = 2; i < postIds.size(); i++) {
+            bookmark(postIds.get(i)).andExpect(status().isCreated());
+        }
+        bookmark(postIds.get(3)).andExpect(status().isOk());
+
+        statistics.clear();
+        String page = page(null, 4);
+        assertTrue(statistics.getPrepareStatementCount() <= PAGE_BUDGET,
+                "GET /bookmarks ran " + statistics.getPrepareStatementCount() + " SQL statements");
+        assertEquals(List.of(postIds.get(5), postIds.get(4), postIds.get(3), postIds.get(2)),
+                JsonPath.read(page, "$.posts[*].postId"));
+        assertEquals("poster", JsonPath.read(page, "$.posts[0].authorName"));
+
+        mockMvc.perform(delete("/bookmarks/" + postIds.get(0)).header("Authorization", authorization))
+                .andExpect(status().isOk());
+        String lastPage = page(JsonPath.read(page, "$.nextCursor"), 4);
+        assertEquals(List.of(postIds.get(1)), JsonPath.read(lastPage, "$.posts[*].postId"));
+        assertNull(JsonPath.read(lastPage, "$.nextCursor"));
+    }
+
+    @Test
+    void pagesComeFromRedisAndAnExpiredSetIsRebuilt() throws Exception {
+        List<String> postIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            postIds.add(createPost("{\"text\":\"post " + i + "\"}"));
+            bookmark(postIds.get(i)).andExpect(status().isCreated());
+        }
+        double rebuilds = counter("bookmarks.rebuilds");
+        double fallbacks = counter("bookmarks.sql.fallbacks");
+        List<String> newestFirst = List.of(postIds.get(2), postIds.get(1), postIds.get(0));
+
+        assertEquals(newestFirst, JsonPath.read(page(null, 10), "$.posts[*].postId"));
+        assertEquals(rebuilds + 1, counter("bookmarks.rebuilds"));
+
+        // Built now, the next page is one script call
+        assertEquals(newestFirst, JsonPath.read(page(null, 10), "$.posts[*].postId"));
+        assertEquals(rebuilds + 1, counter("bookmarks.rebuilds"));
+
+        long userId = reader.user().getUserId();
+        redisTemplate.delete(List.of("bookmarks:" + userId, "bookmarks:built:" + userId));
+        assertEquals(newestFirst, JsonPath.read(page(null, 10), "$.posts[*].postId"));
+        assertEquals(rebuilds + 2, counter("bookmarks.rebuilds"));
+        assertEquals(fallbacks, counter("bookmarks.sql.fallbacks"));
+    }
+
+    @Test
+    void bookmarksMadeInTheSameMillisecondPageWithoutGapsOrRepeats() throws Exception {
+        // Five ties over pages of two: every cursor falls inside the tie, only the post id tells pages apart
+        long createdAt = System.currentTimeMillis();
+        List<String> postIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String postId = createPost("{\"text\":\"tie " + i + "\"}");
+            bookmarkRepository.save(new Bookmark(reader.user(),
+                    postRepository.findById(Long.valueOf(postId)).orElseThrow(), createdAt));
+            postIds.add(postId);
+        }
+        postIds.sort(Comparator.comparing(Long::valueOf, Comparator.reverseOrder()));
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            String page = page(cursor, 2);
+            paged.addAll(JsonPath.read(page, "$.posts[*].postId"));
+            cursor = JsonPath.read(page, "$.nextCursor");
+        } while (cursor != null);
+        assertEquals(postIds, paged);
+    }
+
+    @Test
+    void aBookmarkRemovedWhileTheSetRebuildsStaysRemoved() throws Exception {
+        List<String> postIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            postIds.add(createPost("{\"text\":\"post " + i + "\"}"));
+            bookmark(postIds.get(i)).andExpect(status().isCreated());
+        }
+        long userId = reader.user().getUserId();
+        redisTemplate.delete(List.of("bookmarks:" + userId, "bookmarks:built:" + userId));
+
+        // The removal lands after the rebuild read its rows and before it writes them
+        AtomicBoolean removed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Object rows = invocation.callRealMethod();
+            if (removed.compareAndSet(false, true)) {
+                assertTrue(bookmarkService.removeBookmark(reader.username(), Long.parseLong(postIds.get(1))));
+            }
+            return rows;
+        }).when(bookmarkRepository).findPageBefore(anyLong(), anyLong(), anyLong(),
+                argThat((Pageable pageable) -> pageable != null && pageable.getPageSize() == REBUILD_PAGE_SIZE));
+
+        assertEquals(List.of(postIds.get(2), postIds.get(0)), JsonPath.read(page(null, 10), "$.posts[*].postId"));
+        assertTrue(removed.get());
+
+        // Bookmarking it again clears the tombstone for the next rebuild
+        bookmark(postIds.get(1)).andExpect(status().isCreated());
+        redisTemplate.delete(List.of("bookmarks:" + userId, "bookmarks:built:" + userId));
+        assertEquals(List.of(postIds.get(1), postIds.get(2), postIds.get(0)),
+                JsonPath.read(page(null, 10), "$.posts[*].postId"));
+    }
+
+    @Test
+    void bookmarkingAMissingPostIsNotFound() throws Exception {
+        bookmark("42").andExpect(status().isNotFound());
+    }
+
+    private ResultActions bookmark(String postId) throws Exception {
+        return mockMvc.perform(post("/bookmarks/" + postId).header("Authorization", authorization));
+    }
+
+    private String page(String before, int limit) throws Exception {
+        MockHttpServletRequestBuilder request = get("/bookmarks").header("Authorization", authorization)
+                .param("limit", String.valueOf(limit));
+        if (before != null) {
+            request.param("before", before);
+        }
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private String createPost(String json) throws Exception {
+        String response = mockMvc.perform(post("/posts")
+                        .header("Authorization", testUsers.create("poster").authorization())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        return JsonPath.read(response, "$.postId");
+    }
+}
@@ -0,0 +1,160 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Messages are group committed by the writer, unread counts live in Redis
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:directmessages",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.email.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class DirectMessageTests {
+
+    private static final int CONVERSATION_LIST_BUDGET = 1;  // one join for conversations and the other users
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    private Statistics statistics;
+    private TestUsers testUsers;
+    private String aliceUsername;
+    private String bobUsername;
+    private String alice;
+    private String bob;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        testUsers = new TestUsers(userRepository, sessionService);
+        TestUsers.TestUser aliceUser = testUsers.create("alice");
+        TestUsers.TestUser bobUser = testUsers.create("bob");
+        aliceUsername = aliceUser.username();
+        bobUsername = bobUser.username();
+        alice = aliceUser.authorization();
+        bob = bobUser.authorization();
+    }
+
+    @Test
+    void messagesAreStoredInOrderAndPagedNewestFirst() throws Exception {
+        String conversationId = openConversation(alice, bobUsername);
+        send(bob, conversationId, "hi").andExpect(status().isCreated());
+
+        // Concurrent sends share the writer's transactions
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResultActions>> sends = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String text = "message " + i;
+                sends.add(executor.submit(() -> send(alice, conversationId, text)));
+            }
+            for (Future<ResultActions> sent : sends) {
+                sent.get().andExpect(status().isCreated());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        String page = mockMvc.perform(get("/conversations/" + conversationId + "/messages")
+                        .header("Authorization", bob).param("limit", "10"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        List<String> ids = new ArrayList<>(JsonPath.read(page, "$.messages[*].messageId"));
+        assertEquals(10, ids.size());
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(Comparator.comparing(Long::parseLong, Comparator.reverseOrder()));
+        assertEquals(sorted, ids);
+
+        String lastPage = mockMvc.perform(get("/conversations/" + conversationId + "/messages")
+                        .header("Authorization", bob).param("limit", "10")
+                        .param("before", (String) JsonPath.read(page, "$.nextCursor")))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertEquals(7, ((List<?>) JsonPath.read(lastPage, "$.messages")).size());
+        assertEquals("hi", JsonPath.read(lastPage, "$.messages[6].text"));
+        assertNull(JsonPath.read(lastPage, "$.nextCursor"));
+
+        statistics.clear();
+        String conversations = mockMvc.perform(get("/conversations").header("Authorization", alice))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertTrue(statistics.getPrepareStatementCount() <= CONVERSATION_LIST_BUDGET,
+                "GET /conversations ran " + statistics.getPrepareStatementCount() + " SQL statements");
+        assertEquals(List.of(conversationId), JsonPath.read(conversations, "$.conversations[*].conversationId"));
+        assertEquals(bobUsername, JsonPath.read(conversations, "$.conversations[0].username"));
+        assertEquals(ids.get(0), JsonPath.read(conversations, "$.conversations[0].lastMessageId"));
+    }
+
+    @Test
+    void aPairHasOneConversationThatOnlyItsMembersSee() throws Exception {
+        String conversationId = openConversation(alice, bobUsername);
+        assertEquals(conversationId, openConversation(bob, aliceUsername));
+
+        String carol = testUsers.create("carol").authorization();
+        send(carol, conversationId, "let me in").andExpect(status().isNotFound());
+        mockMvc.perform(get("/conversations/" + conversationId + "/messages").header("Authorization", carol))
+                .andExpect(status().isNotFound());
+
+        send(alice, conversationId, " ").andExpect(status().isBadRequest());
+        mockMvc.perform(post("/conversations").header("Authorization", alice)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + aliceUsername + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String openConversation(String authorization, String username) throws Exception {
+        String response = mockMvc.perform(post("/conversations").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\"}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return JsonPath.read(response, "$.conversationId");
+    }
+
+    private ResultActions send(String authorization, String conversationId, String text) throws Exception {
+        return mockMvc.perform(post("/conversations/" + conversationId + "/messages")
+                .header("Authorization", authorization)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\":\"" + text + "\"}"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Accounts created before the switch to Argon2 carry unprefixed BCrypt hashes; their first login rewrites it
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:passwordupgrade",
+        "app.email.outbox.enabled=false",
+        "app.password.algorithm=argon2",
+        "app.password.argon2.memory-kib=1024",
+        "app.password.argon2.iterations=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class LoginPasswordUpgradeTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Test
+    void aLegacyHashIsReplacedOnTheFirstLoginAndKeepsWorking() throws Exception {
+        String username = new TestUsers(userRepository, sessionService).create("upgrade").username();
+        userRepository.updatePassword(username, new BCryptPasswordEncoder(4).encode("correct horse"));
+
+        login(username, "wrong horse").andExpect(status().isUnauthorized());
+        assertTrue(userRepository.findCredentialsByUsername(username).orElseThrow().getPassword().startsWith("$2a$04$"),
+                "a failed login leaves the hash alone");
+
+        login(username, "correct horse").andExpect(status().isOk());
+        String upgraded = userRepository.findCredentialsByUsername(username).orElseThrow().getPassword();
+        assertTrue(upgraded.startsWith("{argon2}"), upgraded);
+
+        // The new hash logs in without being rewritten again
+        login(username, "correct horse").andExpect(status().isOk());
+        assertEquals(upgraded, userRepository.findCredentialsByUsername(username).orElseThrow().getPassword());
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"identifier\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+    }
+}
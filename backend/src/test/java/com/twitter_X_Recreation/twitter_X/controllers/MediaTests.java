@@ -0,0 +1,159 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The avatar lookup stays the in-memory map (app.media.redis-enabled=false), Redis only holds the login
+// sessions; files go to a temporary directory
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:media",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.email.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MediaTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    private Statistics statistics;
+    private String username;
+    private String authorization;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TestUsers.TestUser user = new TestUsers(userRepository, sessionService).create("pic");
+        username = user.username();
+        authorization = user.authorization();
+    }
+
+    @Test
+    void avatarsAreScaledStoredByHashAndServedWithoutTheDatabase() throws Exception {
+        byte[] upload = png(1200, 800);
+        String hash = uploadAvatar(upload);
+        assertEquals(hash, uploadAvatar(upload));
+        assertEquals(hash, userRepository.findByUsername(username).orElseThrow().getAvatarHash());
+
+        MvcResult served = mockMvc.perform(get("/media/" + hash + ".jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + hash + "\""))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andReturn();
+        byte[] jpeg = served.getResponse().getContentAsByteArray();
+        BufferedImage avatar = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertEquals(400, avatar.getWidth());
+        assertEquals(400, avatar.getHeight());
+
+        mockMvc.perform(get("/media/" + hash + ".jpg").header("If-None-Match", "\"" + hash + "\""))
+                .andExpect(status().isNotModified());
+        byte[] part = mockMvc.perform(get("/media/" + hash + ".jpg").header("Range", "bytes=10-109"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-109/" + jpeg.length))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(100, part.length);
+        assertEquals(jpeg[10], part[0]);
+        mockMvc.perform(get("/media/" + hash + ".jpg").header("Range", "bytes=" + jpeg.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        byte[] whole = mockMvc.perform(get("/media/" + hash + ".jpg").header("Range", "bytes=5-3"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Range"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(jpeg.length, whole.length);
+
+        statistics.clear();
+        mockMvc.perform(get("/users/" + username + "/avatar"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "/media/" + hash + ".jpg"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        mockMvc.perform(get("/users/" + username + "/banner")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bannersAreCroppedAndBadUploadsRefused() throws Exception {
+        String response = mockMvc.perform(multipart("/media/banner")
+                        .file(new MockMultipartFile("image", "banner.png", "image/png", png(3000, 2000)))
+                        .param("x", "0").param("y", "0").param("width", "3000").param("height", "1000")
+                        .header("Authorization", authorization))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        String url = JsonPath.read(response, "$.url");
+        BufferedImage banner = ImageIO.read(new ByteArrayInputStream(
+                mockMvc.perform(get(url)).andReturn().getResponse().getContentAsByteArray()));
+        assertEquals(1500, banner.getWidth());
+        assertEquals(500, banner.getHeight());
+        // The top half of the test image is red
+        assertTrue(new Color(banner.getRGB(750, 250)).getRed() > 200);
+
+        mockMvc.perform(multipart("/media/avatar")
+                        .file(new MockMultipartFile("image", "notes.txt", "text/plain", "not an image".getBytes()))
+                        .header("Authorization", authorization))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/media/" + "0".repeat(64) + ".jpg")).andExpect(status().isNotFound());
+    }
+
+    private String uploadAvatar(byte[] image) throws Exception {
+        String response = mockMvc.perform(multipart("/media/avatar")
+                        .file(new MockMultipartFile("image", "avatar.png", "image/png", image))
+                        .header("Authorization", authorization))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        return JsonPath.read(response, "$.hash");
+    }
+
+    // Red top half, blue bottom half
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width, height / 2);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, height / 2, width, height - height / 2);
+        graphics.dispose();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,121 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:postbudget",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.email.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class PostQueryBudgetTests {
+
+    private static final int CREATE_POST_BUDGET = 1;     // posts insert, the author comes from the user cache
+    private static final int AUTHOR_PAGE_BUDGET = 1;     // keyset page
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    private Statistics statistics;
+    private String authorization;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        authorization = new TestUsers(userRepository, sessionService).create("poster").authorization();
+    }
+
+    @Test
+    void postsAreSingleInsertsAndPageNewestFirst() throws Exception {
+        // Warms the user cache
+        String first = createPost("{\"text\":\"first\"}");
+
+        statistics.clear();
+        String reply = createPost("{\"text\":\"reply\",\"inReplyToId\":\"" + first + "\"}");
+        assertTrue(statistics.getPrepareStatementCount() <= CREATE_POST_BUDGET,
+                "POST /posts ran " + statistics.getPrepareStatementCount() + " SQL statements");
+        String third = createPost("{\"text\":\"quote\",\"quoteOfId\":\"" + first + "\"}");
+
+        String username = JsonPath.read(mockMvc.perform(get("/posts/" + first))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(), "$.authorUsername");
+
+        statistics.clear();
+        MvcResult page = mockMvc.perform(get("/posts/user/" + username).param("limit", "2"))
+                .andExpect(status().isOk()).andReturn();
+        assertTrue(statistics.getPrepareStatementCount() <= AUTHOR_PAGE_BUDGET,
+                "GET /posts/user ran " + statistics.getPrepareStatementCount() + " SQL statements");
+
+        String body = page.getResponse().getContentAsString();
+        assertEquals(List.of(third, reply), JsonPath.read(body, "$.posts[*].postId"));
+        assertEquals(first, JsonPath.read(body, "$.posts[1].inReplyToId"));
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        String lastPage = mockMvc.perform(get("/posts/user/" + username).param("before", cursor).param("limit", "2"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertEquals(List.of(first), JsonPath.read(lastPage, "$.posts[*].postId"));
+        assertNull(JsonPath.read(lastPage, "$.nextCursor"));
+    }
+
+    @Test
+    void replyToMissingPostIsNotFound() throws Exception {
+        mockMvc.perform(post("/posts").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"orphan\",\"inReplyToId\":\"42\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void overlongPostIsRejected() throws Exception {
+        mockMvc.perform(post("/posts").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"" + "x".repeat(281) + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String createPost(String json) throws Exception {
+        MvcResult result = mockMvc.perform(post("/posts").header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated()).andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.postId");
+    }
+}
@@ -0,0 +1,120 @@
+package com.twitter_X_Recreation.twitter_X.controllers;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.services.SessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The filter in the real security chain with the limiter on (every other test profile turns it off) and two
+// small rules of its own: a per-IP limit on the username check and a per-user limit on posting.
+// Every test uses its own client address and users, so buckets never carry over between tests.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ratelimitfilter",
+        "app.email.outbox.enabled=false",
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.rules[0].path=/auth/username/available",
+        "app.rate-limit.rules[0].method=GET",
+        "app.rate-limit.rules[0].ip.capacity=2",
+        "app.rate-limit.rules[0].ip.refill-per-minute=1",
+        "app.rate-limit.rules[1].path=/posts",
+        "app.rate-limit.rules[1].method=POST",
+        "app.rate-limit.rules[1].user.capacity=2",
+        "app.rate-limit.rules[1].user.refill-per-minute=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class RateLimitFilterTests {
+
+    private static final AtomicInteger CLIENTS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    private TestUsers testUsers;
+    private String clientAddress;
+
+    @BeforeEach
+    void setUp() {
+        testUsers = new TestUsers(userRepository, sessionService);
+        clientAddress = "10.0.0." + CLIENTS.incrementAndGet();
+    }
+
+    @Test
+    void aClientOverItsIpLimitGets429WithRetryAfter() throws Exception {
+        checkUsername(clientAddress).andExpect(status().isOk());
+        checkUsername(clientAddress).andExpect(status().isOk());
+
+        // One token a minute: the next one is up to 60 s away
+        checkUsername(clientAddress)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", matchesPattern("[1-9][0-9]?")))
+                .andExpect(jsonPath("$.exception").value("RateLimitExceededException"))
+                .andExpect(jsonPath("$.path").value("/auth/username/available"));
+
+        // Another address has its own bucket
+        checkUsername("10.1.0." + CLIENTS.incrementAndGet()).andExpect(status().isOk());
+    }
+
+    @Test
+    void theUserLimitFollowsTheUserNotTheAddress() throws Exception {
+        String limited = testUsers.create("limited").authorization();
+        String other = testUsers.create("other").authorization();
+
+        createPost(limited, clientAddress).andExpect(status().isCreated());
+        createPost(limited, "10.2.0." + CLIENTS.incrementAndGet()).andExpect(status().isCreated());
+        // A new address does not reset a user's bucket
+        createPost(limited, "10.2.0." + CLIENTS.incrementAndGet())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        // Another user behind the same address is not affected
+        createPost(other, clientAddress).andExpect(status().isCreated());
+    }
+
+    private ResultActions checkUsername(String address) throws Exception {
+        return mockMvc.perform(get("/auth/username/available").param("username", "free" + CLIENTS.incrementAndGet())
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                }));
+    }
+
+    private ResultActions createPost(String authorization, String address) throws Exception {
+        return mockMvc.perform(post("/posts")
+                .header("Authorization", authorization)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\":\"rate limited\"}")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                }));
+    }
+}
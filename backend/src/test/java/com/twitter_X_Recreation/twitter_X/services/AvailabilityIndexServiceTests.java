@@ -0,0 +1,64 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:availability",
+        "app.email.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+class AvailabilityIndexServiceTests {
+
+    @Autowired
+    private AvailabilityIndexService availabilityIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void claimsCountOnlyOnceTheirTransactionCommits() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            availabilityIndex.claim("rolledback", "rolledback@example.com");
+            assertTrue(availabilityIndex.isUsernameAvailable("rolledback"));
+            status.setRollbackOnly();
+        });
+        assertTrue(availabilityIndex.isUsernameAvailable("rolledback"));
+        assertTrue(availabilityIndex.isEmailAvailable("rolledback@example.com"));
+
+        transactionTemplate.executeWithoutResult(status -> availabilityIndex.claim("Committed", "committed@example.com"));
+        assertFalse(availabilityIndex.isUsernameAvailable("committed"));
+        assertFalse(availabilityIndex.isEmailAvailable("Committed@Example.com"));
+    }
+
+    @Test
+    void warmUpLoadsTheUsersAlreadyInTheDatabase() {
+        ApplicationUser user = new ApplicationUser();
+        user.setUsername("existing" + System.nanoTime() % 1_000_000);
+        user.setName("Existing");
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setBirthDate(Date.valueOf("2000-01-01"));
+        userRepository.save(user);
+
+        availabilityIndex.warmUp();
+        assertTrue(availabilityIndex.isReady());
+        assertFalse(availabilityIndex.isUsernameAvailable(user.getUsername()));
+        assertFalse(availabilityIndex.isEmailAvailable(user.getEmail()));
+        assertTrue(availabilityIndex.isUsernameAvailable(user.getUsername() + "x"));
+    }
+}
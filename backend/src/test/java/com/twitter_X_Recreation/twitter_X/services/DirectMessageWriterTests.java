@@ -0,0 +1,67 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageBatchRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.DirectMessageBatchRepository.NewMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// The repository is a mock that holds the first transaction open, so the test controls which messages the
+// writer has taken and which are still queued when their sender gives up
+class DirectMessageWriterTests {
+
+    private final DirectMessageBatchRepository batchRepository = mock(DirectMessageBatchRepository.class);
+
+    @Test
+    void onlyAMessageStillQueuedCanBeWithdrawn() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<NewMessage> messages = invocation.getArgument(0);
+            writing.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            messages.forEach(message -> written.add(message.messageId()));
+            return null;
+        }).when(batchRepository).insertMessages(any());
+
+        DirectMessageWriter writer = new DirectMessageWriter(batchRepository, mock(MessageDeliveryService.class),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 10, 0, 100);
+        try {
+            CompletableFuture<Void> inFlight = writer.append(message(1));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            CompletableFuture<Void> queued = writer.append(message(2));
+
+            // Its sender is told "not sent", so the writer must never commit it
+            assertTrue(queued.cancel(false));
+            // Already in a transaction, its sender has to wait for the outcome
+            assertFalse(inFlight.cancel(false));
+
+            release.countDown();
+            inFlight.get(10, TimeUnit.SECONDS);
+            CompletableFuture<Void> next = writer.append(message(3));
+            next.get(10, TimeUnit.SECONDS);
+            assertEquals(List.of(1L, 3L), written);
+        } finally {
+            release.countDown();
+            writer.shutdown();
+        }
+    }
+
+    private static NewMessage message(long messageId) {
+        return new NewMessage(7L, messageId, 1L, "hello", new long[]{1L, 2L});
+    }
+}
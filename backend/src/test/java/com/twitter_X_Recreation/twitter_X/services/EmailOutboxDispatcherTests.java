@@ -0,0 +1,79 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.EmailOutboxMessage;
+import com.twitter_X_Recreation.twitter_X.repositories.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTests {
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private StubEmailTransport stubEmailTransport;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        stubEmailTransport.clear();
+    }
+
+    @Test
+    void queuedEmailIsDeliveredAfterCommit() throws InterruptedException {
+        EmailOutboxMessage message = enqueue("delivered@example.com");
+
+        waitUntil(() -> stubEmailTransport.getSentEmails().stream()
+                .anyMatch(email -> email.toAddress().equals("delivered@example.com")));
+        waitUntil(() -> emailOutboxRepository.findById(message.getId())
+                .map(saved -> saved.getStatus() == EmailOutboxMessage.Status.SENT)
+                .orElse(false));
+    }
+
+    @Test
+    void failedEmailIsRetried() throws InterruptedException {
+        stubEmailTransport.simulateFailures(2);
+        EmailOutboxMessage message = enqueue("retried@example.com");
+
+        waitUntil(() -> emailOutboxRepository.findById(message.getId())
+                .map(saved -> saved.getStatus() == EmailOutboxMessage.Status.SENT)
+                .orElse(false));
+        assertEquals(3, emailOutboxRepository.findById(message.getId()).orElseThrow().getAttempts());
+    }
+
+    @Test
+    void enqueueRequiresATransaction() {
+        assertThrows(Exception.class, () -> emailOutboxService.enqueue("none@example.com", "subject", "body"));
+    }
+
+    private EmailOutboxMessage enqueue(String toAddress) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                emailOutboxService.enqueue(toAddress, "123456 is your X verification code", "<p>123456</p>"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not met within 10 seconds");
+            Thread.sleep(50);
+        }
+    }
+}
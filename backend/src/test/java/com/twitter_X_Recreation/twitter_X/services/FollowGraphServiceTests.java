@@ -0,0 +1,142 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.models.FollowId;
+import com.twitter_X_Recreation.twitter_X.repositories.FollowRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Postgres and Redis are mocks: the repositories hand out the edges a load reads, the stream operations
+// play the follows:changes entries another node would have appended
+class FollowGraphServiceTests {
+
+    private static final String CHANGES_KEY = "follows:changes";
+
+    private final FollowRepository followRepository = mock(FollowRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final StreamOperations<String, Object, Object> streamOperations = mock(StreamOperations.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FollowGraphService service(boolean streamEnabled) {
+        when(userRepository.findIdsAfter(any(), any())).thenReturn(List.of(1L, 2L, 3L, 4L));
+        if (streamEnabled) {
+            when(redisTemplate.<Object, Object>opsForStream()).thenReturn(streamOperations);
+        }
+        return new FollowGraphService(followRepository, userRepository, redisTemplate, meterRegistry,
+                streamEnabled, 1_000, 100, 10);
+    }
+
+    @Test
+    void followsAndUnfollowsAreAppliedToTheLoadedGraph() {
+        when(followRepository.findEdgesAfter(any(), any(), any())).thenReturn(List.of(
+                new FollowId(1L, 2L), new FollowId(1L, 3L), new FollowId(3L, 4L), new FollowId(2L, 4L)));
+        when(followRepository.countByIdFolloweeId(4L)).thenReturn(7L);
+        FollowGraphService service = service(false);
+
+        // Answered by SQL until the graph is loaded
+        assertFalse(service.isReady());
+        assertEquals(7, service.followerCount(4L));
+
+        service.start();
+        assertTrue(service.isReady());
+        assertEquals(2, service.followerCount(4L));
+        assertEquals(2, service.followingCount(1L));
+        assertEquals(2, service.followedByCount(1L, 4L));
+
+        service.recordUnfollow(2L, 4L);
+        assertFalse(service.follows(2L, 4L));
+        assertEquals(1, service.followerCount(4L));
+        assertEquals(List.of(3L), service.followedBy(1L, 4L, 10));
+
+        service.recordFollow(4L, 1L);
+        assertTrue(service.follows(4L, 1L));
+        assertEquals(1, service.followingCount(4L));
+        assertEquals(1, service.followerCount(1L));
+        verifyNoInteractions(redisTemplate);
+        service.shutdown();
+    }
+
+    @Test
+    void streamChangesAreAppliedAndATrimmedGapReloadsTheGraph() throws Exception {
+        // The reload after the gap finds 3 -> 2, whose stream entry was trimmed before this node read it
+        when(followRepository.findEdgesAfter(any(), any(), any()))
+                .thenReturn(List.of(new FollowId(2L, 1L)))
+                .thenReturn(List.of(new FollowId(2L, 1L), new FollowId(3L, 1L), new FollowId(3L, 2L)));
+        when(streamOperations.reverseRange(eq(CHANGES_KEY), any(), any()))
+                .thenReturn(List.of(change("5-0", "follow", 0, 0)))
+                .thenReturn(List.of(change("20-0", "follow", 0, 0)));
+        when(streamOperations.range(eq(CHANGES_KEY), any(), any())).thenReturn(List.of(change("10-0", "follow", 0, 0)));
+
+        List<String> readOffsets = new CopyOnWriteArrayList<>();
+        AtomicInteger reads = new AtomicInteger();
+        when(streamOperations.read(any(StreamReadOptions.class), any(StreamOffset.class))).thenAnswer(invocation -> {
+            StreamOffset<?> offset = invocation.getArgument(1);
+            readOffsets.add(offset.getOffset().getOffset());
+            switch (reads.getAndIncrement()) {
+                case 0:
+                    return List.of(change("6-0", "follow", 3, 1));
+                case 1:
+                    throw new RedisConnectionFailureException("Connection reset");
+                default:
+                    Thread.sleep(10);
+                    return null;
+            }
+        });
+
+        FollowGraphService service = service(true);
+        try {
+            service.start();
+            await(() -> readOffsets.size() >= 3);
+
+            assertEquals(List.of("5-0", "6-0", "20-0"), readOffsets.subList(0, 3));
+            assertEquals(1, meterRegistry.get("follows.graph.reloads").counter().count());
+            assertEquals(1, meterRegistry.get("follows.graph.changes").tag("source", "stream").counter().count());
+            assertEquals(2, service.followerCount(1L));
+            assertEquals(1, service.followerCount(2L));
+            assertEquals(2, service.followingCount(3L));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static MapRecord<String, Object, Object> change(String id, String op, long followerId, long followeeId) {
+        return StreamRecords.newRecord().in(CHANGES_KEY).withId(RecordId.of(id)).ofMap(Map.<Object, Object>of(
+                "op", op,
+                "follower", String.valueOf(followerId),
+                "followee", String.valueOf(followeeId)));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import javax.sql.DataSource;
+import java.net.ConnectException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The data source is a mock so each round can play a healthy, busy or unreachable database. Three failed
+// rounds take a dependency down, a round waits at most 200 ms for its probe.
+class HealthProbeServiceTests {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final HealthProbeService service = new HealthProbeService(dataSource, mock(StringRedisTemplate.class),
+            new SimpleMeterRegistry(), 5_000, 200, 3, false);
+
+    @AfterEach
+    void stop() {
+        service.stop();
+    }
+
+    @Test
+    void aSaturatedPoolKeepsTheNodeReady() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        // Hikari's acquire timeout carries no cause when every connection is merely checked out
+        when(dataSource.getConnection())
+                .thenReturn(connection)
+                .thenThrow(new SQLTransientConnectionException("Connection is not available, request timed out after 3000ms"));
+
+        service.probeAll();
+        assertTrue(service.isReady());
+        assertEquals("UP", status());
+
+        for (int round = 0; round < 5; round++) {
+            service.probeAll();
+        }
+        assertTrue(service.isReady());
+        assertEquals("SATURATED", status());
+    }
+
+    @Test
+    void aProbeStillQueuedBehindAFullPoolKeepsTheNodeReady() throws Exception {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        when(hikari.getMaximumPoolSize()).thenReturn(20);
+        // A connection is free when the first probe starts, traffic takes it before the probe gets it
+        when(pool.getActiveConnections()).thenReturn(19, 20);
+        // Waits past the probe timeout, well short of Hikari's own
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            Thread.sleep(3_000);
+            throw new SQLTransientConnectionException("Connection is not available, request timed out after 3000ms");
+        });
+
+        for (int round = 0; round < 3; round++) {
+            service.probeAll();
+        }
+        assertTrue(service.isReady());
+        assertEquals("SATURATED", status());
+    }
+
+    @Test
+    void connectAndQueryFailuresTakeTheNodeOut() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true, false);
+        // An acquire timeout whose cause is a failed connect means the pool cannot reach the database
+        when(dataSource.getConnection())
+                .thenReturn(connection)
+                .thenReturn(connection)
+                .thenThrow(new SQLTransientConnectionException("Connection is not available, request timed out after 3000ms",
+                        new SQLException("Connection refused", new ConnectException("Connection refused"))));
+
+        service.probeAll();
+        assertTrue(service.isReady());
+
+        // One failed validation and one failed connect are not enough on their own
+        service.probeAll();
+        service.probeAll();
+        assertTrue(service.isReady());
+
+        service.probeAll();
+        assertFalse(service.isReady());
+        assertEquals("DOWN", status());
+    }
+
+    @SuppressWarnings("unchecked")
+    private String status() {
+        return (String) ((Map<String, Object>) service.getDetails().get(HealthProbeService.DATABASE)).get("status");
+    }
+}
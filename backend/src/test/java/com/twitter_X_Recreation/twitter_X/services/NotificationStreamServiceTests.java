@@ -0,0 +1,166 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.NotificationDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Streams are opened through a one-endpoint controller on a standalone MockMvc, so the SSE body can be read
+// as the client would see it. The notification buffer is a mock and live messages are handed to onMessage
+// directly, the way the listener container would.
+class NotificationStreamServiceTests {
+
+    private static final long USER_ID = 7;
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(.+)$", Pattern.MULTILINE);
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private NotificationStreamService streams;
+    private MockMvc mockMvc;
+
+    @RestController
+    static class StreamController {
+        private final NotificationStreamService streams;
+
+        StreamController(NotificationStreamService streams) {
+            this.streams = streams;
+        }
+
+        @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        SseEmitter stream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+            return streams.open(USER_ID, lastEventId);
+        }
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        when(notificationService.parseLive(anyString())).thenAnswer(invocation -> notification(invocation.getArgument(0)));
+        streams = new NotificationStreamService(notificationService, new ObjectMapper(),
+                mock(ObjectProvider.class), new SimpleMeterRegistry(), 60_000, 60_000, 64);
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(streams)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streams.shutdown();
+    }
+
+    @Test
+    void aReconnectReplaysWhatItMissedThenGoesLive() throws Exception {
+        when(notificationService.getSince(USER_ID, "1-0")).thenReturn(List.of(notification("2-0"), notification("3-0")));
+
+        MvcResult stream = connect("1-0");
+        await(() -> eventIds(stream).size() == 2);
+        publish("4-0");
+        await(() -> eventIds(stream).size() == 3);
+        assertEquals(List.of("2-0", "3-0", "4-0"), eventIds(stream));
+    }
+
+    @Test
+    void aNotificationPublishedDuringTheReplayIsSentOnce() throws Exception {
+        // The subscription is live before the replay reads the buffer, so 3-0 arrives both ways
+        when(notificationService.getSince(eq(USER_ID), eq("1-0"))).thenAnswer(invocation -> {
+            publish("3-0");
+            publish("4-0");
+            return List.of(notification("2-0"), notification("3-0"));
+        });
+
+        MvcResult stream = connect("1-0");
+        await(() -> eventIds(stream).contains("4-0"));
+        publish("5-0");
+        await(() -> eventIds(stream).contains("5-0"));
+        assertEquals(List.of("2-0", "3-0", "4-0", "5-0"), eventIds(stream));
+    }
+
+    @Test
+    void aFreshStreamOnlyGetsLiveNotifications() throws Exception {
+        MvcResult stream = connect(null);
+        await(() -> content(stream).contains(":connected"));
+        publish("9-0");
+        await(() -> eventIds(stream).size() == 1);
+        assertEquals(List.of("9-0"), eventIds(stream));
+        assertTrue(content(stream).contains("\"type\":\"follow\""));
+    }
+
+    @Test
+    void aFailedReplayStillGoesLive() throws Exception {
+        when(notificationService.getSince(anyLong(), anyString())).thenThrow(new IllegalStateException("Redis down"));
+        MvcResult stream = connect("1-0");
+        await(() -> content(stream).contains(":connected"));
+        publish("2-0");
+        await(() -> eventIds(stream).size() == 1);
+    }
+
+    private MvcResult connect(String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder stream = get("/stream");
+        if (lastEventId != null) {
+            stream.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(stream).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private void publish(String id) {
+        byte[] channel = (NotificationService.CHANNEL_PREFIX + USER_ID).getBytes(StandardCharsets.UTF_8);
+        streams.onMessage(new DefaultMessage(channel, id.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private static NotificationDTO notification(String id) {
+        return new NotificationDTO(id, "follow", "ada", "Ada", null, null);
+    }
+
+    private static String content(MvcResult stream) {
+        try {
+            return stream.getResponse().getContentAsString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> eventIds(MvcResult stream) {
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = EVENT_ID.matcher(content(stream));
+        while (matcher.find()) {
+            ids.add(matcher.group(1).trim());
+        }
+        return ids;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
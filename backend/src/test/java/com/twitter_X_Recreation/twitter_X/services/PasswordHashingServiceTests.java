@@ -0,0 +1,132 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.configuration.SecurityConfiguration;
+import com.twitter_X_Recreation.twitter_X.exceptions.ApiExceptionHandler;
+import com.twitter_X_Recreation.twitter_X.exceptions.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The pool with a blocking mock encoder, so the tests decide how many workers are busy and queued, and the
+// upgrade path with the application's real delegating encoder at cheap cost settings
+class PasswordHashingServiceTests {
+
+    @Test
+    void aFullPoolAndQueueRejectRightAwayWith503() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.encode(any())).thenAnswer(invocation -> {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return "hash";
+        });
+        PasswordHashingService hashing = new PasswordHashingService(blocking, new SimpleMeterRegistry(), 1, 1, 10_000);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashing.hash("running"));
+            await(() -> hashing.getActiveCount() == 1);
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hashing.hash("queued"));
+            await(() -> hashing.getQueueDepth() == 1);
+
+            long start = System.nanoTime();
+            PasswordHashingUnavailableException rejected =
+                    assertThrows(PasswordHashingUnavailableException.class, () -> hashing.hash("rejected"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000, "rejected without waiting");
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ApiExceptionHandler.of(
+                    new MockHttpServletRequest("POST", "/auth/login"), HttpStatus.BAD_REQUEST, rejected).getStatus());
+
+            // Those already admitted still finish
+            release.countDown();
+            assertEquals("hash", running.get(10, TimeUnit.SECONDS));
+            assertEquals("hash", queued.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            hashing.shutdown();
+        }
+    }
+
+    @Test
+    void aCallerStuckInTheQueueGivesUpAfterTheTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.encode(any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return "hash";
+        });
+        PasswordHashingService hashing = new PasswordHashingService(blocking, new SimpleMeterRegistry(), 1, 4, 200);
+        try {
+            CompletableFuture.runAsync(() -> assertThrows(PasswordHashingUnavailableException.class, () -> hashing.hash("running")));
+            await(() -> hashing.getActiveCount() == 1);
+            assertThrows(PasswordHashingUnavailableException.class, () -> hashing.hash("waiting"));
+        } finally {
+            release.countDown();
+            hashing.shutdown();
+        }
+    }
+
+    @Test
+    void legacyAndWeakerHashesAreUpgradedOnASuccessfulVerify() {
+        PasswordEncoder argon2 = encoder("argon2");
+        PasswordHashingService hashing = new PasswordHashingService(argon2, new SimpleMeterRegistry(), 1, 4, 10_000);
+        try {
+            // Unprefixed BCrypt from before the delegating encoder
+            String legacy = new BCryptPasswordEncoder(4).encode("secret");
+            PasswordHashingService.VerificationResult upgraded = hashing.verify("secret", legacy);
+            assertTrue(upgraded.matches());
+            assertTrue(upgraded.upgradedHash().startsWith("{argon2}"), upgraded.upgradedHash());
+            assertTrue(argon2.matches("secret", upgraded.upgradedHash()));
+
+            // Already current: nothing to write back
+            PasswordHashingService.VerificationResult current = hashing.verify("secret", upgraded.upgradedHash());
+            assertTrue(current.matches());
+            assertNull(current.upgradedHash());
+
+            // A wrong password never produces a hash
+            PasswordHashingService.VerificationResult wrong = hashing.verify("guess", legacy);
+            assertFalse(wrong.matches());
+            assertNull(wrong.upgradedHash());
+        } finally {
+            hashing.shutdown();
+        }
+
+        // Same algorithm at a lower cost than configured
+        PasswordEncoder bcrypt = encoder("bcrypt");
+        PasswordHashingService bcryptHashing = new PasswordHashingService(bcrypt, new SimpleMeterRegistry(), 1, 4, 10_000);
+        try {
+            String cheaper = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+            String rehashed = bcryptHashing.verify("secret", cheaper).upgradedHash();
+            assertTrue(rehashed != null && rehashed.startsWith("{bcrypt}$2a$05$"), rehashed);
+            assertNull(bcryptHashing.verify("secret", rehashed).upgradedHash());
+        } finally {
+            bcryptHashing.shutdown();
+        }
+    }
+
+    // BCrypt cost 5 and a small Argon2 memory so the test does not spend seconds hashing
+    private static PasswordEncoder encoder(String algorithm) {
+        return new SecurityConfiguration().passwordEncoder(algorithm, 5, 16, 32, 1, 1024, 1);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.configuration.RateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The token bucket script against a real Redis. Each RateLimiterService instance is one node with its own
+// local buckets; keys are fresh per test so buckets left by other tests never interfere.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ratelimiter",
+        "app.email.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class RateLimiterServiceTests {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    // One token every 100 ms
+    private static final RateLimitProperties.Limit LIMIT = new RateLimitProperties.Limit(3, 600);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        key = "test:" + System.nanoTime() + ":" + SEQUENCE.incrementAndGet();
+    }
+
+    @Test
+    void aDrainedBucketRefillsAtItsRate() throws Exception {
+        RateLimiterService limiter = node(redisTemplate);
+        for (int i = 0; i < LIMIT.capacity(); i++) {
+            assertTrue(limiter.tryConsume(key, LIMIT).allowed());
+        }
+        RateLimiterService.Decision denied = limiter.tryConsume(key, LIMIT);
+        assertFalse(denied.allowed());
+        assertTrue(denied.retryAfterMs() > 0 && denied.retryAfterMs() <= 100, "retry after " + denied.retryAfterMs());
+
+        Thread.sleep(150);
+        assertTrue(limiter.tryConsume(key, LIMIT).allowed());
+        assertFalse(limiter.tryConsume(key, LIMIT).allowed());
+    }
+
+    @Test
+    void theBucketIsSharedByEveryNode() {
+        RateLimiterService first = node(redisTemplate);
+        RateLimiterService second = node(redisTemplate);
+        for (int i = 0; i < LIMIT.capacity(); i++) {
+            assertTrue(first.tryConsume(key, LIMIT).allowed());
+        }
+        // The second node's local bucket is still full, Redis says no
+        RateLimiterService.Decision denied = second.tryConsume(key, LIMIT);
+        assertFalse(denied.allowed());
+        assertTrue(denied.retryAfterMs() > 0);
+    }
+
+    @Test
+    void withRedisDownEachNodeStillEnforcesItsLocalBucket() {
+        StringRedisTemplate brokenRedis = mock(StringRedisTemplate.class);
+        when(brokenRedis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        RateLimiterService limiter = node(brokenRedis);
+
+        for (int i = 0; i < LIMIT.capacity(); i++) {
+            assertTrue(limiter.tryConsume(key, LIMIT).allowed());
+        }
+        assertFalse(limiter.tryConsume(key, LIMIT).allowed());
+    }
+
+    private static RateLimiterService node(StringRedisTemplate redis) {
+        return new RateLimiterService(redis, new RateLimitProperties(true, 1_000, List.of()));
+    }
+}
@@ -0,0 +1,163 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.exceptions.InvalidRefreshTokenException;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the session scripts against a real Redis with pub/sub on. The grace window is cut to 300 ms so the
+// tests can step past it; other nodes are played by extra SessionService instances on the same Redis.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sessions",
+        "app.email.outbox.enabled=false",
+        "app.redis.pubsub.enabled=true",
+        "app.sessions.refresh-grace-ms=300"
+})
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class SessionServiceTests {
+
+    private static final long GRACE_MS = 300;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+
+    @Test
+    void createdSessionsRotateOnEveryRefresh() throws Exception {
+        SessionService.SessionTokens created = sessionService.create("alice");
+        assertEquals("alice", created.username());
+        assertEquals(created.sessionId(), jwtService.verify(created.accessToken()).sessionId());
+        assertEquals(created.sessionId(), SessionService.sessionIdOf(created.refreshToken()));
+
+        SessionService.SessionTokens first = sessionService.refresh(created.refreshToken());
+        SessionService.SessionTokens second = sessionService.refresh(first.refreshToken());
+        assertEquals(created.sessionId(), second.sessionId());
+        assertEquals("alice", second.username());
+        assertNotEquals(created.refreshToken(), first.refreshToken());
+        assertNotEquals(first.refreshToken(), second.refreshToken());
+        assertEquals("2", redisTemplate.opsForHash().get("session:" + created.sessionId(), "generation"));
+    }
+
+    @Test
+    void aTokenFromAnyEarlierGenerationRevokesTheSession() throws Exception {
+        SessionService.SessionTokens created = sessionService.create("bob");
+        SessionService.SessionTokens current = created;
+        for (int rotation = 0; rotation < 3; rotation++) {
+            current = sessionService.refresh(current.refreshToken());
+        }
+
+        // Three rotations old, far outside the grace window
+        String stolen = created.refreshToken();
+        assertThrows(InvalidRefreshTokenException.class, () -> sessionService.refresh(stolen));
+        assertTrue(sessionService.isRevoked(created.sessionId()));
+        assertFalse(redisTemplate.hasKey("session:" + created.sessionId()));
+
+        String latest = current.refreshToken();
+        assertThrows(InvalidRefreshTokenException.class, () -> sessionService.refresh(latest));
+    }
+
+    @Test
+    void theTokenJustRotatedAwayIsAnsweredWithTheCurrentOneWithinTheGraceWindow() throws Exception {
+        SessionService.SessionTokens created = sessionService.create("carol");
+
+        // Two tabs present the same token, the slower one gets what the faster one got
+        SessionService.SessionTokens faster = sessionService.refresh(created.refreshToken());
+        SessionService.SessionTokens slower = sessionService.refresh(created.refreshToken());
+        assertEquals(faster.refreshToken(), slower.refreshToken());
+        assertFalse(sessionService.isRevoked(created.sessionId()));
+
+        SessionService.SessionTokens next = sessionService.refresh(slower.refreshToken());
+        Thread.sleep(GRACE_MS + 100);
+
+        String previous = slower.refreshToken();
+        assertThrows(InvalidRefreshTokenException.class, () -> sessionService.refresh(previous));
+        assertTrue(sessionService.isRevoked(next.sessionId()));
+    }
+
+    @Test
+    void tokensThatDoNotVerifyRevokeNothing() {
+        SessionService.SessionTokens created = sessionService.create("dave");
+        long sessionId = created.sessionId();
+
+        // Session ids are guessable, a made up token for an earlier generation must not log anyone out
+        for (String forged : new String[]{sessionId + ".0.forged", sessionId + ".-1.forged", sessionId + ".forged", "forged"}) {
+            assertThrows(InvalidRefreshTokenException.class, () -> sessionService.refresh(forged));
+            assertFalse(sessionService.revoke(forged));
+        }
+        assertFalse(sessionService.isRevoked(sessionId));
+        sessionService.refresh(created.refreshToken());
+    }
+
+    @Test
+    void logoutNeedsTheCurrentRefreshToken() {
+        SessionService.SessionTokens created = sessionService.create("erin");
+        SessionService.SessionTokens rotated = sessionService.refresh(created.refreshToken());
+
+        assertFalse(sessionService.revoke(created.refreshToken()));
+        assertFalse(sessionService.isRevoked(created.sessionId()));
+
+        assertTrue(sessionService.revoke(rotated.refreshToken()));
+        assertTrue(sessionService.isRevoked(created.sessionId()));
+        assertThrows(InvalidRefreshTokenException.class, () -> sessionService.refresh(rotated.refreshToken()));
+    }
+
+    @Test
+    void revocationsReachRunningNodesAndAreReplayedByStartingOnes() throws Exception {
+        SessionService running = otherNode();
+        running.subscribe();
+
+        SessionService.SessionTokens created = sessionService.create("frank");
+        sessionService.revoke(created.sessionId());
+        await(() -> running.isRevoked(created.sessionId()));
+
+        // Started after the message went out, catches up from session:revoked
+        SessionService starting = otherNode();
+        starting.subscribe();
+        assertFalse(starting.isRevoked(created.sessionId()));
+        starting.loadRevocations();
+        assertTrue(starting.isRevoked(created.sessionId()));
+    }
+
+    private SessionService otherNode() {
+        return new SessionService(redisTemplate, jwtService, idGenerator, listenerContainer, new SimpleMeterRegistry(),
+                900_000, 1_209_600_000, GRACE_MS, "test-secret-key-for-testing-purposes-only", false);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
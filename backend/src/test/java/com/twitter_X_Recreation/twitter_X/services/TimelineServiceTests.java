@@ -0,0 +1,217 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.dto.PostPageDTO;
+import com.twitter_X_Recreation.twitter_X.dto.PostResponseDTO;
+import com.twitter_X_Recreation.twitter_X.repositories.FollowRepository;
+import com.twitter_X_Recreation.twitter_X.repositories.PostRepository;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The timeline sets live in a real Redis; SQL, the follow graph and the post cache are mocks, so each test
+// decides what the database returns and when. User ids are fresh per test, the Redis keys never collide.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:timelines",
+        "app.email.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class TimelineServiceTests {
+
+    private static final AtomicLong USER_IDS = new AtomicLong(System.nanoTime() & 0xFFFFFFFFFFL);
+    private static final long CELEBRITY_THRESHOLD = 3;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final FollowRepository followRepository = mock(FollowRepository.class);
+    private final FollowGraphService followGraphService = mock(FollowGraphService.class);
+    private final PostCacheService postCacheService = mock(PostCacheService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TimelineService timelines;
+    private long reader;
+    private long nextPostId;
+
+    @BeforeEach
+    void setUp() {
+        when(postCacheService.getAll(any())).thenAnswer(invocation -> {
+            List<PostResponseDTO> posts = new ArrayList<>();
+            for (Long postId : invocation.<List<Long>>getArgument(0)) {
+                posts.add(PostResponseDTO.of(postId, 1L, "author", "Author", "post " + postId, null, null));
+            }
+            return posts;
+        });
+        timelines = timelineService(redisTemplate);
+        reader = USER_IDS.incrementAndGet();
+        // Every post gets its own millisecond, so its score is unique unless a test wants a tie
+        nextPostId = (System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH_MS) << 22;
+    }
+
+    @AfterEach
+    void tearDown() {
+        timelines.shutdown();
+    }
+
+    @Test
+    void postsAreFannedOutToFollowersOfANormalAccount() throws Exception {
+        long author = USER_IDS.incrementAndGet();
+        long older = postId();
+        when(postRepository.findFollowingTimelineIds(eq(reader), anyLong(), any())).thenReturn(List.of(older));
+        assertEquals(List.of(older), postIds(page(null, 10)));
+
+        when(followGraphService.followerIds(author)).thenReturn(new long[]{reader});
+        long newer = postId();
+        timelines.onPostCreated(post(newer, author));
+        await(() -> postIds(page(null, 10)).size() == 2);
+        assertEquals(List.of(newer, older), postIds(page(null, 10)));
+        assertEquals(1.0, meterRegistry.get("timeline.rebuilds").counter().count());
+    }
+
+    @Test
+    void aPostFannedOutWhileTheTimelineRebuildsIsKept() throws Exception {
+        long author = USER_IDS.incrementAndGet();
+        when(followGraphService.followerIds(author)).thenReturn(new long[]{reader});
+        long older = postId();
+        long newer = postId();
+
+        // The post commits and is fanned out after the rebuild read SQL and before it writes to Redis
+        AtomicBoolean fannedOut = new AtomicBoolean();
+        when(postRepository.findFollowingTimelineIds(eq(reader), anyLong(), any())).thenAnswer(invocation -> {
+            if (fannedOut.compareAndSet(false, true)) {
+                timelines.onPostCreated(post(newer, author));
+                await(() -> redisTemplate.opsForZSet().score("timeline:home:" + reader, String.valueOf(newer)) != null);
+            }
+            return List.of(older);
+        });
+
+        assertEquals(List.of(newer, older), postIds(page(null, 10)));
+        assertTrue(fannedOut.get());
+    }
+
+    @Test
+    void aCelebrityIsPulledAtReadTimeInsteadOfFannedOut() throws Exception {
+        long celebrity = USER_IDS.incrementAndGet();
+        long otherFollower = USER_IDS.incrementAndGet();
+        when(followGraphService.followerCount(celebrity)).thenReturn(CELEBRITY_THRESHOLD);
+        when(followGraphService.followerIds(celebrity)).thenReturn(new long[]{reader, otherFollower});
+        when(followRepository.findFollowerIdsAfter(eq(celebrity), anyLong(), any())).thenReturn(List.of(reader, otherFollower));
+        timelines.onFollow(reader, celebrity);
+        await(() -> Boolean.TRUE.equals(redisTemplate.opsForSet().isMember("timeline:celebrities", String.valueOf(celebrity))));
+
+        long normal = postId();
+        long celebrityPost = postId();
+        when(postRepository.findFollowingTimelineIds(eq(reader), anyLong(), any())).thenReturn(List.of(normal));
+        when(followRepository.findFolloweesAmong(eq(reader), anyCollection())).thenReturn(List.of(celebrity));
+        timelines.onPostCreated(post(celebrityPost, celebrity));
+        await(() -> redisTemplate.opsForZSet().score("timeline:author:" + celebrity, String.valueOf(celebrityPost)) != null);
+
+        assertEquals(List.of(celebrityPost, normal), postIds(page(null, 10)));
+        // Not pushed into any home set
+        assertNull(redisTemplate.opsForZSet().score("timeline:home:" + reader, String.valueOf(celebrityPost)));
+        assertNull(redisTemplate.opsForZSet().score("timeline:home:" + otherFollower, String.valueOf(celebrityPost)));
+    }
+
+    @Test
+    void postsSharingAScorePageWithoutGapsOrRepeats() {
+        // Same millisecond, only the low sequence bits differ: every cursor falls inside the tie
+        long millisecond = postId();
+        List<Long> newestFirst = new ArrayList<>();
+        for (int sequence = 5; sequence >= 0; sequence--) {
+            newestFirst.add(millisecond + sequence);
+        }
+        when(postRepository.findFollowingTimelineIds(eq(reader), anyLong(), any())).thenReturn(newestFirst);
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            PostPageDTO page = page(cursor != null ? Long.valueOf(cursor) : null, 2);
+            paged.addAll(postIds(page));
+            cursor = page.nextCursor();
+        } while (cursor != null && paged.size() < 20);
+        assertEquals(newestFirst, paged);
+    }
+
+    @Test
+    void pagesComeFromSqlWhileRedisIsDown() {
+        StringRedisTemplate brokenRedis = mock(StringRedisTemplate.class);
+        when(brokenRedis.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        TimelineService withoutRedis = timelineService(brokenRedis);
+        try {
+            long first = postId();
+            long second = postId();
+            when(postRepository.findFollowingTimelineIds(eq(reader), eq(Long.MAX_VALUE), any())).thenReturn(List.of(second, first));
+            when(postRepository.findFollowingTimelineIds(eq(reader), eq(second), any())).thenReturn(List.of(first));
+
+            PostPageDTO page = withoutRedis.getHomeTimeline(reader, null, 2);
+            assertEquals(List.of(second, first), postIds(page));
+            assertEquals(List.of(first), postIds(withoutRedis.getHomeTimeline(reader, second, 2)));
+            verify(postRepository).findFollowingTimelineIds(eq(reader), eq(second), any(Pageable.class));
+            assertEquals(2.0, meterRegistry.get("timeline.sql.fallbacks").counter().count());
+        } finally {
+            withoutRedis.shutdown();
+        }
+    }
+
+    private TimelineService timelineService(StringRedisTemplate redis) {
+        return new TimelineService(redis, followRepository, postRepository, postCacheService, followGraphService,
+                meterRegistry, 800, 200, CELEBRITY_THRESHOLD, 2, 100, 500, 60_000, 50);
+    }
+
+    private PostPageDTO page(Long before, int limit) {
+        return timelines.getHomeTimeline(reader, before, limit);
+    }
+
+    // A new post id one millisecond after the last one
+    private long postId() {
+        nextPostId += 1L << 22;
+        return nextPostId;
+    }
+
+    private static PostResponseDTO post(long postId, long authorId) {
+        return PostResponseDTO.of(postId, authorId, "author", "Author", "post " + postId, null, null);
+    }
+
+    private static List<Long> postIds(PostPageDTO page) {
+        return page.posts().stream().map(post -> Long.valueOf(post.postId())).toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+// Both tiers against a real Redis. The services are built by hand with the Redis tier on (the test profile
+// turns it off for everything else); a second instance plays another node sharing the Redis tier.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:usercache",
+        "app.email.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class UserCacheServiceTests {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserCacheService cache;
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        cache = node(new SimpleMeterRegistry());
+        username = "cached" + SEQUENCE.incrementAndGet();
+    }
+
+    @Test
+    void aMissIsLoadedOnceAndSharedThroughRedis() {
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("v1", cache.getByUsername(username, loader(loads, "v1")).orElseThrow().getName());
+        assertEquals("v1", cache.getByUsername(username, loader(loads, "v2")).orElseThrow().getName());
+        assertEquals("v1", node(new SimpleMeterRegistry()).getByUsername(username, loader(loads, "v2")).orElseThrow().getName());
+        assertEquals(1, loads.get());
+        assertTrue(redisTemplate.hasKey("cache:user:" + username));
+    }
+
+    @Test
+    void aLoadThatStartedBeforeAnInvalidateIsNotWrittenBack() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getByUsername(username, loader(loads, "v1"));
+        cache.invalidate(username);
+
+        // Another node reads the old row, then the update commits and invalidates before the load returns
+        SimpleMeterRegistry otherRegistry = new SimpleMeterRegistry();
+        UserCacheService otherNode = node(otherRegistry);
+        Optional<ApplicationUser> stale = otherNode.getByUsername(username, () -> {
+            Optional<ApplicationUser> oldRow = loader(loads, "v1").get();
+            cache.invalidate(username);
+            return oldRow;
+        });
+        assertEquals("v1", stale.orElseThrow().getName());
+        assertFalse(redisTemplate.hasKey("cache:user:" + username));
+        assertEquals(1.0, otherRegistry.get("cache.users.stale.fills").counter().count());
+
+        // Neither tier kept it, the next read loads the new row and caches it
+        assertEquals("v2", otherNode.getByUsername(username, loader(loads, "v2")).orElseThrow().getName());
+        assertEquals("v2", cache.getByUsername(username, loader(loads, "v3")).orElseThrow().getName());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidateWaitsForTheTransactionToCommit() {
+        AtomicInteger loads = new AtomicInteger();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        cache.getByUsername(username, loader(loads, "v1"));
+
+        transaction.executeWithoutResult(status -> {
+            cache.invalidate(username);
+            // The update is not visible yet, the cached row is still the current one
+            assertTrue(redisTemplate.hasKey("cache:user:" + username));
+            assertEquals("v1", cache.getByUsername(username, loader(loads, "v2")).orElseThrow().getName());
+        });
+        assertFalse(redisTemplate.hasKey("cache:user:" + username));
+        assertEquals("v2", cache.getByUsername(username, loader(loads, "v2")).orElseThrow().getName());
+
+        // A rolled back update leaves the cache alone
+        transaction.executeWithoutResult(status -> {
+            cache.invalidate(username);
+            status.setRollbackOnly();
+        });
+        assertTrue(redisTemplate.hasKey("cache:user:" + username));
+        assertEquals(2, loads.get());
+    }
+
+    private UserCacheService node(SimpleMeterRegistry registry) {
+        UserCacheService node = new UserCacheService(redisTemplate, objectMapper, mock(RoleCacheService.class),
+                listenerContainer, registry, 1_000, 60_000, 600_000, true);
+        node.subscribe();
+        return node;
+    }
+
+    private Supplier<Optional<ApplicationUser>> loader(AtomicInteger loads, String name) {
+        return () -> {
+            loads.incrementAndGet();
+            ApplicationUser user = new ApplicationUser();
+            user.setUserId(1L);
+            user.setUsername(username);
+            user.setName(name);
+            return Optional.of(user);
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_X_Recreation.twitter_X.dto.UserImportSummary;
+import com.twitter_X_Recreation.twitter_X.models.ApplicationUser;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import com.twitter_X_Recreation.twitter_X.utils.UserImportReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Chunks of 3 so the fixture spans several chunks: line 3 repeats an email of its own chunk, line 6 one
+// imported by an earlier chunk, line 4 one that was in the database before the import
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:userimport",
+        "app.email.outbox.enabled=false",
+        "app.import.chunk-size=3"
+})
+@ActiveProfiles("test")
+class UserImportServiceTests {
+
+    private static final String FIXTURE = String.join("\n",
+            "{\"name\": \"Jane Doe\", \"email\": \"jane1@example.com\", \"birthDate\": \"1990-01-01\"}",
+            "{\"name\": \"Jane Doe\", \"email\": \"Jane2@Example.com\", \"birthDate\": \"1990-01-02\"}",
+            "{\"name\": \"Jane Doe\", \"email\": \"jane1@example.com\", \"birthDate\": \"1990-01-03\"}",
+            "{\"name\": \"Jane Doe\", \"email\": \"taken@example.com\", \"birthDate\": \"1990-01-04\"}",
+            "not json",
+            "{\"name\": \"Jane Doe\", \"email\": \"jane2@example.com\", \"birthDate\": \"1990-01-06\"}",
+            "",
+            "{\"name\": \"Jane Doe\", \"email\": \"jane3@example.com\", \"birthDate\": \"1990-01-08\"}",
+            "{\"name\": \"John Roe\", \"email\": \"john@example.com\", \"birthDate\": \"01/09/1990\"}");
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void importsValidRowsAndSkipsDuplicatesWithUniqueUsernames() throws Exception {
+        ApplicationUser existing = new ApplicationUser();
+        existing.setUsername("taken");
+        existing.setName("Taken");
+        existing.setEmail("taken@example.com");
+        existing.setBirthDate(Date.valueOf("1980-01-01"));
+        userRepository.save(existing);
+
+        List<Long> errorLines = new ArrayList<>();
+        List<UserImportSummary> progress = new ArrayList<>();
+        UserImportSummary summary;
+        try (UserImportReader reader = new UserImportReader(
+                new ByteArrayInputStream(FIXTURE.getBytes(StandardCharsets.UTF_8)),
+                UserImportReader.Format.NDJSON, objectMapper)) {
+            summary = userImportService.importUsers(reader, new UserImportService.Listener() {
+                @Override
+                public void onRowError(long lineNumber, String email, String error) {
+                    errorLines.add(lineNumber);
+                }
+
+                @Override
+                public void onProgress(UserImportSummary chunkProgress) {
+                    progress.add(chunkProgress);
+                }
+            });
+        }
+
+        assertEquals(8, summary.processed());
+        assertEquals(3, summary.imported());
+        assertEquals(5, summary.failed());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 9L), errorLines.stream().sorted().toList());
+        assertEquals(3, progress.size());
+
+        List<Map<String, Object>> imported = jdbcTemplate.queryForList(
+                "select user_id, username, email, enabled, password from users where email like 'jane%' order by email");
+        assertEquals(List.of("jane1@example.com", "jane2@example.com", "jane3@example.com"),
+                imported.stream().map(user -> user.get("email")).toList());
+
+        Set<String> usernames = new HashSet<>();
+        for (Map<String, Object> user : imported) {
+            String username = (String) user.get("username");
+            assertTrue(username.startsWith("jane doe") && username.length() <= 15, username);
+            assertTrue(usernames.add(username), "duplicate username " + username);
+            assertFalse((Boolean) user.get("enabled"));
+            assertNull(user.get("password"));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "select count(*) from user_role_junction where user_id = ?", Integer.class, user.get("user_id")));
+        }
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from users where email = 'taken@example.com'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from users where email = 'john@example.com'", Integer.class));
+    }
+}
@@ -0,0 +1,133 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.TestUsers;
+import com.twitter_X_Recreation.twitter_X.exceptions.IncorrectVerificationCodeException;
+import com.twitter_X_Recreation.twitter_X.exceptions.TooManyVerificationAttemptsException;
+import com.twitter_X_Recreation.twitter_X.exceptions.VerificationCodeCooldownException;
+import com.twitter_X_Recreation.twitter_X.exceptions.VerificationCodeExpiredException;
+import com.twitter_X_Recreation.twitter_X.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The issue and verify scripts against a real Redis, with a store of short TTLs built by hand, and the
+// rollback compensation of UserService.generateEmailVerificationCode through the application's own beans
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:verificationcodes",
+        "app.email.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class VerificationCodeStoreTests {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final long CODE_TTL_MS = 1_000;
+    private static final long COOLDOWN_MS = 300;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private VerificationCodeStore store;
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        store = new VerificationCodeStore(redisTemplate, CODE_TTL_MS, COOLDOWN_MS, MAX_ATTEMPTS);
+        username = "verify" + SEQUENCE.incrementAndGet();
+    }
+
+    @Test
+    void aNewCodeWaitsOutTheCooldownAndReplacesTheOldOne() throws Exception {
+        store.issue(username, 111111L);
+        assertThrows(VerificationCodeCooldownException.class, () -> store.issue(username, 222222L));
+
+        Thread.sleep(COOLDOWN_MS + 100);
+        store.issue(username, 333333L);
+        assertThrows(IncorrectVerificationCodeException.class, () -> store.verify(username, 111111L));
+        store.verify(username, 333333L);
+    }
+
+    @Test
+    void aCodeIsConsumedByItsFirstMatch() {
+        store.issue(username, 111111L);
+        store.verify(username, 111111L);
+        assertThrows(VerificationCodeExpiredException.class, () -> store.verify(username, 111111L));
+    }
+
+    @Test
+    void everyAttemptCountsAndTheLastOneMayStillMatch() {
+        store.issue(username, 111111L);
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            assertThrows(IncorrectVerificationCodeException.class, () -> store.verify(username, 999999L));
+        }
+        store.verify(username, 111111L);
+    }
+
+    @Test
+    void exhaustingTheAttemptsBurnsTheCode() {
+        store.issue(username, 111111L);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertThrows(IncorrectVerificationCodeException.class, () -> store.verify(username, 999999L));
+        }
+        assertThrows(TooManyVerificationAttemptsException.class, () -> store.verify(username, 111111L));
+        // Gone now, guessing on is pointless
+        assertThrows(VerificationCodeExpiredException.class, () -> store.verify(username, 111111L));
+    }
+
+    @Test
+    void aCodeExpiresWithItsTtl() throws Exception {
+        store.issue(username, 111111L);
+        Thread.sleep(CODE_TTL_MS + 200);
+        assertThrows(VerificationCodeExpiredException.class, () -> store.verify(username, 111111L));
+    }
+
+    @Test
+    void aRolledBackIssueTakesTheCodeAndCooldownWithIt() {
+        String user = new TestUsers(userRepository, sessionService).create("verify").username();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            userService.generateEmailVerificationCode(user);
+            assertTrue(redisTemplate.hasKey("verification:code:" + user));
+            // Something later in the same transaction fails
+            status.setRollbackOnly();
+        });
+        assertFalse(redisTemplate.hasKey("verification:code:" + user));
+        assertFalse(redisTemplate.hasKey("verification:cooldown:" + user));
+
+        // No cooldown left behind, and a committed code keeps its own
+        userService.generateEmailVerificationCode(user);
+        assertEquals(2L, redisTemplate.opsForHash().size("verification:code:" + user));
+        assertThrows(VerificationCodeCooldownException.class, () -> userService.generateEmailVerificationCode(user));
+        assertTrue(redisTemplate.hasKey("verification:code:" + user));
+    }
+}
@@ -0,0 +1,141 @@
+package com.twitter_X_Recreation.twitter_X.services;
+
+import com.twitter_X_Recreation.twitter_X.RedisTestConfiguration;
+import com.twitter_X_Recreation.twitter_X.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Leases against a real Redis. The application's own service runs on the fixed id from the test profile,
+// so every lease key here belongs to the nodes built by hand: a 1.5 s lease renewed every 500 ms, with a
+// margin just above drift plus skew. Other nodes are played by writing their keys directly.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:workerlease",
+        "app.email.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(RedisTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class WorkerIdLeaseServiceTests {
+
+    private static final String KEY_PREFIX = "ids:worker:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        List<String> keys = new ArrayList<>();
+        for (int workerId = 0; workerId <= SnowflakeIdGenerator.MAX_WORKER_ID; workerId++) {
+            keys.add(KEY_PREFIX + workerId);
+        }
+        redisTemplate.delete(keys);
+    }
+
+    @Test
+    void aLeaseTakenOverByAnotherNodeIsReplacedWithANewWorkerId() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 100);
+        WorkerIdLeaseService node = node(generator);
+        node.start();
+        try {
+            int first = generator.getWorkerId();
+            String token = redisTemplate.opsForValue().get(KEY_PREFIX + first);
+            assertEquals(first, SnowflakeIdGenerator.workerIdOf(generator.nextId()));
+
+            // The lease lapsed and another node took the id before the next renewal
+            redisTemplate.opsForValue().set(KEY_PREFIX + first, "other-node");
+            await(() -> generator.getWorkerId() != first && generatesIds(generator));
+
+            int second = generator.getWorkerId();
+            assertEquals(token, redisTemplate.opsForValue().get(KEY_PREFIX + second));
+            assertEquals("other-node", redisTemplate.opsForValue().get(KEY_PREFIX + first));
+            assertEquals(second, SnowflakeIdGenerator.workerIdOf(generator.nextId()));
+        } finally {
+            node.stop();
+        }
+    }
+
+    @Test
+    void aReleasedWorkerIdIsLeasedAgainByTheNextNode() {
+        SnowflakeIdGenerator firstGenerator = new SnowflakeIdGenerator(0, 100);
+        WorkerIdLeaseService first = node(firstGenerator);
+        first.start();
+        int workerId = firstGenerator.getWorkerId();
+        first.stop();
+        assertFalse(redisTemplate.hasKey(KEY_PREFIX + workerId));
+
+        // Every other id is held elsewhere, so the next node can only get the released one
+        Map<String, String> others = new HashMap<>();
+        for (int id = 0; id <= SnowflakeIdGenerator.MAX_WORKER_ID; id++) {
+            if (id != workerId) {
+                others.put(KEY_PREFIX + id, "other-node");
+            }
+        }
+        redisTemplate.opsForValue().multiSet(others);
+
+        SnowflakeIdGenerator secondGenerator = new SnowflakeIdGenerator(0, 100);
+        WorkerIdLeaseService second = node(secondGenerator);
+        second.start();
+        try {
+            assertEquals(workerId, secondGenerator.getWorkerId());
+            assertEquals(workerId, SnowflakeIdGenerator.workerIdOf(secondGenerator.nextId()));
+
+            // The first node's token no longer matches, a late release leaves the new lease alone
+            first.stop();
+            assertTrue(redisTemplate.hasKey(KEY_PREFIX + workerId));
+            assertEquals(workerId, SnowflakeIdGenerator.workerIdOf(secondGenerator.nextId()));
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void theSafetyMarginMustExceedDriftPlusSkew() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 5_000);
+        assertThrows(IllegalStateException.class,
+                () -> new WorkerIdLeaseService(redisTemplate, generator, -1, 30_000, 5_000, 2_000));
+        assertThrows(IllegalStateException.class,
+                () -> new WorkerIdLeaseService(redisTemplate, generator, -1, 30_000, 7_000, 2_000));
+        assertThrows(IllegalStateException.class,
+                () -> new WorkerIdLeaseService(redisTemplate, generator, -1, 7_500, 7_500, 2_000));
+        assertDoesNotThrow(() -> new WorkerIdLeaseService(redisTemplate, generator, -1, 30_000, 7_001, 2_000));
+    }
+
+    private WorkerIdLeaseService node(SnowflakeIdGenerator generator) {
+        return new WorkerIdLeaseService(redisTemplate, generator, -1, 1_500, 300, 100);
+    }
+
+    private static boolean generatesIds(SnowflakeIdGenerator generator) {
+        try {
+            generator.nextId();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
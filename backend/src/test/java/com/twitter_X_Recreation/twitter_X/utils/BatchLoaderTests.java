@@ -0,0 +1,82 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchLoaderTests {
+
+    // Even ids exist, the value is the id as a string
+    private final List<List<Long>> calls = new ArrayList<>();
+
+    private Map<Long, String> load(Collection<Long> ids) {
+        calls.add(new ArrayList<>(ids));
+        Map<Long, String> found = new HashMap<>();
+        for (Long id : ids) {
+            if (id % 2 == 0) {
+                found.put(id, "user" + id);
+            }
+        }
+        return found;
+    }
+
+    @Test
+    void queuedKeysAreLoadedDistinctInOneBatchOnFirstRead() {
+        BatchLoader<Long, String> loader = new BatchLoader<>(this::load, 100);
+        List<Supplier<String>> handles = new ArrayList<>();
+        for (long id : new long[]{2, 4, 2, 3, 4, 6}) {
+            handles.add(loader.load(id));
+        }
+        assertEquals(0, loader.batches());
+
+        assertEquals("user2", handles.get(0).get());
+        assertEquals(List.of(List.of(2L, 4L, 3L, 6L)), calls);
+        assertNull(handles.get(3).get());
+        assertEquals("user6", handles.get(5).get());
+        assertEquals(1, loader.batches());
+    }
+
+    @Test
+    void loadedAndMissingKeysAreNotLoadedAgain() {
+        BatchLoader<Long, String> loader = new BatchLoader<>(this::load, 100);
+        assertEquals(Map.of(2L, "user2"), loader.loadAll(List.of(2L, 3L)));
+        assertEquals(List.of("user4", "user2"), new ArrayList<>(loader.loadAll(List.of(4L, 3L, 2L)).values()));
+        assertNull(loader.get(3L));
+        assertEquals(List.of(List.of(2L, 3L), List.of(4L)), calls);
+
+        loader.prime(8L, "primed");
+        assertEquals("primed", loader.get(8L));
+        assertEquals(2, loader.batches());
+    }
+
+    @Test
+    void largeLoadsAreSplitIntoBatchesOfMaxSize() {
+        BatchLoader<Long, String> loader = new BatchLoader<>(this::load, 2);
+        assertEquals(2, loader.loadAll(List.of(1L, 2L, 3L, 4L, 5L)).size());
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L)), calls);
+    }
+
+    @Test
+    void keysOfAFailedBatchAreRetried() {
+        int[] failures = {1};
+        BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+            if (failures[0]-- > 0) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return load(ids);
+        }, 100);
+        Supplier<String> handle = loader.load(2L);
+        assertThrows(IllegalStateException.class, handle::get);
+        assertEquals("user2", handle.get());
+        assertEquals(2, loader.batches());
+    }
+}
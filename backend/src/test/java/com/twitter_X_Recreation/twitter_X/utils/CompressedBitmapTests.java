@@ -0,0 +1,121 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTests {
+
+    @Test
+    void matchesASortedSetAcrossContainerConversions() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Integer> expected = new TreeSet<>(Integer::compareUnsigned);
+        Random random = new Random(42);
+
+        // Dense enough in a few 65536 wide chunks to turn arrays into bitmaps and back, plus negative ints
+        for (int i = 0; i < 200_000; i++) {
+            int value = (random.nextInt(4) - 1) * 65_536 + random.nextInt(12_000);
+            boolean add = random.nextInt(3) != 0 || expected.size() < 1_000;
+            if (add) {
+                assertEquals(expected.add(value), bitmap.add(value));
+            } else {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            }
+        }
+        for (int i = 0; i < 5_000 && !expected.isEmpty(); i++) {
+            int value = expected.pollFirst();
+            assertTrue(bitmap.remove(value));
+        }
+
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.toArray());
+        for (int i = 0; i < 10_000; i++) {
+            int value = (random.nextInt(4) - 1) * 65_536 + random.nextInt(12_000);
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+    }
+
+    @Test
+    void intersectionsMatchAcrossArrayAndBitmapContainers() {
+        CompressedBitmap sparse = new CompressedBitmap();
+        CompressedBitmap dense = new CompressedBitmap();
+        TreeSet<Integer> sparseValues = new TreeSet<>(Integer::compareUnsigned);
+        TreeSet<Integer> denseValues = new TreeSet<>(Integer::compareUnsigned);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 1_000; i++) {
+            int value = random.nextInt(3 * 65_536);
+            sparse.add(value);
+            sparseValues.add(value);
+        }
+        for (int i = 0; i < 60_000; i++) {
+            int value = random.nextInt(2 * 65_536);
+            dense.add(value);
+            denseValues.add(value);
+        }
+
+        TreeSet<Integer> common = new TreeSet<>(sparseValues);
+        common.retainAll(denseValues);
+
+        assertEquals(common.size(), sparse.andCardinality(dense));
+        assertEquals(common.size(), dense.andCardinality(sparse));
+        assertArrayEquals(common.stream().mapToInt(Integer::intValue).toArray(), sparse.and(dense).toArray());
+        assertArrayEquals(denseValues.stream().mapToInt(Integer::intValue).toArray(), dense.and(dense).toArray());
+    }
+
+    @Test
+    void copyIsIndependentAndForEachStopsEarly() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i * 3);
+        }
+        CompressedBitmap copy = bitmap.copy();
+        copy.remove(0);
+        assertTrue(bitmap.contains(0));
+        assertFalse(copy.contains(0));
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(value -> {
+            visited.add(value);
+            return visited.size() < 3;
+        });
+        assertEquals(List.of(0, 3, 6), visited);
+    }
+
+    @Test
+    void followGraphAnswersCountsAndIntersectionsForOutOfOrderIds() {
+        FollowGraph graph = new FollowGraph();
+        graph.register(100);
+        graph.register(200);
+        graph.register(300);
+
+        graph.addEdge(100, 300);
+        graph.addEdge(200, 300);
+        // Registered after 300, so it takes an out of order position
+        graph.addEdge(150, 300);
+        graph.addEdge(400, 100);
+        graph.addEdge(400, 200);
+        graph.addEdge(400, 150);
+        assertFalse(graph.addEdge(400, 150));
+
+        assertEquals(3, graph.followerCount(300));
+        assertEquals(3, graph.followingCount(400));
+        assertTrue(graph.follows(150, 300));
+        assertFalse(graph.follows(300, 150));
+        assertEquals(3, graph.followedByCount(400, 300));
+        assertEquals(List.of(100L, 200L), graph.followedBy(400, 300, 2));
+
+        assertTrue(graph.removeEdge(200, 300));
+        assertFalse(graph.removeEdge(200, 300));
+        assertEquals(2, graph.followedByCount(400, 300));
+        assertEquals(5, graph.edgeCount());
+    }
+}
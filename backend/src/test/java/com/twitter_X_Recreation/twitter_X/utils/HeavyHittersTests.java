@@ -0,0 +1,82 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeavyHittersTests {
+
+    private static final long BUCKET_MS = 60_000;
+
+    @Test
+    void sketchNeverUndercountsAndStaysWithinItsErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        Map<String, Integer> exact = new HashMap<>();
+        Random random = new Random(42);
+        int total = 100_000;
+        for (int i = 0; i < total; i++) {
+            // Skewed like real topics: a few frequent keys and a long tail
+            String key = "topic" + (int) Math.pow(random.nextInt(10_000), 2) / 10_000;
+            sketch.add(CountMinSketch.hash(key));
+            exact.merge(key, 1, Integer::sum);
+        }
+
+        int tooHigh = 0;
+        for (Map.Entry<String, Integer> entry : exact.entrySet()) {
+            int estimate = sketch.estimate(CountMinSketch.hash(entry.getKey()));
+            assertTrue(estimate >= entry.getValue(), entry.getKey() + " undercounted");
+            if (estimate - entry.getValue() > Math.E * total / 1024) {
+                tooHigh++;
+            }
+        }
+        assertTrue(tooHigh <= exact.size() / 50, tooHigh + " of " + exact.size() + " estimates beyond e * N / width");
+    }
+
+    @Test
+    void findsTheHeaviestKeysAmongNoise() {
+        HeavyHitters heavyHitters = new HeavyHitters(20, 6, BUCKET_MS, 4, 2048);
+        Random random = new Random(7);
+        long now = 1_000_000;
+        for (int i = 0; i < 50_000; i++) {
+            String key = random.nextInt(10) == 0 ? "#trend" + random.nextInt(5) : "noise" + random.nextInt(20_000);
+            heavyHitters.add(key, now + i);
+        }
+
+        List<HeavyHitters.Entry> top = heavyHitters.top(5, now + 50_000);
+        assertEquals(5, top.size());
+        for (HeavyHitters.Entry entry : top) {
+            assertTrue(entry.key().startsWith("#trend"), entry.key() + " is not a heavy hitter");
+            assertTrue(entry.count() >= 900 && entry.count() <= 1_100, entry.key() + " counted " + entry.count());
+        }
+    }
+
+    @Test
+    void countsAgeOutOfTheWindowOneBucketAtATime() {
+        HeavyHitters heavyHitters = new HeavyHitters(10, 3, BUCKET_MS, 4, 256);
+        for (int i = 0; i < 30; i++) {
+            heavyHitters.add("#old", 0);
+        }
+        for (int i = 0; i < 20; i++) {
+            heavyHitters.add("#new", 2 * BUCKET_MS);
+        }
+        assertEquals(List.of(new HeavyHitters.Entry("#old", 30), new HeavyHitters.Entry("#new", 20)),
+                heavyHitters.top(10, 2 * BUCKET_MS));
+
+        // The bucket #old was counted in leaves the three bucket window
+        assertEquals(List.of(new HeavyHitters.Entry("#new", 20)), heavyHitters.top(10, 3 * BUCKET_MS));
+        assertEquals(0, heavyHitters.estimate("#old", 3 * BUCKET_MS));
+        assertTrue(heavyHitters.top(10, 5 * BUCKET_MS).isEmpty());
+    }
+
+    @Test
+    void topicsAreHashtagsAndMeaningfulWords() {
+        assertEquals(List.of("#java", "spring", "release", "#springboot"),
+                SearchTokenizer.topics("The #Java and Spring release is here! @alice #SpringBoot 2025 release"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The listener container is a mock, so the tests see every subscribe and unsubscribe; sinks record what
+// their sender thread hands them
+class LiveChannelsTests {
+
+    private final RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+    private final MessageListener listener = mock(MessageListener.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LiveChannels<String> channels;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<RedisMessageListenerContainer> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(container);
+        channels = new LiveChannels<>("test.stream", "test:", listener, provider, meterRegistry, 60_000, 2);
+    }
+
+    @Test
+    void aUserIsSubscribedFromTheirFirstConnectionUntilTheirLastCloses() throws Exception {
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        LiveChannels.Connection<String> firstConnection = channels.open(1, first);
+        LiveChannels.Connection<String> secondConnection = channels.open(1, second);
+        verify(container, times(1)).addMessageListener(eq(listener), topic("test:1"));
+
+        channels.deliver(1, "hello");
+        assertEquals(List.of("hello"), first.awaitItems(1));
+        assertEquals(List.of("hello"), second.awaitItems(1));
+
+        channels.close(firstConnection);
+        assertEquals(LiveChannels.CloseReason.ENDED, first.closed.get(10, TimeUnit.SECONDS));
+        verify(container, never()).removeMessageListener(any(MessageListener.class), any(Topic.class));
+        assertTrue(channels.hasConnections(1));
+
+        channels.close(secondConnection);
+        second.closed.get(10, TimeUnit.SECONDS);
+        verify(container, times(1)).removeMessageListener(eq(listener), topic("test:1"));
+        assertFalse(channels.hasConnections(1));
+        assertEquals(0.0, meterRegistry.get("test.stream.open").gauge().value());
+    }
+
+    @Test
+    void aReconnectRightAfterTheLastCloseEndsUpSubscribed() throws Exception {
+        LiveChannels.Connection<String> connection = channels.open(2, new RecordingSink());
+        channels.close(connection);
+        RecordingSink reconnected = new RecordingSink();
+        channels.open(2, reconnected);
+
+        InOrder order = inOrder(container);
+        order.verify(container).addMessageListener(eq(listener), topic("test:2"));
+        order.verify(container).removeMessageListener(eq(listener), topic("test:2"));
+        order.verify(container).addMessageListener(eq(listener), topic("test:2"));
+        channels.deliver(2, "still live");
+        assertEquals(List.of("still live"), reconnected.awaitItems(1));
+    }
+
+    @Test
+    void aSlowSubscribeDoesNotHoldTheConnectionMap() throws Exception {
+        CountDownLatch subscribing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            subscribing.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(container).addMessageListener(eq(listener), topic("test:1"));
+
+        try {
+            CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> channels.open(1, new RecordingSink()));
+            assertTrue(subscribing.await(10, TimeUnit.SECONDS));
+            // 17 shares user 1's bin in the map's first table, a subscribe inside compute would block it
+            CompletableFuture.runAsync(() -> channels.open(17, new RecordingSink())).get(5, TimeUnit.SECONDS);
+            assertTrue(channels.hasConnections(17));
+            assertFalse(slow.isDone());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void aClientThatFallsBehindIsDisconnected() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        RecordingSink stuck = new RecordingSink() {
+            @Override
+            public void send(String item) throws Exception {
+                sending.countDown();
+                // Never returns until the sender thread is interrupted
+                new CountDownLatch(1).await();
+            }
+        };
+        channels.open(3, stuck);
+        channels.deliver(3, "taken by the sender");
+        assertTrue(sending.await(10, TimeUnit.SECONDS));
+
+        // Two fit in the queue, the third finds it full
+        channels.deliver(3, "queued 1");
+        channels.deliver(3, "queued 2");
+        channels.deliver(3, "overflow");
+        assertEquals(LiveChannels.CloseReason.SLOW_CLIENT, stuck.closed.get(10, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("test.stream.slow.disconnects").counter().count());
+        assertFalse(channels.hasConnections(3));
+        verify(container).removeMessageListener(eq(listener), topic("test:3"));
+    }
+
+    @Test
+    void anIdleConnectionGetsHeartbeats() throws Exception {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<RedisMessageListenerContainer> provider = mock(ObjectProvider.class);
+        LiveChannels<String> fastHeartbeats = new LiveChannels<>("test.heartbeat", "test:", listener, provider,
+                meterRegistry, 20, 2);
+        RecordingSink sink = new RecordingSink();
+        LiveChannels.Connection<String> connection = fastHeartbeats.open(4, sink);
+        await(() -> sink.heartbeats.get() >= 3);
+        fastHeartbeats.close(connection);
+        assertEquals(LiveChannels.CloseReason.ENDED, sink.closed.get(10, TimeUnit.SECONDS));
+    }
+
+    private static Topic topic(String name) {
+        return argThat((Topic topic) -> topic != null && name.equals(topic.getTopic()));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingSink implements LiveChannels.Sink<String> {
+        final List<String> items = new CopyOnWriteArrayList<>();
+        final AtomicInteger heartbeats = new AtomicInteger();
+        final CompletableFuture<LiveChannels.CloseReason> closed = new CompletableFuture<>();
+
+        @Override
+        public void send(String item) throws Exception {
+            items.add(item);
+        }
+
+        @Override
+        public void heartbeat() {
+            heartbeats.incrementAndGet();
+        }
+
+        @Override
+        public void close(LiveChannels.CloseReason reason) {
+            closed.complete(reason);
+        }
+
+        List<String> awaitItems(int count) throws InterruptedException {
+            await(() -> items.size() >= count);
+            return List.copyOf(items);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTests {
+
+    @Test
+    void postingListMatchesASortedSetWithOutOfOrderAndRepeatedIds() throws IOException {
+        PostingList list = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        // Mostly increasing Snowflake-like ids, a share of them late or replayed
+        long next = 1L << 40;
+        for (int i = 0; i < 20_000; i++) {
+            long id;
+            if (random.nextInt(5) == 0 && !expected.isEmpty()) {
+                id = expected.first() + (long) (random.nextDouble() * (expected.last() - expected.first()));
+            } else {
+                next += 1 + random.nextInt(1 << 22);
+                id = next;
+            }
+            assertEquals(expected.add(id), list.add(id));
+        }
+        assertEquals(expected.size(), list.size());
+        assertEquals(new ArrayList<>(expected.descendingSet()), drain(list));
+
+        PostingList.Cursor cursor = list.cursor();
+        for (long target = expected.last() + 1; ; target -= 1 + random.nextInt(1 << 26)) {
+            Long floor = expected.floor(target);
+            assertEquals(floor != null ? floor : PostingList.END, cursor.seek(target));
+            if (floor == null) {
+                break;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        list.writeTo(new DataOutputStream(bytes));
+        PostingList copy = PostingList.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(drain(list), drain(copy));
+    }
+
+    @Test
+    void usersAreFoundByAnyPrefixMostFollowedFirst() {
+        SearchIndex index = new SearchIndex();
+        index.addUser(1, "ada_lovelace", "Ada Lovelace", 10);
+        index.addUser(2, "adam", "Adam Smith", 500);
+        index.addUser(3, "grace", "Grace Hopper", 50);
+        index.addUser(4, "bob", "Ádám Kovács", 1);
+
+        assertEquals(List.of(2L, 1L, 4L), userIds(index.searchUsers("ad", 10)));
+        assertEquals(List.of(2L), userIds(index.searchUsers("@ADA", 1)));
+        assertEquals(List.of(3L), userIds(index.searchUsers("hop", 10)));
+        assertEquals(List.of(4L), userIds(index.searchUsers("kovacs", 10)));
+        assertTrue(index.searchUsers("z", 10).isEmpty());
+
+        index.refreshScores(userId -> userId == 1 ? 1_000 : 0);
+        assertEquals(List.of(1L, 2L, 4L), userIds(index.searchUsers("ad", 10)));
+    }
+
+    @Test
+    void trieTopMatchesABruteForceRanking() {
+        PrefixTrie trie = new PrefixTrie();
+        List<String> keys = new ArrayList<>();
+        List<Long> scores = new ArrayList<>();
+        Random random = new Random(7);
+        for (long id = 0; id < 5_000; id++) {
+            StringBuilder key = new StringBuilder();
+            for (int length = 1 + random.nextInt(6); length > 0; length--) {
+                key.append((char) ('a' + random.nextInt(4)));
+            }
+            long score = random.nextInt(100);
+            keys.add(key.toString());
+            scores.add(score);
+            trie.put(key.toString(), id, score);
+        }
+
+        for (String prefix : List.of("a", "ab", "cab", "dddd", "b")) {
+            assertTopMatches(trie, keys, id -> scores.get((int) id), prefix);
+        }
+    }
+
+    @Test
+    void rankingsStayExactWhileScoresAreRefreshedBranchByBranch() {
+        PrefixTrie trie = new PrefixTrie();
+        List<String> keys = new ArrayList<>();
+        Random random = new Random(11);
+        long[] scores = new long[3_000];
+        long[] refreshed = new long[scores.length];
+        for (int id = 0; id < scores.length; id++) {
+            StringBuilder key = new StringBuilder();
+            for (int length = 1 + random.nextInt(5); length > 0; length--) {
+                key.append((char) ('a' + random.nextInt(4)));
+            }
+            keys.add(key.toString());
+            scores[id] = random.nextInt(100);
+            refreshed[id] = random.nextInt(200);
+            trie.put(key.toString(), id, scores[id]);
+        }
+
+        // Queries run between branches, with some ids already re-scored and the rest not yet
+        for (char branch : trie.branches()) {
+            trie.refreshBranch(branch, id -> refreshed[(int) id]);
+            for (int id = 0; id < scores.length; id++) {
+                if (keys.get(id).charAt(0) == branch) {
+                    scores[id] = refreshed[id];
+                }
+            }
+            for (String prefix : List.of("", "a", "bc", "d")) {
+                assertTopMatches(trie, keys, id -> scores[(int) id], prefix);
+            }
+        }
+        trie.tightenBound();
+        assertTopMatches(trie, keys, id -> refreshed[(int) id], "");
+    }
+
+    @Test
+    void aPostingListCopyIsUntouchedByLaterAdds() {
+        PostingList list = new PostingList();
+        for (long id = 1_000; id < 1_000 + 5 * PostingList.BLOCK_SIZE; id += 2) {
+            list.add(id);
+        }
+        List<Long> before = drain(list);
+        PostingList copy = list.copy();
+
+        // Newer ids, and older ones rewriting sealed blocks and the tail
+        for (long id = 1_001; id < 1_000 + 6 * PostingList.BLOCK_SIZE; id += 2) {
+            list.add(id);
+        }
+        assertEquals(before, drain(copy));
+        assertEquals(before.size(), copy.size());
+        assertEquals(before.size() + 3 * PostingList.BLOCK_SIZE, list.size());
+    }
+
+    @Test
+    void aSnapshotIsWrittenWithoutHoldingTheIndexLock() throws Exception {
+        SearchIndex index = new SearchIndex();
+        index.addUser(1, "ada", "Ada Lovelace", 10);
+        index.addPost(100, "first post");
+
+        // An add during the write would wait forever if the write still held the read lock
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean addedDuringWrite = new AtomicBoolean();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream slowDisk = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (addedDuringWrite.compareAndSet(false, true)) {
+                    try {
+                        executor.submit(() -> index.addPost(200, "second post")).get(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                }
+                bytes.write(b);
+            }
+        };
+        try {
+            index.writeTo(new DataOutputStream(slowDisk));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(200L, 100L), index.searchPosts("post", Long.MAX_VALUE, 10));
+        SearchIndex copy = SearchIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(List.of(100L), copy.searchPosts("post", Long.MAX_VALUE, 10));
+        assertEquals(1, copy.postCount());
+        assertEquals(List.of(1L), userIds(copy.searchUsers("ada", 10)));
+    }
+
+    @Test
+    void postQueriesIntersectAllTermsNewestFirstAndSurviveASnapshot() throws IOException {
+        SearchIndex index = new SearchIndex();
+        List<Long> both = new ArrayList<>();
+        for (long postId = 1; postId <= 3_000; postId++) {
+            String text = (postId % 3 == 0 ? "Spring " : "") + (postId % 5 == 0 ? "#java " : "") + "post " + postId;
+            index.addPost(postId, text);
+            if (postId % 15 == 0) {
+                both.add(0, postId);
+            }
+        }
+        assertFalse(index.addPost(30, "Spring #java post 30"));
+
+        assertEquals(both.subList(0, 10), index.searchPosts("java spring", Long.MAX_VALUE, 10));
+        assertEquals(both.subList(10, 20), index.searchPosts("JAVA Spring", both.get(9), 10));
+        assertEquals(List.of(42L), index.searchPosts("spring 42", Long.MAX_VALUE, 10));
+        assertTrue(index.searchPosts("kotlin spring", Long.MAX_VALUE, 10).isEmpty());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        SearchIndex copy = SearchIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(both, copy.searchPosts("spring java", Long.MAX_VALUE, 1_000));
+        assertEquals(index.postCount(), copy.postCount());
+        assertEquals(3_000L, copy.maxPostId());
+    }
+
+    // Scores of top() equal a brute force ranking of every key under the prefix
+    private static void assertTopMatches(PrefixTrie trie, List<String> keys, LongUnaryOperator scores, String prefix) {
+        List<Long> expected = new ArrayList<>();
+        for (long id = 0; id < keys.size(); id++) {
+            if (keys.get((int) id).startsWith(prefix)) {
+                expected.add(id);
+            }
+        }
+        expected.sort((a, b) -> Long.compare(scores.applyAsLong(b), scores.applyAsLong(a)));
+        List<Long> top = trie.top(prefix, 20);
+        assertEquals(Math.min(20, expected.size()), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(scores.applyAsLong(expected.get(i)), scores.applyAsLong(top.get(i)), "prefix '" + prefix + "'");
+        }
+    }
+
+    private static List<Long> drain(PostingList list) {
+        List<Long> ids = new ArrayList<>();
+        PostingList.Cursor cursor = list.cursor();
+        for (long id = cursor.seek(Long.MAX_VALUE); id != PostingList.END; id = cursor.seek(id - 1)) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static List<Long> userIds(List<SearchIndex.UserHit> hits) {
+        return hits.stream().map(SearchIndex.UserHit::userId).toList();
+    }
+}
@@ -0,0 +1,131 @@
+package com.twitter_X_Recreation.twitter_X.utils;
+
+import com.twitter_X_Recreation.twitter_X.exceptions.ClockMovedBackwardsException;
+import com.twitter_X_Recreation.twitter_X.exceptions.WorkerIdLeaseExpiredException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTests {
+
+    private static final long START = SnowflakeIdGenerator.EPOCH_MS + 1_000_000L;
+
+    @Test
+    void idsAreUniqueAndIncreasingPerThreadUnderContention() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 5_000);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit((Callable<Boolean>) () -> {
+                    long previous = Long.MIN_VALUE;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        if (id <= previous || !seen.add(id)) {
+                            return false;
+                        }
+                        previous = id;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void idsEncodeTimestampAndWorker() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(513, 5_000, () -> START);
+        long id = generator.nextId();
+
+        assertEquals(START, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(513, SnowflakeIdGenerator.workerIdOf(id));
+        assertTrue(id >= SnowflakeIdGenerator.minIdAt(START));
+        assertTrue(id < SnowflakeIdGenerator.minIdAt(START + 1));
+    }
+
+    @Test
+    void sequenceOverflowCarriesIntoTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5_000, () -> START);
+        long previous = generator.nextId();
+        for (int i = 1; i < 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(START, SnowflakeIdGenerator.timestampOf(previous));
+
+        long carried = generator.nextId();
+        assertTrue(carried > previous);
+        assertEquals(START + 1, SnowflakeIdGenerator.timestampOf(carried));
+    }
+
+    @Test
+    void smallClockRollbackKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5_000, clock::get);
+        long before = generator.nextId();
+
+        clock.set(START - 1_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(START, SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void rollbackBeyondMaxDriftFails() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5_000, clock::get);
+        generator.nextId();
+
+        clock.set(START - 5_001);
+        assertThrows(ClockMovedBackwardsException.class, generator::nextId);
+
+        clock.set(START + 1);
+        assertEquals(START + 1, SnowflakeIdGenerator.timestampOf(generator.nextId()));
+    }
+
+    @Test
+    void generationStopsWhenTheWorkerIdLeaseRunsOut() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 5_000, clock::get);
+        generator.setLease(42, START + 25_000);
+        assertEquals(42, SnowflakeIdGenerator.workerIdOf(generator.nextId()));
+
+        clock.set(START + 25_000);
+        assertThrows(WorkerIdLeaseExpiredException.class, generator::nextId);
+
+        generator.extendLease(START + 50_000);
+        assertEquals(42, SnowflakeIdGenerator.workerIdOf(generator.nextId()));
+
+        generator.expireLease();
+        assertThrows(WorkerIdLeaseExpiredException.class, generator::nextId);
+        generator.setLease(7, START + 50_000);
+        assertEquals(7, SnowflakeIdGenerator.workerIdOf(generator.nextId()));
+    }
+
+    @Test
+    void workerIdOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, 5_000));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, 5_000));
+    }
+}
@@ -42,7 +42,7 @@ resource "aws_lb_target_group" "main_app" {
     unhealthy_threshold = 3
     timeout             = 5
     interval            = 30
-    path                = "/actuator/health"
+    path                = "/actuator/health/readiness"
     protocol            = "HTTP"
     matcher             = "200"
   }
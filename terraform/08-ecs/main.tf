@@ -177,7 +177,7 @@ resource "aws_ecs_task_definition" "main_app" {
     }
 
     healthCheck = {
-      command     = ["CMD-SHELL", "curl -f http://localhost:${var.app_port}/health || exit 1"]
+      command     = ["CMD-SHELL", "curl -f http://localhost:${var.app_port}/actuator/health/liveness || exit 1"]
       interval    = 30
       timeout     = 5
       retries     = 3